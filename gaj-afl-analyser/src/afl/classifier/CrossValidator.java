@@ -0,0 +1,194 @@
+package afl.classifier;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import afl.features.FeatureMatrix;
+import afl.features.FeaturesClassCollection;
+
+/**
+ * Runs cross-validation with the folds trained concurrently on a bounded pool
+ * of threads. Each fold trains its own new instance of the classifier, so the
+ * prototype classifier is never modified. The training data are shared
+ * read-only between the folds.
+ * <p/>
+ * The fold assignments are supplied explicitly, so that results are
+ * reproducible regardless of the number of threads.
+ */
+public class CrossValidator {
+
+    private final SubsetClassifier prototype;
+    private final FeatureMatrix features;
+    private final int[] classes;
+    private final int numThreads;
+
+    /**
+     * @param prototype - The classifier to be copied for each fold.
+     * @param data - The training data.
+     * @param numThreads - The maximum number of folds to train at once.
+     */
+    public CrossValidator(SubsetClassifier prototype, FeaturesClassCollection data, int numThreads) {
+        this(prototype, data.features, data.classes.dense(), numThreads);
+    }
+
+    /**
+     * @param prototype - The classifier to be copied for each fold.
+     * @param features - An NxF matrix of features.
+     * @param classes - An Nx1 vector of class labels in {0,1,...,C-1}.
+     * @param numThreads - The maximum number of folds to train at once.
+     */
+    public CrossValidator(SubsetClassifier prototype, FeatureMatrix features, int[] classes, int numThreads) {
+        if (numThreads <= 0)
+            throw new IllegalArgumentException("Number of threads must be positive: " + numThreads);
+        if (features.numRows() != classes.length)
+            throw new IllegalArgumentException(
+                    String.format("Expected %d class rows, got %d", features.numRows(), classes.length));
+        this.prototype = prototype;
+        this.features = features;
+        this.classes = classes;
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Uses one thread per available processor.
+     * 
+     * @param prototype - The classifier to be copied for each fold.
+     * @param data - The training data.
+     */
+    public CrossValidator(SubsetClassifier prototype, FeaturesClassCollection data) {
+        this(prototype, data, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Randomly partitions the data into folds of near-equal size.
+     * 
+     * @param numData - The number, N, of data.
+     * @param numFolds - The number of folds, K.
+     * @param seed - The seed of the random permutation.
+     * @return An Nx1 array of fold indices in {0,1,...,K-1}.
+     */
+    public static int[] kFoldAssignment(int numData, int numFolds, long seed) {
+        if (numFolds <= 0 || numFolds > numData)
+            throw new IllegalArgumentException(
+                    String.format("Expected 1 to %d folds, got %d", numData, numFolds));
+        int[] order = new int[numData];
+        for (int i = 0; i < numData; i++)
+            order[i] = i;
+        Random generator = new Random(seed);
+        for (int i = numData - 1; i > 0; i--) {
+            int j = generator.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        int[] folds = new int[numData];
+        for (int i = 0; i < numData; i++)
+            folds[order[i]] = i % numFolds;
+        return folds;
+    }
+
+    /**
+     * Assigns each distinct group label to its own fold, e.g. for
+     * leave-one-season-out cross-validation. Folds are numbered in ascending
+     * order of group label.
+     * 
+     * @param groups - An Nx1 array of group labels, e.g. the season of each match.
+     * @return An Nx1 array of fold indices in {0,1,...,K-1}, for K distinct groups.
+     */
+    public static int[] groupAssignment(int[] groups) {
+        Map<Integer, Integer> foldOfGroup = new TreeMap<>();
+        for (int group : groups)
+            foldOfGroup.put(group, 0);
+        int fold = 0;
+        for (Map.Entry<Integer, Integer> entry : foldOfGroup.entrySet())
+            entry.setValue(fold++);
+        int[] folds = new int[groups.length];
+        for (int i = 0; i < groups.length; i++)
+            folds[i] = foldOfGroup.get(groups[i]);
+        return folds;
+    }
+
+    /**
+     * Assigns each datum to its own fold.
+     * 
+     * @param numData - The number, N, of data.
+     * @return An Nx1 array of fold indices in {0,1,...,N-1}.
+     */
+    public static int[] leaveOneOutAssignment(int numData) {
+        int[] folds = new int[numData];
+        for (int i = 0; i < numData; i++)
+            folds[i] = i;
+        return folds;
+    }
+
+    /**
+     * Trains a new classifier on the data outside of each fold, and measures
+     * it on the data inside that fold.
+     * 
+     * @param folds - An Nx1 array of fold indices in {0,1,...,K-1}.
+     * @param maxIterations - The maximum number of training updates per fold.
+     * @param minDeltaScore - The minimum improvement in training score per update.
+     * @return A Kx1 array of the testing statistics of each fold.
+     */
+    public Stats[] crossValidate(int[] folds, int maxIterations, double minDeltaScore) {
+        if (folds.length != classes.length)
+            throw new IllegalArgumentException(
+                    String.format("Expected %d fold indices, got %d", classes.length, folds.length));
+        int numFolds = 0;
+        for (int fold : folds) {
+            if (fold < 0)
+                throw new IllegalArgumentException("Invalid fold index: " + fold);
+            numFolds = Math.max(numFolds, fold + 1);
+        }
+        List<Set<Integer>> leaveOuts = new ArrayList<>(numFolds);
+        for (int fold = 0; fold < numFolds; fold++)
+            leaveOuts.add(new HashSet<Integer>());
+        for (int i = 0; i < folds.length; i++)
+            leaveOuts.get(folds[i]).add(i);
+        for (int fold = 0; fold < numFolds; fold++) {
+            if (leaveOuts.get(fold).isEmpty())
+                throw new IllegalArgumentException("Empty fold: " + fold);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(numThreads, numFolds));
+        try {
+            List<Future<Stats>> results = new ArrayList<>(numFolds);
+            for (Set<Integer> leaveOut : leaveOuts)
+                results.add(executor.submit(() -> trainFold(leaveOut, maxIterations, minDeltaScore)));
+            Stats[] multiStats = new Stats[numFolds];
+            for (int fold = 0; fold < numFolds; fold++)
+                multiStats[fold] = results.get(fold).get();
+            return multiStats;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cross-validation was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Stats trainFold(Collection<Integer> leaveOut, int maxIterations, double minDeltaScore) {
+        SubsetClassifier classifier = prototype.newInstance();
+        double training_score = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < maxIterations; i++) {
+            double old_training_score = training_score;
+            training_score = classifier.updateExcluding(features, classes, leaveOut);
+            if (training_score - old_training_score <= minDeltaScore)
+                break;
+        }
+        return classifier.statistics(features, classes, leaveOut);
+    }
+
+}
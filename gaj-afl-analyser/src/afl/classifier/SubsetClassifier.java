@@ -5,6 +5,15 @@ import afl.features.FeatureMatrix;
 
 public interface SubsetClassifier extends Classifier {
 
+    /**
+     * Creates a classifier with the same configuration as this one,
+     * but with default parameters, e.g. for training cross-validation
+     * folds concurrently.
+     * 
+     * @return The new, untrained classifier.
+     */
+    SubsetClassifier newInstance();
+
     /**
      * Performs one update of the classifier parameters
      * from the supplied training data.
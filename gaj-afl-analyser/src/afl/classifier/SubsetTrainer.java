@@ -2,10 +2,8 @@ package afl.classifier;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
-import java.util.Set;
 import afl.features.FeatureVector;
 import afl.features.FeaturesClassCollection;
 
@@ -19,22 +17,59 @@ public class SubsetTrainer extends Trainer {
         super(classifier, trainingData);
     }
 
+    /**
+     * Cross-validates by leaving out each training datum in turn, and prints
+     * the averaged testing statistics.
+     * 
+     * @param maxIterations - The maximum number of training updates per fold.
+     * @param minDeltaScore - The minimum improvement in training score per update.
+     */
     public void crossValidationLeaveOneOut(int maxIterations, double minDeltaScore) {
         System.out.printf("LeaveOneOut...\n");
         final int N = trainingFeatures.numRows();
-        Stats[] multiStats = new Stats[N];
-        Set<Integer> leaveOut = new HashSet<Integer>();
-        for (int d = 0; d < N; d++) {
-            leaveOut.add(d);
-            classifier.resetParameters();
-            trainExclusive(maxIterations, minDeltaScore, leaveOut);
-            // Stats trainingStats = ((SubsetClassifier)classifier).statisticsExcluding(trainingFeatures, trainingClasses, leaveOut);
-            Stats testingStats = ((SubsetClassifier) classifier).statistics(trainingFeatures, trainingClasses, leaveOut);
-            multiStats[d] = testingStats;
-            // System.out.printf("training: %9.6f [%5.3f], testing: %9.6f [%5.3f]\n",
-            // trainingStats.meanScore, trainingStats.meanError, testingStats.meanScore, testingStats.meanError);
-            leaveOut.remove(d);
-        }
+        crossValidate(CrossValidator.leaveOneOutAssignment(N), maxIterations, minDeltaScore);
+    }
+
+    /**
+     * Cross-validates over a random partition of the training data into folds
+     * of near-equal size, and prints the averaged testing statistics.
+     * 
+     * @param numFolds - The number of folds.
+     * @param seed - The seed of the random fold assignment.
+     * @param maxIterations - The maximum number of training updates per fold.
+     * @param minDeltaScore - The minimum improvement in training score per update.
+     */
+    public void crossValidationKFold(int numFolds, long seed, int maxIterations, double minDeltaScore) {
+        System.out.printf("%d-fold cross-validation...\n", numFolds);
+        final int N = trainingFeatures.numRows();
+        crossValidate(CrossValidator.kFoldAssignment(N, numFolds, seed), maxIterations, minDeltaScore);
+    }
+
+    /**
+     * Cross-validates by leaving out each group of training data in turn, e.g.
+     * each season, and prints the averaged testing statistics.
+     * 
+     * @param groups - The group label (e.g. season) of each training datum.
+     * @param maxIterations - The maximum number of training updates per fold.
+     * @param minDeltaScore - The minimum improvement in training score per update.
+     */
+    public void crossValidationLeaveGroupOut(int[] groups, int maxIterations, double minDeltaScore) {
+        int[] folds = CrossValidator.groupAssignment(groups);
+        int numFolds = 0;
+        for (int fold : folds)
+            numFolds = Math.max(numFolds, fold + 1);
+        System.out.printf("Leave-one-group-out cross-validation over %d groups...\n", numFolds);
+        crossValidate(folds, maxIterations, minDeltaScore);
+    }
+
+    /**
+     * Trains the folds concurrently, one per available processor, without
+     * modifying the shared classifier.
+     */
+    private void crossValidate(int[] folds, int maxIterations, double minDeltaScore) {
+        CrossValidator validator = new CrossValidator((SubsetClassifier) classifier,
+                trainingFeatures, trainingClasses, Runtime.getRuntime().availableProcessors());
+        Stats[] multiStats = validator.crossValidate(folds, maxIterations, minDeltaScore);
         System.out.printf("Micro Average: %s\n", Stats.microAverage(multiStats));
         Stats macroAverage = Stats.macroAverage(multiStats);
         System.out.printf("Macro Average: %s\n", macroAverage);
@@ -43,18 +78,6 @@ public class SubsetTrainer extends Trainer {
                 macroAverage.meanError - 2 * devMeanError, macroAverage.meanError + 2 * devMeanError);
     }
 
-    private int trainExclusive(int maxIterations, double minDeltaScore, Collection<Integer> leaveOut) {
-        double training_score = Double.NEGATIVE_INFINITY;
-        int i = 0;
-        for (; i < maxIterations; i++) {
-            double old_training_score = training_score;
-            training_score = ((SubsetClassifier) classifier).updateExcluding(trainingFeatures, trainingClasses, leaveOut);
-            if (training_score - old_training_score <= minDeltaScore)
-                break;
-        }
-        return i;
-    }
-
     private int trainInclusive(int maxIterations, double minDeltaScore, Collection<Integer> sample) {
         double training_score = Double.NEGATIVE_INFINITY;
         int i = 0;
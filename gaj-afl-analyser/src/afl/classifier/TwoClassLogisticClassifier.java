@@ -20,6 +20,12 @@ public class TwoClassLogisticClassifier implements SubsetClassifier {
         lambda = new SparseFeatureVector(numFeatures);
     }
 
+    public SubsetClassifier newInstance() {
+        TwoClassLogisticClassifier classifier = new TwoClassLogisticClassifier();
+        classifier.stepSize = stepSize;
+        return classifier;
+    }
+
     public int numClasses() {
         return 2;
     }
@@ -46,18 +52,17 @@ public class TwoClassLogisticClassifier implements SubsetClassifier {
             throw new IllegalArgumentException(
                     String.format("Expected %d class rows, got %d",
                             N, classes.length));
-        FeatureVector gradient = new DenseFeatureVector(F);
+        double[] gradient = new double[F];
         double score = 0.0;
         for (int i = 0; i < N; i++) {
             FeatureVector x = features.get(i);
             int c = classes[i];
             double p0 = p0(x);
             score += score(p0, c);
-            gradient = gradient.add(scoreGradient(p0, x, c));
+            x.addScaledTo(scoreGradientWeight(p0, c), gradient);
         }
         score /= N;
-        gradient = gradient.scale(1.0 / N);
-        return update(score, gradient);
+        return update(score, new DenseFeatureVector(gradient).scale(1.0 / N));
     }
 
     public double update(FeatureMatrix features, int[] classes, Collection<Integer> subset) {
@@ -71,7 +76,7 @@ public class TwoClassLogisticClassifier implements SubsetClassifier {
         if (N != classes.length)
             throw new IllegalArgumentException(
                     String.format("Expected %d class rows, got %d", N, classes.length));
-        FeatureVector gradient = new DenseFeatureVector(F);
+        double[] gradient = new double[F];
         double score = 0.0;
         final int num = subset.size();
         for (int i : subset) {
@@ -79,11 +84,10 @@ public class TwoClassLogisticClassifier implements SubsetClassifier {
             int c = classes[i];
             double p0 = p0(x);
             score += score(p0, c);
-            gradient = gradient.add(scoreGradient(p0, x, c));
+            x.addScaledTo(scoreGradientWeight(p0, c), gradient);
         }
         score /= num;
-        gradient = gradient.scale(1.0 / num);
-        return update(score, gradient);
+        return update(score, new DenseFeatureVector(gradient).scale(1.0 / num));
     }
 
     public double updateExcluding(FeatureMatrix features, int[] classes, Collection<Integer> leaveOut) {
@@ -97,7 +101,7 @@ public class TwoClassLogisticClassifier implements SubsetClassifier {
         if (N != classes.length)
             throw new IllegalArgumentException(
                     String.format("Expected %d class rows, got %d", N, classes.length));
-        FeatureVector gradient = new DenseFeatureVector(F);
+        double[] gradient = new double[F];
         double score = 0.0;
         int num = 0;
         for (int i = 0; i < N; i++) {
@@ -108,11 +112,10 @@ public class TwoClassLogisticClassifier implements SubsetClassifier {
             int c = classes[i];
             double p0 = p0(x);
             score += score(p0, c);
-            gradient = gradient.add(scoreGradient(p0, x, c));
+            x.addScaledTo(scoreGradientWeight(p0, c), gradient);
         }
         score /= num;
-        gradient = gradient.scale(1.0 / num);
-        return update(score, gradient);
+        return update(score, new DenseFeatureVector(gradient).scale(1.0 / num));
     }
 
     /**
@@ -170,9 +173,8 @@ public class TwoClassLogisticClassifier implements SubsetClassifier {
 
     /**
      * @param p0 - The class-0 posterior probability, P(0|x).
-     * @param x - The Fx1 feature vector.
      * @param c - The true class index of the feature vector x.
-     * @return The gradient of the log of the class-posterior probability
+     * @return The weight w such that w * x is the gradient of the log of the class-posterior probability
      * with respect to the classifier parameters, namely d [log P(c|x)] / d lambda. <br/>
      * As a special extension of the two-class case, if c > 1 then
      * the average of the class-0 and class-1 score gradients is returned,
@@ -181,15 +183,13 @@ public class TwoClassLogisticClassifier implements SubsetClassifier {
      * Note that d p0 / d lambda = p0 * p1 * x = > d [log p0] / d lambda = p1 * x. <br/>
      * Thus, d [log p1] / d lambda = 1/p1 * d (1-p0) / d lambda = -p0 * x.
      */
-    private FeatureVector scoreGradient(double p0, FeatureVector x, int c) {
-        double weight;
+    private double scoreGradientWeight(double p0, int c) {
         if (c == 0)
-            weight = 1 - p0; // = p1.
+            return 1 - p0; // = p1.
         else if (c == 1)
-            weight = -p0;
+            return -p0;
         else
-            weight = 0.5 - p0; // = [p1 - p0] / 2.
-        return x.scale(weight);
+            return 0.5 - p0; // = [p1 - p0] / 2.
     }
 
     /**
@@ -210,7 +210,7 @@ public class TwoClassLogisticClassifier implements SubsetClassifier {
         stats.numData = 1;
         double p0 = p0(features);
         stats.meanScore = score(p0, klass);
-        stats.meanError = errorRate(p0(features), klass);
+        stats.meanError = errorRate(p0, klass);
         return stats;
     }
 
@@ -227,10 +227,11 @@ public class TwoClassLogisticClassifier implements SubsetClassifier {
         double sumSqScore = 0.0, sumSqError = 0.0;
         final int N = features.numRows();
         for (int i = 0; i < N; i++) {
-            double score = score(p0(features.get(i)), classes[i]);
+            double p0 = p0(features.get(i));
+            double score = score(p0, classes[i]);
             sumScore += score;
             sumSqScore += score * score;
-            double error = errorRate(p0(features.get(i)), classes[i]);
+            double error = errorRate(p0, classes[i]);
             sumError += error;
             sumSqError += error * error;
         }
@@ -277,10 +278,11 @@ public class TwoClassLogisticClassifier implements SubsetClassifier {
         double sumSqScore = 0.0, sumSqError = 0.0;
         final int N = subset.size();
         for (int i : subset) {
-            double score = score(p0(features.get(i)), classes[i]);
+            double p0 = p0(features.get(i));
+            double score = score(p0, classes[i]);
             sumScore += score;
             sumSqScore += score * score;
-            double error = errorRate(p0(features.get(i)), classes[i]);
+            double error = errorRate(p0, classes[i]);
             sumError += error;
             sumSqError += error * error;
         }
@@ -310,10 +312,11 @@ public class TwoClassLogisticClassifier implements SubsetClassifier {
             if (leaveOut.contains(i))
                 continue;
             n++;
-            double score = score(p0(features.get(i)), classes[i]);
+            double p0 = p0(features.get(i));
+            double score = score(p0, classes[i]);
             sumScore += score;
             sumSqScore += score * score;
-            double error = errorRate(p0(features.get(i)), classes[i]);
+            double error = errorRate(p0, classes[i]);
             sumError += error;
             sumSqError += error * error;
         }
@@ -1,5 +1,7 @@
 package afl.features;
 
+import java.util.NoSuchElementException;
+
 public class DenseFeatureVector implements FeatureVector {
 
     private final double[] values;
@@ -46,6 +48,35 @@ public class DenseFeatureVector implements FeatureVector {
         return values;
     }
 
+    public FeatureCursor cursor() {
+        return new FeatureCursor() {
+            private int pos = -1;
+
+            public boolean hasNext() {
+                return pos + 1 < values.length;
+            }
+
+            public int next() {
+                if (!hasNext())
+                    throw new NoSuchElementException("End of traversal");
+                return ++pos;
+            }
+
+            public double value() {
+                return values[pos];
+            }
+        };
+    }
+
+    public void addScaledTo(double multiplier, double[] data) {
+        if (values.length != data.length)
+            throw new IllegalArgumentException(
+                    String.format("Expected length %d, got %d",
+                            values.length, data.length));
+        for (int i = 0; i < values.length; i++)
+            data[i] += multiplier * values[i];
+    }
+
     public double dot(FeatureVector vector) {
         assert values.length == vector.length();
         if (vector.isSparse())
@@ -0,0 +1,27 @@
+package afl.features;
+
+/**
+ * Traverses the (possibly) non-zero elements of a feature vector in
+ * ascending order of position. The cursor holds all traversal state,
+ * so any number of cursors may scan the same vector at once.
+ */
+public interface FeatureCursor {
+
+    /**
+     * @return True (or false) if there is (or is not) another element.
+     */
+    boolean hasNext();
+
+    /**
+     * Advances the cursor to the next element.
+     * 
+     * @return The position of the element in the feature vector.
+     */
+    int next();
+
+    /**
+     * @return The value of the current element.
+     */
+    double value();
+
+}
@@ -28,6 +28,20 @@ public interface FeatureVector {
      */
     double[] dense();
 
+    /**
+     * @return A new cursor over the (possibly) non-zero features.
+     */
+    FeatureCursor cursor();
+
+    /**
+     * Adds the scaled features to a dense array, i.e. computes
+     * data += multiplier * features.
+     * 
+     * @param multiplier - The value by which to scale the features.
+     * @param data - The dense array to be modified.
+     */
+    void addScaledTo(double multiplier, double[] data);
+
     /**
      *
      * @param multiplier - The value by which to scale the features.
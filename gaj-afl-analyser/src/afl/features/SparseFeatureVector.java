@@ -1,12 +1,19 @@
 package afl.features;
 
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Holds the non-zero features in ascending order of position.
+ * <p/>
+ * The vector is immutable, and so may be read concurrently by any number
+ * of threads. Use a {@link FeatureCursor} for sequential scans.
+ */
 public class SparseFeatureVector implements FeatureVector {
 
     private final int length;
     private final int[] indices;
     private final double[] values;
-    private int index_pos = 0;
-    private int index = 0;
 
     /**
      * Constructs a sparse representation of the features.
@@ -29,26 +36,18 @@ public class SparseFeatureVector implements FeatureVector {
                 values[idx++] = v;
             }
         }
-        if (numNonSparse > 0) {
-            index_pos = 0;
-            index = indices[index_pos];
-        }
     }
 
     /**
      * Constructs a sparse representation of the features.
      * 
-     * @param indices - The array of sparse indices.
+     * @param indices - The array of strictly ascending sparse indices.
      * @param values - The array of sparse values.
      */
     public SparseFeatureVector(final int length, final int[] indices, final double[] values) {
         this.length = length;
         this.indices = indices;
         this.values = values;
-        if (indices.length > 0) {
-            index_pos = 0;
-            index = indices[index_pos];
-        }
     }
 
     public SparseFeatureVector(FeatureVector... features) {
@@ -86,8 +85,6 @@ public class SparseFeatureVector implements FeatureVector {
             }
             offset += f.length();
         }
-        index_pos = 0;
-        index = indices[index_pos];
     }
 
     /**
@@ -103,25 +100,39 @@ public class SparseFeatureVector implements FeatureVector {
     }
 
     public double get(int index) {
-        /*
-         * for (int i = 0; i < indices.length; i++)
-         * if (indices[i] == index)
-         * return values[i];
-         * else if (indices[i] > index)
-         * break;
-         * return 0.0;
-         */
         if (index < 0 || index >= length)
             throw new ArrayIndexOutOfBoundsException("" + index);
-        while (index > this.index && index_pos < indices.length - 1)
-            this.index = indices[++index_pos];
-        if (index > this.index)
-            return 0.0; // Sparse on right.
-        while (index < this.index && index_pos > 0)
-            this.index = indices[--index_pos];
-        if (index == this.index)
-            return values[index_pos];
-        return 0.0; // Sparse region.
+        int pos = Arrays.binarySearch(indices, index);
+        return (pos >= 0) ? values[pos] : 0.0; // Otherwise sparse region.
+    }
+
+    public FeatureCursor cursor() {
+        return new FeatureCursor() {
+            private int pos = -1;
+
+            public boolean hasNext() {
+                return pos + 1 < indices.length;
+            }
+
+            public int next() {
+                if (!hasNext())
+                    throw new NoSuchElementException("End of traversal");
+                return indices[++pos];
+            }
+
+            public double value() {
+                return values[pos];
+            }
+        };
+    }
+
+    public void addScaledTo(double multiplier, double[] data) {
+        if (length != data.length)
+            throw new IllegalArgumentException(
+                    String.format("Expected length %d, got %d",
+                            length, data.length));
+        for (int i = 0; i < indices.length; i++)
+            data[indices[i]] += multiplier * values[i];
     }
 
     public boolean isSparse() {
@@ -0,0 +1,130 @@
+package afl.classifier.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import afl.classifier.CrossValidator;
+import afl.classifier.Stats;
+import afl.classifier.TwoClassLogisticClassifier;
+import afl.features.AddableFeatureMatrix;
+import afl.features.DenseFeatureVector;
+import afl.features.FeatureMatrix;
+import afl.features.SparseFeatureVector;
+
+public class CrossValidatorTest {
+
+    private static final int NUM_DATA = 60;
+
+    /**
+     * Generates noisy two-class data with features (1, u, 0, v, w), where w
+     * is mostly zero. The rows are alternately dense and sparse, so that
+     * both representations are shared between the validation threads.
+     */
+    private static FeatureMatrix features(int[] classes) {
+        Random random = new Random(7);
+        AddableFeatureMatrix features = new AddableFeatureMatrix();
+        for (int i = 0; i < classes.length; i++) {
+            double u = random.nextGaussian(), v = random.nextGaussian();
+            double w = (random.nextInt(3) == 0) ? random.nextGaussian() : 0;
+            classes[i] = (u - 0.5 * v + 0.5 * w + 0.5 * random.nextGaussian() > 0) ? 1 : 0;
+            double[] row = { 1, u, 0, v, w };
+            features.add((i % 2 == 0) ? new DenseFeatureVector(row) : new SparseFeatureVector(row));
+        }
+        return features;
+    }
+
+    private static void assertEqualStats(Stats expected, Stats actual) {
+        assertEquals(expected.numData, actual.numData);
+        assertEquals(expected.meanScore, actual.meanScore, 0);
+        assertEquals(expected.meanError, actual.meanError, 0);
+        assertEquals(expected.varScore, actual.varScore, 0);
+        assertEquals(expected.varError, actual.varError, 0);
+    }
+
+    @Test
+    public void testThreadIndependence() {
+        System.out.println("Testing cross-validation threads...");
+        final int[] classes = new int[NUM_DATA];
+        final FeatureMatrix features = features(classes);
+        final TwoClassLogisticClassifier prototype = new TwoClassLogisticClassifier();
+        for (int[] folds : new int[][] {
+                CrossValidator.kFoldAssignment(NUM_DATA, 5, 3),
+                CrossValidator.leaveOneOutAssignment(NUM_DATA) }) {
+            Stats[] serial = new CrossValidator(prototype, features, classes, 1).crossValidate(folds, 20, 1e-6);
+            Stats[] parallel = new CrossValidator(prototype, features, classes, 8).crossValidate(folds, 20, 1e-6);
+            assertEquals(serial.length, parallel.length);
+            int numData = 0;
+            for (int fold = 0; fold < serial.length; fold++) {
+                assertEqualStats(serial[fold], parallel[fold]);
+                numData += serial[fold].numData;
+            }
+            // Every datum is tested exactly once.
+            assertEquals(NUM_DATA, numData);
+        }
+        System.out.println("Tested cross-validation threads!");
+    }
+
+    @Test
+    public void testKFoldAssignment() {
+        System.out.println("Testing k-fold assignment...");
+        final int[] folds = CrossValidator.kFoldAssignment(23, 5, 11);
+        int[] sizes = new int[5];
+        for (int fold : folds)
+            sizes[fold]++;
+        Arrays.sort(sizes);
+        assertArrayEquals(new int[] { 4, 4, 5, 5, 5 }, sizes);
+        assertArrayEquals(folds, CrossValidator.kFoldAssignment(23, 5, 11));
+        assertFalse(Arrays.equals(folds, CrossValidator.kFoldAssignment(23, 5, 12)));
+        // Every datum in its own fold.
+        int[] loo = CrossValidator.kFoldAssignment(4, 4, 0);
+        Arrays.sort(loo);
+        assertArrayEquals(CrossValidator.leaveOneOutAssignment(4), loo);
+        for (int numFolds : new int[] { 0, 24 }) {
+            try {
+                CrossValidator.kFoldAssignment(23, numFolds, 11);
+                fail("Expected " + numFolds + " folds to be rejected");
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+        System.out.println("Tested k-fold assignment!");
+    }
+
+    @Test
+    public void testGroupAssignment() {
+        System.out.println("Testing group assignment...");
+        assertArrayEquals(new int[] { 2, 0, 2, 1, 0 },
+                CrossValidator.groupAssignment(new int[] { 2010, 2008, 2010, 2009, 2008 }));
+        assertArrayEquals(new int[] { 1, 0, 0 }, CrossValidator.groupAssignment(new int[] { 5, -3, -3 }));
+        assertArrayEquals(new int[0], CrossValidator.groupAssignment(new int[0]));
+        System.out.println("Tested group assignment!");
+    }
+
+    @Test
+    public void testInvalidFolds() {
+        System.out.println("Testing invalid folds...");
+        final int[] classes = new int[NUM_DATA];
+        final CrossValidator validator = new CrossValidator(new TwoClassLogisticClassifier(), features(classes),
+                classes, 2);
+        final int[] empty = new int[NUM_DATA];
+        for (int i = 0; i < NUM_DATA; i++)
+            empty[i] = 2 * (i % 2); // Fold 1 is empty.
+        final int[] negative = new int[NUM_DATA];
+        negative[3] = -1;
+        for (int[] folds : new int[][] { empty, negative, new int[NUM_DATA - 1] }) {
+            try {
+                validator.crossValidate(folds, 5, 1e-6);
+                fail("Expected invalid folds to be rejected");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage() != null);
+            }
+        }
+        System.out.println("Tested invalid folds!");
+    }
+
+}
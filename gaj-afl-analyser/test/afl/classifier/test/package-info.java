@@ -0,0 +1,4 @@
+/**
+ * Unit tests for the match outcome classifiers.
+ */
+package afl.classifier.test;
\ No newline at end of file
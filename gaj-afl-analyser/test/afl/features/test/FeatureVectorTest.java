@@ -0,0 +1,197 @@
+package afl.features.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import afl.features.DenseFeatureVector;
+import afl.features.FeatureCursor;
+import afl.features.FeatureVector;
+import afl.features.SparseFeatureVector;
+
+public class FeatureVectorTest {
+
+    private static final double[] FEATURES = { 0, 1.5, 0, 0, -2, 0, 3 };
+
+    /** The vector types, each holding the same features. */
+    private static FeatureVector[] vectors() {
+        return new FeatureVector[] {
+                new DenseFeatureVector(FEATURES.clone()),
+                new SparseFeatureVector(FEATURES),
+                new SparseFeatureVector(FEATURES.length,
+                        new int[] { 1, 4, 6 }, new double[] { 1.5, -2, 3 }),
+        };
+    }
+
+    /**
+     * Checks that the cursor visits every non-zero feature exactly once,
+     * in ascending order of position.
+     */
+    private static void assertTraversal(double[] expected, FeatureVector vector) {
+        double[] traversed = new double[expected.length];
+        FeatureCursor cursor = vector.cursor();
+        int prev = -1;
+        while (cursor.hasNext()) {
+            int pos = cursor.next();
+            assertTrue(pos > prev);
+            prev = pos;
+            traversed[pos] = cursor.value();
+        }
+        assertArrayEquals(expected, traversed, 0);
+        try {
+            cursor.next();
+            fail("Expected the end of traversal to be detected");
+        } catch (NoSuchElementException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testGet() {
+        System.out.println("Testing feature lookup...");
+        for (FeatureVector vector : vectors()) {
+            assertEquals(FEATURES.length, vector.length());
+            for (int i = 0; i < FEATURES.length; i++)
+                assertEquals(FEATURES[i], vector.get(i), 0);
+            assertArrayEquals(FEATURES, vector.dense(), 0);
+            for (int index : new int[] { -1, FEATURES.length }) {
+                try {
+                    vector.get(index);
+                    fail("Expected an out-of-range index to be rejected");
+                } catch (ArrayIndexOutOfBoundsException e) {
+                    // Expected.
+                }
+            }
+        }
+        // An all-zero sparse vector has nothing to search.
+        FeatureVector zero = new SparseFeatureVector(3);
+        for (int i = 0; i < 3; i++)
+            assertEquals(0, zero.get(i), 0);
+        System.out.println("Tested feature lookup!");
+    }
+
+    @Test
+    public void testCursor() {
+        System.out.println("Testing feature cursors...");
+        for (FeatureVector vector : vectors()) {
+            assertTraversal(FEATURES, vector);
+            // Cursors are independent of each other.
+            FeatureCursor first = vector.cursor();
+            FeatureCursor second = vector.cursor();
+            assertEquals(first.next(), second.next());
+            int pos = first.next();
+            assertEquals(FEATURES[pos], first.value(), 0);
+            assertEquals(FEATURES[second.next()], second.value(), 0);
+        }
+        assertFalse(new SparseFeatureVector(3).cursor().hasNext());
+        assertFalse(new DenseFeatureVector(0).cursor().hasNext());
+        System.out.println("Tested feature cursors!");
+    }
+
+    @Test
+    public void testConcurrentReads() throws InterruptedException {
+        System.out.println("Testing concurrent feature reads...");
+        final int numThreads = 8;
+        final Random random = new Random(11);
+        final double[] features = new double[5000];
+        for (int i = 0; i < features.length; i++)
+            features[i] = (random.nextInt(10) == 0) ? random.nextGaussian() : 0;
+        // The shared vector is only ever read, by every thread at once.
+        final FeatureVector shared = new SparseFeatureVector(features);
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int t = 0; t < numThreads; t++) {
+                final int seed = t;
+                results.add(executor.submit((Callable<Void>) () -> {
+                    final Random order = new Random(seed);
+                    start.await();
+                    for (int pass = 0; pass < 20; pass++) {
+                        for (int i = 0; i < features.length; i++) {
+                            final int index = order.nextInt(features.length);
+                            assertEquals(features[index], shared.get(index), 0);
+                        }
+                        assertTraversal(features, shared);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    throw new AssertionError("Concurrent read failed", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        System.out.println("Tested concurrent feature reads!");
+    }
+
+    @Test
+    public void testAddScaledTo() {
+        System.out.println("Testing scaled addition...");
+        for (FeatureVector vector : vectors()) {
+            double[] data = { 1, 1, 1, 1, 1, 1, 1 };
+            vector.addScaledTo(2, data);
+            vector.addScaledTo(-0.5, data);
+            for (int i = 0; i < FEATURES.length; i++)
+                assertEquals(1 + 1.5 * FEATURES[i], data[i], 0);
+            for (int length : new int[] { FEATURES.length - 1, FEATURES.length + 1 }) {
+                double[] wrong = new double[length];
+                try {
+                    vector.addScaledTo(1, wrong);
+                    fail("Expected a mismatched array length to be rejected");
+                } catch (IllegalArgumentException e) {
+                    // Expected.
+                }
+                assertArrayEquals(new double[length], wrong, 0);
+            }
+        }
+        System.out.println("Tested scaled addition!");
+    }
+
+    @Test
+    public void testConcatenation() {
+        System.out.println("Testing feature concatenation...");
+        FeatureVector[] parts = {
+                new DenseFeatureVector(new double[] { 0, 1.5 }),
+                new SparseFeatureVector(0),
+                new SparseFeatureVector(new double[] { 0, 0, -2 }),
+                new DenseFeatureVector(new double[] { 0, 3 }),
+        };
+        FeatureVector joined = new SparseFeatureVector(parts);
+        assertEquals(FEATURES.length, joined.length());
+        for (int i = 0; i < FEATURES.length; i++)
+            assertEquals(FEATURES[i], joined.get(i), 0);
+        assertTraversal(FEATURES, joined);
+        // All-empty and all-zero inputs give an all-zero vector.
+        FeatureVector empty = new SparseFeatureVector(new SparseFeatureVector(0),
+                new DenseFeatureVector(0));
+        assertEquals(0, empty.length());
+        assertFalse(empty.cursor().hasNext());
+        assertEquals(0, new SparseFeatureVector().length());
+        FeatureVector zero = new SparseFeatureVector(new SparseFeatureVector(2),
+                new DenseFeatureVector(3));
+        assertEquals(5, zero.length());
+        assertArrayEquals(new double[5], zero.dense(), 0);
+        assertFalse(zero.cursor().hasNext());
+        System.out.println("Tested feature concatenation!");
+    }
+
+}
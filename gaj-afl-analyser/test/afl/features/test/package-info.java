@@ -0,0 +1,4 @@
+/**
+ * Unit tests for the feature vectors.
+ */
+package afl.features.test;
@@ -0,0 +1,86 @@
+package gaj.model.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import gaj.analysis.model.prob.discriminative.DiscriminativeProbs;
+import gaj.analysis.model.prob.discriminative.impl.DiscriminativeLogisticClassifier;
+import gaj.analysis.model.score.Datum;
+import gaj.analysis.numeric.matrix.DataMatrix;
+import gaj.analysis.numeric.matrix.impl.MatrixFactory;
+import gaj.analysis.numeric.vector.DataVector;
+
+/**
+ * Benchmarks the classification of feature vectors by a logistic
+ * classifier, one case at a time and as a whole feature matrix.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassifierBenchmark {
+
+    private static final int NUM_CASES = 256;
+
+    @Param({ "2", "10" })
+    public int numClasses;
+
+    @Param({ "100", "10000" })
+    public int numFeatures;
+
+    @Param({ "0.01", "0.1", "1" })
+    public double density;
+
+    private DiscriminativeLogisticClassifier classifier;
+    private DataVector[] features;
+    private DataMatrix featureMatrix;
+    private double[] probs;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        classifier = LogisticData.newClassifier(random, numClasses, numFeatures);
+        final List<Datum<DataVector>> data = LogisticData.newData(random, NUM_CASES, numClasses, numFeatures, density);
+        final List<DataVector> rows = new ArrayList<>(NUM_CASES);
+        for (Datum<DataVector> datum : data)
+            rows.add(datum.getData());
+        features = rows.toArray(new DataVector[NUM_CASES]);
+        featureMatrix = MatrixFactory.newRowMatrix(numFeatures, rows);
+        probs = new double[numClasses];
+    }
+
+    @Benchmark
+    public DiscriminativeProbs classify() {
+        DiscriminativeProbs result = null;
+        for (DataVector vector : features)
+            result = classifier.process(vector);
+        return result;
+    }
+
+    @Benchmark
+    public double[] classifyIntoBuffer() {
+        for (DataVector vector : features)
+            classifier.process(vector, probs);
+        return probs;
+    }
+
+    @Benchmark
+    public DataMatrix classifyAll() {
+        return classifier.classifyAll(featureMatrix);
+    }
+
+}
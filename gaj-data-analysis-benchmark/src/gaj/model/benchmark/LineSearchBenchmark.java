@@ -0,0 +1,164 @@
+package gaj.model.benchmark;
+
+import java.nio.DoubleBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import gaj.analysis.model.AuxiliaryInfo;
+import gaj.analysis.model.GradientAware;
+import gaj.analysis.model.ParameterisedModel;
+import gaj.analysis.model.prob.discriminative.DiscriminativeProbs;
+import gaj.analysis.model.prob.discriminative.impl.DiscriminativeLogisticClassifier;
+import gaj.analysis.model.prob.discriminative.impl.DiscriminativeModelScorer;
+import gaj.analysis.model.score.DataSource;
+import gaj.analysis.model.score.GradientScoreInfo;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.WritableVector;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+import gaj.analysis.optimiser.impl.LBFGSHistory;
+import gaj.analysis.optimiser.impl.WolfeLineSearcher;
+import gaj.analysis.optimiser.searcher.LineSearchParams;
+import gaj.analysis.optimiser.searcher.LineSearchStatus;
+import gaj.analysis.optimiser.searcher.LineSearcherType;
+
+/**
+ * Benchmarks a single L-BFGS iteration of a logistic classifier: one score
+ * gradient evaluation, the two-loop recursion over a full history of
+ * updates, and a strong-Wolfe line search along the resulting direction.
+ * <p/>
+ * The history is filled by a few genuine iterations during set-up, and is
+ * restored from a checkpoint before each invocation, so that every
+ * invocation performs the same iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineSearchBenchmark {
+
+    private static final int NUM_CLASSES = 5;
+
+    @Param({ "1000", "10000" })
+    public int numCases;
+
+    @Param({ "100", "10000" })
+    public int numFeatures;
+
+    @Param({ "0.01", "0.1" })
+    public double density;
+
+    @Param({ "3", "10" })
+    public int memorySize;
+
+    private LogisticModel model;
+    private WolfeLineSearcher<DataVector, DiscriminativeProbs> searcher;
+    private LBFGSHistory history;
+    /**
+     * The gradient of the negated score, since the history assumes a
+     * convex objective to be minimised.
+     */
+    private WritableVector negGradient;
+    /** The ascent direction, i.e. the negated descent direction. */
+    private WritableVector direction;
+    private DataVector initialParameters;
+    private Map<String, DoubleBuffer> initialHistory;
+
+    /**
+     * Binds the classifier to the output type of the discriminative scorer.
+     */
+    private static final class LogisticModel
+            implements ParameterisedModel<DataVector, DiscriminativeProbs>, GradientAware
+    {
+        private final DiscriminativeLogisticClassifier classifier;
+
+        private LogisticModel(DiscriminativeLogisticClassifier classifier) {
+            this.classifier = classifier;
+        }
+
+        @Override
+        public DiscriminativeProbs process(DataVector input, AuxiliaryInfo... info) {
+            return classifier.process(input, info);
+        }
+
+        @Override
+        public int numParameters() {
+            return classifier.numParameters();
+        }
+
+        @Override
+        public DataVector getParameters() {
+            return classifier.getParameters();
+        }
+
+        @Override
+        public void setParameters(DataVector params) {
+            classifier.setParameters(params);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        model = new LogisticModel(LogisticData.newClassifier(random, NUM_CLASSES, numFeatures));
+        final DiscriminativeModelScorer<DataVector> scorer = new DiscriminativeModelScorer<>(
+                DataSource.newDataSource(LogisticData.newData(random, numCases, NUM_CLASSES, numFeatures, density)));
+        searcher = new WolfeLineSearcher<>(model, scorer, new LineSearchParams() {
+            @Override
+            public int getDirectionSign() {
+                return 1;
+            }
+
+            @Override
+            public LineSearcherType getLineSearcherType() {
+                return LineSearcherType.WOLFE;
+            }
+        });
+        history = new LBFGSHistory(memorySize);
+        negGradient = VectorFactory.newVector(model.numParameters());
+        direction = VectorFactory.newVector(model.numParameters());
+        // Fill the history, then checkpoint the state before the next iteration.
+        for (int k = 0; k <= memorySize; k++) {
+            final LineSearchStatus status = iterate();
+            if (status != LineSearchStatus.SUCCESSFUL)
+                throw new IllegalStateException("Set-up iteration " + k + " ended with status " + status);
+        }
+        initialParameters = VectorFactory.copy(model.getParameters());
+        final Map<String, double[]> state = new LinkedHashMap<>();
+        history.saveState(state);
+        initialHistory = new LinkedHashMap<>();
+        state.forEach((name, data) -> initialHistory.put(name, DoubleBuffer.wrap(data)));
+    }
+
+    @Setup(Level.Invocation)
+    public void restore() {
+        model.setParameters(initialParameters);
+        history.restoreState(initialHistory);
+        searcher.reset();
+    }
+
+    @Benchmark
+    public LineSearchStatus iterate() {
+        final GradientScoreInfo info = searcher.getScoreInfo();
+        negGradient.set(info.getScoreGradient());
+        negGradient.multiply(-1);
+        direction.set(history.update(model.getParameters(), negGradient));
+        direction.multiply(-1);
+        return searcher.search(direction);
+    }
+
+}
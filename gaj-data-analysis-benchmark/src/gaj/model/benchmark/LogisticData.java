@@ -0,0 +1,81 @@
+package gaj.model.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import gaj.analysis.model.score.Datum;
+import gaj.analysis.model.score.LabelledDatum;
+import gaj.analysis.model.prob.discriminative.impl.DiscriminativeLogisticClassifier;
+import gaj.analysis.numeric.matrix.impl.MatrixFactory;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.numeric.benchmark.VectorKind;
+
+/**
+ * Generates random logistic classifiers and labelled data for benchmarking.
+ */
+public abstract class LogisticData {
+
+    private LogisticData() {}
+
+    /**
+     * Creates a classifier with random weights.
+     *
+     * @param random
+     *            - The source of randomness.
+     * @param numClasses
+     *            - The number C of classes.
+     * @param numFeatures
+     *            - The number F of features.
+     * @return The classifier.
+     */
+    public static DiscriminativeLogisticClassifier newClassifier(Random random, int numClasses, int numFeatures) {
+        final double[] weights = new double[numClasses * numFeatures];
+        for (int i = 0; i < weights.length; i++)
+            weights[i] = 0.1 * random.nextGaussian();
+        return new DiscriminativeLogisticClassifier(MatrixFactory.newMatrix(weights, numClasses, numFeatures));
+    }
+
+    /**
+     * Creates random, labelled data cases.
+     *
+     * @param random
+     *            - The source of randomness.
+     * @param numCases
+     *            - The number of data cases.
+     * @param numClasses
+     *            - The number C of classes.
+     * @param numFeatures
+     *            - The number F of features.
+     * @param density
+     *            - The expected proportion of non-zero features.
+     * @return The data cases.
+     */
+    public static List<Datum<DataVector>> newData(Random random, int numCases, int numClasses, int numFeatures,
+            double density)
+    {
+        final VectorKind kind = (density < 1) ? VectorKind.SPARSE : VectorKind.DENSE;
+        final List<Datum<DataVector>> data = new ArrayList<>(numCases);
+        for (int n = 0; n < numCases; n++) {
+            final DataVector features = kind.create(random, numFeatures, density);
+            final int label = random.nextInt(numClasses);
+            data.add(new LabelledDatum<DataVector>() {
+                @Override
+                public DataVector getData() {
+                    return features;
+                }
+
+                @Override
+                public double getWeight() {
+                    return 1;
+                }
+
+                @Override
+                public int getLabelIndex() {
+                    return label;
+                }
+            });
+        }
+        return data;
+    }
+
+}
@@ -0,0 +1,77 @@
+package gaj.model.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import gaj.analysis.model.AuxiliaryInfo;
+import gaj.analysis.model.prob.discriminative.impl.DiscriminativeLogisticClassifier;
+import gaj.analysis.model.prob.discriminative.impl.DiscriminativeModelScorer;
+import gaj.analysis.model.score.DataSource;
+import gaj.analysis.model.score.ScoreInfo;
+import gaj.analysis.model.score.ScorerInfo;
+import gaj.analysis.numeric.vector.DataVector;
+
+/**
+ * Benchmarks the scoring of a logistic classifier over a data source, which
+ * is dominated by the aggregation of per-case scores (and score gradients)
+ * in serial or in parallel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScorerBenchmark {
+
+    private static final int NUM_CLASSES = 5;
+
+    @Param({ "1000", "100000" })
+    public int numCases;
+
+    @Param({ "100", "10000" })
+    public int numFeatures;
+
+    @Param({ "0.01", "0.1" })
+    public double density;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    private DiscriminativeLogisticClassifier classifier;
+    private DiscriminativeModelScorer<DataVector> scorer;
+    private AuxiliaryInfo[] scoreInfo;
+    private AuxiliaryInfo[] gradientInfo;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        classifier = LogisticData.newClassifier(random, NUM_CLASSES, numFeatures);
+        scorer = new DiscriminativeModelScorer<>(DataSource.newDataSource(
+                LogisticData.newData(random, numCases, NUM_CLASSES, numFeatures, density)));
+        scoreInfo = parallel ? new AuxiliaryInfo[] { ScorerInfo.SCORE_IN_PARALLEL } : new AuxiliaryInfo[0];
+        gradientInfo = parallel ? new AuxiliaryInfo[] { ScorerInfo.SCORE_IN_PARALLEL, AuxiliaryInfo.COMPUTE_GRADIENT }
+                : new AuxiliaryInfo[] { AuxiliaryInfo.COMPUTE_GRADIENT };
+    }
+
+    @Benchmark
+    public ScoreInfo score() {
+        return scorer.score(classifier::process, scoreInfo);
+    }
+
+    @Benchmark
+    public ScoreInfo scoreWithGradient() {
+        return scorer.score(classifier::process, gradientInfo);
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Performance benchmarks for models, scorers and optimisers.
+ */
+package gaj.model.benchmark;
\ No newline at end of file
@@ -0,0 +1,96 @@
+package gaj.numeric.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import gaj.analysis.numeric.matrix.DataMatrix;
+import gaj.analysis.numeric.matrix.SparseMatrixBuilder;
+import gaj.analysis.numeric.matrix.impl.MatrixFactory;
+import gaj.analysis.numeric.vector.DataVector;
+
+/**
+ * Benchmarks matrix-vector multiplication by {@link MatrixFactory}, in both
+ * orientations, for dense and compressed sparse matrices.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+
+    /**
+     * Enumerates the matrix representations to be benchmarked.
+     */
+    public enum MatrixKind {
+        DENSE, SPARSE_ROWS, SPARSE_COLUMNS
+    }
+
+    @Param({ "100", "1000" })
+    public int numRows;
+
+    @Param({ "100", "10000" })
+    public int numColumns;
+
+    @Param({ "0.01", "0.1", "1" })
+    public double density;
+
+    @Param({ "DENSE", "SPARSE_ROWS", "SPARSE_COLUMNS" })
+    public MatrixKind kind;
+
+    @Param({ "DENSE", "SPARSE" })
+    public VectorKind vectorKind;
+
+    private DataMatrix matrix;
+    private DataVector columnVector;
+    private DataVector rowVector;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        final double[] data = new double[numRows * numColumns];
+        final SparseMatrixBuilder builder = MatrixFactory.newSparseMatrixBuilder(numRows, numColumns);
+        for (int row = 0, i = 0; row < numRows; row++) {
+            for (int column = 0; column < numColumns; column++, i++) {
+                if (random.nextDouble() < density) {
+                    data[i] = random.nextGaussian();
+                    builder.add(row, column, data[i]);
+                }
+            }
+        }
+        switch (kind) {
+            case DENSE:
+                matrix = MatrixFactory.newMatrix(data, numRows, numColumns);
+                break;
+            case SPARSE_ROWS:
+                matrix = builder.buildRowMatrix();
+                break;
+            default:
+                matrix = builder.buildColumnMatrix();
+        }
+        columnVector = vectorKind.create(random, numColumns, density);
+        rowVector = vectorKind.create(random, numRows, density);
+    }
+
+    @Benchmark
+    public DataVector postMultiply() {
+        return MatrixFactory.multiply(matrix, columnVector);
+    }
+
+    @Benchmark
+    public DataVector preMultiply() {
+        return MatrixFactory.multiply(rowVector, matrix);
+    }
+
+}
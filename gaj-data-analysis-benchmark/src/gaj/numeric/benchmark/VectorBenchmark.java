@@ -0,0 +1,73 @@
+package gaj.numeric.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+
+/**
+ * Benchmarks the binary vector operations of {@link VectorFactory} across
+ * every pairing of vector representations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int size;
+
+    @Param({ "0.01", "0.1", "1" })
+    public double density;
+
+    @Param({ "DENSE", "SPARSE", "COMPOUND", "SCALED", "SUB_VECTOR" })
+    public VectorKind left;
+
+    @Param({ "DENSE", "SPARSE", "COMPOUND", "SCALED", "SUB_VECTOR" })
+    public VectorKind right;
+
+    private DataVector vec1;
+    private DataVector vec2;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        vec1 = left.create(random, size, density);
+        vec2 = right.create(random, size, density);
+    }
+
+    @Benchmark
+    public double dot() {
+        return VectorFactory.dot(vec1, vec2);
+    }
+
+    @Benchmark
+    public DataVector add() {
+        return VectorFactory.add(vec1, vec2);
+    }
+
+    @Benchmark
+    public DataVector subtract() {
+        return VectorFactory.subtract(vec1, vec2);
+    }
+
+    @Benchmark
+    public DataVector multiply() {
+        return VectorFactory.multiply(vec1, vec2);
+    }
+
+}
@@ -0,0 +1,87 @@
+package gaj.numeric.benchmark;
+
+import java.util.Random;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+
+/**
+ * Enumerates the vector representations to be benchmarked.
+ */
+public enum VectorKind {
+
+    /** A dense, array-backed vector. */
+    DENSE {
+        @Override
+        public DataVector create(Random random, int size, double density) {
+            return VectorFactory.newVector(randomValues(random, size, density));
+        }
+    },
+    /** A sparse vector of index/value pairs. */
+    SPARSE {
+        @Override
+        public DataVector create(Random random, int size, double density) {
+            final double[] values = randomValues(random, size, density);
+            int count = 0;
+            for (double value : values) {
+                if (value != 0)
+                    count++;
+            }
+            final int[] sparseIndices = new int[count];
+            final double[] sparseValues = new double[count];
+            for (int i = 0, j = 0; i < size; i++) {
+                if (values[i] != 0) {
+                    sparseIndices[j] = i;
+                    sparseValues[j++] = values[i];
+                }
+            }
+            return VectorFactory.newSparseVector(size, sparseIndices, sparseValues);
+        }
+    },
+    /** A concatenation of two dense vectors. */
+    COMPOUND {
+        @Override
+        public DataVector create(Random random, int size, double density) {
+            final int half = size / 2;
+            return VectorFactory.concatenate(DENSE.create(random, half, density),
+                    DENSE.create(random, size - half, density));
+        }
+    },
+    /** A dense vector wrapped with a multiplier. */
+    SCALED {
+        @Override
+        public DataVector create(Random random, int size, double density) {
+            return VectorFactory.scale(DENSE.create(random, size, density), 0.5);
+        }
+    },
+    /** A view of the middle of a larger array. */
+    SUB_VECTOR {
+        @Override
+        public DataVector create(Random random, int size, double density) {
+            final double[] data = randomValues(random, size + 2, density);
+            return VectorFactory.newSubVector(data, 1, size);
+        }
+    };
+
+    /**
+     * Creates a random vector.
+     *
+     * @param random
+     *            - The source of randomness.
+     * @param size
+     *            - The length of the vector.
+     * @param density
+     *            - The expected proportion of non-zero elements.
+     * @return The vector.
+     */
+    public abstract DataVector create(Random random, int size, double density);
+
+    private static double[] randomValues(Random random, int size, double density) {
+        final double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            if (random.nextDouble() < density)
+                values[i] = random.nextGaussian();
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,12 @@
+/**
+ * Performance benchmarks for numerical data.
+ * <p/>
+ * The benchmarks use the JMH harness, and are kept in their own project so
+ * that the main project does not depend upon JMH. The project obtains
+ * jmh-core, and the jmh-generator-annprocess annotation processor, from the
+ * local Maven repository via the M2_REPO variable. Run them via
+ * <code>org.openjdk.jmh.Main</code>, e.g. with the argument
+ * <code>VectorBenchmark.dot -p size=1000</code> to select a benchmark and a
+ * parameter value.
+ */
+package gaj.numeric.benchmark;
\ No newline at end of file
@@ -0,0 +1,93 @@
+package gaj.analysis.bayes.pmf;
+
+import java.util.Random;
+
+/**
+ * Denotes a probability distribution over non-negative integer counts, with
+ * primitive, bulk and cumulative evaluation of the probability mass.
+ */
+public interface CountPMF extends IndexPMF<Integer> {
+
+    /**
+     * Obtains the probability mass, f(n), of the specified count, n.
+     *
+     * @param count
+     *            - The count, n.
+     * @return The probability of n, or a value of zero if n is not in the
+     *         domain.
+     */
+    double prob(int count);
+
+    @Override
+    default double prob(Integer value) {
+        return prob(value.intValue());
+    }
+
+    /**
+     * Obtains the log-probability mass, log f(n), of the specified count, n.
+     *
+     * @param count
+     *            - The count, n.
+     * @return The log-probability of n, or negative infinity if n is not in
+     *         the domain.
+     */
+    double logProb(int count);
+
+    /**
+     * Obtains the cumulative probability, F(n) = sum_{m &lt;= n} f(m), of the
+     * specified count, n.
+     *
+     * @param count
+     *            - The count, n.
+     * @return The cumulative probability of n.
+     */
+    double cdf(int count);
+
+    /**
+     * Computes the probability masses of multiple counts.
+     *
+     * @param counts
+     *            - The array of counts.
+     * @param probs
+     *            - The array in which to store the probabilities.
+     */
+    default void prob(int[] counts, double[] probs) {
+        for (int i = 0; i < counts.length; i++)
+            probs[i] = prob(counts[i]);
+    }
+
+    /**
+     * Computes the log-probability masses of multiple counts.
+     *
+     * @param counts
+     *            - The array of counts.
+     * @param logProbs
+     *            - The array in which to store the log-probabilities.
+     */
+    default void logProb(int[] counts, double[] logProbs) {
+        for (int i = 0; i < counts.length; i++)
+            logProbs[i] = logProb(counts[i]);
+    }
+
+    /**
+     * Obtains the smallest count, n, such that F(n) &gt;= u.
+     *
+     * @param u
+     *            - The cumulative probability, u in [0, 1].
+     * @return The count.
+     */
+    int quantile(double u);
+
+    /**
+     * Randomly samples a count from the distribution, by inverting the
+     * cumulative distribution.
+     *
+     * @param random
+     *            - The source of uniform random numbers.
+     * @return The sampled count.
+     */
+    default int sample(Random random) {
+        return quantile(random.nextDouble());
+    }
+
+}
@@ -35,6 +35,20 @@ public interface EmpiricalPMF<T> extends PMF<T> {
      */
     void add(T value, double probInc);
 
+    /**
+     * Increments the probability masses, p(x_k), for a batch of values x_k,
+     * e.g. for counting the observed values of a corpus. Values not in X are
+     * ignored. The resulting values may be unnormalised.
+     * 
+     * @param values
+     *            - The values, x_k.
+     * @param probIncs
+     *            - The incremental probability values, one per value.
+     * @throws IllegalArgumentException
+     *             if the number of values and increments differ.
+     */
+    void addAll(T[] values, double[] probIncs);
+
     /**
      * Scales the probability mass, p(x), for the specified value x in X. This
      * method has no effect if x not in X. The resulting value may be
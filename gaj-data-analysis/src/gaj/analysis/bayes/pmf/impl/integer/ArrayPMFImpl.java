@@ -5,6 +5,10 @@ import gaj.common.annotations.PackagePrivate;
 
 /**
  * Assumes the empirical {@link PMF} has a finite domain, X.
+ * <p/>
+ * Values are located via an open-addressing hash table built at construction,
+ * so lookup takes expected constant time. Any duplicate value maps to its
+ * first occurrence.
  *
  * @param <T>
  *            - The type of all values x in X.
@@ -12,19 +16,39 @@ import gaj.common.annotations.PackagePrivate;
 @PackagePrivate class ArrayPMFImpl<T> extends BasePMFImpl<T> {
 
     private final T[] values;
+    private final int bits;
+    /** The index j+1 of the value in each slot, or 0 if the slot is empty. */
+    private final int[] slots;
 
     @PackagePrivate ArrayPMFImpl(T[] values) {
         super(values.length);
         this.values = values;
+        bits = tableBits(values.length);
+        slots = new int[1 << bits];
+        final int mask = slots.length - 1;
+        for (int i = 0; i < values.length; i++) {
+            final T value = values[i];
+            if (value == null)
+                throw new IllegalArgumentException("Value " + i + " is null");
+            int s = slot(value.hashCode(), bits);
+            while (slots[s] != 0 && !values[slots[s] - 1].equals(value))
+                s = (s + 1) & mask;
+            if (slots[s] == 0)
+                slots[s] = i + 1;
+        }
     }
 
     @Override
     protected int index(T value) {
-        // Simple lookup; should sort a copy of labels and use binary search.
-        for (int i = 0; i < values.length; i++) {
-            if (values[i].equals(value)) return i;
+        if (value == null) return -1;
+        final int mask = slots.length - 1;
+        int s = slot(value.hashCode(), bits);
+        int j;
+        while ((j = slots[s]) != 0) {
+            if (values[j - 1].equals(value)) return j - 1;
+            s = (s + 1) & mask;
         }
         return -1;
     }
- 
+
 }
@@ -44,6 +44,17 @@ import gaj.common.annotations.PackagePrivate;
             probs[index] += probInc;
     }
 
+    @Override
+    public void addAll(T[] values, double[] probIncs) {
+        if (values.length != probIncs.length)
+            throw new IllegalArgumentException("Expected " + values.length + " increments, got " + probIncs.length);
+        for (int i = 0; i < values.length; i++) {
+            int index = index(values[i]);
+            if (index >= 0)
+                probs[index] += probIncs[i];
+        }
+    }
+
     @Override
     public void mult(T value, double probScale) {
         int index = index(value);
@@ -51,6 +62,35 @@ import gaj.common.annotations.PackagePrivate;
             probs[index] *= probScale;
     }
 
+    /**
+     * Determines the number of bits b in the slot index of an open-addressing
+     * hash table with 2^b &gt;= 2n slots, for n keys.
+     * 
+     * @param numKeys
+     *            - The number of keys, n.
+     * @return The number of bits, b.
+     */
+    protected static int tableBits(int numKeys) {
+        int bits = 1;
+        while (bits < 30 && (1 << bits) < 2 * (long) numKeys)
+            bits++;
+        return bits;
+    }
+
+    /**
+     * Maps a hash code to the initial slot of a hash table with 2^b slots,
+     * using Fibonacci hashing to spread poorly distributed hash codes.
+     * 
+     * @param hash
+     *            - The hash code.
+     * @param bits
+     *            - The number of bits b in the slot index.
+     * @return The slot index.
+     */
+    protected static int slot(int hash, int bits) {
+        return (hash * 0x9E3779B9) >>> (32 - bits);
+    }
+
     @Override
     public void normalise() {
         double sum = 0;
@@ -0,0 +1,65 @@
+package gaj.analysis.bayes.pmf.impl.integer;
+
+import gaj.analysis.bayes.pmf.PMF;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Assumes the empirical {@link PMF} has a finite domain, X, of arbitrary
+ * integer labels.
+ * <p/>
+ * The labels are held in a primitive, open-addressing hash table, so lookup
+ * takes expected constant time without calling {@link Object#equals}. Any
+ * duplicate label maps to its first occurrence.
+ */
+@PackagePrivate class IntArrayPMFImpl extends BasePMFImpl<Integer> {
+
+    private final int bits;
+    /** The label in each occupied slot. */
+    private final int[] keys;
+    /** The index j+1 of the label in each slot, or 0 if the slot is empty. */
+    private final int[] slots;
+
+    @PackagePrivate IntArrayPMFImpl(Integer[] values) {
+        super(values.length);
+        bits = tableBits(values.length);
+        keys = new int[1 << bits];
+        slots = new int[1 << bits];
+        final int mask = slots.length - 1;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null)
+                throw new IllegalArgumentException("Value " + i + " is null");
+            final int key = values[i];
+            int s = slot(key, bits);
+            while (slots[s] != 0 && keys[s] != key)
+                s = (s + 1) & mask;
+            if (slots[s] == 0) {
+                keys[s] = key;
+                slots[s] = i + 1;
+            }
+        }
+    }
+
+    @Override
+    protected int index(Integer value) {
+        return (value == null) ? -1 : index(value.intValue());
+    }
+
+    /**
+     * Determines the internal index j = i-1 of a label x_i in X.
+     * 
+     * @param key
+     *            - The label, x.
+     * @return The value j if x = x_i in X, else the value -1.
+     */
+    private int index(int key) {
+        final int mask = slots.length - 1;
+        int s = slot(key, bits);
+        int j;
+        while ((j = slots[s]) != 0) {
+            if (keys[s] == key) return j - 1;
+            s = (s + 1) & mask;
+        }
+        return -1;
+    }
+
+}
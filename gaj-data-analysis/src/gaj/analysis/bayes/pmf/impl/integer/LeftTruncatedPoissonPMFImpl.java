@@ -9,7 +9,10 @@ import gaj.common.annotations.PackagePrivate;
 @PackagePrivate class LeftTruncatedPoissonPMFImpl extends PoissonPMFImpl {
 
     private final int minCount;
+    /** The truncated probability mass, P(N &lt; c | lambda). */
+    private final double truncProb;
     private final double normProb;
+    private final double logNormProb;
 
     /**
      * Initialises the left-truncated Poisson distribution, P(N=n | N>=c,
@@ -22,12 +25,10 @@ import gaj.common.annotations.PackagePrivate;
      */
     @PackagePrivate LeftTruncatedPoissonPMFImpl(double lambda, int minCount) {
         super(lambda);
-        this.minCount = minCount;
-        // Compute p(N < c | lambda>)
-        double prob = (minCount <= 0) ? 1 : 0;
-        for (int i = 0; i < minCount; i++)
-            prob += super.prob(i);
-        this.normProb = 1 / (1 - prob);
+        this.minCount = Math.max(0, minCount);
+        truncProb = super.cdf(this.minCount - 1);
+        normProb = 1 / (1 - truncProb);
+        logNormProb = Math.log(normProb);
     }
 
     @Override
@@ -36,9 +37,27 @@ import gaj.common.annotations.PackagePrivate;
     }
 
     @Override
-    public double prob(Integer index) {
-        if (index < minCount) return 0;
-        return super.prob(index) * normProb;
+    public double prob(int count) {
+        if (count < minCount) return 0;
+        return super.prob(count) * normProb;
+    }
+
+    @Override
+    public double logProb(int count) {
+        if (count < minCount) return Double.NEGATIVE_INFINITY;
+        return super.logProb(count) + logNormProb;
+    }
+
+    @Override
+    public double cdf(int count) {
+        if (count < minCount) return 0;
+        return Math.min(1, (super.cdf(count) - truncProb) * normProb);
+    }
+
+    @Override
+    public int quantile(double u) {
+        if (!(u > 0)) return minCount;
+        return Math.max(minCount, super.quantile(truncProb + u * (1 - truncProb)));
     }
 
 }
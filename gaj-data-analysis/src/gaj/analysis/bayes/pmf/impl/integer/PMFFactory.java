@@ -1,5 +1,6 @@
 package gaj.analysis.bayes.pmf.impl.integer;
 
+import gaj.analysis.bayes.pmf.CountPMF;
 import gaj.analysis.bayes.pmf.EmpiricalIndexPMF;
 import gaj.analysis.bayes.pmf.EmpiricalPMF;
 
@@ -15,9 +16,58 @@ public abstract class PMFFactory {
         return new IndexPMFImpl(0, size - 1);
     }
 
+    /**
+     * Creates an empirical distribution over the given finite domain, X. The
+     * values are indexed by hashing, and integer labels are indexed without
+     * boxing.
+     *
+     * @param values
+     *            - The distinct values x in X.
+     * @return The array-backed distribution.
+     */
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public static <T> EmpiricalPMF<T> newPMF(T... values) {
+        if (values instanceof Integer[])
+            return (EmpiricalPMF) new IntArrayPMFImpl((Integer[]) values);
         return new ArrayPMFImpl(values);
     }
 
+    /**
+     * Creates a Poisson distribution, P(N=n | lambda), over counts n &gt;= 0.
+     *
+     * @param lambda
+     *            - The Poisson event arrival rate.
+     * @return The table-backed distribution.
+     */
+    public static CountPMF newPoissonPMF(double lambda) {
+        return new PoissonPMFImpl(lambda);
+    }
+
+    /**
+     * Creates a left-truncated Poisson distribution, P(N=n | N&gt;=c, lambda).
+     *
+     * @param lambda
+     *            - The Poisson event arrival rate.
+     * @param minCount
+     *            - The minimum observed count, c.
+     * @return The table-backed distribution.
+     */
+    public static CountPMF newLeftTruncatedPoissonPMF(double lambda, int minCount) {
+        return new LeftTruncatedPoissonPMFImpl(lambda, minCount);
+    }
+
+    /**
+     * Creates a zero-inflated Poisson distribution.
+     *
+     * @param lambda
+     *            - The Poisson event arrival rate.
+     * @param alpha
+     *            - The probability that the Poisson process has been switched
+     *            off.
+     * @return The table-backed distribution.
+     */
+    public static CountPMF newZeroInflatedPoissonPMF(double lambda, double alpha) {
+        return new ZeroInflatedPoissonPMFImpl(lambda, alpha);
+    }
+
 }
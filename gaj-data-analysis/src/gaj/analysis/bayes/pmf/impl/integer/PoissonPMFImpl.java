@@ -1,30 +1,77 @@
 package gaj.analysis.bayes.pmf.impl.integer;
 
-import gaj.analysis.bayes.pmf.IndexPMF;
+import gaj.analysis.bayes.pmf.CountPMF;
 import gaj.common.annotations.PackagePrivate;
 
 /**
  * Provides a standard Poisson distribution, with integer counts.
+ * <p/>
+ * The probabilities, log-probabilities and cumulative probabilities of
+ * counts are held in tables, which are lazily extended as larger counts are
+ * requested, up to a fixed maximum size. Beyond the tables, the
+ * log-probability is computed directly from the log-gamma function.
+ * <p/>
+ * Note: The tables are immutable once published, and so the distribution
+ * may be safely shared between threads.
  */
 @PackagePrivate
-class PoissonPMFImpl implements IndexPMF<Integer> {
+class PoissonPMFImpl implements CountPMF {
+
+    /** The maximum number of counts held in the tables. */
+    private static final int MAX_TABLE = 1 << 16;
+    /** The minimum number of counts held in the tables. */
+    private static final int MIN_TABLE = 16;
+    /** The number of exact log-factorials, below which Stirling's series is inaccurate. */
+    private static final int NUM_EXACT = 32;
+    /** The exact log-factorials, log n!, for n &lt; NUM_EXACT. */
+    private static final double[] LOG_FACTORIALS = new double[NUM_EXACT];
+    static {
+        for (int n = 1; n < NUM_EXACT; n++)
+            LOG_FACTORIALS[n] = LOG_FACTORIALS[n - 1] + Math.log(n);
+    }
+    private static final double HALF_LOG_2PI = 0.5 * Math.log(2 * Math.PI);
+
+    /**
+     * Holds the tables of f(n), log f(n) and F(n) for n = 0, 1, ..., N-1.
+     */
+    private static final class Tables {
+        private final double[] probs;
+        private final double[] logProbs;
+        private final double[] cdf;
+
+        private Tables(int length) {
+            probs = new double[length];
+            logProbs = new double[length];
+            cdf = new double[length];
+        }
+    }
 
     private final double lambda;
-    private final double prob0;
     private final double logLambda;
+    private volatile Tables tables;
 
     /**
      * Initialises the Poisson distribution.
-     * 
+     *
      * @param lambda
      *            - The Poisson event arrival rate.
      */
     @PackagePrivate PoissonPMFImpl(double lambda) {
+        if (!(lambda >= 0))
+            throw new IllegalArgumentException("Invalid arrival rate: " + lambda);
         this.lambda = lambda;
-        prob0 = Math.exp(-lambda);
         logLambda = Math.log(lambda);
+        // Initially cover the bulk of the probability mass.
+        tables = extend(null, (int) (lambda + 6 * Math.sqrt(lambda)) + 1);
     }
-    
+
+    /**
+     * @return The Poisson event arrival rate.
+     */
+    @PackagePrivate double lambda() {
+        return lambda;
+    }
+
     @Override
     public Integer start() {
         return 0;
@@ -41,22 +88,171 @@ class PoissonPMFImpl implements IndexPMF<Integer> {
     }
 
     @Override
-    public double prob(Integer index) {
-        if (index < 0) return 0.0;
-        if (index == 0) return prob0;
-        if (lambda > 300) {
-            double logProb = -lambda;
-            for (int i = 1; i < index; i++) {
-                logProb += logLambda - Math.log(i);
-            }
-            return Math.exp(logProb);
-        } else {
-            double prob = prob0;
-            for (int i = 1; i < index; i++) {
-                prob *= lambda / i;
+    public double prob(int count) {
+        if (count < 0) return 0;
+        final Tables t = tables(count);
+        return (count < t.probs.length) ? t.probs[count] : Math.exp(computeLogProb(count));
+    }
+
+    @Override
+    public double logProb(int count) {
+        if (count < 0) return Double.NEGATIVE_INFINITY;
+        final Tables t = tables(count);
+        return (count < t.logProbs.length) ? t.logProbs[count] : computeLogProb(count);
+    }
+
+    @Override
+    public double cdf(int count) {
+        if (count < 0) return 0;
+        final Tables t = tables(count);
+        final int length = t.cdf.length;
+        if (count < length) return t.cdf[count];
+        // Sum the remaining terms, until they become negligible.
+        double cdf = t.cdf[length - 1];
+        for (int n = length; n <= count && cdf < 1; n++) {
+            final double prob = Math.exp(computeLogProb(n));
+            if (n > lambda && prob <= cdf * 1e-17) break;
+            cdf += prob;
+        }
+        return Math.min(cdf, 1);
+    }
+
+    @Override
+    public void prob(int[] counts, double[] probs) {
+        tables(max(counts));
+        for (int i = 0; i < counts.length; i++)
+            probs[i] = prob(counts[i]);
+    }
+
+    @Override
+    public void logProb(int[] counts, double[] logProbs) {
+        tables(max(counts));
+        for (int i = 0; i < counts.length; i++)
+            logProbs[i] = logProb(counts[i]);
+    }
+
+    @Override
+    public int quantile(double u) {
+        if (!(u > 0)) return 0;
+        Tables t = tables;
+        while (t.cdf[t.cdf.length - 1] < u && t.cdf.length < MAX_TABLE)
+            t = tables(2 * t.cdf.length);
+        final int length = t.cdf.length;
+        if (t.cdf[length - 1] >= u) {
+            // Find the smallest n with F(n) >= u.
+            int low = 0, high = length - 1;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (t.cdf[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
             }
-            return prob;
+            return low;
+        }
+        // Search beyond the tables, until the terms become negligible.
+        double cdf = t.cdf[length - 1];
+        int n = length;
+        while (n < Integer.MAX_VALUE) {
+            final double prob = Math.exp(computeLogProb(n));
+            cdf += prob;
+            if (cdf >= u || n > lambda && prob <= cdf * 1e-17) break;
+            n++;
+        }
+        return n;
+    }
+
+    // ***************************************
+    // Table management.
+
+    private static int max(int[] counts) {
+        int max = 0;
+        for (int count : counts) {
+            if (count > max) max = count;
+        }
+        return max;
+    }
+
+    /**
+     * Obtains tables that include the given count, if possible.
+     *
+     * @param count
+     *            - The count, n.
+     * @return The current tables, extended if necessary.
+     */
+    private Tables tables(int count) {
+        final Tables t = tables;
+        if (count < t.probs.length || t.probs.length >= MAX_TABLE) return t;
+        return extend(count + 1);
+    }
+
+    private synchronized Tables extend(int length) {
+        Tables t = tables;
+        if (length > t.probs.length) {
+            t = extend(t, Math.max(length, 2 * t.probs.length));
+            tables = t;
         }
+        return t;
+    }
+
+    /**
+     * Copies the existing tables into larger tables, and computes the
+     * additional entries.
+     *
+     * @param old
+     *            - The existing tables, or null.
+     * @param length
+     *            - The required number of entries.
+     * @return The new tables.
+     */
+    private Tables extend(/*@Nullable*/ Tables old, int length) {
+        length = Math.min(MAX_TABLE, Math.max(MIN_TABLE, length));
+        final Tables t = new Tables(length);
+        int start = 0;
+        if (old != null) {
+            start = old.probs.length;
+            System.arraycopy(old.probs, 0, t.probs, 0, start);
+            System.arraycopy(old.logProbs, 0, t.logProbs, 0, start);
+            System.arraycopy(old.cdf, 0, t.cdf, 0, start);
+        }
+        double cdf = (start > 0) ? t.cdf[start - 1] : 0;
+        for (int n = start; n < length; n++) {
+            final double logProb = computeLogProb(n);
+            final double prob = Math.exp(logProb);
+            t.logProbs[n] = logProb;
+            t.probs[n] = prob;
+            cdf += prob;
+            t.cdf[n] = Math.min(cdf, 1);
+        }
+        return t;
+    }
+
+    /**
+     * Computes log P(N=n) = -lambda + n log lambda - log n!.
+     *
+     * @param count
+     *            - The non-negative count, n.
+     * @return The log-probability.
+     */
+    private double computeLogProb(int count) {
+        return (count == 0) ? -lambda : -lambda + count * logLambda - logFactorial(count);
+    }
+
+    /**
+     * Computes log n! = lgamma(n+1), exactly for small n, and via Stirling's
+     * series otherwise.
+     *
+     * @param n
+     *            - The non-negative integer, n.
+     * @return The log-factorial.
+     */
+    @PackagePrivate static double logFactorial(int n) {
+        if (n < NUM_EXACT) return LOG_FACTORIALS[n];
+        final double x = n;
+        final double x2 = x * x;
+        return x * Math.log(x) - x + 0.5 * Math.log(x) + HALF_LOG_2PI
+                + (1.0 / 12 - (1.0 / 360 - 1.0 / (1260 * x2)) / x2) / x;
     }
 
 }
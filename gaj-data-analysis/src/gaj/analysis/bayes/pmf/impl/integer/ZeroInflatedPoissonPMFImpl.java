@@ -12,6 +12,9 @@ import gaj.common.annotations.PackagePrivate;
 
     private final double alpha;
     private final double oneMinusAlpha;
+    private final double logOneMinusAlpha;
+    /** The inflated probability, P(N=0), of observing zero events. */
+    private final double prob0;
 
     /**
      * Initialises the zero-inflated Poisson distribution.
@@ -26,11 +29,28 @@ import gaj.common.annotations.PackagePrivate;
         super(lambda);
         this.alpha = alpha;
         this.oneMinusAlpha = 1 - alpha;
+        logOneMinusAlpha = Math.log(oneMinusAlpha);
+        prob0 = alpha + oneMinusAlpha * super.prob(0);
     }
 
     @Override
-    public double prob(Integer index) {
-        return (index < 0) ? 0 : (index == 0) ? (alpha + oneMinusAlpha * super.prob(0)) : (oneMinusAlpha * super.prob(index));
+    public double prob(int count) {
+        return (count < 0) ? 0 : (count == 0) ? prob0 : (oneMinusAlpha * super.prob(count));
+    }
+
+    @Override
+    public double logProb(int count) {
+        return (count < 0) ? Double.NEGATIVE_INFINITY : (count == 0) ? Math.log(prob0) : (logOneMinusAlpha + super.logProb(count));
+    }
+
+    @Override
+    public double cdf(int count) {
+        return (count < 0) ? 0 : (alpha + oneMinusAlpha * super.cdf(count));
+    }
+
+    @Override
+    public int quantile(double u) {
+        return (u <= alpha) ? 0 : super.quantile((u - alpha) / oneMinusAlpha);
     }
 
 }
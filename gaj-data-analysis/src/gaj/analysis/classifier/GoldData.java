@@ -1,6 +1,11 @@
 package gaj.analysis.classifier;
 
+import gaj.analysis.numeric.matrix.DataMatrix;
+import gaj.analysis.numeric.matrix.impl.MatrixFactory;
+import gaj.analysis.numeric.vector.DataVector;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Represents a collection of data features with
@@ -29,4 +34,18 @@ public interface GoldData extends Iterable<GoldDatum> {
      */
     Iterator<GoldDatum> iterator();
 
+    /**
+     * Stacks the feature vectors of the data into the rows of a matrix, in
+     * iteration order. If the features are sparse, then so is the matrix.
+     * 
+     * @return The N x F feature matrix.
+     */
+    default DataMatrix getFeatureMatrix() {
+        List<DataVector> rows = new ArrayList<>();
+        for (GoldDatum datum : this) {
+            rows.add(datum.getFeatures());
+        }
+        return MatrixFactory.newRowMatrix(numFeatures(), rows);
+    }
+
 }
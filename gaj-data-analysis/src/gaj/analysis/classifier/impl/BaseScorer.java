@@ -7,6 +7,7 @@ import gaj.analysis.classifier.GoldData;
 import gaj.analysis.classifier.GoldDatum;
 import gaj.analysis.classifier.updated.Classifier;
 import gaj.analysis.classifier.updated.OptimisableClassifier;
+import gaj.analysis.numeric.matrix.DataMatrix;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.numeric.vector.WritableVector;
 import gaj.analysis.numeric.vector.impl.DataIterator;
@@ -16,6 +17,9 @@ import java.util.Iterator;
 /**
  * Binds an arbitrary scorer to gold-standard data.
  * <p/>
+ * The data are classified together, via {@link Classifier#classifyAll}, and
+ * so must be iterated in a consistent order.
+ * <p/>
  * Assumes the overall accuracy score is the weighted average:
  * 
  * <pre>
@@ -30,6 +34,7 @@ import java.util.Iterator;
 public abstract class BaseScorer implements DataScorer {
 
     private final GoldData data;
+    private /*@MonotonicNonNull*/ DataMatrix features = null;
 
     /**
      * Binds the given data to the scorer.
@@ -50,6 +55,18 @@ public abstract class BaseScorer implements DataScorer {
         return data.numFeatures();
     }
 
+    /**
+     * Obtains the feature vectors of the data as the rows of a matrix,
+     * such that all of the data may be classified at once.
+     * 
+     * @return The N x F feature matrix.
+     */
+    protected DataMatrix getFeatures() {
+        if (features == null)
+            features = data.getFeatureMatrix();
+        return features;
+    }
+
     /**
      * Computes the unweighted accuracy score of the given classification of feature vector x.
      * 
@@ -103,12 +120,14 @@ public abstract class BaseScorer implements DataScorer {
 
     @Override
     public double getClassifierScore(Classifier classifier) {
+        final DataMatrix posteriors = classifier.classifyAll(getFeatures());
         double sumWeights = 0;
         double sumScores = 0;
+        int row = 0;
         for (GoldDatum datum : data) {
             final double weight = datum.getWeight();
             sumWeights += weight;
-            DataVector probs = classifier.classify(datum.getFeatures()).posteriors();
+            DataVector probs = posteriors.getRow(row++);
             final double unweightedScore = getScore(probs, datum.getClassIndex());
             sumScores += weight * unweightedScore;
         }
@@ -123,10 +142,12 @@ public abstract class BaseScorer implements DataScorer {
             double sumWeights = 0;
             double sumScores = 0;
             WritableVector sumGradients = VectorFactory.newVector(classifier.numParameters());
+            final DataMatrix posteriors = classifier.classifyAll(getFeatures());
+            int row = 0;
             for (GoldDatum datum : data) {
                 final double weight = datum.getWeight();
                 sumWeights += weight;
-                DataVector probs = classifier.classify(datum.getFeatures()).posteriors();
+                DataVector probs = posteriors.getRow(row++);
                 DatumScore datumScore = getDatumScore(datum, probs);
                 sumScores += weight * datumScore.getScore();
                 DataVector gradient = VectorFactory.scale(classifier.getGradient(datumScore), weight);
@@ -2,6 +2,8 @@ package gaj.analysis.classifier.impl;
 
 import gaj.analysis.classifier.DatumScore;
 import gaj.analysis.classifier.updated.Classification;
+import gaj.analysis.numeric.SoftmaxKernels;
+import gaj.analysis.numeric.matrix.DataMatrix;
 import gaj.analysis.numeric.matrix.WritableMatrix;
 import gaj.analysis.numeric.matrix.impl.MatrixFactory;
 import gaj.analysis.numeric.vector.DataVector;
@@ -27,21 +29,47 @@ public class LogisticClassifier extends BaseClassifier {
 
     @Override
     public Classification classify(DataVector features) {
-        DataVector weights = MatrixFactory.multiply(matParams, features);
         double[] posteriors = new double[numClasses];
-        posteriors[Cm1] = 1;
-        double norm = 1;
-        for (int c = 0; c < Cm1; c++) {
-            double p = Math.exp(weights.get(c));
-            posteriors[c] = p;
-            norm += p;
-        }
-        norm = 1 / norm;
-        for (int c = 0; c < numClasses; c++)
-            posteriors[c] *= norm;
+        classify(features, posteriors);
         return new ClassificationImpl(features, VectorFactory.newVector(posteriors));
     }
 
+    /**
+     * Computes the posterior probabilities, P(c|x), without allocating any
+     * storage for the result. The weights are normalised via a max-shifted
+     * softmax, so that large weights cannot overflow.
+     * 
+     * @param features
+     *            - The feature vector, x.
+     * @param posteriors
+     *            - The array of length at least C, in which to store the
+     *            posterior probabilities.
+     */
+    public void classify(DataVector features, double[] posteriors) {
+        // The weights are V_c.x for c < C-1, and zero for c = C-1.
+        MatrixFactory.multiply(matParams, features, posteriors);
+        posteriors[Cm1] = 0;
+        SoftmaxKernels.softmax(posteriors, 0, numClasses, posteriors, 0);
+    }
+
+    /**
+     * Computes the posterior probabilities of every feature vector at once,
+     * via a single matrix-matrix product followed by a row-wise softmax.
+     */
+    @Override
+    public DataMatrix classifyAll(DataMatrix features) {
+        final int numRows = features.numRows();
+        final double[] weights = new double[numRows * Cm1];
+        MatrixFactory.multiplyTransposed(features, matParams, weights);
+        // Append the zero weight of the last class to each row.
+        final double[] posteriors = new double[numRows * numClasses];
+        for (int row = 0; row < numRows; row++) {
+            System.arraycopy(weights, row * Cm1, posteriors, row * numClasses, Cm1);
+        }
+        SoftmaxKernels.softmaxRows(posteriors, numRows, numClasses);
+        return MatrixFactory.newMatrix(posteriors, numRows, numClasses);
+    }
+
     @Override
     public DataVector getParameters() {
         return vecParams;
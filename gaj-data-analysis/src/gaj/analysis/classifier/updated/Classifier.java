@@ -1,5 +1,8 @@
 package gaj.analysis.classifier.updated;
 
+import gaj.analysis.numeric.matrix.DataMatrix;
+import gaj.analysis.numeric.matrix.WritableMatrix;
+import gaj.analysis.numeric.matrix.impl.MatrixFactory;
 import gaj.analysis.numeric.vector.DataVector;
 
 /**
@@ -30,4 +33,19 @@ public interface Classifier {
      */
     Classification classify(DataVector features);
 
+    /**
+     * Computes the posterior distributions of multiple feature vectors.
+     * 
+     * @param features - The N x F matrix of feature vectors, one per row.
+     * @return The N x C matrix of posterior class probabilities.
+     */
+    default DataMatrix classifyAll(DataMatrix features) {
+        WritableMatrix posteriors = MatrixFactory.newMatrix(features.numRows(), numClasses());
+        int row = 0;
+        for (DataVector vector : features.getRows()) {
+            posteriors.setRow(row++, classify(vector).posteriors());
+        }
+        return posteriors;
+    }
+
 }
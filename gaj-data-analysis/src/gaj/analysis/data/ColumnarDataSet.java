@@ -0,0 +1,81 @@
+package gaj.analysis.data;
+
+import gaj.analysis.classifier.GoldData;
+import gaj.analysis.model.score.DataSource;
+import gaj.analysis.model.score.LabelledDatum;
+import gaj.analysis.numeric.vector.DataVector;
+
+/**
+ * Represents a read-only data set of labelled, weighted feature vectors,
+ * stored on disk in columnar form and accessed via memory mapping.
+ * <p/>
+ * The data cases are lightweight views of the mapped data, created on
+ * demand, so that the data set may be much larger than the available heap.
+ * Each case is both a {@link LabelledDatum} and a
+ * {@link gaj.analysis.classifier.GoldDatum}.
+ * <p/>
+ * The data set should be closed once it is no longer required, to release
+ * the mapped files.
+ */
+public interface ColumnarDataSet extends DataSource<DataVector>, GoldData, AutoCloseable {
+
+    /**
+     * Indicates the number N of data cases.
+     *
+     * @return The number of rows.
+     */
+    long size();
+
+    /**
+     * Indicates how the feature vectors are stored.
+     *
+     * @return The feature storage type.
+     */
+    FeatureStorage getFeatureStorage();
+
+    /**
+     * Obtains a view of a single data case.
+     *
+     * @param row
+     *            - The index of the data case.
+     * @return The data case.
+     */
+    LabelledDatum<DataVector> get(long row);
+
+    /**
+     * Obtains a view of the features of a single data case.
+     *
+     * @param row
+     *            - The index of the data case.
+     * @return The length-F feature vector.
+     */
+    DataVector getFeatures(long row);
+
+    /**
+     * Obtains the label of a single data case.
+     *
+     * @param row
+     *            - The index of the data case.
+     * @return The label index, or a negative value if the label is unknown.
+     */
+    int getLabelIndex(long row);
+
+    /**
+     * Obtains the weight of a single data case.
+     *
+     * @param row
+     *            - The index of the data case.
+     * @return The case weight.
+     */
+    double getWeight(long row);
+
+    /**
+     * Closes the column files. Any subsequent read of the data set, or of
+     * any case or feature vector obtained from it, throws an
+     * {@link IllegalStateException}. The mappings themselves are released
+     * by garbage collection.
+     */
+    @Override
+    void close();
+
+}
@@ -0,0 +1,50 @@
+package gaj.analysis.data;
+
+import java.io.IOException;
+import gaj.analysis.numeric.vector.DataVector;
+
+/**
+ * Appends labelled, weighted feature vectors to a columnar data set on disk.
+ * The data set becomes readable only once the writer has been closed.
+ */
+public interface ColumnarDataWriter extends AutoCloseable {
+
+    /**
+     * Indicates the number F of features in each feature vector.
+     *
+     * @return The number of features.
+     */
+    int numFeatures();
+
+    /**
+     * Indicates the number of data cases written so far.
+     *
+     * @return The number of rows.
+     */
+    long size();
+
+    /**
+     * Appends a data case.
+     *
+     * @param features
+     *            - The length-F feature vector.
+     * @param labelIndex
+     *            - The label index, or a negative value if the label is
+     *            unknown.
+     * @param weight
+     *            - The case weight.
+     * @throws IOException
+     *             If the data cannot be written.
+     */
+    void add(DataVector features, int labelIndex, double weight) throws IOException;
+
+    /**
+     * Completes the data set.
+     *
+     * @throws IOException
+     *             If the data cannot be written.
+     */
+    @Override
+    void close() throws IOException;
+
+}
@@ -0,0 +1,43 @@
+package gaj.analysis.data;
+
+/**
+ * Specifies how the feature vectors of a columnar data set are stored on disk.
+ */
+public enum FeatureStorage {
+
+    /** A contiguous, row-wise block of N x F float64 values. */
+    DENSE_DOUBLE(false, Double.BYTES),
+    /** A contiguous, row-wise block of N x F float32 values. */
+    DENSE_FLOAT(false, Float.BYTES),
+    /** Compressed sparse rows, with float64 values. */
+    SPARSE_DOUBLE(true, Double.BYTES),
+    /** Compressed sparse rows, with float32 values. */
+    SPARSE_FLOAT(true, Float.BYTES);
+
+    private final boolean isSparse;
+    private final int valueBytes;
+
+    private FeatureStorage(boolean isSparse, int valueBytes) {
+        this.isSparse = isSparse;
+        this.valueBytes = valueBytes;
+    }
+
+    /**
+     * Indicates whether only the non-zero features are stored.
+     *
+     * @return A value of true (or false) if the storage is sparse (or dense).
+     */
+    public boolean isSparse() {
+        return isSparse;
+    }
+
+    /**
+     * Indicates the size of each stored feature value.
+     *
+     * @return The number of bytes per value.
+     */
+    public int valueBytes() {
+        return valueBytes;
+    }
+
+}
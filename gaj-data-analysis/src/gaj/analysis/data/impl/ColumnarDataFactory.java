@@ -0,0 +1,52 @@
+package gaj.analysis.data.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import gaj.analysis.data.ColumnarDataSet;
+import gaj.analysis.data.ColumnarDataWriter;
+import gaj.analysis.data.FeatureStorage;
+
+/**
+ * Creates and opens memory-mapped, columnar data sets.
+ */
+public abstract class ColumnarDataFactory {
+
+    private ColumnarDataFactory() {}
+
+    /**
+     * Creates a writer for a new columnar data set, replacing any data set
+     * already in the directory.
+     *
+     * @param dir
+     *            - The directory in which to store the data set.
+     * @param numFeatures
+     *            - The number F of features in each feature vector.
+     * @param numClasses
+     *            - The number of distinct labels.
+     * @param storage
+     *            - The feature storage type.
+     * @return The data set writer.
+     * @throws IOException
+     *             If the column files cannot be created.
+     */
+    public static ColumnarDataWriter newWriter(Path dir, int numFeatures, int numClasses, FeatureStorage storage)
+            throws IOException
+    {
+        return new ColumnarDataWriterImpl(dir, numFeatures, numClasses, storage);
+    }
+
+    /**
+     * Opens an existing columnar data set by memory-mapping its column files.
+     * The data set remains mapped until it is closed.
+     *
+     * @param dir
+     *            - The directory in which the data set is stored.
+     * @return The data set.
+     * @throws IOException
+     *             If the data set is incomplete or malformed.
+     */
+    public static ColumnarDataSet open(Path dir) throws IOException {
+        return new MappedColumnarDataSet(dir);
+    }
+
+}
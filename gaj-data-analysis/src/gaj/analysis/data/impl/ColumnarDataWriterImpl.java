@@ -0,0 +1,236 @@
+package gaj.analysis.data.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import gaj.analysis.data.ColumnarDataWriter;
+import gaj.analysis.data.FeatureStorage;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.VectorCursor;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Streams data cases into the column files of a columnar data set, through a
+ * direct buffer per column.
+ * <p/>
+ * Each case is validated and staged in full before any of it is written, so
+ * that an invalid case is rejected without misaligning the columns. If a
+ * case fails to be written, then the writer is marked as failed, and the
+ * header is not written on closing, so the incomplete data set cannot be
+ * opened.
+ */
+@PackagePrivate class ColumnarDataWriterImpl implements ColumnarDataWriter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int INITIAL_ROW_SIZE = 16;
+
+    private final Path dir;
+    private final FeatureStorage storage;
+    private final int numFeatures;
+    private final int numClasses;
+    private final ColumnOutput labels;
+    private final ColumnOutput weights;
+    private final ColumnOutput values;
+    private final ColumnOutput starts;
+    private final ColumnOutput indices;
+    /** The working storage for a dense row, or the values of a sparse row. */
+    private double[] row;
+    /** The working storage for the feature indices of a sparse row. */
+    private int[] rowIndices;
+    private long numRows = 0;
+    private long numValues = 0;
+    private boolean isClosed = false;
+    private boolean isFailed = false;
+
+    /**
+     * Buffers the little-endian elements of a single column file.
+     */
+    private static final class ColumnOutput {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        private ColumnOutput(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        private ByteBuffer reserve(int numBytes) throws IOException {
+            if (buffer.remaining() < numBytes)
+                flush();
+            return buffer;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+        private void close() throws IOException {
+            try {
+                flush();
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    @PackagePrivate ColumnarDataWriterImpl(Path dir, int numFeatures, int numClasses, FeatureStorage storage)
+            throws IOException
+    {
+        if (numFeatures < 0 || numClasses < 0)
+            throw new IllegalArgumentException("Invalid data set size: " + numFeatures + " features, "
+                    + numClasses + " classes");
+        this.dir = dir;
+        this.storage = storage;
+        this.numFeatures = numFeatures;
+        this.numClasses = numClasses;
+        Files.createDirectories(dir);
+        Files.deleteIfExists(dir.resolve(ColumnarHeader.HEADER));
+        labels = new ColumnOutput(dir.resolve(ColumnarHeader.LABELS));
+        weights = new ColumnOutput(dir.resolve(ColumnarHeader.WEIGHTS));
+        values = new ColumnOutput(dir.resolve(ColumnarHeader.valuesFile(storage)));
+        if (storage.isSparse()) {
+            starts = new ColumnOutput(dir.resolve(ColumnarHeader.STARTS));
+            indices = new ColumnOutput(dir.resolve(ColumnarHeader.INDICES));
+            starts.reserve(Long.BYTES).putLong(0);
+            row = new double[INITIAL_ROW_SIZE];
+            rowIndices = new int[INITIAL_ROW_SIZE];
+        } else {
+            starts = indices = null;
+            row = new double[numFeatures];
+            rowIndices = null;
+        }
+    }
+
+    @Override
+    public int numFeatures() {
+        return numFeatures;
+    }
+
+    @Override
+    public long size() {
+        return numRows;
+    }
+
+    @Override
+    public void add(DataVector features, int labelIndex, double weight) throws IOException {
+        if (isClosed)
+            throw new IllegalStateException("Data set is closed");
+        if (isFailed)
+            throw new IllegalStateException("Data set is incomplete");
+        if (features.size() != numFeatures)
+            throw new IllegalArgumentException("Expected " + numFeatures + " features, got " + features.size());
+        if (labelIndex >= numClasses)
+            throw new IndexOutOfBoundsException("Bad label index: " + labelIndex);
+        final int rowSize = storage.isSparse() ? stageSparse(features) : stageDense(features);
+        boolean isWritten = false;
+        try {
+            labels.reserve(Integer.BYTES).putInt(labelIndex);
+            weights.reserve(Double.BYTES).putDouble(weight);
+            if (storage.isSparse()) {
+                for (int i = 0; i < rowSize; i++) {
+                    indices.reserve(Integer.BYTES).putInt(rowIndices[i]);
+                    putValue(row[i]);
+                }
+                numValues += rowSize;
+                starts.reserve(Long.BYTES).putLong(numValues);
+            } else {
+                for (int i = 0; i < rowSize; i++) {
+                    putValue(row[i]);
+                }
+                numValues += rowSize;
+            }
+            isWritten = true;
+        } finally {
+            if (!isWritten)
+                isFailed = true;
+        }
+        numRows++;
+    }
+
+    /**
+     * Copies the non-zero features into the sparse row storage.
+     *
+     * @param features
+     *            - The feature vector.
+     * @return The number of non-zero features.
+     * @throws IllegalArgumentException
+     *             If the features are not traversed in ascending order.
+     */
+    private int stageSparse(DataVector features) {
+        final VectorCursor cursor = features.cursor();
+        int lastIndex = -1, rowSize = 0;
+        while (cursor.hasNext()) {
+            final int index = cursor.next();
+            final double value = cursor.value();
+            if (value != 0) {
+                if (index <= lastIndex)
+                    throw new IllegalArgumentException("Features must be traversed in ascending order");
+                if (rowSize == row.length) {
+                    row = Arrays.copyOf(row, 2 * rowSize);
+                    rowIndices = Arrays.copyOf(rowIndices, 2 * rowSize);
+                }
+                rowIndices[rowSize] = index;
+                row[rowSize++] = value;
+                lastIndex = index;
+            }
+        }
+        return rowSize;
+    }
+
+    /**
+     * Copies the features into the dense row storage.
+     *
+     * @param features
+     *            - The feature vector.
+     * @return The number of features.
+     */
+    private int stageDense(DataVector features) {
+        Arrays.fill(row, 0);
+        final VectorCursor cursor = features.cursor();
+        while (cursor.hasNext()) {
+            final int index = cursor.next();
+            row[index] = cursor.value();
+        }
+        return numFeatures;
+    }
+
+    private void putValue(double value) throws IOException {
+        if (storage.valueBytes() == Double.BYTES)
+            values.reserve(Double.BYTES).putDouble(value);
+        else
+            values.reserve(Float.BYTES).putFloat((float) value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (isClosed)
+            return;
+        isClosed = true;
+        IOException failure = null;
+        for (ColumnOutput column : new ColumnOutput[] { labels, weights, values, starts, indices }) {
+            if (column == null)
+                continue;
+            try {
+                column.close();
+            } catch (IOException e) {
+                if (failure == null)
+                    failure = e;
+            }
+        }
+        if (failure != null)
+            throw failure;
+        if (isFailed)
+            throw new IOException("Data set is incomplete, since a data case failed to be written: " + dir);
+        new ColumnarHeader(storage, numRows, numFeatures, numClasses, numValues).write(dir);
+    }
+
+}
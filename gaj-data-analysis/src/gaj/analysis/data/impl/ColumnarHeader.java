@@ -0,0 +1,111 @@
+package gaj.analysis.data.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import gaj.analysis.data.FeatureStorage;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Describes the layout of a columnar data set. The data set is a directory
+ * holding a header file and one file per column, each column being a
+ * contiguous array of little-endian elements:
+ * <ul>
+ * <li>labels.i32 - The N label indices.</li>
+ * <li>weights.f64 - The N case weights.</li>
+ * <li>features.f64 or features.f32 - The N x F dense features, row-wise.</li>
+ * <li>starts.i64 - The N+1 sparse row start positions.</li>
+ * <li>indices.i32 - The column indices of the non-zero sparse features.</li>
+ * <li>values.f64 or values.f32 - The values of the non-zero sparse features.</li>
+ * </ul>
+ * The header consists of the magic bytes "GAJCOLS1", the format version, the
+ * feature storage type, N, F, the number of classes and the number of stored
+ * feature values. It is written last, so that an incomplete data set cannot
+ * be opened.
+ */
+@PackagePrivate class ColumnarHeader {
+
+    /* @PackagePrivate */ static final String HEADER = "header.bin";
+    /* @PackagePrivate */ static final String LABELS = "labels.i32";
+    /* @PackagePrivate */ static final String WEIGHTS = "weights.f64";
+    /* @PackagePrivate */ static final String STARTS = "starts.i64";
+    /* @PackagePrivate */ static final String INDICES = "indices.i32";
+
+    private static final byte[] MAGIC = "GAJCOLS1".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+
+    /* @PackagePrivate */ final FeatureStorage storage;
+    /* @PackagePrivate */ final long numRows;
+    /* @PackagePrivate */ final int numFeatures;
+    /* @PackagePrivate */ final int numClasses;
+    /* @PackagePrivate */ final long numValues;
+
+    @PackagePrivate ColumnarHeader(FeatureStorage storage, long numRows, int numFeatures, int numClasses, long numValues) {
+        this.storage = storage;
+        this.numRows = numRows;
+        this.numFeatures = numFeatures;
+        this.numClasses = numClasses;
+        this.numValues = numValues;
+    }
+
+    /**
+     * Names the column file holding the feature values.
+     *
+     * @param storage
+     *            - The feature storage type.
+     * @return The file name.
+     */
+    @PackagePrivate static String valuesFile(FeatureStorage storage) {
+        return (storage.isSparse() ? "values" : "features")
+                + (storage.valueBytes() == Double.BYTES ? ".f64" : ".f32");
+    }
+
+    @PackagePrivate void write(Path dir) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(MAGIC).putInt(VERSION).putInt(storage.ordinal())
+                .putLong(numRows).putInt(numFeatures).putInt(numClasses).putLong(numValues);
+        buffer.flip();
+        final Path tmpPath = dir.resolve(HEADER + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(false);
+        }
+        Files.move(tmpPath, dir.resolve(HEADER), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @PackagePrivate static ColumnarHeader read(Path dir) throws IOException {
+        final Path path = dir.resolve(HEADER);
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {}
+        }
+        if (buffer.hasRemaining())
+            throw new IOException("Truncated data set header: " + path);
+        buffer.flip();
+        final byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i])
+                throw new IOException("Not a columnar data set: " + dir);
+        }
+        final int version = buffer.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported data set version: " + version);
+        final int type = buffer.getInt();
+        if (type < 0 || type >= FeatureStorage.values().length)
+            throw new IOException("Unknown feature storage type: " + type);
+        return new ColumnarHeader(FeatureStorage.values()[type],
+                buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getLong());
+    }
+
+}
@@ -0,0 +1,118 @@
+package gaj.analysis.data.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Provides read-only, random access to a column file of fixed-size,
+ * little-endian elements. Since a single mapping is limited to 2 GB, the
+ * file is mapped in segments of a power-of-two number of elements, so that
+ * no element straddles two segments.
+ * <p/>
+ * Only absolute reads are performed, so a column may be read concurrently
+ * by multiple threads. Closing the column makes any subsequent read fail
+ * with an {@link IllegalStateException}, and leaves the mapping to be
+ * released by garbage collection. It is not forcibly unmapped, since a read
+ * racing the close would then touch unmapped memory and crash the JVM.
+ */
+@PackagePrivate class MappedColumn {
+
+    /** The maximum number of bytes in a mapped segment. */
+    private static final int SEGMENT_BITS = 30;
+
+    /** The mapped segments, or a value of null once closed. */
+    private volatile ByteBuffer[] segments;
+    private final int shift;
+    private final int mask;
+    private final boolean isDouble;
+    private final long length;
+
+    /**
+     * Maps a column file.
+     *
+     * @param path
+     *            - The location of the column file.
+     * @param elementBytes
+     *            - The size of each element: 4 or 8 bytes.
+     * @param length
+     *            - The expected number of elements.
+     * @throws IOException
+     *             If the file cannot be mapped, or is too short.
+     */
+    @PackagePrivate MappedColumn(Path path, int elementBytes, long length) throws IOException {
+        final int elementBits = Integer.numberOfTrailingZeros(elementBytes);
+        this.shift = SEGMENT_BITS - elementBits;
+        this.mask = (1 << shift) - 1;
+        this.isDouble = (elementBytes == Double.BYTES);
+        this.length = length;
+        final long numBytes = length << elementBits;
+        final int numSegments = (int) ((numBytes + (1L << SEGMENT_BITS) - 1) >>> SEGMENT_BITS);
+        final ByteBuffer[] segments = new ByteBuffer[numSegments];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < numBytes)
+                throw new IOException("Expected " + numBytes + " bytes in column file: " + path);
+            for (int i = 0; i < numSegments; i++) {
+                final long start = (long) i << SEGMENT_BITS;
+                final long size = Math.min(1L << SEGMENT_BITS, numBytes - start);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, size).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        this.segments = segments;
+    }
+
+    /**
+     * Closes the column, so that subsequent reads fail. A read that races
+     * the close may still succeed, since the mapping remains valid until it
+     * is garbage collected.
+     */
+    @PackagePrivate void close() {
+        segments = null;
+    }
+
+    /**
+     * @return The number of elements.
+     */
+    @PackagePrivate long length() {
+        return length;
+    }
+
+    private ByteBuffer segment(long index) {
+        final ByteBuffer[] segments = this.segments;
+        if (segments == null)
+            throw new IllegalStateException("Column is closed");
+        return segments[(int) (index >>> shift)];
+    }
+
+    @PackagePrivate int getInt(long index) {
+        return segment(index).getInt(((int) index & mask) << 2);
+    }
+
+    @PackagePrivate long getLong(long index) {
+        return segment(index).getLong(((int) index & mask) << 3);
+    }
+
+    @PackagePrivate float getFloat(long index) {
+        return segment(index).getFloat(((int) index & mask) << 2);
+    }
+
+    @PackagePrivate double getDouble(long index) {
+        return segment(index).getDouble(((int) index & mask) << 3);
+    }
+
+    /**
+     * Reads a real-valued element, stored as either a float or a double.
+     *
+     * @param index
+     *            - The element index.
+     * @return The element value.
+     */
+    @PackagePrivate double getValue(long index) {
+        return isDouble ? getDouble(index) : getFloat(index);
+    }
+
+}
@@ -0,0 +1,181 @@
+package gaj.analysis.data.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import gaj.analysis.classifier.GoldDatum;
+import gaj.analysis.data.ColumnarDataSet;
+import gaj.analysis.data.FeatureStorage;
+import gaj.analysis.model.score.Datum;
+import gaj.analysis.model.score.LabelledDatum;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Implements a columnar data set over memory-mapped column files. Each data
+ * case is a small view holding only the row index; its feature vector reads
+ * directly from the mapped data.
+ */
+@PackagePrivate class MappedColumnarDataSet implements ColumnarDataSet {
+
+    private final ColumnarHeader header;
+    private final MappedColumn labels;
+    private final MappedColumn weights;
+    private final MappedColumn values;
+    private final MappedColumn starts;
+    private final MappedColumn indices;
+    private volatile boolean isClosed = false;
+
+    /**
+     * Represents a single data case as a view of the mapped data.
+     */
+    private final class MappedDatum implements LabelledDatum<DataVector>, GoldDatum {
+        private final long row;
+
+        private MappedDatum(long row) {
+            this.row = row;
+        }
+
+        @Override
+        public DataVector getData() {
+            return MappedColumnarDataSet.this.getFeatures(row);
+        }
+
+        @Override
+        public DataVector getFeatures() {
+            return MappedColumnarDataSet.this.getFeatures(row);
+        }
+
+        @Override
+        public int getLabelIndex() {
+            return labels.getInt(row);
+        }
+
+        @Override
+        public int getClassIndex() {
+            return labels.getInt(row);
+        }
+
+        @Override
+        public double getWeight() {
+            return weights.getDouble(row);
+        }
+    }
+
+    @PackagePrivate MappedColumnarDataSet(Path dir) throws IOException {
+        header = ColumnarHeader.read(dir);
+        final FeatureStorage storage = header.storage;
+        labels = new MappedColumn(dir.resolve(ColumnarHeader.LABELS), Integer.BYTES, header.numRows);
+        weights = new MappedColumn(dir.resolve(ColumnarHeader.WEIGHTS), Double.BYTES, header.numRows);
+        values = new MappedColumn(dir.resolve(ColumnarHeader.valuesFile(storage)), storage.valueBytes(),
+                header.numValues);
+        if (storage.isSparse()) {
+            starts = new MappedColumn(dir.resolve(ColumnarHeader.STARTS), Long.BYTES, header.numRows + 1);
+            indices = new MappedColumn(dir.resolve(ColumnarHeader.INDICES), Integer.BYTES, header.numValues);
+        } else {
+            if (header.numValues != header.numRows * header.numFeatures)
+                throw new IOException("Inconsistent dense data set header: " + dir);
+            starts = indices = null;
+        }
+    }
+
+    @Override
+    public long size() {
+        return header.numRows;
+    }
+
+    @Override
+    public int numClasses() {
+        return header.numClasses;
+    }
+
+    @Override
+    public int numFeatures() {
+        return header.numFeatures;
+    }
+
+    @Override
+    public FeatureStorage getFeatureStorage() {
+        return header.storage;
+    }
+
+    private void checkRow(long row) {
+        if (isClosed)
+            throw new IllegalStateException("Data set is closed");
+        if (row < 0 || row >= header.numRows)
+            throw new IndexOutOfBoundsException("Bad row: " + row);
+    }
+
+    @Override
+    public LabelledDatum<DataVector> get(long row) {
+        checkRow(row);
+        return new MappedDatum(row);
+    }
+
+    @Override
+    public DataVector getFeatures(long row) {
+        checkRow(row);
+        if (starts == null)
+            return new MappedDenseVector(header.numFeatures, values, row * header.numFeatures);
+        return new MappedSparseVector(header.numFeatures, indices, values, starts.getLong(row), starts.getLong(row + 1));
+    }
+
+    @Override
+    public int getLabelIndex(long row) {
+        checkRow(row);
+        return labels.getInt(row);
+    }
+
+    @Override
+    public double getWeight(long row) {
+        checkRow(row);
+        return weights.getDouble(row);
+    }
+
+    @Override
+    public Stream<Datum<DataVector>> stream() {
+        return LongStream.range(0, header.numRows).mapToObj(MappedDatum::new);
+    }
+
+    @Override
+    public Stream<Datum<DataVector>> parallelStream() {
+        return stream().parallel();
+    }
+
+    @Override
+    public Iterator<GoldDatum> iterator() {
+        return new Iterator<GoldDatum>() {
+            private long row = 0;
+
+            @Override
+            public boolean hasNext() {
+                return row < header.numRows;
+            }
+
+            @Override
+            public GoldDatum next() {
+                if (!hasNext())
+                    throw new NoSuchElementException("End of data set");
+                return new MappedDatum(row++);
+            }
+        };
+    }
+
+    @Override
+    public synchronized void close() {
+        if (isClosed)
+            return;
+        isClosed = true;
+        labels.close();
+        weights.close();
+        values.close();
+        if (starts != null) {
+            starts.close();
+            indices.close();
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package gaj.analysis.data.impl;
+
+import gaj.analysis.numeric.RepresentationType;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.DenseVector;
+import gaj.analysis.numeric.vector.VectorCursor;
+import gaj.analysis.numeric.vector.impl.AbstractVector;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Implements a read-only view of a dense vector stored contiguously in a
+ * memory-mapped column.
+ */
+@PackagePrivate class MappedDenseVector extends AbstractVector implements DenseVector {
+
+    private final MappedColumn values;
+    private final long start;
+
+    @PackagePrivate MappedDenseVector(int length, MappedColumn values, long start) {
+        super(length);
+        this.values = values;
+        this.start = start;
+    }
+
+    @Override
+    public double get(int pos) {
+        if (pos < 0 || pos >= length)
+            throw new IndexOutOfBoundsException("Bad index: " + pos);
+        return values.getValue(start + pos);
+    }
+
+    @Override
+    public double dot(DataVector vector) {
+        double sum = 0;
+        if (vector.representationType() == RepresentationType.SPARSE) {
+            final VectorCursor cursor = vector.cursor();
+            while (cursor.hasNext()) {
+                final int pos = cursor.next();
+                sum += values.getValue(start + pos) * cursor.value();
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                sum += values.getValue(start + i) * vector.get(i);
+            }
+        }
+        return sum;
+    }
+
+}
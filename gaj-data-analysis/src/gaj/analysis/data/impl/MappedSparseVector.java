@@ -0,0 +1,129 @@
+package gaj.analysis.data.impl;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.SparseVector;
+import gaj.analysis.numeric.vector.VectorCursor;
+import gaj.analysis.numeric.vector.impl.AbstractVector;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Implements a read-only view of a sparse vector stored as a contiguous
+ * range of ascending indices and corresponding values, in a pair of
+ * memory-mapped columns.
+ */
+@PackagePrivate class MappedSparseVector extends AbstractVector implements SparseVector {
+
+    private final MappedColumn indices;
+    private final MappedColumn values;
+    private final long start;
+    private final long end;
+
+    @PackagePrivate MappedSparseVector(int length, MappedColumn indices, MappedColumn values, long start, long end) {
+        super(length);
+        this.indices = indices;
+        this.values = values;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public double get(int pos) {
+        if (pos < 0 || pos >= length)
+            throw new IndexOutOfBoundsException("Bad index: " + pos);
+        long low = start, high = end - 1;
+        while (low <= high) {
+            final long mid = (low + high) >>> 1;
+            final int index = indices.getInt(mid);
+            if (index < pos)
+                low = mid + 1;
+            else if (index > pos)
+                high = mid - 1;
+            else
+                return values.getValue(mid);
+        }
+        return 0;
+    }
+
+    @Override
+    protected double _norm() {
+        double sum = 0;
+        for (long i = start; i < end; i++) {
+            final double value = values.getValue(i);
+            sum += value * value;
+        }
+        return Math.sqrt(sum);
+    }
+
+    @Override
+    public double sum() {
+        double sum = 0;
+        for (long i = start; i < end; i++) {
+            sum += values.getValue(i);
+        }
+        return sum;
+    }
+
+    @Override
+    public double dot(DataVector vector) {
+        double sum = 0;
+        for (long i = start; i < end; i++) {
+            sum += values.getValue(i) * vector.get(indices.getInt(i));
+        }
+        return sum;
+    }
+
+    @Override
+    public Iterator<Double> iterator() {
+        return new Iterator<Double>() {
+            private int pos = 0;
+            private long i = start;
+
+            @Override
+            public boolean hasNext() {
+                return pos < length;
+            }
+
+            @Override
+            public Double next() {
+                if (!hasNext())
+                    throw new NoSuchElementException("End of traversal");
+                final int _pos = pos++;
+                if (i < end && indices.getInt(i) == _pos)
+                    return values.getValue(i++);
+                return 0.0;
+            }
+        };
+    }
+
+    @Override
+    public VectorCursor cursor() {
+        return new VectorCursor() {
+            private long i = start - 1;
+
+            @Override
+            public boolean hasNext() {
+                return (i + 1 < end);
+            }
+
+            @Override
+            public int next() {
+                if (!hasNext())
+                    throw new NoSuchElementException("End of traversal");
+                return indices.getInt(++i);
+            }
+
+            @Override
+            public int position() {
+                return indices.getInt(i);
+            }
+
+            @Override
+            public double value() {
+                return values.getValue(i);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Implements memory-mapped, columnar data sets.
+ */
+package gaj.analysis.data.impl;
\ No newline at end of file
@@ -0,0 +1,4 @@
+/**
+ * Specifies on-disk data sets that may be larger than the available memory.
+ */
+package gaj.analysis.data;
\ No newline at end of file
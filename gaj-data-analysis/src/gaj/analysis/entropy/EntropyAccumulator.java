@@ -0,0 +1,61 @@
+package gaj.analysis.entropy;
+
+/**
+ * Accumulates the counts of a stream of discrete observations, from which
+ * the empirical entropy may be computed at any time.
+ * <p/>
+ * Note: An instance is not thread-safe. For parallel accumulation, use one
+ * accumulator per thread, and then {@link #combine} them.
+ */
+public class EntropyAccumulator {
+
+    private final ObservationCounter counter = new ObservationCounter();
+
+    /**
+     * Adds an observation.
+     *
+     * @param obs - The observation.
+     */
+    public void add(int obs) {
+        counter.add(obs);
+    }
+
+    /**
+     * Adds a sequence of observations.
+     *
+     * @param sequence - The observation sequence.
+     */
+    public void addAll(int[] sequence) {
+        for (int obs : sequence) {
+            counter.add(obs);
+        }
+    }
+
+    /**
+     * Adds in the counts of another accumulator.
+     *
+     * @param accumulator - The other accumulator.
+     * @return This accumulator.
+     */
+    public EntropyAccumulator combine(EntropyAccumulator accumulator) {
+        counter.addAll(accumulator.counter);
+        return this;
+    }
+
+    /**
+     * @return The number of observations.
+     */
+    public long numObservations() {
+        return counter.total();
+    }
+
+    /**
+     * Computes the empirical entropy, H(X), of the observations.
+     *
+     * @return The entropy measure.
+     */
+    public double entropy() {
+        return counter.entropy();
+    }
+
+}
@@ -17,19 +17,9 @@ public abstract class EntropyAnalyser {
      * @return The entropy measure.
      */
     public static double entropy(int[] sequence) {
-        Map<Integer, Integer> counts = new HashMap<>();
-        for (int obs : sequence) {
-            Integer count = counts.get(obs);
-            count = (count == null) ? 1 : (count + 1);
-            counts.put(obs, count);
-        }
-        final double norm = 1.0 / sequence.length;
-        double H = 0;
-        for (int count : counts.values()) {
-            double p = norm * count;
-            H -= p * Math.log(p);
-        }
-        return H;
+        EntropyAccumulator accumulator = new EntropyAccumulator();
+        accumulator.addAll(sequence);
+        return accumulator.entropy();
     }
 
     /**
@@ -40,19 +30,12 @@ public abstract class EntropyAnalyser {
      * @return The entropy measure.
      */
     public static double entropy(IndexVector sequence) {
-        Map<Integer, Integer> counts = new HashMap<>();
-        for (Integer obs : sequence) {
-            Integer count = counts.get(obs);
-            count = (count == null) ? 1 : (count + 1);
-            counts.put(obs, count);
-        }
-        final double norm = 1.0 / sequence.size();
-        double H = 0;
-        for (int count : counts.values()) {
-            double p = norm * count;
-            H -= p * Math.log(p);
+        EntropyAccumulator accumulator = new EntropyAccumulator();
+        final int length = sequence.size();
+        for (int i = 0; i < length; i++) {
+            accumulator.add(sequence.get(i));
         }
-        return H;
+        return accumulator.entropy();
     }
 
     /**
@@ -87,21 +70,37 @@ public abstract class EntropyAnalyser {
      * @return The entropy measure.
      */
     public static double entropy(int[] sequence1, int[] sequence2) {
-        Map<IntPair, Integer> counts = new HashMap<>();
-        final int length = sequence1.length;
-        for (int i = 0; i < length; i++) {
-            IntPair obs = new IntPair(sequence1[i], sequence2[i]);
-            Integer count = counts.get(obs);
-            count = (count == null) ? 1 : (count + 1);
-            counts.put(obs, count);
-        }
-        final double norm = 1.0 / length;
-        double H = 0;
-        for (int count : counts.values()) {
-            double p = norm * count;
-            H -= p * Math.log(p);
-        }
-        return H;
+        return accumulate(sequence1, sequence2).jointEntropy();
+    }
+
+    /**
+     * Computes the empirical conditional entropy, H(X|Y),
+     * of a pair of discrete sequences of observations.
+     * 
+     * @param sequence1 - The first observation sequence, X.
+     * @param sequence2 - The second observation sequence, Y.
+     * @return The entropy measure.
+     */
+    public static double conditionalEntropy(int[] sequence1, int[] sequence2) {
+        return accumulate(sequence1, sequence2).conditionalEntropyX();
+    }
+
+    /**
+     * Computes the empirical mutual information, I(X;Y),
+     * of a pair of discrete sequences of observations.
+     * 
+     * @param sequence1 - The first observation sequence, X.
+     * @param sequence2 - The second observation sequence, Y.
+     * @return The information measure.
+     */
+    public static double mutualInformation(int[] sequence1, int[] sequence2) {
+        return accumulate(sequence1, sequence2).mutualInformation();
+    }
+
+    private static JointEntropyAccumulator accumulate(int[] sequence1, int[] sequence2) {
+        JointEntropyAccumulator accumulator = new JointEntropyAccumulator();
+        accumulator.addAll(sequence1, sequence2);
+        return accumulator;
     }
 
 }
@@ -0,0 +1,138 @@
+package gaj.analysis.entropy;
+
+/**
+ * Accumulates the joint counts of a stream of paired discrete observations,
+ * (x, y), from which the empirical joint, marginal and conditional entropies,
+ * and the mutual information, may be computed at any time.
+ * <p/>
+ * Only the joint counts are accumulated; the marginal counts are derived
+ * from them when required.
+ * <p/>
+ * Note: An instance is not thread-safe. For parallel accumulation, use one
+ * accumulator per thread, and then {@link #combine} them.
+ */
+public class JointEntropyAccumulator {
+
+    private final ObservationCounter jointCounter = new ObservationCounter();
+    /** The cached marginal entropies, H(X) and H(Y), or null if stale. */
+    private double[] marginalEntropies = null;
+
+    private static long pair(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Adds a paired observation.
+     *
+     * @param x - The first observation.
+     * @param y - The second observation.
+     */
+    public void add(int x, int y) {
+        jointCounter.add(pair(x, y));
+        marginalEntropies = null;
+    }
+
+    /**
+     * Adds a pair of observation sequences.
+     *
+     * @param sequence1 - The first observation sequence.
+     * @param sequence2 - The second observation sequence, of the same length.
+     */
+    public void addAll(int[] sequence1, int[] sequence2) {
+        if (sequence1.length != sequence2.length) {
+            throw new IllegalArgumentException("Sequences must have the same length");
+        }
+        for (int i = 0; i < sequence1.length; i++) {
+            jointCounter.add(pair(sequence1[i], sequence2[i]));
+        }
+        marginalEntropies = null;
+    }
+
+    /**
+     * Adds in the counts of another accumulator.
+     *
+     * @param accumulator - The other accumulator.
+     * @return This accumulator.
+     */
+    public JointEntropyAccumulator combine(JointEntropyAccumulator accumulator) {
+        jointCounter.addAll(accumulator.jointCounter);
+        marginalEntropies = null;
+        return this;
+    }
+
+    /**
+     * @return The number of paired observations.
+     */
+    public long numObservations() {
+        return jointCounter.total();
+    }
+
+    /**
+     * Computes the empirical joint entropy, H(X,Y).
+     *
+     * @return The entropy measure.
+     */
+    public double jointEntropy() {
+        return jointCounter.entropy();
+    }
+
+    /**
+     * Computes the empirical marginal entropy, H(X), of the first observations.
+     *
+     * @return The entropy measure.
+     */
+    public double entropyX() {
+        return marginalEntropies()[0];
+    }
+
+    /**
+     * Computes the empirical marginal entropy, H(Y), of the second observations.
+     *
+     * @return The entropy measure.
+     */
+    public double entropyY() {
+        return marginalEntropies()[1];
+    }
+
+    /**
+     * Computes the empirical conditional entropy, H(X|Y) = H(X,Y) - H(Y).
+     *
+     * @return The entropy measure.
+     */
+    public double conditionalEntropyX() {
+        return jointEntropy() - entropyY();
+    }
+
+    /**
+     * Computes the empirical conditional entropy, H(Y|X) = H(X,Y) - H(X).
+     *
+     * @return The entropy measure.
+     */
+    public double conditionalEntropyY() {
+        return jointEntropy() - entropyX();
+    }
+
+    /**
+     * Computes the empirical mutual information,
+     * I(X;Y) = H(X) + H(Y) - H(X,Y).
+     *
+     * @return The information measure.
+     */
+    public double mutualInformation() {
+        return entropyX() + entropyY() - jointEntropy();
+    }
+
+    private double[] marginalEntropies() {
+        if (marginalEntropies == null) {
+            final ObservationCounter counterX = new ObservationCounter();
+            final ObservationCounter counterY = new ObservationCounter();
+            jointCounter.forEach((obs, count) -> {
+                counterX.add((int) (obs >> 32), count);
+                counterY.add((int) obs, count);
+            });
+            marginalEntropies = new double[] { counterX.entropy(), counterY.entropy() };
+        }
+        return marginalEntropies;
+    }
+
+}
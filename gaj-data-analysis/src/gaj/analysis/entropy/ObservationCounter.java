@@ -0,0 +1,189 @@
+package gaj.analysis.entropy;
+
+import java.util.Arrays;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Counts occurrences of discrete observations, without boxing.
+ * <p/>
+ * Small, non-negative observations are counted in a dense array. Once any
+ * other observation occurs, the counts are moved into an open-addressing hash
+ * table.
+ */
+@PackagePrivate class ObservationCounter {
+
+    /** The largest alphabet size counted by the dense array. */
+    private static final int MAX_DENSE = 1 << 12;
+    /** The initial capacity of the dense array and the hash table. */
+    private static final int MIN_CAPACITY = 16;
+    /** Marks an unused slot in the hash table. */
+    private static final long NO_KEY = Long.MIN_VALUE;
+
+    /**
+     * Receives each distinct observation and its count.
+     */
+    @PackagePrivate interface CountConsumer {
+        void accept(long obs, int count);
+    }
+
+    /** The dense counts, or null if the counts are hashed. */
+    private int[] denseCounts = new int[MIN_CAPACITY];
+    /** The hash table observations. */
+    private long[] keys;
+    /** The hash table counts. */
+    private int[] counts;
+    /** The number of used slots in the hash table. */
+    private int numKeys = 0;
+    /** The count of the observation that coincides with NO_KEY. */
+    private int noKeyCount = 0;
+    /** The total number of observations. */
+    private long total = 0;
+
+    /**
+     * @return The total number of observations.
+     */
+    @PackagePrivate long total() {
+        return total;
+    }
+
+    /**
+     * Adds an observation to the counts.
+     *
+     * @param obs - The observation.
+     */
+    @PackagePrivate void add(long obs) {
+        add(obs, 1);
+    }
+
+    /**
+     * Adds multiple occurrences of an observation to the counts.
+     *
+     * @param obs - The observation.
+     * @param count - The number of occurrences.
+     */
+    @PackagePrivate void add(long obs, int count) {
+        total += count;
+        if (denseCounts != null) {
+            if (obs >= 0 && obs < MAX_DENSE) {
+                final int pos = (int) obs;
+                if (pos >= denseCounts.length) {
+                    denseCounts = Arrays.copyOf(denseCounts, Integer.highestOneBit(pos) << 1);
+                }
+                denseCounts[pos] += count;
+                return;
+            }
+            toHashed();
+        }
+        if (obs == NO_KEY) {
+            noKeyCount += count;
+            return;
+        }
+        int slot = slot(obs);
+        if (keys[slot] == NO_KEY) {
+            if (2 * (numKeys + 1) > keys.length) {
+                rehash(2 * keys.length);
+                slot = slot(obs);
+            }
+            keys[slot] = obs;
+            numKeys++;
+        }
+        counts[slot] += count;
+    }
+
+    /**
+     * Adds the counts of another counter into this counter.
+     *
+     * @param counter - The other counter.
+     */
+    @PackagePrivate void addAll(ObservationCounter counter) {
+        counter.forEach(this::add);
+    }
+
+    /**
+     * Passes each distinct observation and its count to the consumer.
+     *
+     * @param consumer - The consumer of counts.
+     */
+    @PackagePrivate void forEach(CountConsumer consumer) {
+        if (denseCounts != null) {
+            for (int i = 0; i < denseCounts.length; i++) {
+                if (denseCounts[i] > 0) consumer.accept(i, denseCounts[i]);
+            }
+        } else {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != NO_KEY) consumer.accept(keys[i], counts[i]);
+            }
+            if (noKeyCount > 0) consumer.accept(NO_KEY, noKeyCount);
+        }
+    }
+
+    /**
+     * Computes the empirical entropy of the observations, namely
+     * H = -sum_x p(x) log p(x) = log N - (1/N) sum_x C(x) log C(x).
+     *
+     * @return The entropy measure.
+     */
+    @PackagePrivate double entropy() {
+        if (total == 0) return 0;
+        double sum = 0;
+        if (denseCounts != null) {
+            for (int count : denseCounts) {
+                if (count > 0) sum += count * Math.log(count);
+            }
+        } else {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != NO_KEY) sum += counts[i] * Math.log(counts[i]);
+            }
+            if (noKeyCount > 0) sum += noKeyCount * Math.log(noKeyCount);
+        }
+        return Math.log(total) - sum / total;
+    }
+
+    // ***************************************
+    // Hash table management.
+
+    private static int hash(long obs) {
+        long h = obs * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    private int slot(long obs) {
+        final int mask = keys.length - 1;
+        int slot = hash(obs) & mask;
+        while (keys[slot] != NO_KEY && keys[slot] != obs) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void toHashed() {
+        final int[] oldCounts = denseCounts;
+        denseCounts = null;
+        keys = new long[MIN_CAPACITY];
+        Arrays.fill(keys, NO_KEY);
+        counts = new int[MIN_CAPACITY];
+        for (int i = 0; i < oldCounts.length; i++) {
+            if (oldCounts[i] > 0) {
+                total -= oldCounts[i];
+                add(i, oldCounts[i]);
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        final long[] oldKeys = keys;
+        final int[] oldCounts = counts;
+        keys = new long[capacity];
+        Arrays.fill(keys, NO_KEY);
+        counts = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != NO_KEY) {
+                final int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+}
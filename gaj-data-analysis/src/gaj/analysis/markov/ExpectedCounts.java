@@ -0,0 +1,252 @@
+package gaj.analysis.markov;
+
+import java.util.Arrays;
+import gaj.analysis.numeric.matrix.DataMatrix;
+import gaj.analysis.numeric.matrix.impl.MatrixFactory;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Accumulates the expected state occupancy and state transition counts of
+ * a collection of observation sequences, as required for the Baum-Welch
+ * re-estimation of a one-step Markov model.
+ * <p/>
+ * The counts of each sequence are summed directly from the scaled forward
+ * and backward probabilities, without storing the posterior probabilities.
+ * The re-estimated model may then be obtained from
+ * {@link MarkovOneStepAnalyser#newAnalyser}(initCounts, finalCounts,
+ * transCounts).
+ * <p/>
+ * A sequence that is impossible under the current model, i.e. has zero
+ * probability, contributes no counts. It is instead flagged by the
+ * total log-probability becoming negative infinity, and is tallied by
+ * {@link #numImpossibleSequences}().
+ * <p/>
+ * Note: An instance is not thread-safe, and should be accumulated by only
+ * one thread at a time.
+ */
+public class ExpectedCounts {
+
+    private final int numStates;
+    /** The expected counts, C(s_1|&lt;), of initial states. */
+    private final double[] initCounts;
+    /** The expected counts, C(&gt;|s_T), of terminal states. */
+    private final double[] finalCounts;
+    /** The expected counts, C(s_t), of state occupancy. */
+    private final double[] stateCounts;
+    /** The expected counts, C(s_{t-1}, s_t), of state transitions. */
+    private final double[] transCounts;
+    /** The total log-probability of the observed sequences. */
+    private double logProb = 0;
+    /** The number of observed sequences. */
+    private int numSequences = 0;
+    /** The number of observed sequences with zero probability. */
+    private int numImpossible = 0;
+    /** Working storage for the filtered probabilities. */
+    private double[] alpha = new double[0];
+    /** Working storage for the scaled backward probabilities. */
+    private final double[] beta, prevBeta, obsBeta;
+
+    /**
+     * Initialises zero-valued counts.
+     *
+     * @param numStates - The number of states, S.
+     */
+    public ExpectedCounts(int numStates) {
+        this.numStates = numStates;
+        initCounts = new double[numStates];
+        finalCounts = new double[numStates];
+        stateCounts = new double[numStates];
+        transCounts = new double[numStates * numStates];
+        beta = new double[numStates];
+        prevBeta = new double[numStates];
+        obsBeta = new double[numStates];
+    }
+
+    /**
+     * @return The length-S vector of expected initial state counts,
+     *         C(s_1|&lt;), or zero if the sequences have no known start.
+     */
+    public DataVector getInitialCounts() {
+        return VectorFactory.newVector(initCounts);
+    }
+
+    /**
+     * @return The length-S vector of expected terminal state counts,
+     *         C(&gt;|s_T), or zero if the sequences have no known end.
+     */
+    public DataVector getFinalCounts() {
+        return VectorFactory.newVector(finalCounts);
+    }
+
+    /**
+     * @return The length-S vector of expected state occupancy counts, C(s_t).
+     */
+    public DataVector getStateCounts() {
+        return VectorFactory.newVector(stateCounts);
+    }
+
+    /**
+     * @return The S x S matrix of expected state transition counts,
+     *         C(s_{t-1}, s_t), with rows indexed by s_{t-1} and columns
+     *         indexed by s_t.
+     */
+    public DataMatrix getTransitionCounts() {
+        return MatrixFactory.newMatrix(transCounts, numStates, numStates);
+    }
+
+    /**
+     * @return The total log-probability, sum log p({x_t}), of the observed
+     *         sequences, or negative infinity if any sequence was impossible.
+     */
+    public double getLogProbability() {
+        return logProb;
+    }
+
+    /**
+     * @return The number of observed sequences.
+     */
+    public int numSequences() {
+        return numSequences;
+    }
+
+    /**
+     * @return The number of observed sequences with zero probability,
+     *         which have contributed no counts.
+     */
+    public int numImpossibleSequences() {
+        return numImpossible;
+    }
+
+    /**
+     * Adds in the expected counts of another accumulator.
+     *
+     * @param counts - The other accumulator.
+     * @return This accumulator.
+     */
+    public ExpectedCounts combine(ExpectedCounts counts) {
+        add(initCounts, counts.initCounts);
+        add(finalCounts, counts.finalCounts);
+        add(stateCounts, counts.stateCounts);
+        add(transCounts, counts.transCounts);
+        logProb += counts.logProb;
+        numSequences += counts.numSequences;
+        numImpossible += counts.numImpossible;
+        return this;
+    }
+
+    private static void add(double[] sum, double[] values) {
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += values[i];
+        }
+    }
+
+    /**
+     * Adds in the expected counts of a single sequence of observations.
+     *
+     * @param obsProbs - The T x S matrix of conditional
+     * observation probabilities, p(x_t|s_t).
+     * @param startProbs - The length-S vector of
+     * initial, prior state probabilities, P(s_1|&lt;).
+     * @param endProbs - The length-S vector of
+     * terminating conditional state probabilities, P(&gt;|s_T).
+     * @param trans - The S x S row-wise, flat array of state transition
+     * probabilities, P(s_t|s_{t-1}).
+     * @param type - The type of sequence or sub-sequence.
+     * @throws IllegalStateException If the backward probabilities of a
+     * possible sequence underflow, in which case the counts are incomplete.
+     */
+    @PackagePrivate void accumulate(DataMatrix obsProbs,
+            DataVector startProbs, DataVector endProbs,
+            double[] trans, SequenceType type)
+    {
+        final int numStages = obsProbs.numRows();
+        final int size = numStages * numStates;
+        if (alpha.length < size) {
+            alpha = new double[size];
+        } else {
+            Arrays.fill(alpha, 0, size, 0);
+        }
+        // Compute filtered probabilities, alpha^_t = P(s_t|<x_1,...,x_t]).
+        double _logProb = MarkovOneStepLibrary.filter(obsProbs, startProbs, trans, alpha, null);
+        // Set beta^_T = P(>|s_T).
+        int t = numStages - 1;
+        int offset = t * numStates;
+        double norm = 0;
+        for (int j = 0; j < numStates; j++) {
+            beta[j] = endProbs.get(j);
+            norm += alpha[offset + j] * beta[j];
+        }
+        numSequences++;
+        if (norm == 0) {
+            // The sequence is impossible, so there are no posterior counts.
+            logProb = Double.NEGATIVE_INFINITY;
+            numImpossible++;
+            return;
+        }
+        logProb += _logProb + Math.log(norm);
+        // Compute C(s_T) += P(s_T|<x_1,...,x_T>) = alpha^_T * beta^_T / norm.
+        for (int j = 0; j < numStates; j++) {
+            final double gamma = alpha[offset + j] * beta[j] / norm;
+            stateCounts[j] += gamma;
+            if (type.isTerminated()) finalCounts[j] += gamma;
+        }
+        while (t > 0) {
+            final int prevOffset = offset - numStates;
+            // Compute beta^_{t-1} proportional to
+            // sum_{s_t} P(s_t|s_{t-1}) p(x_t|s_t) beta^_t.
+            // Rescale p(x_t|s_t) beta^_t to avoid underflow.
+            double maxBeta = 0;
+            for (int j = 0; j < numStates; j++) {
+                obsBeta[j] = obsProbs.get(t, j) * beta[j];
+                if (obsBeta[j] > maxBeta) maxBeta = obsBeta[j];
+            }
+            if (maxBeta > 0) {
+                for (int j = 0; j < numStates; j++) {
+                    obsBeta[j] /= maxBeta;
+                }
+            }
+            norm = 0;
+            for (int i = 0; i < numStates; i++) {
+                final int transOffset = i * numStates;
+                double sum = 0;
+                for (int j = 0; j < numStates; j++) {
+                    sum += trans[transOffset + j] * obsBeta[j];
+                }
+                prevBeta[i] = sum;
+                norm += alpha[prevOffset + i] * sum;
+            }
+            if (norm == 0) {
+                throw new IllegalStateException("Backward probabilities underflowed at stage " + t);
+            }
+            // Compute C(s_{t-1}, s_t) += P(s_{t-1}, s_t|<x_1,...,x_T>)
+            // = alpha^_{t-1} P(s_t|s_{t-1}) p(x_t|s_t) beta^_t / norm.
+            // Compute C(s_{t-1}) += P(s_{t-1}|<x_1,...,x_T>)
+            // = alpha^_{t-1} beta^_{t-1} / norm.
+            for (int i = 0; i < numStates; i++) {
+                final double scale = alpha[prevOffset + i] / norm;
+                if (scale == 0) continue;
+                final int transOffset = i * numStates;
+                for (int j = 0; j < numStates; j++) {
+                    transCounts[transOffset + j] += scale * trans[transOffset + j] * obsBeta[j];
+                }
+                stateCounts[i] += scale * prevBeta[i];
+            }
+            System.arraycopy(prevBeta, 0, beta, 0, numStates);
+            offset = prevOffset;
+            t--;
+        }
+        // Compute C(s_1|<) += P(s_1|<x_1,...,x_T>).
+        if (type.isInitiated()) {
+            double sum = 0;
+            for (int j = 0; j < numStates; j++) {
+                sum += alpha[j] * beta[j];
+            }
+            for (int j = 0; j < numStates; j++) {
+                initCounts[j] += alpha[j] * beta[j] / sum;
+            }
+        }
+    }
+
+}
@@ -1,5 +1,9 @@
 package gaj.analysis.markov;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 import gaj.analysis.numeric.matrix.DataMatrix;
 import gaj.analysis.numeric.matrix.WritableMatrix;
 import gaj.analysis.numeric.matrix.impl.MatrixFactory;
@@ -15,6 +19,9 @@ import gaj.analysis.numeric.vector.impl.VectorFactory;
  */
 public class MarkovOneStepAnalyser {
 
+    /** The number of chunks of sequences per thread, for batch processing. */
+    private static final int CHUNKS_PER_THREAD = 4;
+
     // **********************************************************************
     // Dynamic methods.
 
@@ -67,9 +74,45 @@ public class MarkovOneStepAnalyser {
      * @return The T x S matrix of posterior probabilities.
      */
     public DataMatrix posteriorProbabilities(DataMatrix obsProbs, SequenceType type) {
+        return stateProbabilities(obsProbs, type, ProbabilityType.Posterior);
+    }
+
+    /**
+     * Computes the specified type of state probabilities
+     * of a known sequence or sub-sequence {x_t}
+     * of observations, for the unknown state s_t
+     * at each stage t=1,2,...,T.
+     * <p/>
+     * Note: The probabilities are rescaled at each stage, and so this method is
+     * suitable for arbitrarily long sequences.
+     *
+     * @param obsProbs - The T x S matrix of conditional
+     * observation probabilities, p(x_t|s_t).
+     * @param type - The type of sequence or sub-sequence.
+     * @param probType - The type of probability, namely
+     * the prior probabilities, P(s_t), the given conditional
+     * probabilities, p(x_t|s_t), the filtered probabilities, P(s_t|x_1,...,x_t),
+     * or the posterior probabilities, P(s_t|{x_t}).
+     * @return The T x S matrix of probabilities.
+     */
+    public DataMatrix stateProbabilities(DataMatrix obsProbs, SequenceType type, ProbabilityType probType) {
         DataVector startProbs = type.isInitiated() ? initProbs : stateProbs;
         DataVector endProbs = type.isTerminated() ? finalProbs : onesProbs;
-        return MarkovOneStepLibrary.posteriorProbabilities(obsProbs, startProbs, endProbs, transProbs);
+        switch (probType) {
+            case Prior:
+                // Ignore the observations.
+                WritableMatrix uniformProbs = MatrixFactory.newMatrix(obsProbs.numRows(), obsProbs.numColumns());
+                uniformProbs.add(1);
+                return MarkovOneStepLibrary.scaledPosteriorProbabilities(uniformProbs, startProbs, endProbs, transProbs);
+            case Conditional:
+                return obsProbs;
+            case Filtered:
+                return MarkovOneStepLibrary.filteredProbabilities(obsProbs, startProbs, transProbs, null);
+            case Posterior:
+                return MarkovOneStepLibrary.scaledPosteriorProbabilities(obsProbs, startProbs, endProbs, transProbs);
+            default:
+                throw new IllegalArgumentException("Unknown probability type: " + probType);
+        }
     }
 
     /**
@@ -119,6 +162,24 @@ public class MarkovOneStepAnalyser {
         return MarkovOneStepLibrary.dataProbability(startProbs, endProbs, transProbs, obsProbs);
     }
 
+    /**
+     * Computes the logarithm of the data probability p({x_t})
+     * of a given sequence {x_t} of observations.
+     * <p/>
+     * Note: The probabilities are rescaled at each stage, and so this method is
+     * suitable for arbitrarily long sequences.
+     *
+     * @param obsProbs - The T x S matrix of conditional
+     * observation probabilities, p(x_t|s_t).
+     * @param type - The type of sequence or sub-sequence.
+     * @return The observation sequence log-probability.
+     */
+    public double logDataProbability(DataMatrix obsProbs, SequenceType type) {
+        DataVector startProbs = type.isInitiated() ? initProbs : stateProbs;
+        DataVector endProbs = type.isTerminated() ? finalProbs : onesProbs;
+        return MarkovOneStepLibrary.logDataProbability(startProbs, endProbs, transProbs, obsProbs);
+    }
+
     /**
      * Computes the state sequence {s_t} that
      * maximises the posterior probability, P({s_t}|{x_t}),
@@ -140,6 +201,114 @@ public class MarkovOneStepAnalyser {
         return stateSeq;
     }
 
+    // **********************************************************************
+    // Batch methods.
+
+    /**
+     * Computes the state posterior probabilities, p(s_t|{x_t}),
+     * of each of many independent sequences of observations, in parallel.
+     * The sequences are split into a few contiguous chunks per thread, and
+     * each chunk reuses its own storage for the backward probabilities;
+     * only the returned matrices are allocated per sequence.
+     *
+     * @param obsProbsList - The list of T x S matrices of conditional
+     * observation probabilities, p(x_t|s_t), for each sequence.
+     * @param type - The type of every sequence or sub-sequence.
+     * @param pool - The pool of threads in which to process the sequences.
+     * @return The list of T x S matrices of posterior probabilities,
+     * in the order of the observation sequences.
+     */
+    public List<DataMatrix> posteriorProbabilities(
+            List<? extends DataMatrix> obsProbsList, SequenceType type, ForkJoinPool pool)
+    {
+        final DataVector startProbs = type.isInitiated() ? initProbs : stateProbs;
+        final DataVector endProbs = type.isTerminated() ? finalProbs : onesProbs;
+        final double[] trans = MarkovOneStepLibrary.toFlatArray(transProbs);
+        final int numStates = initProbs.size();
+        final int numSequences = obsProbsList.size();
+        final int numChunks = Math.min(numSequences, CHUNKS_PER_THREAD * pool.getParallelism());
+        final DataMatrix[] posteriors = new DataMatrix[numSequences];
+        pool.submit(
+                () -> IntStream.range(0, numChunks).parallel().forEach(chunk -> {
+                    final double[] beta = new double[numStates];
+                    final double[] prevBeta = new double[numStates];
+                    final int end = (int) ((long) (chunk + 1) * numSequences / numChunks);
+                    for (int i = (int) ((long) chunk * numSequences / numChunks); i < end; i++) {
+                        final DataMatrix obsProbs = obsProbsList.get(i);
+                        final double[] data = new double[obsProbs.size()];
+                        MarkovOneStepLibrary.smooth(obsProbs, startProbs, endProbs, trans, data, beta, prevBeta);
+                        posteriors[i] = MatrixFactory.newMatrix(data, obsProbs.numRows(), numStates);
+                    }
+                })
+        ).join();
+        return Arrays.asList(posteriors);
+    }
+
+    /**
+     * Computes the most probable state sequence, {s_t},
+     * of each of many independent sequences of observations, in parallel.
+     * The sequences are split into a few contiguous chunks per thread, and
+     * each chunk reuses its own storage for the computations, which is
+     * released once the chunk has been processed.
+     *
+     * @param obsProbsList - The list of T x S matrices of conditional
+     * observation probabilities, p(x_t|s_t), for each sequence.
+     * @param type - The type of every sequence or sub-sequence.
+     * @param pool - The pool of threads in which to process the sequences.
+     * @return The list of most probable state sequences,
+     * in the order of the observation sequences. An ambiguous
+     * state sequence is given as a value of null.
+     */
+    public List<IndexVector> stateSequences(
+            List<? extends DataMatrix> obsProbsList, SequenceType type, ForkJoinPool pool)
+    {
+        final DataVector startProbs = type.isInitiated() ? initProbs : stateProbs;
+        final DataVector endProbs = type.isTerminated() ? finalProbs : onesProbs;
+        final double[] logTrans = MarkovOneStepLibrary.toLogArray(transProbs);
+        final int numSequences = obsProbsList.size();
+        final int numChunks = Math.min(numSequences, CHUNKS_PER_THREAD * pool.getParallelism());
+        final IndexVector[] stateSeqs = new IndexVector[numSequences];
+        pool.submit(
+                () -> IntStream.range(0, numChunks).parallel().forEach(chunk -> {
+                    int[] buffer = new int[0];
+                    final int end = (int) ((long) (chunk + 1) * numSequences / numChunks);
+                    for (int i = (int) ((long) chunk * numSequences / numChunks); i < end; i++) {
+                        final DataMatrix obsProbs = obsProbsList.get(i);
+                        if (buffer.length < obsProbs.size())
+                            buffer = new int[obsProbs.size()];
+                        stateSeqs[i] = MarkovOneStepLibrary.viterbi(startProbs, endProbs, logTrans, obsProbs, buffer);
+                    }
+                })
+        ).join();
+        return Arrays.asList(stateSeqs);
+    }
+
+    /**
+     * Accumulates the expected state occupancy and state transition counts
+     * of many independent sequences of observations, in parallel, without
+     * retaining the posterior probabilities of each sequence.
+     *
+     * @param obsProbsList - The list of T x S matrices of conditional
+     * observation probabilities, p(x_t|s_t), for each sequence.
+     * @param type - The type of every sequence or sub-sequence.
+     * @param pool - The pool of threads in which to process the sequences.
+     * @return The summed expected counts.
+     */
+    public ExpectedCounts expectedCounts(
+            List<? extends DataMatrix> obsProbsList, SequenceType type, ForkJoinPool pool)
+    {
+        final DataVector startProbs = type.isInitiated() ? initProbs : stateProbs;
+        final DataVector endProbs = type.isTerminated() ? finalProbs : onesProbs;
+        final double[] trans = MarkovOneStepLibrary.toFlatArray(transProbs);
+        final int numStates = initProbs.size();
+        return pool.submit(
+                () -> obsProbsList.parallelStream().collect(
+                        () -> new ExpectedCounts(numStates),
+                        (counts, obsProbs) -> counts.accumulate(obsProbs, startProbs, endProbs, trans, type),
+                        ExpectedCounts::combine)
+        ).join();
+    }
+
     // **********************************************************************
     // Static methods.
 
@@ -2,11 +2,13 @@ package gaj.analysis.markov;
 
 import java.util.List;
 import gaj.analysis.numeric.matrix.DataMatrix;
+import gaj.analysis.numeric.matrix.FlatArrayMatrix;
 import gaj.analysis.numeric.matrix.WritableMatrix;
 import gaj.analysis.numeric.matrix.impl.MatrixFactory;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.numeric.vector.IndexVector;
 import gaj.analysis.numeric.vector.impl.VectorFactory;
+import gaj.common.annotations.PackagePrivate;
 
 /**
  * Provides the basic methods for analysing one-step Markov sequences.
@@ -373,6 +375,9 @@ public abstract class MarkovOneStepLibrary {
      * Computes the state sequence &lt;s_1,...,s_T&gt; that
      * maximises the posterior probability, P(&lt;s_1,...,s_T&gt;|&lt;x_1,...,x_T&gt;),
      * for a known sequence of observations &lt;x_1,...,x_T&gt;.
+     * <p/>
+     * Note: The Viterbi algorithm is performed in log-space, and so is suitable
+     * for arbitrarily long sequences.
      *
      * @param startProbs - The length-S vector of
      * initial, prior state probabilities, P(s_1|&lt;).
@@ -390,36 +395,358 @@ public abstract class MarkovOneStepLibrary {
             DataVector startProbs,
             DataVector endProbs,
             DataMatrix transProbs, DataMatrix obsProbs)
+    {
+        final int[] prevStates = new int[obsProbs.size()];
+        return viterbi(startProbs, endProbs, toLogArray(transProbs), obsProbs, prevStates);
+    }
+
+    /**
+     * Computes the most probable state sequence using the given buffer.
+     *
+     * @param startProbs - The length-S vector of
+     * initial, prior state probabilities, P(s_1|&lt;).
+     * @param endProbs - The length-S vector of
+     * terminating conditional state probabilities, P(&gt;|s_T).
+     * @param logTrans - The S x S row-wise, flat array of log state transition
+     * probabilities, log P(s_t|s_{t-1}).
+     * @param obsProbs - The T x S matrix of conditional
+     * observation probabilities, p(x_t|s_t).
+     * @param prevStates - The buffer of length at least T * S to hold the
+     * back-pointers.
+     * @return The most probable state sequence,
+     * or a value of null if this is potentially ambiguous.
+     */
+    @PackagePrivate static/* @Nullable */IndexVector viterbi(
+            DataVector startProbs, DataVector endProbs,
+            double[] logTrans, DataMatrix obsProbs, int[] prevStates)
     {
         final int numStages = obsProbs.numRows();
+        final int numStates = obsProbs.numColumns();
+        double[] delta = new double[numStates];
+        double[] nextDelta = new double[numStates];
+        // Compute delta_1(s_1) = log P(s_1|<) + log p(x_1|s_1).
+        for (int j = 0; j < numStates; j++) {
+            delta[j] = Math.log(startProbs.get(j)) + Math.log(obsProbs.get(0, j));
+        }
+        for (int t = 1; t < numStages; t++) {
+            // Compute delta_t(s_t) = max_{s_{t-1}} [delta_{t-1}(s_{t-1})
+            // + log P(s_t|s_{t-1})] + log p(x_t|s_t).
+            final int offset = t * numStates;
+            for (int j = 0; j < numStates; j++) {
+                double maxValue = Double.NEGATIVE_INFINITY;
+                int maxState = -1;
+                boolean isAmbiguous = false;
+                for (int i = 0; i < numStates; i++) {
+                    final double value = delta[i] + logTrans[i * numStates + j];
+                    if (value > maxValue) {
+                        maxValue = value;
+                        maxState = i;
+                        isAmbiguous = false;
+                    } else if (value == maxValue && value > Double.NEGATIVE_INFINITY) {
+                        isAmbiguous = true;
+                    }
+                }
+                // Point back to the best previous state, or mark as ambiguous.
+                prevStates[offset + j] = isAmbiguous ? -1 : maxState;
+                nextDelta[j] = maxValue + Math.log(obsProbs.get(t, j));
+            }
+            final double[] tmp = delta;
+            delta = nextDelta;
+            nextDelta = tmp;
+        }
+        // Compute max_{s_T} [delta_T(s_T) + log P(>|s_T)].
+        for (int j = 0; j < numStates; j++) {
+            delta[j] += Math.log(endProbs.get(j));
+        }
+        List<Integer> maxStates = VectorFactory.argMaxes(VectorFactory.newVector(delta));
+        if (maxStates.size() != 1 || delta[maxStates.get(0)] == Double.NEGATIVE_INFINITY) {
+            // Reject multiplicity.
+            return null;
+        }
         int[] stateIndices = new int[numStages];
-        DataMatrix alpha = forwardProbabilities(obsProbs, startProbs, transProbs);
-        // Start with beta*_T(s_T) = P(>|s_T).
-        DataVector beta = endProbs;
+        int maxState = maxStates.get(0);
         for (int t = numStages - 1; t >= 0; t--) {
-            // Compute p(<x_1,...,x_T>, s_t, [s*_{t+1},...,s*_T>)
-            // = p(<x_1,...,x_t], s_t) p([x_{t+1},...,x_T>, [s*_{t+1},...,s*_T>|s_t)
-            // = alpha_t beta*_t.
-            DataVector gamma = VectorFactory.multiply(alpha.getRow(t), beta);
-            List<Integer> maxStates = VectorFactory.argMaxes(gamma);
-            if (maxStates.size() != 1) {
-                // Reject multiplicity.
-                return null;
-            }
-            int maxState = maxStates.get(0);
             stateIndices[t] = maxState;
             if (t > 0) {
-                // Compute beta*_{t-1}(s_{t-1})
-                // = p([x_t,...,x_T>, [s*_t,...,s*_T>|s_{t-1})
-                // = p([x_{t+1},...,x_T>, [s*_{t+1},...,s*_T>|s*_t)
-                // * p(x_t|s*_t) P(s*_t|s_{t-1})
-                // = beta*_t(s*_t) p(x_t|s*_t) P(s*_t|s_{t-1}).
-                beta = VectorFactory.scale(
-                        transProbs.getColumn(maxState),
-                        beta.get(maxState) * obsProbs.get(t, maxState));
+                maxState = prevStates[t * numStates + maxState];
+                if (maxState < 0) {
+                    // Reject multiplicity.
+                    return null;
+                }
             }
         }
         return VectorFactory.newIndexVector(stateIndices);
     }
 
+    // **********************************************************************
+    // Scaled methods for long sequences.
+
+    /**
+     * Computes the filtered state probabilities, P(s_t|&lt;x_1,...,x_t]),
+     * of a known sequence &lt;x_1,...,x_T&gt;
+     * of observations, for the unknown state s_t
+     * at each stage t=1,2,...,T.
+     * <p/>
+     * These are the forward probabilities, normalised at each stage so as to
+     * avoid numerical underflow. The logarithms of the normalising constants,
+     * c_t = p(x_t|&lt;x_1,...,x_{t-1}]), are optionally returned.
+     *
+     * @param obsProbs - The T x S matrix of conditional
+     * observation probabilities, p(x_t|s_t).
+     * @param startProbs - The length-S vector of
+     * initial state probabilities, P(s_1|&lt;).
+     * @param transProbs - The S x S matrix of state transition
+     * probabilities, P(s_t|s_{t-1}), with rows indexed by s_{t-1}
+     * and columns indexed by s_t.
+     * @param logScales - A length-T array to hold the log-scalings,
+     * log c_t, or a value of null if these are not required.
+     * @return The T x S matrix of filtered probabilities.
+     */
+    public static DataMatrix filteredProbabilities(
+            DataMatrix obsProbs, DataVector startProbs,
+            DataMatrix transProbs, /* @Nullable */double[] logScales)
+    {
+        final int numStages = obsProbs.numRows();
+        final int numStates = obsProbs.numColumns();
+        final double[] mp = new double[numStages * numStates];
+        filter(obsProbs, startProbs, toFlatArray(transProbs), mp, logScales);
+        return MatrixFactory.newMatrix(mp, numStages, numStates);
+    }
+
+    /**
+     * Computes the filtered state probabilities into the given buffer.
+     *
+     * @param obsProbs - The T x S matrix of conditional
+     * observation probabilities, p(x_t|s_t).
+     * @param startProbs - The length-S vector of
+     * initial state probabilities, P(s_1|&lt;).
+     * @param trans - The S x S row-wise, flat array of state transition
+     * probabilities, P(s_t|s_{t-1}).
+     * @param mp - The zero-valued buffer of length at least T * S to hold
+     * the row-wise, flat matrix of filtered probabilities.
+     * @param logScales - A length-T array to hold the log-scalings,
+     * log c_t, or a value of null if these are not required.
+     * @return The sum of the log-scalings, i.e. log p(&lt;x_1,...,x_T]).
+     */
+    @PackagePrivate static double filter(
+            DataMatrix obsProbs, DataVector startProbs,
+            double[] trans, double[] mp, /* @Nullable */double[] logScales)
+    {
+        final int numStages = obsProbs.numRows();
+        final int numStates = obsProbs.numColumns();
+        // Compute c_1 alpha^_1 = p(x_1|s_1) P(s_1|<).
+        for (int j = 0; j < numStates; j++) {
+            mp[j] = obsProbs.get(0, j) * startProbs.get(j);
+        }
+        double logScale = normalise(mp, 0, numStates);
+        if (logScales != null) logScales[0] = logScale;
+        double sumLogScales = logScale;
+        for (int t = 1; t < numStages; t++) {
+            // Compute c_t alpha^_t = p(x_t|s_t) sum_{s_{t-1}} alpha^_{t-1} P(s_t|s_{t-1}).
+            final int prevOffset = (t - 1) * numStates;
+            final int offset = t * numStates;
+            for (int i = 0; i < numStates; i++) {
+                final double alpha = mp[prevOffset + i];
+                if (alpha == 0) continue;
+                final int transOffset = i * numStates;
+                for (int j = 0; j < numStates; j++) {
+                    mp[offset + j] += alpha * trans[transOffset + j];
+                }
+            }
+            for (int j = 0; j < numStates; j++) {
+                mp[offset + j] *= obsProbs.get(t, j);
+            }
+            logScale = normalise(mp, offset, numStates);
+            if (logScales != null) logScales[t] = logScale;
+            sumLogScales += logScale;
+        }
+        return sumLogScales;
+    }
+
+    /**
+     * Computes the state posterior probabilities,
+     * p(s_t|&lt;x_1,...,x_T&gt;),
+     * of a known sequence &lt;x_1,...,x_T&gt;
+     * of observations, for the unknown state s_t
+     * at each stage t=1,2,...,T.
+     * <p/>
+     * Note: The forward and backward probabilities are rescaled at each stage,
+     * and so this method is suitable for arbitrarily long sequences.
+     *
+     * @param obsProbs - The T x S matrix of conditional
+     * observation probabilities, p(x_t|s_t).
+     * @param startProbs - The length-S vector of
+     * initial, prior state probabilities, P(s_1|&lt;).
+     * @param endProbs - The length-S vector of
+     * terminating conditional state probabilities, P(&gt;|s_T).
+     * @param transProbs - The S x S matrix of state transition
+     * probabilities, P(s_t|s_{t-1}), with rows indexed by s_{t-1}
+     * and columns indexed by s_t.
+     * @return The T x S matrix of posterior probabilities.
+     */
+    public static DataMatrix scaledPosteriorProbabilities(
+            DataMatrix obsProbs,
+            DataVector startProbs, DataVector endProbs,
+            DataMatrix transProbs)
+    {
+        final int numStages = obsProbs.numRows();
+        final int numStates = obsProbs.numColumns();
+        final double[] data = new double[numStages * numStates];
+        smooth(obsProbs, startProbs, endProbs, toFlatArray(transProbs),
+                data, new double[numStates], new double[numStates]);
+        return MatrixFactory.newMatrix(data, numStages, numStates);
+    }
+
+    /**
+     * Computes the scaled posterior probabilities into the given buffer,
+     * using the given working storage for the backward probabilities.
+     *
+     * @param obsProbs - The T x S matrix of conditional
+     * observation probabilities, p(x_t|s_t).
+     * @param startProbs - The length-S vector of
+     * initial, prior state probabilities, P(s_1|&lt;).
+     * @param endProbs - The length-S vector of
+     * terminating conditional state probabilities, P(&gt;|s_T).
+     * @param trans - The S x S row-wise, flat array of state transition
+     * probabilities, P(s_t|s_{t-1}).
+     * @param data - The zero-valued buffer of length at least T * S to hold
+     * the row-wise, flat matrix of posterior probabilities.
+     * @param beta - A length-S working array.
+     * @param prevBeta - Another length-S working array.
+     */
+    @PackagePrivate static void smooth(
+            DataMatrix obsProbs,
+            DataVector startProbs, DataVector endProbs,
+            double[] trans, double[] data, double[] beta, double[] prevBeta)
+    {
+        // Compute filtered probabilities, alpha^_t = P(s_t|<x_1,...,x_t]).
+        filter(obsProbs, startProbs, trans, data, null);
+        final int numStates = obsProbs.numColumns();
+        // Set beta^_T proportional to P(>|s_T).
+        for (int j = 0; j < numStates; j++) {
+            beta[j] = endProbs.get(j);
+        }
+        int t = obsProbs.numRows() - 1;
+        // Compute p(s_T|<x_1,...,x_T>) proportional to alpha^_T * beta^_T.
+        multiplyAndNormalise(data, t * numStates, beta);
+        while (t > 0) {
+            // Compute beta^_{t-1} proportional to
+            // sum_{s_t} beta^_t p(x_t|s_t) P(s_t|s_{t-1}).
+            for (int j = 0; j < numStates; j++) {
+                beta[j] *= obsProbs.get(t, j);
+            }
+            for (int i = 0; i < numStates; i++) {
+                final int transOffset = i * numStates;
+                double sum = 0;
+                for (int j = 0; j < numStates; j++) {
+                    sum += trans[transOffset + j] * beta[j];
+                }
+                prevBeta[i] = sum;
+            }
+            normalise(prevBeta, 0, numStates);
+            final double[] tmp = beta;
+            beta = prevBeta;
+            prevBeta = tmp;
+            // Compute p(s_t|<x_1,...,x_T>) proportional to alpha^_t * beta^_t.
+            multiplyAndNormalise(data, --t * numStates, beta);
+        }
+    }
+
+    /**
+     * Computes the logarithm of the data probability, p(&lt;x_1,...,x_T&gt;),
+     * of a known sequence &lt;x_1,...,x_T&gt;
+     * of observations.
+     * <p/>
+     * Note: The forward probabilities are rescaled at each stage,
+     * and so this method is suitable for arbitrarily long sequences.
+     *
+     * @param startProbs - The length-S vector of
+     * initial, prior state probabilities, P(s_1|&lt;).
+     * @param endProbs - The length-S vector of
+     * terminating conditional state probabilities, P(&gt;|s_T).
+     * @param transProbs - The S x S matrix of state transition
+     * probabilities, P(s_t|s_{t-1}), with rows indexed by s_{t-1}
+     * and columns indexed by s_t.
+     * @param obsProbs - The T x S matrix of conditional
+     * observation probabilities, p(x_t|s_t).
+     * @return The log-probability of the data.
+     */
+    public static double logDataProbability(
+            DataVector startProbs,
+            DataVector endProbs,
+            DataMatrix transProbs, DataMatrix obsProbs)
+    {
+        final int numStages = obsProbs.numRows();
+        final int numStates = obsProbs.numColumns();
+        final double[] mp = new double[numStages * numStates];
+        // Compute log p(<x_1,...,x_T>)
+        // = sum_t log c_t + log sum_{s_T} alpha^_T P(>|s_T).
+        final double logProb = filter(obsProbs, startProbs, toFlatArray(transProbs), mp, null);
+        final int offset = (numStages - 1) * numStates;
+        double prob = 0;
+        for (int j = 0; j < numStates; j++) {
+            prob += mp[offset + j] * endProbs.get(j);
+        }
+        return logProb + Math.log(prob);
+    }
+
+    /**
+     * Rescales a contiguous segment of the array to have unit sum.
+     *
+     * @param data - The data array.
+     * @param offset - The start of the segment.
+     * @param length - The length of the segment.
+     * @return The logarithm of the original sum.
+     */
+    @PackagePrivate static double normalise(double[] data, int offset, int length) {
+        double sum = 0;
+        for (int j = offset; j < offset + length; j++) {
+            sum += data[j];
+        }
+        if (sum > 0) {
+            final double scale = 1.0 / sum;
+            for (int j = offset; j < offset + length; j++) {
+                data[j] *= scale;
+            }
+        }
+        return Math.log(sum);
+    }
+
+    private static void multiplyAndNormalise(double[] data, int offset, double[] values) {
+        for (int j = 0; j < values.length; j++) {
+            data[offset + j] *= values[j];
+        }
+        normalise(data, offset, values.length);
+    }
+
+    /**
+     * Copies the logarithms of the matrix elements into a new, row-wise flat
+     * array.
+     */
+    @PackagePrivate static double[] toLogArray(DataMatrix matrix) {
+        final double[] data = toFlatArray(matrix);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = Math.log(data[i]);
+        }
+        return data;
+    }
+
+    /**
+     * Copies the matrix into a new, row-wise flat array.
+     */
+    @PackagePrivate static double[] toFlatArray(DataMatrix matrix) {
+        if (matrix instanceof FlatArrayMatrix) {
+            return ((FlatArrayMatrix) matrix).getArray().clone();
+        }
+        final int numColumns = matrix.numColumns();
+        final double[] data = new double[matrix.size()];
+        for (int row = 0; row < matrix.numRows(); row++) {
+            final int offset = row * numColumns;
+            for (int column = 0; column < numColumns; column++) {
+                data[offset + column] = matrix.get(row, column);
+            }
+        }
+        return data;
+    }
+
 }
@@ -9,6 +9,8 @@ public enum ProbabilityType {
     Prior,
     /** An observation likelihood probability, p(x_t|s_t). */
     Conditional,
+    /** A filtered state probability, P(s_t|x_1,...,x_t). */
+    Filtered,
     /** A posterior state probability, P(s_t|x_t). */
     Posterior
 }
\ No newline at end of file
@@ -2,9 +2,11 @@ package gaj.analysis.model.prob.discriminative.impl;
 
 import gaj.analysis.model.AuxiliaryInfo;
 import gaj.analysis.model.GradientAware;
+import gaj.analysis.model.prob.Probs;
 import gaj.analysis.model.prob.discriminative.DiscriminativeProbsGradient;
 import gaj.analysis.model.prob.discriminative.DiscriminativeProbModel;
 import gaj.analysis.model.prob.discriminative.DiscriminativeProbs;
+import gaj.analysis.numeric.SoftmaxKernels;
 import gaj.analysis.numeric.matrix.DataMatrix;
 import gaj.analysis.numeric.matrix.WritableMatrix;
 import gaj.analysis.numeric.matrix.impl.MatrixFactory;
@@ -20,7 +22,7 @@ import gaj.analysis.numeric.vector.impl.VectorFactory;
  * </pre>
  *
  */
-public class DiscriminativeLogisticClassifier extends MatrixAsVectorModel
+public class DiscriminativeLogisticClassifier extends MatrixAsVectorModel<DataVector, Probs>
     implements DiscriminativeProbModel<DataVector>, GradientAware 
 {
 
@@ -50,18 +52,9 @@ public class DiscriminativeLogisticClassifier extends MatrixAsVectorModel
 
     @Override
     public DiscriminativeProbs process(DataVector features, AuxiliaryInfo... info) {
-        if (features.size() != params.numColumns()) {
-            throw new IllegalArgumentException("Expected " + params.numColumns() + " features");
-        }
-        final WritableVector weights = MatrixFactory.multiply(params, features);
-        // TODO Handle very small or very large weights.
-        weights.apply(Math::exp);
-        double sum = weights.sum();
-        if (sum == 0) {
-            weights.set(1.0 / params.numRows());
-        } else {
-            weights.multiply( 1.0 / sum);
-        }
+        final double[] probs = new double[params.numRows()];
+        process(features, probs);
+        final WritableVector weights = VectorFactory.newVector(probs);
         if (computeGradient(info)) {
             DataMatrix gradient = computeGradient(weights, features);
             return DiscriminativeProbsGradient.newDataObject(weights, gradient);
@@ -69,6 +62,46 @@ public class DiscriminativeLogisticClassifier extends MatrixAsVectorModel
         return DiscriminativeProbs.newDataObject(weights);
     }
 
+    /**
+     * Computes the posterior probabilities, p(c|x,theta), without allocating
+     * any storage for the result. The weights, theta_c.x, are normalised via
+     * a max-shifted softmax, so that very large or very small weights cannot
+     * overflow or underflow.
+     * 
+     * @param features
+     *            - The feature vector, x.
+     * @param probs
+     *            - The array of length at least C, in which to store the
+     *            posterior probabilities.
+     */
+    public void process(DataVector features, double[] probs) {
+        if (features.size() != params.numColumns()) {
+            throw new IllegalArgumentException("Expected " + params.numColumns() + " features");
+        }
+        MatrixFactory.multiply(params, features, probs);
+        SoftmaxKernels.softmax(probs, 0, params.numRows(), probs, 0);
+    }
+
+    /**
+     * Computes the posterior probabilities of multiple feature vectors, via a
+     * single matrix-matrix product followed by a row-wise softmax.
+     * 
+     * @param features
+     *            - The N x F matrix of feature vectors, one per row.
+     * @return The N x C matrix of posterior probabilities.
+     */
+    public DataMatrix classifyAll(DataMatrix features) {
+        if (features.numColumns() != params.numColumns()) {
+            throw new IllegalArgumentException("Expected " + params.numColumns() + " features");
+        }
+        final int numRows = features.numRows();
+        final int numClasses = params.numRows();
+        final double[] probs = new double[numRows * numClasses];
+        MatrixFactory.multiplyTransposed(features, params, probs);
+        SoftmaxKernels.softmaxRows(probs, numRows, numClasses);
+        return MatrixFactory.newMatrix(probs, numRows, numClasses);
+    }
+
     /*
      * Computes the C x P gradient matrix [d q_c/d theta_p] for 
      * q_c = ln p(c|x,theta) and theta=vec[theta_p]=matrix[theta_c'f]. 
@@ -73,7 +73,7 @@ public class DiscriminativeModelScorer<I> extends DataSourceModelScorer<I, Discr
 
     public static ScoreInfo computeUnlabelledScore(DiscriminativeProbs probs, double weight) {
         DataVector labelProbs = probs.getPosteriorProbabilities();
-        DataVector logProbs = VectorFactory.apply(labelProbs, Math::log);
+        DataVector logProbs = VectorFactory.applyAsDouble(labelProbs, Math::log);
         final double score = VectorFactory.dot(labelProbs, logProbs);
         if (probs instanceof DiscriminativeProbsGradient) {
             final DataMatrix gradients = ((DiscriminativeProbsGradient) probs).getDiscriminativeGradients();
@@ -0,0 +1,430 @@
+package gaj.analysis.model.prob.discriminative.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import gaj.analysis.model.AuxiliaryInfo;
+import gaj.analysis.model.prob.discriminative.DiscriminativeProbs;
+import gaj.analysis.model.score.DataSource;
+import gaj.analysis.model.score.Datum;
+import gaj.analysis.model.score.LabelledDatum;
+import gaj.analysis.model.score.ModelScorer;
+import gaj.analysis.model.score.ScoreInfo;
+import gaj.analysis.model.score.ScorerInfo;
+import gaj.analysis.numeric.matrix.FlatArrayMatrix;
+import gaj.analysis.numeric.matrix.impl.MatrixFactory;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.VectorCursor;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+import gaj.analysis.optimiser.OptimisationResults;
+import gaj.analysis.optimiser.OptimisationState;
+import gaj.analysis.optimiser.OptimisationStatus;
+import gaj.analysis.optimiser.OptimiserListener;
+import gaj.analysis.optimiser.OptimiserMetrics;
+import gaj.analysis.optimiser.OptimiserPhase;
+import gaj.analysis.optimiser.StochasticOptimiserInfo;
+import gaj.analysis.optimiser.impl.MetricsRecorder;
+
+/**
+ * Trains a {@link DiscriminativeLogisticClassifier} by parallel stochastic
+ * gradient ascent of the discriminative log-likelihood, in the lock-free
+ * "Hogwild" style.
+ * <p/>
+ * All worker threads share a single, dense, row-wise array of C x F
+ * parameters. Each labelled data case, x, with label y, immediately updates
+ * the parameters by
+ *
+ * <pre>
+ *    theta_cf += eta w x_f [delta(c,y) - p(c|x,theta)],
+ * </pre>
+ *
+ * touching only the columns f of the non-zero features. No locking is
+ * performed, so concurrent updates of the same parameter may occasionally
+ * be lost; for sparse features, such collisions are rare and the algorithm
+ * scales almost linearly with the number of threads.
+ * <p/>
+ * The parameters may be periodically copied into snapshot classifiers, and
+ * scored by an optional validation scorer. The best-scoring snapshot is
+ * retained. Mid-pass snapshots are requested by the worker threads, but are
+ * taken and scored by the thread that invoked the training, so that no
+ * worker stalls during validation.
+ * <p/>
+ * Note: The Java memory model permits a non-volatile double to be read or
+ * written non-atomically, although 64-bit JVMs do not do so in practice.
+ */
+public class HogwildLogisticTrainer implements OptimisationState {
+
+    /** The classifier being trained. */
+    private final DiscriminativeLogisticClassifier model;
+    private final int numClasses, numFeatures;
+    /** The shared C x F parameters, stored row-wise. */
+    private final double[] theta;
+    /** Indicates whether or not the parameters are shared with the model. */
+    private final boolean isShared;
+    /** Per-thread working storage for the sparse features and class weights. */
+    private final ThreadLocal<Workspace> workspaces;
+
+    private ModelScorer<DataVector, DiscriminativeProbs> validationScorer = null;
+    private long snapshotInterval = 0;
+    private DiscriminativeLogisticClassifier bestSnapshot = null;
+    private ScoreInfo bestScore = null;
+
+    private int numIterations = 0;
+    private int numSubIterations = 0;
+    private OptimisationStatus status = OptimisationStatus.RUNNING;
+    private ScoreInfo score = null;
+
+    /**
+     * Holds the non-zero features of a data case, and its class weights.
+     */
+    private static final class Workspace {
+        private int[] positions = new int[16];
+        private double[] values = new double[16];
+        private final double[] weights;
+
+        private Workspace(int numClasses) {
+            weights = new double[numClasses];
+        }
+    }
+
+    /**
+     * Binds the trainer to the given classifier. If the classifier parameters
+     * are stored in a flat array, then the classifier is updated in place;
+     * otherwise, its parameters are updated after each pass through the data.
+     *
+     * @param model
+     *            - The classifier to be trained.
+     */
+    public HogwildLogisticTrainer(DiscriminativeLogisticClassifier model) {
+        this.model = model;
+        numClasses = model.params.numRows();
+        numFeatures = model.params.numColumns();
+        isShared = (model.params instanceof FlatArrayMatrix);
+        theta = isShared ? ((FlatArrayMatrix) model.params).getArray() : VectorFactory.toArray(model.getParameters());
+        workspaces = ThreadLocal.withInitial(() -> new Workspace(numClasses));
+    }
+
+    /**
+     * Specifies a scorer for validating snapshots of the parameters.
+     *
+     * @param scorer
+     *            - The validation scorer, or a value of null if snapshots are
+     *            not to be scored.
+     */
+    public void setValidationScorer(ModelScorer<DataVector, DiscriminativeProbs> scorer) {
+        this.validationScorer = scorer;
+    }
+
+    /**
+     * Specifies how often to take and validate snapshots of the parameters,
+     * in addition to after each pass through the data. Snapshots requested
+     * whilst another is being validated are coalesced, and any requested at
+     * the end of a pass are superseded by the end-of-pass snapshot.
+     *
+     * @param numCases
+     *            - The number of data cases processed between snapshots, or a
+     *            non-positive value to only take snapshots after each pass.
+     */
+    public void setSnapshotInterval(long numCases) {
+        this.snapshotInterval = numCases;
+    }
+
+    /**
+     * Obtains the validated snapshot with the highest score. This may be
+     * called during training, from any thread.
+     *
+     * @return The best snapshot classifier, or a value of null if no snapshot
+     *         has been validated.
+     */
+    public synchronized DiscriminativeLogisticClassifier getBestSnapshot() {
+        return bestSnapshot;
+    }
+
+    /**
+     * Obtains the validation score of the best snapshot. This may be called
+     * during training, from any thread.
+     *
+     * @return The best validation score, or a value of null if no snapshot
+     *         has been validated.
+     */
+    public synchronized ScoreInfo getBestScore() {
+        return bestScore;
+    }
+
+    @Override
+    public int getNumIterations() {
+        return numIterations;
+    }
+
+    @Override
+    public int getNumSubIterations() {
+        return numSubIterations;
+    }
+
+    @Override
+    public ScoreInfo getScore() {
+        return (score == null) ? ScoreInfo.NO_SCORE_INFO : score;
+    }
+
+    @Override
+    public OptimisationStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Trains the classifier on the labelled cases of the data source, in
+     * parallel. Each iteration is a single pass through the data source, and
+     * each sub-iteration is a single snapshot. The score of each pass is the
+     * validation score of the end-of-pass snapshot if a validation scorer has
+     * been specified, or otherwise the average training log-likelihood
+     * observed during the pass.
+     *
+     * @param source
+     *            - The source of labelled data cases.
+     * @param info
+     *            - The {@link StochasticOptimiserInfo} settings, of which only
+     *            the learning rate, the maximum number of iterations and the
+     *            score tolerances apply, and optionally a
+     *            {@link ScorerInfo.ParallelScorerInfo} thread pool (by default,
+     *            the common pool), and any {@link OptimiserListener} to be
+     *            notified after each pass.
+     * @return The results of the training.
+     */
+    public OptimisationResults train(DataSource<DataVector> source, AuxiliaryInfo... info) {
+        final StochasticOptimiserInfo params = StochasticOptimiserInfo.stochasticInfo(info);
+        if (params == null)
+            throw new IllegalArgumentException("Missing stochastic optimiser settings");
+        ForkJoinPool pool = ScorerInfo.parallelPool(info);
+        if (pool == null)
+            pool = ForkJoinPool.commonPool();
+        final int outerIterations = numIterations;
+        final int outerSubIterations = numSubIterations;
+        final ScoreInfo initialScore = getScore();
+        final MetricsRecorder metrics = new MetricsRecorder(info);
+        if (status == OptimisationStatus.MAX_ITERATIONS_EXCEEDED
+                || status == OptimisationStatus.HALTED_BY_LISTENER)
+            status = OptimisationStatus.RUNNING;
+        while (status == OptimisationStatus.RUNNING) {
+            if (params.getMaxIterations() > 0 && numIterations - outerIterations >= params.getMaxIterations()) {
+                status = OptimisationStatus.MAX_ITERATIONS_EXCEEDED;
+                break;
+            }
+            metrics.startIteration();
+            status = iterate(source, params, pool, metrics);
+            if (!metrics.endIteration(this) && status == OptimisationStatus.RUNNING)
+                status = OptimisationStatus.HALTED_BY_LISTENER;
+        }
+        return getResults(numIterations - outerIterations, numSubIterations - outerSubIterations,
+                initialScore, getScore(), status, metrics.snapshot());
+    }
+
+    private OptimisationStatus iterate(DataSource<DataVector> source, StochasticOptimiserInfo params, ForkJoinPool pool,
+            MetricsRecorder metrics)
+    {
+        final double eta = params.getLearningRate();
+        final DoubleAdder sumWeight = new DoubleAdder();
+        final DoubleAdder sumScore = new DoubleAdder();
+        final AtomicLong numCases = new AtomicLong();
+        final LongAdder numUpdates = new LongAdder();
+        // Signals a snapshot request, or the end of the pass.
+        final Semaphore signal = new Semaphore(0);
+        final AtomicBoolean isPassDone = new AtomicBoolean(false);
+        long startTime = metrics.startTimer();
+        final ForkJoinTask<?> pass = pool.submit(() -> {
+            try {
+                source.parallelStream().forEach(datum -> {
+                    if (update(datum, eta, sumWeight, sumScore)) {
+                        numUpdates.increment();
+                        if (snapshotInterval > 0 && numCases.incrementAndGet() % snapshotInterval == 0)
+                            signal.release();
+                    }
+                });
+            } finally {
+                isPassDone.set(true);
+                signal.release();
+            }
+        });
+        // Validate requested snapshots whilst the workers continue updating.
+        // Requests that arrive during a validation are coalesced.
+        while (true) {
+            signal.acquireUninterruptibly();
+            signal.drainPermits();
+            if (isPassDone.get())
+                break;
+            final long validationStart = metrics.startTimer();
+            final ScoreInfo snapshotScore = snapshot();
+            metrics.stopTimer(OptimiserPhase.VALIDATION, validationStart);
+            if (snapshotScore != null)
+                metrics.countScoreEvaluations(1, false);
+        }
+        pass.join();
+        numIterations++;
+        if (!isShared)
+            model.setParameters(VectorFactory.newVector(theta));
+        // Mid-pass validation overlaps the updates, but is excluded from the
+        // update time of the pass, since phases do not overlap.
+        metrics.stopTimer(OptimiserPhase.UPDATE, startTime);
+        metrics.countDataPass();
+        // Each update scores a single case.
+        metrics.countScoreEvaluations(numUpdates.sum(), true);
+        startTime = metrics.startTimer();
+        final ScoreInfo validationScore = snapshot();
+        metrics.stopTimer(OptimiserPhase.VALIDATION, startTime);
+        if (validationScore != null)
+            metrics.countScoreEvaluations(1, false);
+        final ScoreInfo prevScore = score;
+        if (validationScore != null) {
+            score = validationScore;
+        } else {
+            final double weight = sumWeight.sum();
+            score = ScoreInfo.newScoreInfo((weight == 0) ? 0 : sumScore.sum() / weight, 1.0);
+        }
+        if (prevScore == null)
+            return OptimisationStatus.RUNNING;
+        final double diffScore = Math.abs(score.getScore() - prevScore.getScore());
+        if (params.getScoreTolerance() > 0 && diffScore < params.getScoreTolerance())
+            return OptimisationStatus.SCORE_CONVERGED;
+        if (params.getRelativeScoreTolerance() > 0
+                && diffScore < Math.abs(prevScore.getScore()) * params.getRelativeScoreTolerance())
+            return OptimisationStatus.RELATIVE_SCORE_CONVERGED;
+        return OptimisationStatus.RUNNING;
+    }
+
+    /**
+     * Applies the sparse gradient update of a single data case directly to
+     * the shared parameters.
+     *
+     * @param datum
+     *            - The data case.
+     * @param eta
+     *            - The learning rate.
+     * @param sumWeight
+     *            - The accumulated weight of the labelled cases.
+     * @param sumScore
+     *            - The accumulated weighted log-likelihood of the labelled
+     *            cases.
+     * @return A value of true (or false) if the case was (or was not) used.
+     */
+    private boolean update(Datum<DataVector> datum, double eta, DoubleAdder sumWeight, DoubleAdder sumScore) {
+        final int label = (datum instanceof LabelledDatum) ? ((LabelledDatum<DataVector>) datum).getLabelIndex() : -1;
+        final double weight = datum.getWeight();
+        if (label < 0 || weight == 0)
+            return false;
+        final DataVector features = datum.getData();
+        if (features.size() != numFeatures)
+            throw new IllegalArgumentException("Expected " + numFeatures + " features");
+        final Workspace ws = workspaces.get();
+        // Gather the non-zero features.
+        int numValues = 0;
+        final VectorCursor cursor = features.cursor();
+        while (cursor.hasNext()) {
+            final int pos = cursor.next();
+            final double value = cursor.value();
+            if (value == 0)
+                continue;
+            if (numValues == ws.positions.length) {
+                ws.positions = Arrays.copyOf(ws.positions, 2 * numValues);
+                ws.values = Arrays.copyOf(ws.values, 2 * numValues);
+            }
+            ws.positions[numValues] = pos;
+            ws.values[numValues++] = value;
+        }
+        final int[] positions = ws.positions;
+        final double[] values = ws.values;
+        // Compute p(c|x,theta), stabilised by the maximum class weight.
+        final double[] probs = ws.weights;
+        double maxWeight = Double.NEGATIVE_INFINITY;
+        for (int c = 0, offset = 0; c < numClasses; c++, offset += numFeatures) {
+            double sum = 0;
+            for (int i = 0; i < numValues; i++) {
+                sum += theta[offset + positions[i]] * values[i];
+            }
+            probs[c] = sum;
+            if (sum > maxWeight)
+                maxWeight = sum;
+        }
+        double norm = 0;
+        for (int c = 0; c < numClasses; c++) {
+            probs[c] = Math.exp(probs[c] - maxWeight);
+            norm += probs[c];
+        }
+        sumWeight.add(weight);
+        sumScore.add(weight * Math.log(probs[label] / norm));
+        // Update theta_cf += eta w x_f [delta(c,y) - p(c|x,theta)].
+        for (int c = 0, offset = 0; c < numClasses; c++, offset += numFeatures) {
+            final double step = eta * weight * (((c == label) ? 1 : 0) - probs[c] / norm);
+            if (step == 0)
+                continue;
+            for (int i = 0; i < numValues; i++) {
+                theta[offset + positions[i]] += step * values[i];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the current parameters into a snapshot classifier, and scores
+     * it if a validation scorer has been specified.
+     *
+     * @return The validation score, or a value of null if the snapshot was not
+     *         scored.
+     */
+    private ScoreInfo snapshot() {
+        final ModelScorer<DataVector, DiscriminativeProbs> scorer = validationScorer;
+        if (scorer == null)
+            return null;
+        final DiscriminativeLogisticClassifier snapshot = new DiscriminativeLogisticClassifier(
+                MatrixFactory.newMatrix(theta.clone(), numClasses, numFeatures));
+        final ScoreInfo snapshotScore = scorer.score(snapshot::process);
+        synchronized (this) {
+            numSubIterations++;
+            if (bestScore == null || snapshotScore.getScore() > bestScore.getScore()) {
+                bestScore = snapshotScore;
+                bestSnapshot = snapshot;
+            }
+        }
+        return snapshotScore;
+    }
+
+    private OptimisationResults getResults(int numIterations, int subIterations,
+            ScoreInfo initialScore, ScoreInfo finalScore, OptimisationStatus finalStatus, OptimiserMetrics metrics)
+    {
+        return new OptimisationResults() {
+            @Override
+            public int getNumIterations() {
+                return numIterations;
+            }
+
+            @Override
+            public int getNumSubIterations() {
+                return subIterations;
+            }
+
+            @Override
+            public ScoreInfo getInitalScore() {
+                return initialScore;
+            }
+
+            @Override
+            public ScoreInfo getScore() {
+                return finalScore;
+            }
+
+            @Override
+            public OptimisationStatus getStatus() {
+                return finalStatus;
+            }
+
+            @Override
+            public OptimiserMetrics getMetrics() {
+                return metrics;
+            }
+        };
+    }
+
+}
@@ -9,8 +9,14 @@ import gaj.analysis.numeric.vector.DataVector;
 /**
  * Implements a parameterised model where the parameters internally take the
  * form of a matrix, but externally are represented as a vector.
+ * <p/>
+ * Note: Subclasses must implement the processing of the input data into the
+ * output data, since only the parameter handling is shared.
+ * 
+ * <I> - The input data type.
+ * <O> - The output data type.
  */
-public class MatrixAsVectorModel implements ParameterisedModel<DataVector> {
+public abstract class MatrixAsVectorModel<I, O> implements ParameterisedModel<I, O> {
 
     protected final DataMatrix params;
 
@@ -0,0 +1,41 @@
+package gaj.analysis.model.score;
+
+import java.util.Collection;
+import gaj.analysis.model.AuxiliaryInfo;
+import gaj.analysis.model.Model;
+
+/**
+ * Provides a way of scoring a data model against either a whole source of
+ * data, or against an arbitrary batch of data cases drawn from that source.
+ * 
+ * <I> - The input data type.
+ * <O> - The output data type.
+ */
+public interface BatchModelScorer<I, O> extends ModelScorer<I, O> {
+
+    /**
+     * Obtains the source of data against which the model is scored.
+     * 
+     * @return The data source.
+     */
+    DataSource<I> getSource();
+
+    /**
+     * Scores the given model against a batch of data cases, and also computes
+     * any associated information (e.g. the parameter score gradient) if
+     * available.
+     * 
+     * @param model
+     *            - The model to be scored.
+     * @param batch
+     *            - The batch of data cases.
+     * @param info
+     *            - Optional objects either specifying auxiliary information for
+     *            the model, or requesting auxiliary information be provided
+     *            with the score.
+     * @return The score of the model on the batch, optionally with any
+     *         associated information.
+     */
+    ScoreInfo score(Model<I, O> model, Collection<? extends Datum<I>> batch, AuxiliaryInfo... info);
+
+}
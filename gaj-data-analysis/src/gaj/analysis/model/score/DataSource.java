@@ -1,5 +1,6 @@
 package gaj.analysis.model.score;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
@@ -17,4 +18,39 @@ public interface DataSource<I> {
      */
     Stream<Datum<I>> stream();
 
+    /**
+     * Obtains a possibly parallel stream of data cases. For efficient parallel
+     * processing, implementations should supply a sized stream that splits
+     * evenly, e.g. one backed by an array or random-access list.
+     * 
+     * @return The data case stream.
+     */
+    default Stream<Datum<I>> parallelStream() {
+        return stream().parallel();
+    }
+
+    /**
+     * Creates a repeatable data source from an in-memory list of data cases.
+     * The parallel stream of the data source is sized and evenly splittable.
+     * <p/>
+     * Warning: The list must not be modified elsewhere!
+     * 
+     * @param data
+     *            - The list of data cases.
+     * @return The data source.
+     */
+    static <I> DataSource<I> newDataSource(List<Datum<I>> data) {
+        return new DataSource<I>() {
+            @Override
+            public Stream<Datum<I>> stream() {
+                return data.stream();
+            }
+
+            @Override
+            public Stream<Datum<I>> parallelStream() {
+                return data.parallelStream();
+            }
+        };
+    }
+
 }
@@ -1,5 +1,6 @@
 package gaj.analysis.model.score;
 
+import java.util.concurrent.ForkJoinPool;
 import gaj.analysis.model.AuxiliaryInfo;
 
 /**
@@ -19,6 +20,44 @@ public interface ScorerInfo extends AuxiliaryInfo {
      */
     final static ScorerInfo SCORE_UNLABELLED = new UnlabelledScorerInfo() {};
 
+    /**
+     * Indicates that data cases are to be scored in parallel, using the given
+     * thread pool.
+     */
+    static interface ParallelScorerInfo extends ScorerInfo {
+
+        /**
+         * Specifies the pool of threads in which to score the data cases.
+         * 
+         * @return The thread pool.
+         */
+        ForkJoinPool getPool();
+
+    }
+
+    /**
+     * Indicates that data cases should be scored in parallel, using the common
+     * thread pool.
+     */
+    final static ScorerInfo SCORE_IN_PARALLEL = newParallelScorerInfo(ForkJoinPool.commonPool());
+
+    /**
+     * Indicates that data cases should be scored in parallel, using the given
+     * thread pool.
+     * 
+     * @param pool
+     *            - The thread pool.
+     * @return The scorer information.
+     */
+    static ScorerInfo newParallelScorerInfo(ForkJoinPool pool) {
+        return new ParallelScorerInfo() {
+            @Override
+            public ForkJoinPool getPool() {
+                return pool;
+            }
+        };
+    }
+
     /**
      * Indicates whether or not unlabelled data should be scored, if possible,
      * rather than simply ignored.
@@ -37,4 +76,22 @@ public interface ScorerInfo extends AuxiliaryInfo {
         return false;
     }
 
+    /**
+     * Obtains the thread pool, if any, in which data cases are to be scored
+     * in parallel.
+     * 
+     * @param info
+     *            - Optional objects either specifying auxiliary information for
+     *            the model, or requesting auxiliary information be provided for
+     *            or with the score.
+     * @return The thread pool, or a value of null if cases are to be scored
+     *         sequentially.
+     */
+    static ForkJoinPool parallelPool(AuxiliaryInfo... info) {
+        for (AuxiliaryInfo infoObj : info) {
+            if (infoObj instanceof ParallelScorerInfo) return ((ParallelScorerInfo) infoObj).getPool();
+        }
+        return null;
+    }
+
 }
@@ -1,24 +1,36 @@
 package gaj.analysis.model.score.impl;
 
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import gaj.analysis.model.AuxiliaryInfo;
 import gaj.analysis.model.Model;
+import gaj.analysis.model.score.BatchModelScorer;
 import gaj.analysis.model.score.Datum;
 import gaj.analysis.model.score.ModelledDatumScorer;
 import gaj.analysis.model.score.DatumScorer;
-import gaj.analysis.model.score.ModelScorer;
 import gaj.analysis.model.score.DataSource;
 import gaj.analysis.model.score.ScoreInfo;
+import gaj.analysis.model.score.ScorerInfo;
 
 /**
  * Provides the basis for implementing an additive scorer for a data model.
+ * <p/>
+ * Note: The data cases may optionally be scored in parallel, either by
+ * supplying {@link ScorerInfo#SCORE_IN_PARALLEL} (or a custom thread pool) when
+ * scoring, or by binding a default thread pool to the scorer. In that case, the
+ * model must permit concurrent processing of data cases.
  * 
  * <I> - The input data type.
  * <O> - The output data type.
  */
-public class DataSourceModelScorer<I, O> implements ModelScorer<I, O> {
+public class DataSourceModelScorer<I, O> implements BatchModelScorer<I, O> {
 
     private final DataSource<I> source;
     private final ModelledDatumScorer<I, O> scorer;
+    /** The default thread pool, which may be changed whilst other threads are scoring. */
+    private volatile ForkJoinPool pool = null;
 
     /**
      * Binds the scorer to a repeatable source of data.
@@ -31,14 +43,50 @@ public class DataSourceModelScorer<I, O> implements ModelScorer<I, O> {
         this.scorer = scorer;
     }
 
-    protected DataSource<I> getSource() {
+    @Override
+    public DataSource<I> getSource() {
         return source;
     }
 
+    /**
+     * Specifies the default thread pool in which to score data cases in
+     * parallel, unless otherwise specified when scoring.
+     * 
+     * @param pool
+     *            - The thread pool, or a value of null to score data cases
+     *            sequentially by default.
+     */
+    public void setParallelPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     @Override
     public ScoreInfo score(Model<I, O> model, AuxiliaryInfo... info) {
+        return score(model, source::stream, source::parallelStream, info);
+    }
+
+    @Override
+    public ScoreInfo score(Model<I, O> model, Collection<? extends Datum<I>> batch, AuxiliaryInfo... info) {
+        return score(model, batch::stream, batch::parallelStream, info);
+    }
+
+    private ScoreInfo score(Model<I, O> model,
+            Supplier<Stream<? extends Datum<I>>> stream,
+            Supplier<Stream<? extends Datum<I>>> parallelStream,
+            AuxiliaryInfo... info)
+    {
         DatumScorer<I> caseScorer = bindScorer(model, info);
-        return source.stream().map(caseScorer::score).collect(new ScoreInfoCollector());
+        ForkJoinPool _pool = ScorerInfo.parallelPool(info);
+        if (_pool == null) {
+            _pool = pool;
+        }
+        if (_pool == null) {
+            return stream.get().map(caseScorer::score).collect(new ScoreInfoCollector());
+        }
+        // A parallel stream executes within the pool from which it is invoked.
+        return _pool.submit(
+                () -> parallelStream.get().map(caseScorer::score).collect(new ScoreInfoCollector())
+        ).join();
     }
 
     /**
@@ -2,7 +2,9 @@ package gaj.analysis.model.score.impl;
 
 import gaj.analysis.model.score.GradientScoreInfo;
 import gaj.analysis.model.score.ScoreInfo;
+import gaj.analysis.numeric.RepresentationType;
 import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.WritableVector;
 import gaj.analysis.numeric.vector.impl.VectorFactory;
 import gaj.common.annotations.PackagePrivate;
 
@@ -10,7 +12,7 @@ import gaj.common.annotations.PackagePrivate;
 
     private double sumWeight = 0.0;
     private double sumScore = 0.0;
-    private DataVector sumGradient = null;
+    private WritableVector sumGradient = null;
 
     @PackagePrivate void accumulate(ScoreInfo scoreInfo) {
         final double weight = scoreInfo.getWeight();
@@ -18,28 +20,55 @@ import gaj.common.annotations.PackagePrivate;
             sumWeight += weight;
             sumScore += weight * scoreInfo.getScore();
             if (scoreInfo instanceof GradientScoreInfo) {
-                DataVector _gradient = ((GradientScoreInfo) scoreInfo).getScoreGradient();
-                accumulateGradient(VectorFactory.multiply(_gradient, weight));
+                accumulateGradient(((GradientScoreInfo) scoreInfo).getScoreGradient(), weight);
             }
         }
     }
 
-    private void accumulateGradient(DataVector gradient) {
+    private void accumulateGradient(DataVector gradient, double weight) {
         if (sumGradient == null) {
-            sumGradient = gradient;
-        } else {
-            sumGradient = VectorFactory.add(sumGradient, gradient);
+            sumGradient = VectorFactory.newAccumulator(gradient.size());
         }
+        sumGradient.addScaled(gradient, weight);
     }
 
+    /**
+     * Merges the partial sums of another accumulator, e.g. from a separate
+     * partition of the data, into this accumulator.
+     * <p/>
+     * Note: The other accumulator must not be used afterwards, since its
+     * gradient might be taken over by this accumulator.
+     *
+     * @param accumulator - The other accumulator.
+     * @return This accumulator.
+     */
     @PackagePrivate ScoreInfoAccumulator combine(ScoreInfoAccumulator accumulator) {
-        // TODO add in accumulator score info gradient
         sumWeight += accumulator.sumWeight;
         sumScore += accumulator.sumScore;
-        accumulateGradient(accumulator.sumGradient);
+        final WritableVector otherGradient = accumulator.sumGradient;
+        if (otherGradient != null) {
+            if (sumGradient == null) {
+                sumGradient = otherGradient;
+            } else if (sumGradient.representationType() != RepresentationType.DENSE
+                    && otherGradient.representationType() == RepresentationType.DENSE) {
+                // Add the sparser gradient into the denser one.
+                otherGradient.addScaled(sumGradient, 1.0);
+                sumGradient = otherGradient;
+            } else {
+                sumGradient.addScaled(otherGradient, 1.0);
+            }
+        }
         return this;
     }
 
+    /**
+     * Computes the weighted average score information. The average gradient
+     * is a scaled copy of the accumulated gradient, which keeps its sparsity,
+     * so this method may be called repeatedly, and accumulation may continue
+     * afterwards.
+     *
+     * @return The score information.
+     */
     @PackagePrivate ScoreInfo getScoreInfo() {
         final double scaling = (sumWeight == 0.0) ? 0.0 : 1 / sumWeight;
         final double _score = scaling * sumScore;
@@ -56,7 +85,8 @@ import gaj.common.annotations.PackagePrivate;
                 }
             };
         } else {
-            final DataVector _gradient = VectorFactory.multiply(sumGradient, scaling);
+            final WritableVector _gradient = VectorFactory.newAccumulator(sumGradient.size());
+            _gradient.addScaled(sumGradient, scaling);
             return new GradientScoreInfo() {
                 @Override
                 public double getScore() {
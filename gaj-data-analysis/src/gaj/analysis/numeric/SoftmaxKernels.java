@@ -0,0 +1,172 @@
+package gaj.analysis.numeric;
+
+/**
+ * Implements numerically stable, allocation-free kernels for normalising
+ * exponentiated weights, namely the log-sum-exp, softmax and log-softmax
+ * functions over primitive arrays.
+ * <p/>
+ * Each kernel shifts the weights by their maximum before exponentiation, so
+ * that large weights cannot overflow and small weights cannot all underflow.
+ * If every weight is negative infinity, the softmax is taken to be uniform.
+ * If any weight is positive infinity, the softmax is uniform over the
+ * infinite weights.
+ */
+public abstract class SoftmaxKernels {
+
+    private SoftmaxKernels() {}
+
+    /**
+     * Computes the log-sum-exp, log sum_i exp(w_i), of the weights.
+     *
+     * @param weights - The array of weights.
+     * @return The log of the summed exponentiated weights.
+     */
+    public static double logSumExp(double[] weights) {
+        return logSumExp(weights, 0, weights.length);
+    }
+
+    /**
+     * Computes the log-sum-exp, log sum_i exp(w_i), of a range of weights.
+     *
+     * @param weights - The array of weights.
+     * @param start - The array offset of the first weight.
+     * @param length - The number of weights.
+     * @return The log of the summed exponentiated weights.
+     */
+    public static double logSumExp(double[] weights, int start, int length) {
+        final int end = start + length;
+        final double max = max(weights, start, end);
+        if (Double.isInfinite(max) || Double.isNaN(max))
+            return max;
+        double sum = 0;
+        for (int i = start; i < end; i++) {
+            sum += Math.exp(weights[i] - max);
+        }
+        return max + Math.log(sum);
+    }
+
+    /**
+     * Replaces the weights in place by their softmax, exp(w_i) / sum_j exp(w_j).
+     *
+     * @param weights - The array of weights.
+     * @return The log-sum-exp of the original weights.
+     */
+    public static double softmax(double[] weights) {
+        return softmax(weights, 0, weights.length, weights, 0);
+    }
+
+    /**
+     * Computes the softmax, exp(w_i) / sum_j exp(w_j), of a range of weights.
+     * The output range may coincide with the input range.
+     *
+     * @param weights - The array of weights.
+     * @param start - The array offset of the first weight.
+     * @param length - The number of weights.
+     * @param probs - The array in which to store the probabilities.
+     * @param probsStart - The array offset of the first probability.
+     * @return The log-sum-exp of the weights.
+     */
+    public static double softmax(double[] weights, int start, int length, double[] probs, int probsStart) {
+        final int end = start + length;
+        final double max = max(weights, start, end);
+        if (Double.isInfinite(max)) {
+            uniform(weights, start, end, max, probs, probsStart);
+            return max;
+        }
+        double sum = 0;
+        for (int i = start, j = probsStart; i < end; i++, j++) {
+            final double prob = Math.exp(weights[i] - max);
+            probs[j] = prob;
+            sum += prob;
+        }
+        final double norm = 1 / sum;
+        for (int j = probsStart; j < probsStart + length; j++) {
+            probs[j] *= norm;
+        }
+        return max + Math.log(sum);
+    }
+
+    /**
+     * Replaces each row of a row-major matrix of weights in place by its
+     * softmax.
+     *
+     * @param weights - The flat array of N x M weights.
+     * @param numRows - The number of rows, N.
+     * @param numColumns - The number of columns, M.
+     */
+    public static void softmaxRows(double[] weights, int numRows, int numColumns) {
+        for (int row = 0, start = 0; row < numRows; row++, start += numColumns) {
+            softmax(weights, start, numColumns, weights, start);
+        }
+    }
+
+    /**
+     * Replaces the weights in place by their log-softmax,
+     * w_i - log sum_j exp(w_j).
+     *
+     * @param weights - The array of weights.
+     * @return The log-sum-exp of the original weights.
+     */
+    public static double logSoftmax(double[] weights) {
+        return logSoftmax(weights, 0, weights.length, weights, 0);
+    }
+
+    /**
+     * Computes the log-softmax, w_i - log sum_j exp(w_j), of a range of
+     * weights. The output range may coincide with the input range.
+     *
+     * @param weights - The array of weights.
+     * @param start - The array offset of the first weight.
+     * @param length - The number of weights.
+     * @param logProbs - The array in which to store the log-probabilities.
+     * @param logProbsStart - The array offset of the first log-probability.
+     * @return The log-sum-exp of the weights.
+     */
+    public static double logSoftmax(double[] weights, int start, int length, double[] logProbs, int logProbsStart) {
+        final int end = start + length;
+        final double max = max(weights, start, end);
+        if (Double.isInfinite(max)) {
+            uniform(weights, start, end, max, logProbs, logProbsStart);
+            for (int j = logProbsStart; j < logProbsStart + length; j++) {
+                logProbs[j] = Math.log(logProbs[j]);
+            }
+            return max;
+        }
+        double sum = 0;
+        for (int i = start; i < end; i++) {
+            sum += Math.exp(weights[i] - max);
+        }
+        final double logSum = max + Math.log(sum);
+        for (int i = start, j = logProbsStart; i < end; i++, j++) {
+            logProbs[j] = weights[i] - logSum;
+        }
+        return logSum;
+    }
+
+    private static double max(double[] weights, int start, int end) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = start; i < end; i++) {
+            final double weight = weights[i];
+            if (weight > max || Double.isNaN(weight))
+                max = weight;
+        }
+        return max;
+    }
+
+    /**
+     * Spreads the probability uniformly over the weights equal to the given
+     * infinite maximum.
+     */
+    private static void uniform(double[] weights, int start, int end, double max, double[] probs, int probsStart) {
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (weights[i] == max)
+                count++;
+        }
+        final double prob = 1.0 / count;
+        for (int i = start, j = probsStart; i < end; i++, j++) {
+            probs[j] = (weights[i] == max) ? prob : 0;
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package gaj.analysis.numeric.matrix;
+
+import gaj.analysis.numeric.vector.DataVector;
+
+/**
+ * Accumulates the non-zero elements of a sparse matrix, in any order, and
+ * then compresses them into either row-major or column-major form.
+ * Repeated elements are summed.
+ */
+public interface SparseMatrixBuilder {
+
+    /**
+     * @return The number of matrix rows.
+     */
+    int numRows();
+
+    /**
+     * @return The number of matrix columns.
+     */
+    int numColumns();
+
+    /**
+     * Adds a value to a matrix element.
+     *
+     * @param row - The index of the matrix row.
+     * @param column - The index of the matrix column.
+     * @param value - The value to be added.
+     */
+    void add(int row, int column, double value);
+
+    /**
+     * Adds the non-zero elements of the given vector to a row of the matrix.
+     *
+     * @param row - The index of the matrix row.
+     * @param vector - A row vector.
+     */
+    void addRow(int row, DataVector vector);
+
+    /**
+     * Builds the matrix in compressed sparse row format, which is suited to
+     * accessing rows and to post-multiplication by a vector.
+     *
+     * @return The sparse matrix.
+     */
+    DataMatrix buildRowMatrix();
+
+    /**
+     * Builds the matrix in compressed sparse column format, which is suited
+     * to accessing columns and to pre-multiplication by a vector.
+     *
+     * @return The sparse matrix.
+     */
+    DataMatrix buildColumnMatrix();
+
+}
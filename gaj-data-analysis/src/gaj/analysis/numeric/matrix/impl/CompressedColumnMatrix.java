@@ -0,0 +1,108 @@
+package gaj.analysis.numeric.matrix.impl;
+
+import java.util.Arrays;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Implements a sparse matrix in compressed sparse column (CSC) format, such
+ * that the non-zero elements of each column are stored contiguously, in order
+ * of ascending row index.
+ */
+@PackagePrivate class CompressedColumnMatrix extends CompressedMatrix {
+
+    @PackagePrivate CompressedColumnMatrix(int numRows, int numColumns, int[] columnStarts, int offset,
+            int[] rows, double[] values) {
+        super(numRows, numColumns, numColumns, numRows, columnStarts, offset, rows, values);
+    }
+
+    @PackagePrivate CompressedColumnMatrix(int numRows, int numColumns, int[] columnStarts, int[] rows, double[] values) {
+        this(numRows, numColumns, columnStarts, 0, rows, values);
+    }
+
+    @Override
+    @PackagePrivate CompressedMatrix transpose() {
+        return new CompressedRowMatrix(numColumns, numRows, starts, offset, indices, values);
+    }
+
+    /**
+     * Obtains a view of a contiguous range of columns, sharing the same data.
+     */
+    @Override
+    @PackagePrivate CompressedColumnMatrix slice(int start, int end) {
+        if (start < 0 || end > numColumns || start > end)
+            throw new IndexOutOfBoundsException("Bad column range: [" + start + ", " + end + ")");
+        return new CompressedColumnMatrix(numRows, end - start, starts, offset + start, indices, values);
+    }
+
+    /**
+     * Copies a contiguous range of rows into a new compressed column matrix.
+     *
+     * @param start - The index of the first row.
+     * @param end - The index after the last row.
+     * @return The sliced matrix.
+     */
+    @PackagePrivate CompressedColumnMatrix copyRows(int start, int end) {
+        if (start < 0 || end > numRows || start > end)
+            throw new IndexOutOfBoundsException("Bad row range: [" + start + ", " + end + ")");
+        final int[] columnStarts = new int[numColumns + 1];
+        final int[] rows = new int[numNonZero()];
+        final double[] rowValues = new double[rows.length];
+        int pos = 0;
+        for (int column = 0; column < numColumns; column++) {
+            final int from = starts[offset + column];
+            final int to = starts[offset + column + 1];
+            int i = Arrays.binarySearch(indices, from, to, start);
+            if (i < 0)
+                i = -i - 1;
+            for (; i < to && indices[i] < end; i++) {
+                rows[pos] = indices[i] - start;
+                rowValues[pos++] = values[i];
+            }
+            columnStarts[column + 1] = pos;
+        }
+        return new CompressedColumnMatrix(end - start, numColumns, columnStarts,
+                Arrays.copyOf(rows, pos), Arrays.copyOf(rowValues, pos));
+    }
+
+    @Override
+    @PackagePrivate void postMultiply(DataVector x, double[] y) {
+        multiplyMinor(x, y);
+    }
+
+    @Override
+    @PackagePrivate void preMultiply(DataVector x, double[] y) {
+        multiplyMajor(x, y);
+    }
+
+    @Override
+    @PackagePrivate double[] sumEachRow() {
+        return sumMinor();
+    }
+
+    @Override
+    @PackagePrivate double[] sumEachColumn() {
+        return sumMajor();
+    }
+
+    @Override
+    @PackagePrivate void copyTo(double[] data) {
+        scatter(data, 1, numColumns);
+    }
+
+    @Override
+    public double get(int row, int column) {
+        return getElement(column, row);
+    }
+
+    @Override
+    public DataVector getRow(int row) {
+        return getMinor(row);
+    }
+
+    @Override
+    public DataVector getColumn(int column) {
+        return getMajor(column);
+    }
+
+}
@@ -0,0 +1,228 @@
+package gaj.analysis.numeric.matrix.impl;
+
+import java.util.Arrays;
+import gaj.analysis.numeric.vector.ArrayVector;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.VectorCursor;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Implements the shared storage of compressed sparse matrices. The matrix is
+ * stored as a sequence of sparse major vectors (the rows of a compressed row
+ * matrix, or the columns of a compressed column matrix), such that the
+ * non-zero elements of each major vector are stored contiguously, in order of
+ * ascending minor index.
+ * <p/>
+ * The storage is proportional to the number of non-zero elements, and may be
+ * shared between a matrix, its transpose and its slices.
+ */
+@PackagePrivate abstract class CompressedMatrix extends SparseMatrix<DataVector> {
+
+    /** The number of major vectors. */
+    protected final int numMajor;
+    /** The length of each major vector. */
+    protected final int numMinor;
+    /** The element positions of the start of each major vector, followed by the end of the last. */
+    /* @PackagePrivate */ final int[] starts;
+    /** The position in the table of starts of the first major vector. */
+    /* @PackagePrivate */ final int offset;
+    /* @PackagePrivate */ final int[] indices;
+    /* @PackagePrivate */ final double[] values;
+
+    protected CompressedMatrix(int numRows, int numColumns, int numMajor, int numMinor,
+            int[] starts, int offset, int[] indices, double[] values) {
+        super(numRows, numColumns);
+        this.numMajor = numMajor;
+        this.numMinor = numMinor;
+        this.starts = starts;
+        this.offset = offset;
+        this.indices = indices;
+        this.values = values;
+    }
+
+    /**
+     * Obtains a transposed view of the matrix, sharing the same data.
+     *
+     * @return The transposed matrix.
+     */
+    @PackagePrivate abstract CompressedMatrix transpose();
+
+    /**
+     * Obtains a view of a contiguous range of major vectors, sharing the same
+     * data.
+     *
+     * @param start - The index of the first major vector.
+     * @param end - The index after the last major vector.
+     * @return The sliced matrix.
+     */
+    @PackagePrivate abstract CompressedMatrix slice(int start, int end);
+
+    /**
+     * Computes y += A * x.
+     *
+     * @param x - The length-M vector.
+     * @param y - The length-N dense vector to be modified.
+     */
+    @PackagePrivate abstract void postMultiply(DataVector x, double[] y);
+
+    /**
+     * Computes y += x * A.
+     *
+     * @param x - The length-N vector.
+     * @param y - The length-M dense vector to be modified.
+     */
+    @PackagePrivate abstract void preMultiply(DataVector x, double[] y);
+
+    /**
+     * Copies the elements into a dense, row-major array.
+     *
+     * @param data - The N x M array, initially zero.
+     */
+    @PackagePrivate abstract void copyTo(double[] data);
+
+    /**
+     * Computes the sum of the elements of each row.
+     *
+     * @return The length-N array of row sums.
+     */
+    @PackagePrivate abstract double[] sumEachRow();
+
+    /**
+     * Computes the sum of the elements of each column.
+     *
+     * @return The length-M array of column sums.
+     */
+    @PackagePrivate abstract double[] sumEachColumn();
+
+    /**
+     * @return The number of stored, non-zero elements.
+     */
+    @PackagePrivate int numNonZero() {
+        return starts[offset + numMajor] - starts[offset];
+    }
+
+    protected double getElement(int major, int minor) {
+        if (major < 0 || major >= numMajor)
+            throw new IndexOutOfBoundsException("Bad index: " + major);
+        if (minor < 0 || minor >= numMinor)
+            throw new IndexOutOfBoundsException("Bad index: " + minor);
+        final int i = Arrays.binarySearch(indices, starts[offset + major], starts[offset + major + 1], minor);
+        return (i < 0) ? 0 : values[i];
+    }
+
+    protected DataVector getMajor(int major) {
+        if (major < 0 || major >= numMajor)
+            throw new IndexOutOfBoundsException("Bad index: " + major);
+        final int start = starts[offset + major];
+        final int end = starts[offset + major + 1];
+        return VectorFactory.newSparseVector(numMinor,
+                Arrays.copyOfRange(indices, start, end), Arrays.copyOfRange(values, start, end));
+    }
+
+    protected DataVector getMinor(int minor) {
+        if (minor < 0 || minor >= numMinor)
+            throw new IndexOutOfBoundsException("Bad index: " + minor);
+        int[] minorIndices = new int[0];
+        double[] minorValues = new double[0];
+        int count = 0;
+        for (int major = 0; major < numMajor; major++) {
+            final int i = Arrays.binarySearch(indices, starts[offset + major], starts[offset + major + 1], minor);
+            if (i >= 0) {
+                if (count == minorIndices.length) {
+                    minorIndices = Arrays.copyOf(minorIndices, 2 * count + 1);
+                    minorValues = Arrays.copyOf(minorValues, 2 * count + 1);
+                }
+                minorIndices[count] = major;
+                minorValues[count++] = values[i];
+            }
+        }
+        return VectorFactory.newSparseVector(numMajor,
+                Arrays.copyOf(minorIndices, count), Arrays.copyOf(minorValues, count));
+    }
+
+    /**
+     * Computes y += [m_i . x], where m_i is the i-th major vector.
+     *
+     * @param x - The length-numMinor vector.
+     * @param y - The length-numMajor dense vector to be modified.
+     */
+    protected void multiplyMajor(DataVector x, double[] y) {
+        final double[] data = (x instanceof ArrayVector) ? ((ArrayVector) x).getArray() : VectorFactory.toArray(x);
+        MatrixKernels.csrmv(starts, offset, indices, values, numMajor, data, y);
+    }
+
+    /**
+     * Computes y += sum_i x_i m_i, where m_i is the i-th major vector.
+     *
+     * @param x - The length-numMajor vector.
+     * @param y - The length-numMinor dense vector to be modified.
+     */
+    protected void multiplyMinor(DataVector x, double[] y) {
+        final VectorCursor cursor = x.cursor();
+        while (cursor.hasNext()) {
+            final int major = cursor.next();
+            final double value = cursor.value();
+            if (value != 0) {
+                for (int i = starts[offset + major]; i < starts[offset + major + 1]; i++) {
+                    y[indices[i]] += value * values[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the sum of each major vector.
+     *
+     * @return The length-numMajor array of sums.
+     */
+    protected double[] sumMajor() {
+        final double[] sums = new double[numMajor];
+        for (int major = 0; major < numMajor; major++) {
+            double sum = 0;
+            for (int i = starts[offset + major]; i < starts[offset + major + 1]; i++) {
+                sum += values[i];
+            }
+            sums[major] = sum;
+        }
+        return sums;
+    }
+
+    /**
+     * Computes the sum of each minor vector.
+     *
+     * @return The length-numMinor array of sums.
+     */
+    protected double[] sumMinor() {
+        final double[] sums = new double[numMinor];
+        for (int i = starts[offset]; i < starts[offset + numMajor]; i++) {
+            sums[indices[i]] += values[i];
+        }
+        return sums;
+    }
+
+    /**
+     * Scatters the non-zero elements into a strided, dense array.
+     *
+     * @param data - The dense matrix data.
+     * @param majorStride - The array distance between adjacent major indices.
+     * @param minorStride - The array distance between adjacent minor indices.
+     */
+    protected void scatter(double[] data, int majorStride, int minorStride) {
+        for (int major = 0; major < numMajor; major++) {
+            for (int i = starts[offset + major]; i < starts[offset + major + 1]; i++) {
+                data[major * majorStride + indices[i] * minorStride] = values[i];
+            }
+        }
+    }
+
+    @Override
+    public double norm() {
+        double sum = 0;
+        for (int i = starts[offset]; i < starts[offset + numMajor]; i++) {
+            sum += values[i] * values[i];
+        }
+        return Math.sqrt(sum);
+    }
+
+}
@@ -0,0 +1,122 @@
+package gaj.analysis.numeric.matrix.impl;
+
+import java.util.Collection;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.VectorCursor;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Implements a sparse matrix in compressed sparse row (CSR) format, such that
+ * the non-zero elements of each row are stored contiguously, in order of
+ * ascending column index.
+ */
+@PackagePrivate class CompressedRowMatrix extends CompressedMatrix {
+
+    @PackagePrivate CompressedRowMatrix(int numRows, int numColumns, int[] rowStarts, int offset,
+            int[] columns, double[] values) {
+        super(numRows, numColumns, numRows, numColumns, rowStarts, offset, columns, values);
+    }
+
+    @PackagePrivate CompressedRowMatrix(int numRows, int numColumns, int[] rowStarts, int[] columns, double[] values) {
+        this(numRows, numColumns, rowStarts, 0, columns, values);
+    }
+
+    /**
+     * Stacks the non-zero elements of the given vectors into the rows of a
+     * compressed matrix.
+     *
+     * @param numColumns - The length of each row vector.
+     * @param rows - The row vectors.
+     * @return The compressed matrix.
+     */
+    @PackagePrivate static CompressedRowMatrix newMatrix(int numColumns, Collection<? extends DataVector> rows) {
+        final int[] rowStarts = new int[rows.size() + 1];
+        int row = 0;
+        for (DataVector vector : rows) {
+            if (vector.size() != numColumns) {
+                throw new IllegalArgumentException("Expected row of length " + numColumns + ", got " + vector.size());
+            }
+            int count = 0;
+            final VectorCursor cursor = vector.cursor();
+            while (cursor.hasNext()) {
+                cursor.next();
+                if (cursor.value() != 0) {
+                    count++;
+                }
+            }
+            rowStarts[row + 1] = rowStarts[row] + count;
+            row++;
+        }
+        final int[] columns = new int[rowStarts[row]];
+        final double[] values = new double[rowStarts[row]];
+        int i = 0;
+        for (DataVector vector : rows) {
+            final VectorCursor cursor = vector.cursor();
+            while (cursor.hasNext()) {
+                final int column = cursor.next();
+                final double value = cursor.value();
+                if (value != 0) {
+                    columns[i] = column;
+                    values[i++] = value;
+                }
+            }
+        }
+        return new CompressedRowMatrix(row, numColumns, rowStarts, columns, values);
+    }
+
+    @Override
+    @PackagePrivate CompressedMatrix transpose() {
+        return new CompressedColumnMatrix(numColumns, numRows, starts, offset, indices, values);
+    }
+
+    /**
+     * Obtains a view of a contiguous range of rows, sharing the same data.
+     */
+    @Override
+    @PackagePrivate CompressedRowMatrix slice(int start, int end) {
+        if (start < 0 || end > numRows || start > end)
+            throw new IndexOutOfBoundsException("Bad row range: [" + start + ", " + end + ")");
+        return new CompressedRowMatrix(end - start, numColumns, starts, offset + start, indices, values);
+    }
+
+    @Override
+    @PackagePrivate void postMultiply(DataVector x, double[] y) {
+        multiplyMajor(x, y);
+    }
+
+    @Override
+    @PackagePrivate void preMultiply(DataVector x, double[] y) {
+        multiplyMinor(x, y);
+    }
+
+    @Override
+    @PackagePrivate double[] sumEachRow() {
+        return sumMajor();
+    }
+
+    @Override
+    @PackagePrivate double[] sumEachColumn() {
+        return sumMinor();
+    }
+
+    @Override
+    @PackagePrivate void copyTo(double[] data) {
+        scatter(data, numColumns, 1);
+    }
+
+    @Override
+    public double get(int row, int column) {
+        return getElement(row, column);
+    }
+
+    @Override
+    public DataVector getRow(int row) {
+        return getMajor(row);
+    }
+
+    @Override
+    public DataVector getColumn(int column) {
+        return getMinor(column);
+    }
+
+}
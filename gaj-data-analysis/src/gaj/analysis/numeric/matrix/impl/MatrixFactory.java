@@ -1,15 +1,18 @@
 package gaj.analysis.numeric.matrix.impl;
 
 import java.util.Arrays;
+import java.util.Collection;
+import gaj.analysis.numeric.RepresentationType;
 import gaj.analysis.numeric.matrix.DataMatrix;
 import gaj.analysis.numeric.matrix.FlatArrayMatrix;
 import gaj.analysis.numeric.matrix.RowArrayMatrix;
+import gaj.analysis.numeric.matrix.SparseMatrixBuilder;
 import gaj.analysis.numeric.matrix.WritableMatrix;
+import gaj.analysis.numeric.vector.ArrayVector;
 import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.VectorCursor;
 import gaj.analysis.numeric.vector.WritableVector;
-import gaj.analysis.numeric.vector.impl.AbstractVector;
 import gaj.analysis.numeric.vector.impl.VectorFactory;
-import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 /**
  * Provides access to numerical matrices.
@@ -40,6 +43,18 @@ public class MatrixFactory {
         return new WritableRowMatrix(data);
     }
 
+    /**
+     * Wraps the given row-wise, flat data into a modifiable matrix.
+     *
+     * @param data - The flat array of data.
+     * @param numRows - The column length.
+     * @param numColumns - The row length.
+     * @return The data matrix.
+     */
+    public static WritableMatrix newMatrix(double[] data, int numRows, int numColumns) {
+        return new WritableFlatMatrix(data, numRows, numColumns);
+    }
+
     /**
      * Creates a writable matrix copy of the given matrix.
      *
@@ -49,19 +64,23 @@ public class MatrixFactory {
     public static WritableMatrix newMatrix(DataMatrix matrix) {
         final int numRows = matrix.numRows();
         final int numColumns = matrix.numColumns();
-        double[][] copyData = new double[numRows][];
+        if (matrix instanceof FlatArrayMatrix) {
+            final double[] data = ((FlatArrayMatrix) matrix).getArray();
+            return new WritableFlatMatrix(Arrays.copyOf(data, data.length), numRows, numColumns);
+        }
+        final WritableFlatMatrix copy = new WritableFlatMatrix(numRows, numColumns);
         if (matrix instanceof RowArrayMatrix) {
+            final double[] copyData = copy.getArray();
             int row = 0;
             for (double[] rowData : ((RowArrayMatrix) matrix).getArray()) {
-                copyData[row++] = Arrays.copyOf(rowData, numColumns);
+                System.arraycopy(rowData, 0, copyData, numColumns * row++, numColumns);
             }
+        } else if (matrix instanceof CompressedMatrix) {
+            ((CompressedMatrix) matrix).copyTo(copy.getArray());
         } else {
-            int row = 0;
-            for (DataVector rowVec : matrix.getRows()) {
-                copyData[row++] = VectorFactory.toArray(rowVec);
-            }
+            copy.set(matrix);
         }
-        return new WritableRowMatrix(copyData);
+        return copy;
     }
 
     /**
@@ -72,7 +91,97 @@ public class MatrixFactory {
      * @return The data matrix.
      */
     public static WritableMatrix newMatrix(int numRows, int numColumns) {
-        return new WritableRowMatrix(numRows, numColumns);
+        return new WritableFlatMatrix(numRows, numColumns);
+    }
+
+    /**
+     * Creates a builder for a sparse matrix, which may then be stored in
+     * either compressed sparse row or compressed sparse column format. The
+     * storage is proportional to the number of non-zero elements.
+     *
+     * @param numRows - The column length.
+     * @param numColumns - The row length.
+     * @return The matrix builder.
+     */
+    public static SparseMatrixBuilder newSparseMatrixBuilder(int numRows, int numColumns) {
+        return new SparseMatrixBuilderImpl(numRows, numColumns);
+    }
+
+    /**
+     * Presents a contiguous range of rows of the given matrix. The rows of a
+     * compressed sparse row matrix are presented without copying the data;
+     * otherwise the rows are copied.
+     *
+     * @param matrix - The N x M matrix.
+     * @param start - The index of the first row.
+     * @param end - The index after the last row.
+     * @return The (end-start) x M matrix.
+     */
+    public static DataMatrix sliceRows(DataMatrix matrix, int start, int end) {
+        if (start < 0 || end > matrix.numRows() || start > end) {
+            throw new IndexOutOfBoundsException("Bad row range: [" + start + ", " + end + ")");
+        }
+        if (matrix instanceof CompressedRowMatrix) {
+            return ((CompressedRowMatrix) matrix).slice(start, end);
+        }
+        if (matrix instanceof CompressedColumnMatrix) {
+            return ((CompressedColumnMatrix) matrix).copyRows(start, end);
+        }
+        final int numColumns = matrix.numColumns();
+        if (matrix instanceof FlatArrayMatrix) {
+            final double[] data = ((FlatArrayMatrix) matrix).getArray();
+            return new WritableFlatMatrix(Arrays.copyOfRange(data, start * numColumns, end * numColumns),
+                    end - start, numColumns);
+        }
+        final WritableFlatMatrix slice = new WritableFlatMatrix(end - start, numColumns);
+        for (int row = start; row < end; row++) {
+            slice.setRow(row - start, matrix.getRow(row));
+        }
+        return slice;
+    }
+
+    /**
+     * Stacks the given vectors into the rows of a matrix. If any of the
+     * vectors is sparse, then the matrix is stored in compressed sparse row
+     * format; otherwise, the matrix is stored densely.
+     *
+     * @param numColumns - The length of each row vector.
+     * @param rows - The row vectors.
+     * @return The data matrix.
+     */
+    public static DataMatrix newRowMatrix(int numColumns, Collection<? extends DataVector> rows) {
+        for (DataVector row : rows) {
+            if (row.representationType() == RepresentationType.SPARSE) {
+                return CompressedRowMatrix.newMatrix(numColumns, rows);
+            }
+        }
+        final WritableFlatMatrix matrix = new WritableFlatMatrix(rows.size(), numColumns);
+        int row = 0;
+        for (DataVector vector : rows) {
+            matrix.setRow(row++, vector);
+        }
+        return matrix;
+    }
+
+    /**
+     * Presents the transpose of the given matrix, without copying the data.
+     * If the matrix is stored in a flat array, then the transposed matrix is
+     * also writable.
+     *
+     * @param matrix - The N x M matrix, A.
+     * @return The M x N matrix, A'.
+     */
+    public static DataMatrix transpose(DataMatrix matrix) {
+        if (matrix instanceof WritableStridedMatrix) {
+            return ((WritableStridedMatrix) matrix).transpose();
+        }
+        if (matrix instanceof CompressedMatrix) {
+            return ((CompressedMatrix) matrix).transpose();
+        }
+        if (matrix instanceof TransposedMatrix) {
+            return ((TransposedMatrix) matrix).transpose();
+        }
+        return new TransposedMatrix(matrix);
     }
 
     public static DataMatrix scale(DataMatrix matrix, double multiplier) {
@@ -111,19 +220,86 @@ public class MatrixFactory {
      * @return A length-N vector, y = A*x.
      */
     public static WritableVector multiply(DataMatrix matrix, DataVector vector) {
-        if (matrix instanceof RowArrayMatrix) {
-            return multiply((RowArrayMatrix) matrix, vector);
+        if (matrix instanceof TransposedMatrix) {
+            return multiply(vector, ((TransposedMatrix) matrix).transpose());
         }
-        throw new NotImplementedException();
+        final double[] result = new double[matrix.numRows()];
+        multiply(matrix, vector, result);
+        return VectorFactory.newVector(result);
     }
 
-    private static WritableVector multiply(RowArrayMatrix matrix, DataVector vector) {
+    /**
+     * Post-multiplies the matrix by the given vector, storing the result in
+     * the given array.
+     *
+     * @param matrix - The N x M matrix, A.
+     * @param vector - The length-M vector, x.
+     * @param result - The array of length at least N, in which to store
+     * the first N elements of y = A*x.
+     */
+    public static void multiply(DataMatrix matrix, DataVector vector, double[] result) {
         final int numRows = matrix.numRows();
-        WritableVector result = VectorFactory.newVector(numRows);
-        for (int row = 0; row < numRows; row++) {
-            result.set(row, VectorFactory.dot(matrix.getRow(row), vector));
+        Arrays.fill(result, 0, numRows, 0);
+        if (matrix instanceof WritableStridedMatrix) {
+            multiply((WritableStridedMatrix) matrix, vector, result);
+        } else if (matrix instanceof RowArrayMatrix) {
+            multiply((RowArrayMatrix) matrix, vector, result);
+        } else if (matrix instanceof CompressedMatrix) {
+            ((CompressedMatrix) matrix).postMultiply(vector, result);
+        } else if (!(matrix instanceof ZeroMatrix)) {
+            for (int row = 0; row < numRows; row++) {
+                result[row] = VectorFactory.dot(matrix.getRow(row), vector);
+            }
+        }
+    }
+
+    private static void multiply(WritableStridedMatrix matrix, DataVector vector, double[] result) {
+        final int numRows = matrix.numRows();
+        if (vector.representationType() == RepresentationType.DENSE) {
+            final double[] values = (vector instanceof ArrayVector)
+                    ? ((ArrayVector) vector).getArray() : VectorFactory.toArray(vector);
+            MatrixKernels.gemv(matrix.data, numRows, matrix.numColumns(), matrix.rowStride, matrix.columnStride,
+                    values, result);
+        } else {
+            final VectorCursor cursor = vector.cursor();
+            while (cursor.hasNext()) {
+                final int column = cursor.next();
+                final double value = cursor.value();
+                if (value != 0) {
+                    MatrixKernels.axpy(value, matrix.data, column * matrix.columnStride, matrix.rowStride,
+                            numRows, result);
+                }
+            }
+        }
+    }
+
+    private static void multiply(RowArrayMatrix matrix, DataVector vector, double[] result) {
+        final double[][] data = matrix.getArray();
+        final int numRows = matrix.numRows();
+        if (vector instanceof ArrayVector) {
+            final double[] values = ((ArrayVector) vector).getArray();
+            final int numColumns = matrix.numColumns();
+            for (int row = 0; row < numRows; row++) {
+                final double[] rowData = data[row];
+                double sum = 0;
+                for (int column = 0; column < numColumns; column++) {
+                    sum += rowData[column] * values[column];
+                }
+                result[row] = sum;
+            }
+        } else {
+            final VectorCursor cursor = vector.cursor();
+            while (cursor.hasNext()) {
+                final int column = cursor.next();
+                final double value = cursor.value();
+                if (value == 0) {
+                    continue;
+                }
+                for (int row = 0; row < numRows; row++) {
+                    result[row] += data[row][column] * value;
+                }
+            }
         }
-        return result;
     }
 
     /**
@@ -134,25 +310,154 @@ public class MatrixFactory {
      * @return A length-M vector, y = x*A.
      */
     public static WritableVector multiply(DataVector vector, DataMatrix matrix) {
+        if (matrix instanceof WritableStridedMatrix) {
+            return multiply(vector, (WritableStridedMatrix) matrix);
+        }
         if (matrix instanceof RowArrayMatrix) {
             return multiply(vector, (RowArrayMatrix) matrix);
         }
-        throw new NotImplementedException();
+        if (matrix instanceof TransposedMatrix) {
+            return multiply(((TransposedMatrix) matrix).transpose(), vector);
+        }
+        if (matrix instanceof CompressedMatrix) {
+            final double[] result = new double[matrix.numColumns()];
+            ((CompressedMatrix) matrix).preMultiply(vector, result);
+            return VectorFactory.newVector(result);
+        }
+        final WritableVector result = VectorFactory.newVector(matrix.numColumns());
+        if (!(matrix instanceof ZeroMatrix)) {
+            final VectorCursor cursor = vector.cursor();
+            while (cursor.hasNext()) {
+                final int row = cursor.next();
+                final double value = cursor.value();
+                if (value != 0) {
+                    result.addScaled(matrix.getRow(row), value);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static WritableVector multiply(DataVector vector, WritableStridedMatrix matrix) {
+        final int numColumns = matrix.numColumns();
+        final double[] result = new double[numColumns];
+        if (vector.representationType() == RepresentationType.DENSE) {
+            final double[] values = (vector instanceof ArrayVector)
+                    ? ((ArrayVector) vector).getArray() : VectorFactory.toArray(vector);
+            MatrixKernels.gevm(matrix.data, matrix.numRows(), numColumns, matrix.rowStride, matrix.columnStride,
+                    values, result);
+        } else {
+            final VectorCursor cursor = vector.cursor();
+            while (cursor.hasNext()) {
+                final int row = cursor.next();
+                final double value = cursor.value();
+                if (value != 0) {
+                    MatrixKernels.axpy(value, matrix.data, row * matrix.rowStride, matrix.columnStride,
+                            numColumns, result);
+                }
+            }
+        }
+        return VectorFactory.newVector(result);
     }
 
     private static WritableVector multiply(DataVector vector, RowArrayMatrix matrix) {
-        // TODO Better handle a sparse vector.
-        WritableVector result = VectorFactory.newVector(matrix.numColumns());
-        final int numRows = matrix.numRows();
-        for (int row = 0; row < numRows; row++) {
-            double value = vector.get(row);
+        final double[][] data = matrix.getArray();
+        final int numColumns = matrix.numColumns();
+        final double[] result = new double[numColumns];
+        final VectorCursor cursor = vector.cursor();
+        while (cursor.hasNext()) {
+            final int row = cursor.next();
+            final double value = cursor.value();
             if (value == 0) {
                 continue;
             }
-            DataVector scaledVec = VectorFactory.scale(matrix.getRow(row), value);
-            ((AbstractVector) scaledVec).addTo(result);
+            final double[] rowData = data[row];
+            for (int column = 0; column < numColumns; column++) {
+                result[column] += value * rowData[column];
+            }
         }
-        return result;
+        return VectorFactory.newVector(result);
+    }
+
+    /**
+     * Post-multiplies a matrix by the transpose of another matrix.
+     *
+     * @param matrix1 - The N x K matrix, A.
+     * @param matrix2 - The M x K matrix, B.
+     * @return The N x M matrix, C = A*B'.
+     */
+    public static WritableMatrix multiplyTransposed(DataMatrix matrix1, DataMatrix matrix2) {
+        final double[] result = new double[matrix1.numRows() * matrix2.numRows()];
+        multiplyTransposed(matrix1, matrix2, result);
+        return new WritableFlatMatrix(result, matrix1.numRows(), matrix2.numRows());
+    }
+
+    /**
+     * Post-multiplies a matrix by the transpose of another matrix, storing
+     * the result in the given array. For example, if the rows of A are
+     * feature vectors and the rows of B are weight vectors, then the rows of C
+     * are the weights of each feature vector.
+     * <p/>
+     * Dense matrices are multiplied with a single blocked kernel, and sparse
+     * rows are scattered against the transpose of B, rather than computing N
+     * separate matrix-vector products.
+     *
+     * @param matrix1 - The N x K matrix, A.
+     * @param matrix2 - The M x K matrix, B.
+     * @param result - The array of length at least NM, in which to store
+     * the row-major elements of C = A*B'.
+     */
+    public static void multiplyTransposed(DataMatrix matrix1, DataMatrix matrix2, double[] result) {
+        final int numRows = matrix1.numRows();
+        final int numInner = matrix1.numColumns();
+        final int numColumns = matrix2.numRows();
+        if (matrix2.numColumns() != numInner) {
+            throw new IllegalArgumentException("Expected matrix with " + numInner + " columns");
+        }
+        Arrays.fill(result, 0, numRows * numColumns, 0);
+        if (matrix1 instanceof ZeroMatrix || matrix2 instanceof ZeroMatrix) {
+            return;
+        }
+        final WritableStridedMatrix strided2 = (matrix2 instanceof WritableStridedMatrix)
+                ? (WritableStridedMatrix) matrix2 : (WritableStridedMatrix) newMatrix(matrix2);
+        if (matrix1 instanceof WritableStridedMatrix) {
+            final WritableStridedMatrix strided1 = (WritableStridedMatrix) matrix1;
+            MatrixKernels.gemmt(strided1.data, numRows, numInner, strided1.rowStride, strided1.columnStride,
+                    strided2.data, numColumns, strided2.rowStride, strided2.columnStride, result);
+        } else if (matrix1 instanceof CompressedRowMatrix) {
+            final CompressedMatrix sparse1 = (CompressedMatrix) matrix1;
+            MatrixKernels.csrmm(sparse1.starts, sparse1.offset, sparse1.indices, sparse1.values, numRows,
+                    toRowMajorTranspose(strided2), numColumns, result);
+        } else if (matrix1 instanceof CompressedColumnMatrix) {
+            final CompressedMatrix sparse1 = (CompressedMatrix) matrix1;
+            MatrixKernels.cscmm(sparse1.starts, sparse1.offset, sparse1.indices, sparse1.values, numInner,
+                    toRowMajorTranspose(strided2), numColumns, result);
+        } else {
+            final double[] rowResult = new double[numColumns];
+            for (int row = 0; row < numRows; row++) {
+                multiply(strided2, matrix1.getRow(row), rowResult);
+                System.arraycopy(rowResult, 0, result, row * numColumns, numColumns);
+            }
+        }
+    }
+
+    /**
+     * Obtains the transpose of the strided matrix in contiguous, row-major
+     * order, copying the data only if necessary.
+     */
+    private static double[] toRowMajorTranspose(WritableStridedMatrix matrix) {
+        final int numRows = matrix.numRows();
+        final int numColumns = matrix.numColumns();
+        if (matrix.rowStride == 1 && matrix.columnStride == numRows) {
+            return matrix.data;
+        }
+        final double[] transpose = new double[numRows * numColumns];
+        for (int column = 0, k = 0; column < numColumns; column++) {
+            for (int row = 0; row < numRows; row++) {
+                transpose[k++] = matrix.get(row, column);
+            }
+        }
+        return transpose;
     }
 
     /**
@@ -285,6 +590,9 @@ public class MatrixFactory {
      * @return The length-N column vector total.
      */
     public static WritableVector sumColumns(DataMatrix matrix) {
+        if (matrix instanceof CompressedMatrix) {
+            return VectorFactory.newVector(((CompressedMatrix) matrix).sumEachRow());
+        }
         final int numRows = matrix.numRows();
         WritableVector vec = VectorFactory.newVector(numRows);
         for (int row = 0; row < numRows; row++) {
@@ -293,6 +601,19 @@ public class MatrixFactory {
         return vec;
     }
 
+    /**
+     * Sums together the matrix row vectors.
+     *
+     * @param matrix - The N x M matrix.
+     * @return The length-M row vector total.
+     */
+    public static WritableVector sumRows(DataMatrix matrix) {
+        if (matrix instanceof CompressedMatrix) {
+            return VectorFactory.newVector(((CompressedMatrix) matrix).sumEachColumn());
+        }
+        return multiply(VectorFactory.newFixedVector(matrix.numRows(), 1), matrix);
+    }
+
     /**
      * Divides each row of the matrix by the corresponding non-zero element of the divisor vector.
      * <p/>
@@ -343,9 +664,26 @@ public class MatrixFactory {
      */
     public static WritableMatrix multiply(DataVector colVec, DataVector rowVec) {
         final int numRows = colVec.size();
-        WritableMatrix mat = newMatrix(numRows, rowVec.size());
-        for (int row = 0; row < numRows; row++) {
-            mat.getRow(row).set(VectorFactory.scale(rowVec, colVec.get(row)));
+        final int numColumns = rowVec.size();
+        final double[] rowValues = (rowVec instanceof ArrayVector)
+                ? ((ArrayVector) rowVec).getArray() : VectorFactory.toArray(rowVec);
+        final WritableFlatMatrix mat = new WritableFlatMatrix(numRows, numColumns);
+        final double[] data = mat.getArray();
+        if (colVec instanceof ArrayVector) {
+            MatrixKernels.outer(((ArrayVector) colVec).getArray(), rowValues, data);
+            return mat;
+        }
+        final VectorCursor cursor = colVec.cursor();
+        while (cursor.hasNext()) {
+            final int row = cursor.next();
+            final double value = cursor.value();
+            if (value == 0) {
+                continue;
+            }
+            final int offset = row * numColumns;
+            for (int column = 0; column < numColumns; column++) {
+                data[offset + column] = value * rowValues[column];
+            }
         }
         return mat;
     }
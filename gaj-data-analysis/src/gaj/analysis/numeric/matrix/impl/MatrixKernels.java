@@ -0,0 +1,315 @@
+package gaj.analysis.numeric.matrix.impl;
+
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Implements the low-level numerical kernels for dense matrices stored in
+ * flat, strided arrays, such that element (row, column) is located at position
+ * row * rowStride + column * columnStride.
+ * <p/>
+ * The kernels traverse the array in storage order where possible, and process
+ * several rows at once in order to reuse each loaded vector element.
+ */
+@PackagePrivate abstract class MatrixKernels {
+
+    /** The number of rows processed together. */
+    private static final int BLOCK = 4;
+    /** The length of the inner dimension processed together. */
+    private static final int TILE = 256;
+
+    private MatrixKernels() {}
+
+    /**
+     * Computes the matrix-vector product y += A * x.
+     *
+     * @param a - The N x M matrix data.
+     * @param numRows - The number of matrix rows, N.
+     * @param numColumns - The number of matrix columns, M.
+     * @param rowStride - The array distance between adjacent rows.
+     * @param columnStride - The array distance between adjacent columns.
+     * @param x - The length-M dense vector.
+     * @param y - The length-N dense vector to be modified.
+     */
+    @PackagePrivate static void gemv(double[] a, int numRows, int numColumns, int rowStride, int columnStride,
+            double[] x, double[] y) {
+        if (columnStride == 1) {
+            gemvRows(a, numRows, numColumns, rowStride, x, y);
+        } else {
+            for (int column = 0; column < numColumns; column++) {
+                final double value = x[column];
+                if (value != 0) {
+                    axpy(value, a, column * columnStride, rowStride, numRows, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the vector-matrix product y += x * A.
+     *
+     * @param a - The N x M matrix data.
+     * @param numRows - The number of matrix rows, N.
+     * @param numColumns - The number of matrix columns, M.
+     * @param rowStride - The array distance between adjacent rows.
+     * @param columnStride - The array distance between adjacent columns.
+     * @param x - The length-N dense vector.
+     * @param y - The length-M dense vector to be modified.
+     */
+    @PackagePrivate static void gevm(double[] a, int numRows, int numColumns, int rowStride, int columnStride,
+            double[] x, double[] y) {
+        if (columnStride == 1) {
+            gevmRows(a, numRows, numColumns, rowStride, x, y);
+        } else {
+            // The transpose is row-major.
+            gemv(a, numColumns, numRows, columnStride, rowStride, x, y);
+        }
+    }
+
+    /**
+     * Computes the matrix-matrix product C += A * B', where C is stored
+     * contiguously in row-major order.
+     *
+     * @param a - The N x K matrix data.
+     * @param numRows - The number of rows of A, N.
+     * @param numInner - The number of columns of A and B, K.
+     * @param aRowStride - The array distance between adjacent rows of A.
+     * @param aColumnStride - The array distance between adjacent columns of A.
+     * @param b - The M x K matrix data.
+     * @param numColumns - The number of rows of B, M.
+     * @param bRowStride - The array distance between adjacent rows of B.
+     * @param bColumnStride - The array distance between adjacent columns of B.
+     * @param c - The N x M matrix data to be modified.
+     */
+    @PackagePrivate static void gemmt(double[] a, int numRows, int numInner, int aRowStride, int aColumnStride,
+            double[] b, int numColumns, int bRowStride, int bColumnStride, double[] c) {
+        if (aColumnStride == 1 && bColumnStride == 1) {
+            gemmtRows(a, numRows, numInner, aRowStride, b, numColumns, bRowStride, c);
+        } else {
+            for (int row = 0, k = 0; row < numRows; row++) {
+                final int i0 = row * aRowStride;
+                for (int column = 0; column < numColumns; column++, k++) {
+                    final int j0 = column * bRowStride;
+                    double sum = 0;
+                    for (int inner = 0; inner < numInner; inner++) {
+                        sum += a[i0 + inner * aColumnStride] * b[j0 + inner * bColumnStride];
+                    }
+                    c[k] += sum;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes C += A * B' for contiguous rows. The inner dimension is tiled,
+     * so that the current tile of B remains in cache whilst every row of A
+     * is processed, and each element of A is reused against a block of rows
+     * of B.
+     */
+    private static void gemmtRows(double[] a, int numRows, int numInner, int aRowStride,
+            double[] b, int numColumns, int bRowStride, double[] c) {
+        for (int start = 0; start < numInner; start += TILE) {
+            final int end = Math.min(numInner, start + TILE);
+            for (int row = 0; row < numRows; row++) {
+                final int i0 = row * aRowStride;
+                final int k0 = row * numColumns;
+                int column = 0;
+                for (; column + BLOCK <= numColumns; column += BLOCK) {
+                    final int j0 = column * bRowStride, j1 = j0 + bRowStride, j2 = j1 + bRowStride,
+                            j3 = j2 + bRowStride;
+                    double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+                    for (int inner = start; inner < end; inner++) {
+                        final double value = a[i0 + inner];
+                        s0 += value * b[j0 + inner];
+                        s1 += value * b[j1 + inner];
+                        s2 += value * b[j2 + inner];
+                        s3 += value * b[j3 + inner];
+                    }
+                    c[k0 + column] += s0;
+                    c[k0 + column + 1] += s1;
+                    c[k0 + column + 2] += s2;
+                    c[k0 + column + 3] += s3;
+                }
+                for (; column < numColumns; column++) {
+                    final int j0 = column * bRowStride;
+                    double sum = 0;
+                    for (int inner = start; inner < end; inner++) {
+                        sum += a[i0 + inner] * b[j0 + inner];
+                    }
+                    c[k0 + column] += sum;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the sparse matrix-vector product y += S * x, where S is stored
+     * in compressed sparse row format.
+     *
+     * @param rowStarts - The array of row start positions of S.
+     * @param offset - The position in rowStarts of the first row of S.
+     * @param columns - The column indices of the non-zero elements of S.
+     * @param values - The values of the non-zero elements of S.
+     * @param numRows - The number of rows of S, N.
+     * @param x - The dense vector.
+     * @param y - The length-N dense vector to be modified.
+     */
+    @PackagePrivate static void csrmv(int[] rowStarts, int offset, int[] columns, double[] values, int numRows,
+            double[] x, double[] y) {
+        for (int row = 0; row < numRows; row++) {
+            double sum = 0;
+            for (int i = rowStarts[offset + row]; i < rowStarts[offset + row + 1]; i++) {
+                sum += values[i] * x[columns[i]];
+            }
+            y[row] += sum;
+        }
+    }
+
+    /**
+     * Computes the sparse-dense matrix product C += S * B, where S is stored
+     * in compressed sparse row format, and B and C are stored contiguously in
+     * row-major order.
+     *
+     * @param rowStarts - The array of row start positions of S.
+     * @param offset - The position in rowStarts of the first row of S.
+     * @param columns - The column indices of the non-zero elements of S.
+     * @param values - The values of the non-zero elements of S.
+     * @param numRows - The number of rows of S, N.
+     * @param b - The K x M matrix data.
+     * @param numColumns - The number of columns of B, M.
+     * @param c - The N x M matrix data to be modified.
+     */
+    @PackagePrivate static void csrmm(int[] rowStarts, int offset, int[] columns, double[] values, int numRows,
+            double[] b, int numColumns, double[] c) {
+        for (int row = 0, k0 = 0; row < numRows; row++, k0 += numColumns) {
+            for (int i = rowStarts[offset + row]; i < rowStarts[offset + row + 1]; i++) {
+                final double value = values[i];
+                final int j0 = columns[i] * numColumns;
+                for (int column = 0; column < numColumns; column++) {
+                    c[k0 + column] += value * b[j0 + column];
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the sparse-dense matrix product C += S * B, where S is stored
+     * in compressed sparse column format, and B and C are stored contiguously
+     * in row-major order.
+     *
+     * @param columnStarts - The array of column start positions of S.
+     * @param offset - The position in columnStarts of the first column of S.
+     * @param rows - The row indices of the non-zero elements of S.
+     * @param values - The values of the non-zero elements of S.
+     * @param numInner - The number of columns of S, K.
+     * @param b - The K x M matrix data.
+     * @param numColumns - The number of columns of B, M.
+     * @param c - The N x M matrix data to be modified.
+     */
+    @PackagePrivate static void cscmm(int[] columnStarts, int offset, int[] rows, double[] values, int numInner,
+            double[] b, int numColumns, double[] c) {
+        for (int inner = 0, j0 = 0; inner < numInner; inner++, j0 += numColumns) {
+            for (int i = columnStarts[offset + inner]; i < columnStarts[offset + inner + 1]; i++) {
+                final double value = values[i];
+                final int k0 = rows[i] * numColumns;
+                for (int column = 0; column < numColumns; column++) {
+                    c[k0 + column] += value * b[j0 + column];
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes y += A * x for contiguous rows, taking the dot product of
+     * a block of rows with x at the same time.
+     */
+    private static void gemvRows(double[] a, int numRows, int numColumns, int rowStride, double[] x, double[] y) {
+        int row = 0;
+        for (; row + BLOCK <= numRows; row += BLOCK) {
+            final int i0 = row * rowStride, i1 = i0 + rowStride, i2 = i1 + rowStride, i3 = i2 + rowStride;
+            double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            for (int column = 0; column < numColumns; column++) {
+                final double value = x[column];
+                s0 += a[i0 + column] * value;
+                s1 += a[i1 + column] * value;
+                s2 += a[i2 + column] * value;
+                s3 += a[i3 + column] * value;
+            }
+            y[row] += s0;
+            y[row + 1] += s1;
+            y[row + 2] += s2;
+            y[row + 3] += s3;
+        }
+        for (; row < numRows; row++) {
+            final int i0 = row * rowStride;
+            double sum = 0;
+            for (int column = 0; column < numColumns; column++) {
+                sum += a[i0 + column] * x[column];
+            }
+            y[row] += sum;
+        }
+    }
+
+    /**
+     * Computes y += x * A for contiguous rows, adding a block of scaled rows
+     * into y at the same time.
+     */
+    private static void gevmRows(double[] a, int numRows, int numColumns, int rowStride, double[] x, double[] y) {
+        int row = 0;
+        for (; row + BLOCK <= numRows; row += BLOCK) {
+            final int i0 = row * rowStride, i1 = i0 + rowStride, i2 = i1 + rowStride, i3 = i2 + rowStride;
+            final double x0 = x[row], x1 = x[row + 1], x2 = x[row + 2], x3 = x[row + 3];
+            for (int column = 0; column < numColumns; column++) {
+                y[column] += x0 * a[i0 + column] + x1 * a[i1 + column] + x2 * a[i2 + column] + x3 * a[i3 + column];
+            }
+        }
+        for (; row < numRows; row++) {
+            final double value = x[row];
+            if (value != 0) {
+                axpy(value, a, row * rowStride, 1, numColumns, y);
+            }
+        }
+    }
+
+    /**
+     * Adds a scaled, strided sequence of array elements into a dense vector,
+     * i.e. computes y[i] += alpha * a[start + i * stride].
+     *
+     * @param alpha - The scaling factor.
+     * @param a - The source array.
+     * @param start - The position of the first source element.
+     * @param stride - The array distance between source elements.
+     * @param length - The number of elements.
+     * @param y - The dense vector to be modified.
+     */
+    @PackagePrivate static void axpy(double alpha, double[] a, int start, int stride, int length, double[] y) {
+        if (stride == 1) {
+            for (int i = 0; i < length; i++) {
+                y[i] += alpha * a[start + i];
+            }
+        } else {
+            for (int i = 0, j = start; i < length; i++, j += stride) {
+                y[i] += alpha * a[j];
+            }
+        }
+    }
+
+    /**
+     * Computes the row-major outer product A = x * y'.
+     *
+     * @param x - The length-N column vector, skipping zero elements.
+     * @param y - The length-M dense row vector.
+     * @param a - The N x M row-major matrix data, initially zero.
+     */
+    @PackagePrivate static void outer(double[] x, double[] y, double[] a) {
+        final int numColumns = y.length;
+        for (int row = 0, i0 = 0; row < x.length; row++, i0 += numColumns) {
+            final double value = x[row];
+            if (value != 0) {
+                for (int column = 0; column < numColumns; column++) {
+                    a[i0 + column] = value * y[column];
+                }
+            }
+        }
+    }
+
+}
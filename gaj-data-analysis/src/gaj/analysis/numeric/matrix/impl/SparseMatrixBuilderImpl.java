@@ -0,0 +1,169 @@
+package gaj.analysis.numeric.matrix.impl;
+
+import java.util.Arrays;
+import gaj.analysis.numeric.matrix.DataMatrix;
+import gaj.analysis.numeric.matrix.SparseMatrixBuilder;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.VectorCursor;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Accumulates matrix elements as (row, column, value) triples, and
+ * compresses them on demand by counting-sorting on the major index and then
+ * sorting each major vector on the minor index.
+ */
+@PackagePrivate class SparseMatrixBuilderImpl implements SparseMatrixBuilder {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int numRows;
+    private final int numColumns;
+    private int[] rows = new int[INITIAL_CAPACITY];
+    private int[] columns = new int[INITIAL_CAPACITY];
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int count = 0;
+
+    @PackagePrivate SparseMatrixBuilderImpl(int numRows, int numColumns) {
+        if (numRows < 0 || numColumns < 0)
+            throw new IllegalArgumentException("Invalid matrix size: " + numRows + " x " + numColumns);
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+    }
+
+    @Override
+    public int numRows() {
+        return numRows;
+    }
+
+    @Override
+    public int numColumns() {
+        return numColumns;
+    }
+
+    @Override
+    public void add(int row, int column, double value) {
+        if (row < 0 || row >= numRows)
+            throw new IndexOutOfBoundsException("Bad row: " + row);
+        if (column < 0 || column >= numColumns)
+            throw new IndexOutOfBoundsException("Bad column: " + column);
+        if (value == 0)
+            return;
+        if (count == values.length) {
+            final int capacity = 2 * count;
+            rows = Arrays.copyOf(rows, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        rows[count] = row;
+        columns[count] = column;
+        values[count++] = value;
+    }
+
+    @Override
+    public void addRow(int row, DataVector vector) {
+        if (vector.size() != numColumns)
+            throw new IllegalArgumentException("Expected row of length " + numColumns + ", got " + vector.size());
+        final VectorCursor cursor = vector.cursor();
+        while (cursor.hasNext()) {
+            final int column = cursor.next();
+            add(row, column, cursor.value());
+        }
+    }
+
+    @Override
+    public DataMatrix buildRowMatrix() {
+        final int[] starts = new int[numRows + 1];
+        final Compressed data = compress(rows, columns, numRows, starts);
+        return new CompressedRowMatrix(numRows, numColumns, starts, data.indices, data.values);
+    }
+
+    @Override
+    public DataMatrix buildColumnMatrix() {
+        final int[] starts = new int[numColumns + 1];
+        final Compressed data = compress(columns, rows, numColumns, starts);
+        return new CompressedColumnMatrix(numRows, numColumns, starts, data.indices, data.values);
+    }
+
+    private static final class Compressed {
+        private final int[] indices;
+        private final double[] values;
+
+        private Compressed(int[] indices, double[] values) {
+            this.indices = indices;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Compresses the elements into major vectors, summing repeated elements
+     * and dropping zero-valued sums.
+     *
+     * @param majors - The major index of each element.
+     * @param minors - The minor index of each element.
+     * @param numMajor - The number of major vectors.
+     * @param starts - The length-(numMajor+1) array in which to store the
+     * start position of each major vector.
+     * @return The minor indices and values of the compressed elements.
+     */
+    private Compressed compress(int[] majors, int[] minors, int numMajor, int[] starts) {
+        // Counting sort on the major index.
+        for (int i = 0; i < count; i++) {
+            starts[majors[i] + 1]++;
+        }
+        int maxLength = 0;
+        for (int major = 0; major < numMajor; major++) {
+            maxLength = Math.max(maxLength, starts[major + 1]);
+            starts[major + 1] += starts[major];
+        }
+        final int[] next = Arrays.copyOf(starts, numMajor);
+        final int[] sortedMinors = new int[count];
+        final double[] sortedValues = new double[count];
+        for (int i = 0; i < count; i++) {
+            final int pos = next[majors[i]]++;
+            sortedMinors[pos] = minors[i];
+            sortedValues[pos] = values[i];
+        }
+        // Sort each major vector on the minor index, if necessary.
+        final int[] outMinors = new int[count];
+        final double[] outValues = new double[count];
+        final long[] keys = new long[maxLength];
+        int pos = 0;
+        for (int major = 0; major < numMajor; major++) {
+            final int start = starts[major];
+            final int length = starts[major + 1] - start;
+            starts[major] = pos;
+            boolean isSorted = true;
+            for (int j = 1; j < length && isSorted; j++) {
+                isSorted = sortedMinors[start + j - 1] < sortedMinors[start + j];
+            }
+            if (!isSorted) {
+                for (int j = 0; j < length; j++) {
+                    keys[j] = ((long) sortedMinors[start + j] << 32) | j;
+                }
+                Arrays.sort(keys, 0, length);
+            }
+            int lastMinor = -1;
+            for (int j = 0; j < length; j++) {
+                final int i = start + (isSorted ? j : (int) keys[j]);
+                if (sortedMinors[i] == lastMinor) {
+                    outValues[pos - 1] += sortedValues[i];
+                } else {
+                    lastMinor = outMinors[pos] = sortedMinors[i];
+                    outValues[pos++] = sortedValues[i];
+                }
+            }
+            // Drop any repeated elements that cancelled out.
+            int end = starts[major];
+            for (int i = starts[major]; i < pos; i++) {
+                if (outValues[i] != 0) {
+                    outMinors[end] = outMinors[i];
+                    outValues[end++] = outValues[i];
+                }
+            }
+            pos = end;
+        }
+        starts[numMajor] = pos;
+        return new Compressed(Arrays.copyOf(outMinors, pos), Arrays.copyOf(outValues, pos));
+    }
+
+}
@@ -0,0 +1,54 @@
+package gaj.analysis.numeric.matrix.impl;
+
+import gaj.analysis.numeric.RepresentationType;
+import gaj.analysis.numeric.matrix.DataMatrix;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Presents an arbitrary data matrix in transposed form, without copying.
+ */
+@PackagePrivate class TransposedMatrix extends AbstractMatrix<DataVector> {
+
+    private final DataMatrix matrix;
+
+    @PackagePrivate TransposedMatrix(DataMatrix matrix) {
+        super(matrix.numColumns(), matrix.numRows());
+        this.matrix = matrix;
+    }
+
+    /**
+     * Obtains the underlying, untransposed matrix.
+     *
+     * @return The original matrix.
+     */
+    @PackagePrivate DataMatrix transpose() {
+        return matrix;
+    }
+
+    @Override
+    public double get(int row, int column) {
+        return matrix.get(column, row);
+    }
+
+    @Override
+    public DataVector getRow(int row) {
+        return matrix.getColumn(row);
+    }
+
+    @Override
+    public DataVector getColumn(int column) {
+        return matrix.getRow(column);
+    }
+
+    @Override
+    public double norm() {
+        return matrix.norm();
+    }
+
+    @Override
+    public RepresentationType representationType() {
+        return matrix.representationType();
+    }
+
+}
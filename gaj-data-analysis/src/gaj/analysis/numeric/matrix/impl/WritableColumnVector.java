@@ -1,6 +1,6 @@
 package gaj.analysis.numeric.matrix.impl;
 
-import java.util.function.Function;
+import java.util.function.DoubleUnaryOperator;
 import gaj.analysis.numeric.vector.ArrayVector;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.numeric.vector.DenseVector;
@@ -132,9 +132,9 @@ import gaj.common.annotations.PackagePrivate;
     }
 
     @Override
-    public void apply(Function<Double, Double> func) {
+    public void applyAsDouble(DoubleUnaryOperator func) {
         for (int row = 0; row < length; row++) {
-            data[row][column] = func.apply(data[row][column]);
+            data[row][column] = func.applyAsDouble(data[row][column]);
         }
     }
 
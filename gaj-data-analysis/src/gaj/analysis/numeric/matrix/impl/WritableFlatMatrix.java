@@ -0,0 +1,84 @@
+package gaj.analysis.numeric.matrix.impl;
+
+import gaj.analysis.numeric.matrix.DataMatrix;
+import gaj.analysis.numeric.matrix.FlatArrayMatrix;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Implements a dense matrix stored row-wise in a single, flat array.
+ */
+@PackagePrivate class WritableFlatMatrix extends WritableStridedMatrix implements FlatArrayMatrix {
+
+    @PackagePrivate WritableFlatMatrix(double[] data, int numRows, int numColumns) {
+        super(data, numRows, numColumns, numColumns, 1);
+        if (data.length != numRows * numColumns) {
+            throw new IllegalArgumentException("Expected array of length " + numRows * numColumns);
+        }
+    }
+
+    @PackagePrivate WritableFlatMatrix(int numRows, int numColumns) {
+        this(new double[numRows * numColumns], numRows, numColumns);
+    }
+
+    @Override
+    public double[] getArray() {
+        return data;
+    }
+
+    @Override
+    public double norm() {
+        double sum = 0;
+        for (double value : data) {
+            sum += value * value;
+        }
+        return Math.sqrt(sum);
+    }
+
+    @Override
+    public void add(double value) {
+        for (int i = 0; i < data.length; i++) {
+            data[i] += value;
+        }
+    }
+
+    @Override
+    public void multiply(double value) {
+        for (int i = 0; i < data.length; i++) {
+            data[i] *= value;
+        }
+    }
+
+    @Override
+    public void set(DataMatrix matrix) {
+        if (matrix instanceof FlatArrayMatrix) {
+            System.arraycopy(((FlatArrayMatrix) matrix).getArray(), 0, data, 0, data.length);
+        } else {
+            super.set(matrix);
+        }
+    }
+
+    @Override
+    public void add(DataMatrix matrix) {
+        if (matrix instanceof FlatArrayMatrix) {
+            final double[] values = ((FlatArrayMatrix) matrix).getArray();
+            for (int i = 0; i < data.length; i++) {
+                data[i] += values[i];
+            }
+        } else {
+            super.add(matrix);
+        }
+    }
+
+    @Override
+    public void subtract(DataMatrix matrix) {
+        if (matrix instanceof FlatArrayMatrix) {
+            final double[] values = ((FlatArrayMatrix) matrix).getArray();
+            for (int i = 0; i < data.length; i++) {
+                data[i] -= values[i];
+            }
+        } else {
+            super.subtract(matrix);
+        }
+    }
+
+}
@@ -1,6 +1,6 @@
 package gaj.analysis.numeric.matrix.impl;
 
-import java.util.function.Function;
+import java.util.function.DoubleUnaryOperator;
 import gaj.analysis.numeric.matrix.WritableMatrix;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.numeric.vector.WritableVector;
@@ -121,12 +121,12 @@ public class WritableMatrixVector extends RowMatrixVector implements WritableVec
     }
 
     @Override
-    public void apply(Function<Double, Double> func) {
+    public void applyAsDouble(DoubleUnaryOperator func) {
         // ((WritableMatrix) matrix).apply(func);
         final WritableMatrix _matrix = (WritableMatrix) matrix;
         for (int row = 0; row < numRows; row++) {
             WritableVector rowVec = _matrix.getRow(row);
-            rowVec.apply(func);
+            rowVec.applyAsDouble(func);
         }
     }
 
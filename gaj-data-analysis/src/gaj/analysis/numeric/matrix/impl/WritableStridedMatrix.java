@@ -0,0 +1,219 @@
+package gaj.analysis.numeric.matrix.impl;
+
+import gaj.analysis.numeric.matrix.AddableMatrix;
+import gaj.analysis.numeric.matrix.DataMatrix;
+import gaj.analysis.numeric.matrix.SubtractableMatrix;
+import gaj.analysis.numeric.matrix.WritableMatrix;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.WritableVector;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Implements a dense matrix stored in a single, flat array, such that element
+ * (row, column) is located at position row * rowStride + column * columnStride.
+ * <p/>
+ * A row-major matrix has a column stride of 1, and a column-major matrix
+ * (e.g. the transpose of a row-major matrix) has a row stride of 1.
+ */
+@PackagePrivate class WritableStridedMatrix extends DenseMatrixImpl<WritableVector> implements WritableMatrix {
+
+    protected final double[] data;
+    protected final int rowStride;
+    protected final int columnStride;
+
+    @PackagePrivate WritableStridedMatrix(double[] data, int numRows, int numColumns, int rowStride, int columnStride) {
+        super(numRows, numColumns);
+        this.data = data;
+        this.rowStride = rowStride;
+        this.columnStride = columnStride;
+    }
+
+    /**
+     * Creates a strided matrix view of the given array. A row-major view is
+     * presented as a flat-array matrix.
+     */
+    @PackagePrivate static WritableStridedMatrix newStridedMatrix(
+            double[] data, int numRows, int numColumns, int rowStride, int columnStride) {
+        if (columnStride == 1 && rowStride == numColumns) {
+            return new WritableFlatMatrix(data, numRows, numColumns);
+        }
+        return new WritableStridedMatrix(data, numRows, numColumns, rowStride, columnStride);
+    }
+
+    /**
+     * Obtains a transposed view of the matrix, sharing the same data.
+     *
+     * @return The transposed matrix.
+     */
+    @PackagePrivate WritableStridedMatrix transpose() {
+        return newStridedMatrix(data, numColumns, numRows, columnStride, rowStride);
+    }
+
+    private int index(int row, int column) {
+        return row * rowStride + column * columnStride;
+    }
+
+    @Override
+    public double get(int row, int column) {
+        return data[index(row, column)];
+    }
+
+    @Override
+    public WritableVector getRow(int row) {
+        return (columnStride == 1)
+                ? VectorFactory.newSubVector(data, row * rowStride, numColumns)
+                : new WritableStridedVector(data, row * rowStride, columnStride, numColumns);
+    }
+
+    @Override
+    public WritableVector getColumn(int column) {
+        return (rowStride == 1)
+                ? VectorFactory.newSubVector(data, column * columnStride, numRows)
+                : new WritableStridedVector(data, column * columnStride, rowStride, numRows);
+    }
+
+    @Override
+    public double norm() {
+        double sum = 0;
+        for (int row = 0; row < numRows; row++) {
+            for (int column = 0, i = row * rowStride; column < numColumns; column++, i += columnStride) {
+                final double value = data[i];
+                sum += value * value;
+            }
+        }
+        return Math.sqrt(sum);
+    }
+
+    @Override
+    public void set(int row, int column, double value) {
+        data[index(row, column)] = value;
+    }
+
+    @Override
+    public void add(int row, int column, double value) {
+        data[index(row, column)] += value;
+    }
+
+    @Override
+    public void subtract(int row, int column, double value) {
+        data[index(row, column)] -= value;
+    }
+
+    @Override
+    public void multiply(int row, int column, double value) {
+        data[index(row, column)] *= value;
+    }
+
+    @Override
+    public void add(double value) {
+        for (int row = 0; row < numRows; row++) {
+            getRow(row).add(value);
+        }
+    }
+
+    @Override
+    public void subtract(double value) {
+        add(-value);
+    }
+
+    @Override
+    public void multiply(double value) {
+        for (int row = 0; row < numRows; row++) {
+            getRow(row).multiply(value);
+        }
+    }
+
+    @Override
+    public void setRow(int row, DataVector vector) {
+        getRow(row).set(vector);
+    }
+
+    @Override
+    public void setColumn(int column, DataVector vector) {
+        getColumn(column).set(vector);
+    }
+
+    @Override
+    public void addRow(int row, DataVector vector) {
+        getRow(row).add(vector);
+    }
+
+    @Override
+    public void addColumn(int column, DataVector vector) {
+        getColumn(column).add(vector);
+    }
+
+    @Override
+    public void subtractRow(int row, DataVector vector) {
+        getRow(row).subtract(vector);
+    }
+
+    @Override
+    public void subtractColumn(int column, DataVector vector) {
+        getColumn(column).subtract(vector);
+    }
+
+    @Override
+    public void multiplyRow(int row, DataVector vector) {
+        getRow(row).multiply(vector);
+    }
+
+    @Override
+    public void multiplyRow(int row, double value) {
+        getRow(row).multiply(value);
+    }
+
+    @Override
+    public void multiplyColumn(int column, DataVector vector) {
+        getColumn(column).multiply(vector);
+    }
+
+    @Override
+    public void multiplyColumn(int column, double value) {
+        getColumn(column).multiply(value);
+    }
+
+    @Override
+    public void set(DataMatrix matrix) {
+        for (int row = 0; row < numRows; row++) {
+            setRow(row, matrix.getRow(row));
+        }
+    }
+
+    @Override
+    public void add(DataMatrix matrix) {
+        for (int row = 0; row < numRows; row++) {
+            addRow(row, matrix.getRow(row));
+        }
+    }
+
+    @Override
+    public void subtract(DataMatrix matrix) {
+        for (int row = 0; row < numRows; row++) {
+            subtractRow(row, matrix.getRow(row));
+        }
+    }
+
+    @Override
+    public void multiply(DataMatrix matrix) {
+        for (int row = 0; row < numRows; row++) {
+            multiplyRow(row, matrix.getRow(row));
+        }
+    }
+
+    @Override
+    protected void addTo(AddableMatrix matrix) {
+        for (int row = 0; row < numRows; row++) {
+            matrix.addRow(row, getRow(row));
+        }
+    }
+
+    @Override
+    protected void subtractFrom(SubtractableMatrix matrix) {
+        for (int row = 0; row < numRows; row++) {
+            matrix.subtractRow(row, getRow(row));
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package gaj.analysis.numeric.matrix.impl;
+
+import java.util.function.DoubleUnaryOperator;
+import gaj.analysis.numeric.vector.ArrayVector;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.DenseVector;
+import gaj.analysis.numeric.vector.VectorCursor;
+import gaj.analysis.numeric.vector.WritableVector;
+import gaj.analysis.numeric.vector.impl.AbstractVector;
+import gaj.analysis.numeric.vector.impl.DenseVectorCursor;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Wraps a regularly spaced sequence of elements of a flat array, e.g. a column
+ * of a row-major matrix.
+ */
+@PackagePrivate class WritableStridedVector extends AbstractVector implements DenseVector, WritableVector {
+
+    private final double[] data;
+    private final int start;
+    private final int stride;
+
+    @PackagePrivate WritableStridedVector(double[] data, int start, int stride, int length) {
+        super(length);
+        this.data = data;
+        this.start = start;
+        this.stride = stride;
+    }
+
+    @Override
+    public double get(int pos) {
+        return data[start + pos * stride];
+    }
+
+    @Override
+    public VectorCursor cursor() {
+        return new DenseVectorCursor(length) {
+            @Override
+            public double value() {
+                return data[start + pos * stride];
+            }
+        };
+    }
+
+    @Override
+    public void set(int pos, double value) {
+        data[start + pos * stride] = value;
+    }
+
+    @Override
+    public void add(int pos, double value) {
+        data[start + pos * stride] += value;
+    }
+
+    @Override
+    public void subtract(int pos, double value) {
+        data[start + pos * stride] -= value;
+    }
+
+    @Override
+    public void multiply(int pos, double value) {
+        data[start + pos * stride] *= value;
+    }
+
+    @Override
+    public void set(double value) {
+        for (int pos = 0, i = start; pos < length; pos++, i += stride) {
+            data[i] = value;
+        }
+    }
+
+    @Override
+    public void add(double value) {
+        for (int pos = 0, i = start; pos < length; pos++, i += stride) {
+            data[i] += value;
+        }
+    }
+
+    @Override
+    public void subtract(double value) {
+        for (int pos = 0, i = start; pos < length; pos++, i += stride) {
+            data[i] -= value;
+        }
+    }
+
+    @Override
+    public void multiply(double value) {
+        for (int pos = 0, i = start; pos < length; pos++, i += stride) {
+            data[i] *= value;
+        }
+    }
+
+    @Override
+    public void set(DataVector vector) {
+        if (vector instanceof ArrayVector) {
+            final double[] values = ((ArrayVector) vector).getArray();
+            for (int pos = 0, i = start; pos < length; pos++, i += stride) {
+                data[i] = values[pos];
+            }
+        } else {
+            for (int pos = 0, i = start; pos < length; pos++, i += stride) {
+                data[i] = vector.get(pos);
+            }
+        }
+    }
+
+    @Override
+    public void add(DataVector vector) {
+        addScaled(vector, 1);
+    }
+
+    @Override
+    public void subtract(DataVector vector) {
+        addScaled(vector, -1);
+    }
+
+    @Override
+    public void addScaled(DataVector vector, double multiplier) {
+        if (vector instanceof ArrayVector) {
+            final double[] values = ((ArrayVector) vector).getArray();
+            for (int pos = 0, i = start; pos < length; pos++, i += stride) {
+                data[i] += multiplier * values[pos];
+            }
+        } else {
+            final VectorCursor cursor = vector.cursor();
+            while (cursor.hasNext()) {
+                final int pos = cursor.next();
+                data[start + pos * stride] += multiplier * cursor.value();
+            }
+        }
+    }
+
+    @Override
+    public void multiply(DataVector vector) {
+        if (vector instanceof ArrayVector) {
+            final double[] values = ((ArrayVector) vector).getArray();
+            for (int pos = 0, i = start; pos < length; pos++, i += stride) {
+                data[i] *= values[pos];
+            }
+        } else {
+            for (int pos = 0, i = start; pos < length; pos++, i += stride) {
+                data[i] *= vector.get(pos);
+            }
+        }
+    }
+
+    @Override
+    public void applyAsDouble(DoubleUnaryOperator func) {
+        for (int pos = 0, i = start; pos < length; pos++, i += stride) {
+            data[i] = func.applyAsDouble(data[i]);
+        }
+    }
+
+}
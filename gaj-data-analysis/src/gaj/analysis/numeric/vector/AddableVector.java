@@ -33,4 +33,21 @@ public interface AddableVector extends DataVector {
      */
     void add(DataVector vector);
 
+    /**
+     * Adds a multiple of the given vector to the current vector, i.e.
+     * computes this += multiplier * vector, in place.
+     *
+     * @param vector - A data vector.
+     * @param multiplier - The scaling of the data vector.
+     */
+    default void addScaled(DataVector vector, double multiplier) {
+        if (multiplier == 0)
+            return;
+        final VectorCursor cursor = vector.cursor();
+        while (cursor.hasNext()) {
+            final int pos = cursor.next();
+            add(pos, multiplier * cursor.value());
+        }
+    }
+
 }
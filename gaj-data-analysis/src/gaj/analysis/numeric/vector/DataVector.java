@@ -43,6 +43,15 @@ public interface DataVector extends DataNumeric {
      */
     double get(int pos);
 
+    /**
+     * Obtains a primitive cursor over the vector elements, in ascending order
+     * of position. Elements that are implicitly zero (e.g. in a sparse vector)
+     * may be skipped.
+     *
+     * @return The element cursor.
+     */
+    VectorCursor cursor();
+
     // ***************************************
     // Extrinsic properties of the vector.
     // Usually called by factory methods.
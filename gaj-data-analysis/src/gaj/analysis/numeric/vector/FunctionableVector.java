@@ -1,5 +1,6 @@
 package gaj.analysis.numeric.vector;
 
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 
 /**
@@ -14,6 +15,17 @@ public interface FunctionableVector extends DataVector {
      * @param func
      *            - The function to apply.
      */
-    void apply(Function<Double, Double> func);
+    default void apply(Function<Double, Double> func) {
+        applyAsDouble(func::apply);
+    }
+
+    /**
+     * Applies the given primitive function to each element, replacing the
+     * element value.
+     * 
+     * @param func
+     *            - The function to apply.
+     */
+    void applyAsDouble(DoubleUnaryOperator func);
 
 }
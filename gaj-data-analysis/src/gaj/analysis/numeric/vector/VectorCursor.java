@@ -0,0 +1,70 @@
+package gaj.analysis.numeric.vector;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Provides primitive, allocation-free traversal over the elements of a data
+ * vector, in ascending order of position.
+ * <p/>
+ * A cursor is positioned before the first element until {@link #next}() is
+ * called. Sparse vectors may skip some or all of their zero-valued elements,
+ * so callers must use {@link #position}() rather than counting elements.
+ */
+public interface VectorCursor {
+
+    /**
+     * A cursor over no elements.
+     */
+    final static VectorCursor NO_ELEMENTS = new VectorCursor() {
+        @Override
+        public boolean hasNext() {
+            return false;
+        }
+
+        @Override
+        public int next() {
+            throw new NoSuchElementException("End of traversal");
+        }
+
+        @Override
+        public int position() {
+            throw new IllegalStateException("No current element");
+        }
+
+        @Override
+        public double value() {
+            throw new IllegalStateException("No current element");
+        }
+    };
+
+    /**
+     * Indicates whether or not there are any more elements to traverse.
+     *
+     * @return A value of true (or false) if there is (or is not) another
+     *         element.
+     */
+    boolean hasNext();
+
+    /**
+     * Advances the cursor to the next traversed element.
+     *
+     * @return The position of the new current element (counting from 0).
+     * @throws NoSuchElementException If there are no more elements.
+     */
+    int next();
+
+    /**
+     * Obtains the position of the current element.
+     *
+     * @return The element position (counting from 0).
+     */
+    int position();
+
+    /**
+     * Obtains the value of the current element.
+     *
+     * @return The element value.
+     */
+    double value();
+
+}
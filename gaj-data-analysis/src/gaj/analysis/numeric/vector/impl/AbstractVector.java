@@ -5,6 +5,7 @@ import gaj.analysis.numeric.vector.AddableVector;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.numeric.vector.IterableVector;
 import gaj.analysis.numeric.vector.SubtractableVector;
+import gaj.analysis.numeric.vector.VectorCursor;
 
 /**
  * The basis for all vector implementations.
@@ -64,6 +65,16 @@ public abstract class AbstractVector implements IterableVector {
         };
     }
 
+    @Override
+    public VectorCursor cursor() {
+        return new DenseVectorCursor(length) {
+            @Override
+            public double value() {
+                return AbstractVector.this.get(pos);
+            }
+        };
+    }
+
     @Override
     public double dot(DataVector vector) {
         double sum = 0;
@@ -74,13 +85,15 @@ public abstract class AbstractVector implements IterableVector {
     }
 
     public void addTo(AddableVector vector) {
-        for (int i = 0; i < length; i++)
-            vector.add(i, get(i));
+        final VectorCursor cursor = cursor();
+        while (cursor.hasNext())
+            vector.add(cursor.next(), cursor.value());
     }
 
     public void subtractFrom(SubtractableVector vector) {
-        for (int i = 0; i < length; i++)
-            vector.subtract(i, get(i));
+        final VectorCursor cursor = cursor();
+        while (cursor.hasNext())
+            vector.subtract(cursor.next(), cursor.value());
     }
 
 }
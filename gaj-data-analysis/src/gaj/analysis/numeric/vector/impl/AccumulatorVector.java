@@ -0,0 +1,445 @@
+package gaj.analysis.numeric.vector.impl;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.DoubleUnaryOperator;
+import gaj.analysis.numeric.RepresentationType;
+import gaj.analysis.numeric.vector.AddableVector;
+import gaj.analysis.numeric.vector.ArrayVector;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.SubtractableVector;
+import gaj.analysis.numeric.vector.VectorCursor;
+import gaj.analysis.numeric.vector.WritableVector;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Implements a writable vector intended for the in-place accumulation of many
+ * other vectors.
+ * <p/>
+ * Initially, the non-zero elements are kept in an open-addressing hash table
+ * of positions and values. Once the table becomes too full, or a dense vector
+ * is accumulated, the vector is converted into a dense array.
+ */
+@PackagePrivate class AccumulatorVector extends AbstractVector implements WritableVector {
+
+    /** The fraction of vector elements above which the vector becomes dense. */
+    private static final double DENSE_FILL = 0.25;
+    /** The initial capacity of the hash table. */
+    private static final int MIN_CAPACITY = 16;
+    /** Marks an unused slot in the hash table. */
+    private static final int NO_KEY = -1;
+
+    /** The hash table positions, or null if the vector is dense. */
+    private int[] keys;
+    /** The hash table values, or the dense array data. */
+    private double[] values;
+    /** The number of used slots in the hash table. */
+    private int numKeys = 0;
+    /** The maximum number of used slots before the vector becomes dense. */
+    private final int maxKeys;
+    /** The used positions in ascending order, or null if they must be recomputed. */
+    private int[] sortedKeys = null;
+
+    @PackagePrivate AccumulatorVector(int length) {
+        super(length);
+        maxKeys = (int) (DENSE_FILL * length);
+        if (maxKeys < MIN_CAPACITY / 2) {
+            keys = null;
+            values = new double[length];
+        } else {
+            keys = new int[MIN_CAPACITY];
+            Arrays.fill(keys, NO_KEY);
+            values = new double[MIN_CAPACITY];
+        }
+    }
+
+    @Override
+    public RepresentationType representationType() {
+        return isDense() ? RepresentationType.DENSE : RepresentationType.SPARSE;
+    }
+
+    /**
+     * Indicates whether the vector is currently stored as a dense array.
+     *
+     * @return A value of true (or false) if the storage is dense (or sparse).
+     */
+    @PackagePrivate boolean isDense() {
+        return keys == null;
+    }
+
+    // ***************************************
+    // Hash table management.
+
+    private static int hash(int pos) {
+        final int h = pos * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Locates the slot for the given position.
+     *
+     * @param pos - The vector position.
+     * @return The slot holding the position, or the empty slot where the
+     *         position would be inserted.
+     */
+    private int slot(int pos) {
+        final int mask = keys.length - 1;
+        int slot = hash(pos) & mask;
+        while (keys[slot] != NO_KEY && keys[slot] != pos) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Obtains the slot for the given position, inserting the position if
+     * necessary. The vector might become dense as a result.
+     *
+     * @param pos - The vector position.
+     * @return The slot holding the position, or a negative value if the vector
+     *         has become dense.
+     */
+    private int insert(int pos) {
+        int slot = slot(pos);
+        if (keys[slot] == NO_KEY) {
+            if (numKeys >= maxKeys) {
+                densify();
+                return -1;
+            }
+            if (2 * (numKeys + 1) > keys.length) {
+                rehash(2 * keys.length);
+                slot = slot(pos);
+            }
+            keys[slot] = pos;
+            numKeys++;
+            sortedKeys = null;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        final int[] oldKeys = keys;
+        final double[] oldValues = values;
+        keys = new int[capacity];
+        Arrays.fill(keys, NO_KEY);
+        values = new double[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            final int pos = oldKeys[i];
+            if (pos != NO_KEY) {
+                final int slot = slot(pos);
+                keys[slot] = pos;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Converts the hash table into a dense array.
+     */
+    @PackagePrivate void densify() {
+        if (isDense())
+            return;
+        final double[] data = new double[length];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != NO_KEY) {
+                data[keys[i]] = values[i];
+            }
+        }
+        keys = null;
+        values = data;
+        numKeys = 0;
+        sortedKeys = null;
+    }
+
+    /**
+     * Obtains the used positions of the hash table in ascending order.
+     * The positions are only sorted again after a new position has been
+     * inserted, so repeated traversals of an unchanged set of positions
+     * cost no allocation.
+     *
+     * @return The sorted positions, which must not be modified.
+     */
+    private int[] sortedKeys() {
+        if (sortedKeys == null) {
+            final int[] positions = new int[numKeys];
+            for (int i = 0, j = 0; i < keys.length; i++) {
+                if (keys[i] != NO_KEY)
+                    positions[j++] = keys[i];
+            }
+            Arrays.sort(positions);
+            sortedKeys = positions;
+        }
+        return sortedKeys;
+    }
+
+    // ***************************************
+    // Element access.
+
+    @Override
+    public double get(int pos) {
+        if (pos < 0 || pos >= length)
+            throw new IndexOutOfBoundsException("Bad index: " + pos);
+        if (isDense())
+            return values[pos];
+        final int slot = slot(pos);
+        return (keys[slot] == NO_KEY) ? 0 : values[slot];
+    }
+
+    @Override
+    public void set(int pos, double value) {
+        if (!isDense()) {
+            if (value == 0) {
+                final int slot = slot(pos);
+                if (keys[slot] != NO_KEY)
+                    values[slot] = 0;
+                return;
+            }
+            final int slot = insert(pos);
+            if (slot >= 0) {
+                values[slot] = value;
+                return;
+            }
+        }
+        values[pos] = value;
+    }
+
+    @Override
+    public void add(int pos, double value) {
+        if (value == 0)
+            return;
+        if (!isDense()) {
+            final int slot = insert(pos);
+            if (slot >= 0) {
+                values[slot] += value;
+                return;
+            }
+        }
+        values[pos] += value;
+    }
+
+    @Override
+    public void subtract(int pos, double value) {
+        add(pos, -value);
+    }
+
+    @Override
+    public void multiply(int pos, double value) {
+        if (isDense()) {
+            values[pos] *= value;
+        } else {
+            final int slot = slot(pos);
+            if (keys[slot] != NO_KEY)
+                values[slot] *= value;
+        }
+    }
+
+    @Override
+    public VectorCursor cursor() {
+        if (isDense()) {
+            return new DenseVectorCursor(length) {
+                @Override
+                public double value() {
+                    return values[pos];
+                }
+            };
+        }
+        // Cursors must traverse in ascending order of position.
+        final int[] positions = sortedKeys();
+        return new VectorCursor() {
+            private int index = -1;
+
+            @Override
+            public boolean hasNext() {
+                return (index + 1 < positions.length);
+            }
+
+            @Override
+            public int next() {
+                if (!hasNext())
+                    throw new NoSuchElementException("End of traversal");
+                return positions[++index];
+            }
+
+            @Override
+            public int position() {
+                return positions[index];
+            }
+
+            @Override
+            public double value() {
+                return get(positions[index]);
+            }
+        };
+    }
+
+    // ***************************************
+    // Whole-vector operations.
+
+    @Override
+    public double norm() {
+        return _norm();
+    }
+
+    @Override
+    protected double _norm() {
+        double sum = 0;
+        for (double value : values)
+            sum += value * value;
+        return Math.sqrt(sum);
+    }
+
+    @Override
+    public double sum() {
+        double sum = 0;
+        for (double value : values)
+            sum += value;
+        return sum;
+    }
+
+    @Override
+    public double dot(DataVector vector) {
+        double sum = 0;
+        if (isDense()) {
+            if (vector instanceof SparseVectorImpl)
+                return SparseKernels.dot((SparseVectorImpl) vector, values);
+            for (int i = 0; i < length; i++)
+                sum += values[i] * vector.get(i);
+        } else {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != NO_KEY)
+                    sum += values[i] * vector.get(keys[i]);
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public void addTo(AddableVector vector) {
+        if (isDense()) {
+            for (int i = 0; i < length; i++)
+                vector.add(i, values[i]);
+        } else {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != NO_KEY)
+                    vector.add(keys[i], values[i]);
+            }
+        }
+    }
+
+    @Override
+    public void subtractFrom(SubtractableVector vector) {
+        if (isDense()) {
+            for (int i = 0; i < length; i++)
+                vector.subtract(i, values[i]);
+        } else {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != NO_KEY)
+                    vector.subtract(keys[i], values[i]);
+            }
+        }
+    }
+
+    @Override
+    public void addScaled(DataVector vector, double multiplier) {
+        if (multiplier == 0)
+            return;
+        if (!isDense()) {
+            if (vector.representationType() == RepresentationType.DENSE) {
+                densify();
+            } else if (vector instanceof SparseVectorImpl) {
+                final SparseVectorImpl sparseVec = (SparseVectorImpl) vector;
+                for (int i = 0; i < sparseVec.indices.length; i++)
+                    add(sparseVec.indices[i], multiplier * sparseVec.values[i]);
+                return;
+            }
+        }
+        if (isDense()) {
+            if (vector instanceof ArrayVector) {
+                final double[] data = ((ArrayVector) vector).getArray();
+                for (int i = 0; i < length; i++)
+                    values[i] += multiplier * data[i];
+                return;
+            }
+            if (vector instanceof SparseVectorImpl) {
+                SparseKernels.scatter((SparseVectorImpl) vector, multiplier, values);
+                return;
+            }
+        }
+        final VectorCursor cursor = vector.cursor();
+        while (cursor.hasNext()) {
+            final int pos = cursor.next();
+            add(pos, multiplier * cursor.value());
+        }
+    }
+
+    @Override
+    public void add(DataVector vector) {
+        addScaled(vector, 1);
+    }
+
+    @Override
+    public void subtract(DataVector vector) {
+        addScaled(vector, -1);
+    }
+
+    @Override
+    public void set(DataVector vector) {
+        set(0);
+        addScaled(vector, 1);
+    }
+
+    @Override
+    public void set(double value) {
+        if (value != 0)
+            densify();
+        Arrays.fill(values, value);
+    }
+
+    @Override
+    public void add(double value) {
+        if (value == 0)
+            return;
+        densify();
+        for (int i = 0; i < length; i++)
+            values[i] += value;
+    }
+
+    @Override
+    public void subtract(double value) {
+        add(-value);
+    }
+
+    @Override
+    public void multiply(double value) {
+        if (isDense()) {
+            for (int i = 0; i < length; i++)
+                values[i] *= value;
+        } else {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != NO_KEY)
+                    values[i] *= value;
+            }
+        }
+    }
+
+    @Override
+    public void multiply(DataVector vector) {
+        if (isDense()) {
+            for (int i = 0; i < length; i++)
+                values[i] *= vector.get(i);
+        } else {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != NO_KEY)
+                    values[i] *= vector.get(keys[i]);
+            }
+        }
+    }
+
+    @Override
+    public void applyAsDouble(DoubleUnaryOperator func) {
+        densify();
+        for (int i = 0; i < length; i++)
+            values[i] = func.applyAsDouble(values[i]);
+    }
+
+}
@@ -1,40 +1,77 @@
 package gaj.analysis.numeric.vector.impl;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import gaj.analysis.numeric.vector.AddableVector;
+import gaj.analysis.numeric.vector.ArrayVector;
 import gaj.analysis.numeric.vector.CompoundVector;
 import gaj.analysis.numeric.vector.DataVector;
-import gaj.analysis.numeric.vector.IterableVector;
+import gaj.analysis.numeric.vector.SubtractableVector;
+import gaj.analysis.numeric.vector.VectorCursor;
 import gaj.common.annotations.PackagePrivate;
 
 /**
  * Implements the (deferred) concatenation of multiple data vectors together into a single, compound vector.
+ * <p/>
+ * The start position of each component vector is held in a table of prefix offsets, so that random access
+ * takes O(log k) time for k components. Bulk operations are computed segment-by-segment, delegating to the
+ * native kernel of each component vector where possible.
  */
 @PackagePrivate class ConcatenatedVector extends AbstractVector implements CompoundVector {
 
     private final DataVector[] vectors;
+    /** The start position of each component vector, followed by the total length. */
+    private final int[] offsets;
 
     @PackagePrivate ConcatenatedVector(DataVector[] vectors) {
-        super(computeLength(vectors));
+        this(vectors, computeOffsets(vectors));
+    }
+
+    private ConcatenatedVector(DataVector[] vectors, int[] offsets) {
+        super(offsets[vectors.length]);
         this.vectors = vectors;
+        this.offsets = offsets;
     }
 
-    private static int computeLength(DataVector[] vectors) {
-        int length = 0;
-        for (DataVector vector : vectors)
-            length += vector.size();
-        return length;
+    private static int[] computeOffsets(DataVector[] vectors) {
+        final int[] offsets = new int[vectors.length + 1];
+        long length = 0;
+        for (int i = 0; i < vectors.length; i++) {
+            offsets[i] = (int) length;
+            length += vectors[i].size();
+        }
+        if (length > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Concatenated length is too large: " + length);
+        offsets[vectors.length] = (int) length;
+        return offsets;
+    }
+
+    /**
+     * Locates the component vector containing the given position. Any empty
+     * component vectors are skipped.
+     * 
+     * @param pos
+     *            - The position in the overall vector.
+     * @return The index of the component vector.
+     */
+    private int segment(int pos) {
+        int lo = 0, hi = vectors.length - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= pos)
+                lo = mid;
+            else
+                hi = mid - 1;
+        }
+        return lo;
     }
 
     @Override
     public double get(final int pos) {
         if (pos >= 0 && pos < length) {
-            int _pos = pos;
-            for (DataVector vector : vectors) {
-                if (_pos < vector.size())
-                    return vector.get(_pos);
-                _pos -= vector.size();
-            }
+            final int i = segment(pos);
+            return vectors[i].get(pos - offsets[i]);
         }
         throw new IndexOutOfBoundsException("Bad index: " + pos);
     }
@@ -42,36 +79,50 @@ import gaj.common.annotations.PackagePrivate;
     @Override
     public Iterator<Double> iterator() {
         return new VectorIterative<Double>(length) {
-            private Iterator<Double> iter = null;
+            /** Index of the current component vector. */
             private int i = 0;
 
+            @Override
+            protected Double get(int pos) {
+                while (pos >= offsets[i + 1])
+                    i++;
+                return vectors[i].get(pos - offsets[i]);
+            }
+        };
+    }
+
+    @Override
+    public VectorCursor cursor() {
+        return new VectorCursor() {
+            /** Index of the current component vector. */
+            private int i = -1;
+            private VectorCursor cursor = VectorCursor.NO_ELEMENTS;
+
             @Override
             public boolean hasNext() {
-                if (i >= vectors.length)
-                    return false;
-                if (iter == null)
-                    iter = getIterator(vectors[0]);
-                while (!iter.hasNext() && ++i < vectors.length)
-                    iter = getIterator(vectors[i]);
-                return (i < vectors.length);
+                while (!cursor.hasNext()) {
+                    if (i + 1 >= vectors.length)
+                        return false;
+                    cursor = vectors[++i].cursor();
+                }
+                return true;
             }
 
             @Override
-            protected Double get(int pos) {
-                return iter.next();
+            public int next() {
+                if (!hasNext())
+                    throw new NoSuchElementException("End of traversal");
+                return offsets[i] + cursor.next();
             }
-        };
-    }
 
-    private Iterator<Double> getIterator(DataVector vector) {
-        if (vector instanceof IterableVector) {
-            return ((IterableVector) vector).iterator();
-        }
-        final int length = vector.size();
-        return new VectorIterative<Double>(length) {
             @Override
-            protected Double get(int pos) {
-                return vector.get(pos);
+            public int position() {
+                return (i < 0) ? cursor.position() : offsets[i] + cursor.position();
+            }
+
+            @Override
+            public double value() {
+                return cursor.value();
             }
         };
     }
@@ -97,26 +148,89 @@ import gaj.common.annotations.PackagePrivate;
     @Override
     public double dot(DataVector vector) {
         double sum = 0;
-        int pos = 0;
-        for (DataVector vector1 : vectors) {
-            DataVector vector2 = new SubVector(vector, pos, vector1.size());
-            sum += vector1.dot(vector2);
-            pos += vector1.size();
+        if (vector instanceof ArrayVector) {
+            final double[] data = ((ArrayVector) vector).getArray();
+            for (int i = 0; i < vectors.length; i++)
+                sum += dot(vectors[i], data, offsets[i]);
+        } else if (vector instanceof ConcatenatedVector
+                && Arrays.equals(offsets, ((ConcatenatedVector) vector).offsets)) {
+            // Aligned components, e.g. blocks of per-class parameters.
+            final DataVector[] vectors2 = ((ConcatenatedVector) vector).vectors;
+            for (int i = 0; i < vectors.length; i++)
+                sum += vectors[i].dot(vectors2[i]);
+        } else {
+            for (int i = 0; i < vectors.length; i++)
+                sum += vectors[i].dot(new SubVector(vector, offsets[i], vectors[i].size()));
         }
         return sum;
     }
 
+    /**
+     * Computes the dot product of a component vector with a segment of an
+     * array.
+     */
+    private static double dot(DataVector vector, double[] data, int offset) {
+        if (vector instanceof ArrayVector) {
+            final double[] values = ((ArrayVector) vector).getArray();
+            final int length = vector.size();
+            double sum = 0;
+            for (int j = 0; j < length; j++)
+                sum += values[j] * data[offset + j];
+            return sum;
+        }
+        if (vector instanceof SparseVectorImpl)
+            return SparseKernels.dot((SparseVectorImpl) vector, data, offset);
+        return vector.dot(new WritableSubArrayVector(data, offset, vector.size()));
+    }
+
     @Override
     public void addTo(AddableVector vector) {
-        int pos = 0;
-        for (DataVector vector1 : vectors) {
+        if (vector instanceof WritableArrayVector) {
+            scatter(1, ((WritableArrayVector) vector).getArray());
+            return;
+        }
+        for (int i = 0; i < vectors.length; i++) {
+            final DataVector vector1 = vectors[i];
+            int pos = offsets[i];
             if (vector1 instanceof AbstractVector) {
                 ((AbstractVector) vector1).addTo(new AddableSubVector(vector, pos, vector1.size()));
-                pos += vector1.size();
             } else {
                 final int length = vector1.size();
-                for (int i = 0; i < length; i++) {
-                    vector.add(pos++, vector1.get(i));
+                for (int j = 0; j < length; j++) {
+                    vector.add(pos++, vector1.get(j));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void subtractFrom(SubtractableVector vector) {
+        if (vector instanceof WritableArrayVector) {
+            scatter(-1, ((WritableArrayVector) vector).getArray());
+            return;
+        }
+        super.subtractFrom(vector);
+    }
+
+    /**
+     * Computes data += multiplier * this, segment-by-segment.
+     */
+    private void scatter(double multiplier, double[] data) {
+        for (int i = 0; i < vectors.length; i++) {
+            final DataVector vector = vectors[i];
+            final int offset = offsets[i];
+            if (vector instanceof ArrayVector) {
+                final double[] values = ((ArrayVector) vector).getArray();
+                final int length = vector.size();
+                for (int j = 0; j < length; j++)
+                    data[offset + j] += multiplier * values[j];
+            } else if (vector instanceof SparseVectorImpl) {
+                SparseKernels.scatter((SparseVectorImpl) vector, multiplier, data, offset);
+            } else {
+                final VectorCursor cursor = vector.cursor();
+                while (cursor.hasNext()) {
+                    final int pos = offset + cursor.next();
+                    data[pos] += multiplier * cursor.value();
                 }
             }
         }
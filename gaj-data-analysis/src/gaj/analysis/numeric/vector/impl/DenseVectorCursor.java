@@ -0,0 +1,40 @@
+package gaj.analysis.numeric.vector.impl;
+
+import java.util.NoSuchElementException;
+import gaj.analysis.numeric.vector.VectorCursor;
+
+/**
+ * Provides a cursor over every element of a vector.
+ */
+public abstract class DenseVectorCursor implements VectorCursor {
+
+    protected final int length;
+    protected int pos = -1;
+
+    /**
+     * Specifies the length of the vector.
+     *
+     * @param length - The vector length.
+     */
+    protected DenseVectorCursor(int length) {
+        this.length = length;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return (pos + 1 < length);
+    }
+
+    @Override
+    public int next() {
+        if (!hasNext())
+            throw new NoSuchElementException("End of traversal");
+        return ++pos;
+    }
+
+    @Override
+    public int position() {
+        return pos;
+    }
+
+}
@@ -2,6 +2,7 @@ package gaj.analysis.numeric.vector.impl;
 
 import gaj.analysis.numeric.vector.CompoundVector;
 import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.VectorCursor;
 import gaj.common.annotations.PackagePrivate;
 
 /**
@@ -24,6 +25,33 @@ import gaj.common.annotations.PackagePrivate;
         return (value == 0) ? 0 : value * multiplier;
     }
 
+    @Override
+    public VectorCursor cursor() {
+        final VectorCursor cursor = vector.cursor();
+        return new VectorCursor() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public int next() {
+                return cursor.next();
+            }
+
+            @Override
+            public int position() {
+                return cursor.position();
+            }
+
+            @Override
+            public double value() {
+                double value = cursor.value();
+                return (value == 0) ? 0 : value * multiplier;
+            }
+        };
+    }
+
     @Override
     protected double _norm() {
         return Math.abs(multiplier) * vector.norm();
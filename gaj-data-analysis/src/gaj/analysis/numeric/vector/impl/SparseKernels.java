@@ -0,0 +1,221 @@
+package gaj.analysis.numeric.vector.impl;
+
+import java.util.Arrays;
+import gaj.common.annotations.PackagePrivate;
+
+/**
+ * Implements the low-level numerical kernels for sparse vectors, namely
+ * merge-joins between two sparse vectors, and gathers from or scatters to
+ * dense arrays.
+ * <p/>
+ * All sparse vectors are assumed to have strictly ascending indices.
+ */
+@PackagePrivate abstract class SparseKernels {
+
+    private SparseKernels() {}
+
+    /**
+     * Locates the given vector position in the sparse index table.
+     *
+     * @param indices - The ascending index table.
+     * @param pos - The vector position.
+     * @return The offset into the index table, or a negative value if the
+     *         position is not present.
+     */
+    @PackagePrivate static int find(int[] indices, int pos) {
+        return Arrays.binarySearch(indices, pos);
+    }
+
+    /**
+     * Computes the dot product of two sparse vectors via a merge-join.
+     *
+     * @param v1 - The first sparse vector.
+     * @param v2 - The second sparse vector.
+     * @return The dot product.
+     */
+    @PackagePrivate static double dot(SparseVectorImpl v1, SparseVectorImpl v2) {
+        final int[] indices1 = v1.indices, indices2 = v2.indices;
+        final double[] values1 = v1.values, values2 = v2.values;
+        final int n1 = indices1.length, n2 = indices2.length;
+        double sum = 0;
+        int i1 = 0, i2 = 0;
+        while (i1 < n1 && i2 < n2) {
+            final int index1 = indices1[i1], index2 = indices2[i2];
+            if (index1 < index2) {
+                i1++;
+            } else if (index1 > index2) {
+                i2++;
+            } else {
+                sum += values1[i1++] * values2[i2++];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the dot product of a sparse vector with a dense array, by
+     * gathering only the required array elements.
+     *
+     * @param v1 - The sparse vector.
+     * @param data - The dense array.
+     * @return The dot product.
+     */
+    @PackagePrivate static double dot(SparseVectorImpl v1, double[] data) {
+        return dot(v1, data, 0);
+    }
+
+    /**
+     * Computes the dot product of a sparse vector with a segment of a dense
+     * array, by gathering only the required array elements.
+     *
+     * @param v1 - The sparse vector.
+     * @param data - The dense array.
+     * @param offset - The array position of the start of the segment.
+     * @return The dot product.
+     */
+    @PackagePrivate static double dot(SparseVectorImpl v1, double[] data, int offset) {
+        final int[] indices = v1.indices;
+        final double[] values = v1.values;
+        double sum = 0;
+        for (int i = 0; i < indices.length; i++) {
+            sum += values[i] * data[offset + indices[i]];
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the sum v1 + multiplier * v2 of two sparse vectors via a
+     * merge-join.
+     *
+     * @param v1 - The first sparse vector.
+     * @param v2 - The second sparse vector.
+     * @param multiplier - The scaling of the second vector.
+     * @return The sparse sum.
+     */
+    @PackagePrivate static SparseVectorImpl add(SparseVectorImpl v1, SparseVectorImpl v2, double multiplier) {
+        final int[] indices1 = v1.indices, indices2 = v2.indices;
+        final double[] values1 = v1.values, values2 = v2.values;
+        final int n1 = indices1.length, n2 = indices2.length;
+        int[] indices = new int[n1 + n2];
+        double[] values = new double[n1 + n2];
+        int i = 0, i1 = 0, i2 = 0;
+        while (i1 < n1 && i2 < n2) {
+            final int index1 = indices1[i1], index2 = indices2[i2];
+            if (index1 < index2) {
+                indices[i] = index1;
+                values[i++] = values1[i1++];
+            } else if (index1 > index2) {
+                indices[i] = index2;
+                values[i++] = multiplier * values2[i2++];
+            } else {
+                indices[i] = index1;
+                values[i++] = values1[i1++] + multiplier * values2[i2++];
+            }
+        }
+        while (i1 < n1) {
+            indices[i] = indices1[i1];
+            values[i++] = values1[i1++];
+        }
+        while (i2 < n2) {
+            indices[i] = indices2[i2];
+            values[i++] = multiplier * values2[i2++];
+        }
+        return newSparseVector(v1.size(), indices, values, i);
+    }
+
+    /**
+     * Computes the element-wise product of two sparse vectors via a
+     * merge-join.
+     *
+     * @param v1 - The first sparse vector.
+     * @param v2 - The second sparse vector.
+     * @return The sparse product.
+     */
+    @PackagePrivate static SparseVectorImpl multiply(SparseVectorImpl v1, SparseVectorImpl v2) {
+        final int[] indices1 = v1.indices, indices2 = v2.indices;
+        final double[] values1 = v1.values, values2 = v2.values;
+        final int n1 = indices1.length, n2 = indices2.length;
+        final int n = Math.min(n1, n2);
+        int[] indices = new int[n];
+        double[] values = new double[n];
+        int i = 0, i1 = 0, i2 = 0;
+        while (i1 < n1 && i2 < n2) {
+            final int index1 = indices1[i1], index2 = indices2[i2];
+            if (index1 < index2) {
+                i1++;
+            } else if (index1 > index2) {
+                i2++;
+            } else {
+                indices[i] = index1;
+                values[i++] = values1[i1++] * values2[i2++];
+            }
+        }
+        return newSparseVector(v1.size(), indices, values, i);
+    }
+
+    /**
+     * Computes the element-wise product of a sparse vector with a dense array,
+     * by gathering only the required array elements.
+     *
+     * @param v1 - The sparse vector.
+     * @param data - The dense array.
+     * @return The sparse product.
+     */
+    @PackagePrivate static SparseVectorImpl multiply(SparseVectorImpl v1, double[] data) {
+        final int[] indices = v1.indices;
+        final double[] values = new double[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            values[i] = v1.values[i] * data[indices[i]];
+        }
+        return new SparseVectorImpl(v1.size(), indices, values);
+    }
+
+    /**
+     * Scatters the scaled sparse vector into a dense array, i.e. computes
+     * data += multiplier * v1.
+     *
+     * @param v1 - The sparse vector.
+     * @param multiplier - The scaling of the sparse vector.
+     * @param data - The dense array to be modified.
+     */
+    @PackagePrivate static void scatter(SparseVectorImpl v1, double multiplier, double[] data) {
+        scatter(v1, multiplier, data, 0);
+    }
+
+    /**
+     * Scatters the scaled sparse vector into a segment of a dense array, i.e.
+     * computes data[offset:] += multiplier * v1.
+     *
+     * @param v1 - The sparse vector.
+     * @param multiplier - The scaling of the sparse vector.
+     * @param data - The dense array to be modified.
+     * @param offset - The array position of the start of the segment.
+     */
+    @PackagePrivate static void scatter(SparseVectorImpl v1, double multiplier, double[] data, int offset) {
+        final int[] indices = v1.indices;
+        final double[] values = v1.values;
+        for (int i = 0; i < indices.length; i++) {
+            data[offset + indices[i]] += multiplier * values[i];
+        }
+    }
+
+    /**
+     * Copies a sparse vector, so that the copy shares no data with the original.
+     *
+     * @param v1 - The sparse vector.
+     * @return The copied vector.
+     */
+    @PackagePrivate static SparseVectorImpl copy(SparseVectorImpl v1) {
+        return new SparseVectorImpl(v1.size(), Arrays.copyOf(v1.indices, v1.indices.length),
+                Arrays.copyOf(v1.values, v1.values.length));
+    }
+
+    private static SparseVectorImpl newSparseVector(int length, int[] indices, double[] values, int numValues) {
+        if (numValues < indices.length) {
+            indices = Arrays.copyOf(indices, numValues);
+            values = Arrays.copyOf(values, numValues);
+        }
+        return new SparseVectorImpl(length, indices, values);
+    }
+
+}
@@ -1,10 +1,13 @@
 package gaj.analysis.numeric.vector.impl;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import gaj.analysis.numeric.vector.AddableVector;
+import gaj.analysis.numeric.vector.ArrayVector;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.numeric.vector.SparseVector;
 import gaj.analysis.numeric.vector.SubtractableVector;
+import gaj.analysis.numeric.vector.VectorCursor;
 import gaj.common.annotations.PackagePrivate;
 
 /**
@@ -29,15 +32,10 @@ import gaj.common.annotations.PackagePrivate;
 
     @Override
     public double get(int pos) {
-        if (pos < 0 && pos >= length)
+        if (pos < 0 || pos >= length)
             throw new IndexOutOfBoundsException("Bad index: " + pos);
-        for (int i = 0; i < indices.length; i++) {
-            if (pos < indices[i])
-                return 0;
-            if (pos == indices[i])
-                return values[i];
-        }
-        return 0;
+        final int i = SparseKernels.find(indices, pos);
+        return (i < 0) ? 0 : values[i];
     }
 
     @Override
@@ -59,8 +57,42 @@ import gaj.common.annotations.PackagePrivate;
         };
     }
 
+    @Override
+    public VectorCursor cursor() {
+        return new VectorCursor() {
+            /** Local position in the index table. */
+            private int index = -1;
+
+            @Override
+            public boolean hasNext() {
+                return (index + 1 < indices.length);
+            }
+
+            @Override
+            public int next() {
+                if (!hasNext())
+                    throw new NoSuchElementException("End of traversal");
+                return indices[++index];
+            }
+
+            @Override
+            public int position() {
+                return indices[index];
+            }
+
+            @Override
+            public double value() {
+                return values[index];
+            }
+        };
+    }
+
     @Override
     public double dot(DataVector vector) {
+        if (vector instanceof SparseVectorImpl)
+            return SparseKernels.dot(this, (SparseVectorImpl) vector);
+        if (vector instanceof ArrayVector)
+            return SparseKernels.dot(this, ((ArrayVector) vector).getArray());
         double sum = 0;
         for (int i = 0; i < indices.length; i++)
             sum += values[i] * vector.get(indices[i]);
@@ -85,12 +117,20 @@ import gaj.common.annotations.PackagePrivate;
 
     @Override
     public void addTo(AddableVector vector) {
+        if (vector instanceof WritableArrayVector) {
+            SparseKernels.scatter(this, 1, ((WritableArrayVector) vector).getArray());
+            return;
+        }
         for (int i = 0; i < values.length; i++)
             vector.add(indices[i], values[i]);
     }
 
     @Override
     public void subtractFrom(SubtractableVector vector) {
+        if (vector instanceof WritableArrayVector) {
+            SparseKernels.scatter(this, -1, ((WritableArrayVector) vector).getArray());
+            return;
+        }
         for (int i = 0; i < values.length; i++)
             vector.subtract(indices[i], values[i]);
     }
@@ -4,12 +4,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 import gaj.analysis.numeric.RepresentationType;
 import gaj.analysis.numeric.vector.ArrayVector;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.numeric.vector.IndexVector;
 import gaj.analysis.numeric.vector.IterableVector;
+import gaj.analysis.numeric.vector.VectorCursor;
 import gaj.analysis.numeric.vector.WritableVector;
 
 /**
@@ -48,6 +50,19 @@ public abstract class VectorFactory {
         return new WritableArrayVector(length);
     }
 
+    /**
+     * Creates an initially zero-valued, modifiable vector that is optimised for
+     * the in-place accumulation of other vectors, e.g. via
+     * {@link WritableVector#addScaled}(). The vector is stored sparsely until
+     * it becomes sufficiently full, and is then stored densely.
+     *
+     * @param length - The vector length.
+     * @return The accumulator vector.
+     */
+    public static WritableVector newAccumulator(int length) {
+        return new AccumulatorVector(length);
+    }
+
     /**
      * Wraps the given data into a modifiable vector.
      * <p/>
@@ -99,6 +114,24 @@ public abstract class VectorFactory {
         return new SparseVectorImpl(length, indices, values);
     }
 
+    /**
+     * Wraps the given index and value arrays into a sparse vector.
+     * <p/>
+     * Warning: The indices must be ascending, and the data must not be
+     * modified elsewhere!
+     *
+     * @param length - The length of the vector.
+     * @param indices - The ascending indices of the non-zero elements.
+     * @param values - The values of the non-zero elements.
+     * @return The data vector.
+     */
+    public static DataVector newSparseVector(int length, int[] indices, double[] values) {
+        if (indices.length != values.length) {
+            throw new IllegalArgumentException("Mismatched number of indices and values");
+        }
+        return new SparseVectorImpl(length, indices, values);
+    }
+
     /**
      * Creates a vector reference to a contiguous subsequence of elements in
      * another vector.
@@ -111,6 +144,18 @@ public abstract class VectorFactory {
         return new WritableSubVector(vec, start, length);
     }
 
+    /**
+     * Creates a vector reference to a contiguous subsequence of elements in
+     * an array, without copying.
+     * 
+     * @param data - The array of data.
+     * @param start - The position within the array from which to start.
+     * @param length - The length of the sub-vector.
+     */
+    public static WritableVector newSubVector(double[] data, int start, int length) {
+        return new WritableSubArrayVector(data, start, length);
+    }
+
     /**
      * Concatenates multiple data vectors together into a single pseudo-vector.
      *
@@ -214,17 +259,27 @@ public abstract class VectorFactory {
      * @return The new vector.
      */
     public static WritableVector divide(DataVector vec1, DataVector vec2) {
-        final int len = vec1.size();
-        WritableVector newVec = newVector(len);
-        for (int pos = 0; pos < len; pos++) {
+        final double[] data = new double[vec1.size()];
+        final VectorCursor cursor = vec1.cursor();
+        while (cursor.hasNext()) {
+            final int pos = cursor.next();
             double divisor = vec2.get(pos);
             if (divisor != 0.0) {
-                newVec.set(pos, vec1.get(pos) / divisor);
+                data[pos] = cursor.value() / divisor;
             }
         }
-        return newVec;
+        return new WritableArrayVector(data);
     }
 
+    /**
+     * Obtains a boxed iterator over every element of the vector.
+     * <p/>
+     * Note: Each element is boxed - use {@link DataVector#cursor}() for
+     * efficient traversal.
+     *
+     * @param vector - The vector.
+     * @return An element iterator.
+     */
     public static Iterator<Double> getIterator(DataVector vector) {
         if (vector instanceof IterableVector) {
             return ((IterableVector) vector).iterator();
@@ -263,10 +318,10 @@ public abstract class VectorFactory {
             return vec2.dot(vec1);
         } else {
             double sum = 0;
-            final Iterator<Double> iter1 = getIterator(vec1);
-            final Iterator<Double> iter2 = getIterator(vec2);
-            while (iter1.hasNext() && iter2.hasNext()) {
-                sum += iter1.next() * iter2.next();
+            final VectorCursor cursor = vec1.cursor();
+            while (cursor.hasNext()) {
+                final int pos = cursor.next();
+                sum += cursor.value() * vec2.get(pos);
             }
             return sum;
         }
@@ -274,11 +329,23 @@ public abstract class VectorFactory {
 
     /**
      * Sums multiple data vectors.
+     * <p/>
+     * Note: If every vector is sparse, then the result is also sparse;
+     * otherwise, the result is a dense, writable vector.
      *
      * @param vectors - An array of vectors.
      * @return The summed vector.
      */
-    public static WritableVector add(DataVector... vectors) {
+    public static DataVector add(DataVector... vectors) {
+        if (isSparse(vectors)) {
+            SparseVectorImpl summedVector = (SparseVectorImpl) vectors[0];
+            if (vectors.length == 1)
+                return SparseKernels.copy(summedVector);
+            for (int i = 1; i < vectors.length; i++) {
+                summedVector = SparseKernels.add(summedVector, (SparseVectorImpl) vectors[i], 1);
+            }
+            return summedVector;
+        }
         final int length = vectors[0].size();
         WritableVector summedVector = newVector(length);
         for (DataVector vector : vectors) {
@@ -293,6 +360,9 @@ public abstract class VectorFactory {
 
     /**
      * Subtracts one or more data vectors from the initial vector.
+     * <p/>
+     * Note: If every vector is sparse, then the result is also sparse;
+     * otherwise, the result is a dense, writable vector.
      *
      * @param initialVector
      *            - The initial vector from which to subtract the remaining
@@ -302,7 +372,16 @@ public abstract class VectorFactory {
      *            vector.
      * @return The adjusted vector.
      */
-    public static WritableVector subtract(DataVector initialVector, DataVector... subVectors) {
+    public static DataVector subtract(DataVector initialVector, DataVector... subVectors) {
+        if (initialVector instanceof SparseVectorImpl && isSparse(subVectors)) {
+            SparseVectorImpl finalVector = (SparseVectorImpl) initialVector;
+            if (subVectors.length == 0)
+                return SparseKernels.copy(finalVector);
+            for (DataVector vector : subVectors) {
+                finalVector = SparseKernels.add(finalVector, (SparseVectorImpl) vector, -1);
+            }
+            return finalVector;
+        }
         WritableVector finalVector = copy(initialVector);
         for (DataVector vector : subVectors) {
             if (vector instanceof AbstractVector) {
@@ -345,17 +424,50 @@ public abstract class VectorFactory {
 
     /**
      * Computes the element-wise product of two vectors.
+     * <p/>
+     * Note: If either vector is sparse, then the result is also sparse;
+     * otherwise, the result is a dense, writable vector.
      *
      * @param v1 - The first vector.
      * @param v2 - The second vector.
      * @return The product vector.
      */
-    public static WritableVector multiply(DataVector v1, DataVector v2) {
+    public static DataVector multiply(DataVector v1, DataVector v2) {
+        if (v1 instanceof SparseVectorImpl) {
+            return multiply((SparseVectorImpl) v1, v2);
+        }
+        if (v2 instanceof SparseVectorImpl) {
+            return multiply((SparseVectorImpl) v2, v1);
+        }
         WritableVector vw = copy(v1);
         vw.multiply(v2);
         return vw;
     }
 
+    private static DataVector multiply(SparseVectorImpl v1, DataVector v2) {
+        if (v2 instanceof SparseVectorImpl) {
+            return SparseKernels.multiply(v1, (SparseVectorImpl) v2);
+        }
+        if (v2 instanceof ArrayVector) {
+            return SparseKernels.multiply(v1, ((ArrayVector) v2).getArray());
+        }
+        final int[] indices = v1.indices;
+        final double[] values = new double[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            values[i] = v1.values[i] * v2.get(indices[i]);
+        }
+        return new SparseVectorImpl(v1.size(), indices, values);
+    }
+
+    private static boolean isSparse(DataVector... vectors) {
+        for (DataVector vector : vectors) {
+            if (!(vector instanceof SparseVectorImpl)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Obtains a dense, writable vector copy of the given vector.
      *
@@ -379,9 +491,10 @@ public abstract class VectorFactory {
             return Arrays.copyOf(((ArrayVector) vec).getArray(), length);
         } else {
             double[] data = new double[length];
-            for (int i = 0; i < length; i++) {
-                double value = vec.get(i);
-                data[i] = value;
+            final VectorCursor cursor = vec.cursor();
+            while (cursor.hasNext()) {
+                final int pos = cursor.next();
+                data[pos] = cursor.value();
             }
             return data;
         }
@@ -399,12 +512,7 @@ public abstract class VectorFactory {
     public static DataVector compute(DataVector vector) {
         if (vector.representationType() == RepresentationType.DENSE)
             return vector;
-        final int N = vector.size();
-        double[] data = new double[N];
-        for (int i = 0; i < N; i++) {
-            data[i] = vector.get(i);
-        }
-        return new WritableArrayVector(data);
+        return new WritableArrayVector(toArray(vector));
     }
 
     /**
@@ -423,6 +531,22 @@ public abstract class VectorFactory {
         return newVec;
     }
 
+    /**
+     * Applies the given primitive function to the vector elements, resulting
+     * in a new vector.
+     * 
+     * @param vec
+     *            - The input vector.
+     * @param func
+     *            - The element function.
+     * @return The output vector.
+     */
+    public static WritableVector applyAsDouble(DataVector vec, DoubleUnaryOperator func) {
+        WritableVector newVec = copy(vec);
+        newVec.applyAsDouble(func);
+        return newVec;
+    }
+
     /**
      * Determines whether or not two vectors have equal values to the given
      * order of accuracy.
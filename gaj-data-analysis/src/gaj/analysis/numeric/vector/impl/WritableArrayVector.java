@@ -1,11 +1,12 @@
 package gaj.analysis.numeric.vector.impl;
 
 import java.util.Arrays;
-import java.util.function.Function;
+import java.util.function.DoubleUnaryOperator;
 import gaj.analysis.numeric.vector.AddableVector;
 import gaj.analysis.numeric.vector.ArrayVector;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.numeric.vector.SubtractableVector;
+import gaj.analysis.numeric.vector.VectorCursor;
 import gaj.analysis.numeric.vector.WritableVector;
 import gaj.common.annotations.PackagePrivate;
 
@@ -51,8 +52,20 @@ import gaj.common.annotations.PackagePrivate;
         return data[pos];
     }
 
+    @Override
+    public VectorCursor cursor() {
+        return new DenseVectorCursor(length) {
+            @Override
+            public double value() {
+                return data[pos];
+            }
+        };
+    }
+
     @Override
     public double dot(DataVector vector) {
+        if (vector instanceof SparseVectorImpl)
+            return SparseKernels.dot((SparseVectorImpl) vector, data);
         double sum = 0;
         for (int i = 0; i < data.length; i++) {
             sum += data[i] * vector.get(i);
@@ -143,6 +156,10 @@ import gaj.common.annotations.PackagePrivate;
             for (int i = 0; i < length; i++) {
                 data[i] += values[i];
             }
+        } else if (vector instanceof SparseVectorImpl) {
+            SparseKernels.scatter((SparseVectorImpl) vector, 1, data);
+        } else if (vector instanceof ConcatenatedVector) {
+            ((ConcatenatedVector) vector).addTo(this);
         } else {
             for (int i = 0; i < data.length; i++) {
                 data[i] += vector.get(i);
@@ -150,6 +167,27 @@ import gaj.common.annotations.PackagePrivate;
         }
     }
 
+    @Override
+    public void addScaled(DataVector vector, double multiplier) {
+        if (multiplier == 0) {
+            return;
+        }
+        if (vector instanceof ArrayVector) {
+            double[] values = ((ArrayVector) vector).getArray();
+            for (int i = 0; i < length; i++) {
+                data[i] += multiplier * values[i];
+            }
+        } else if (vector instanceof SparseVectorImpl) {
+            SparseKernels.scatter((SparseVectorImpl) vector, multiplier, data);
+        } else {
+            final VectorCursor cursor = vector.cursor();
+            while (cursor.hasNext()) {
+                final int pos = cursor.next();
+                data[pos] += multiplier * cursor.value();
+            }
+        }
+    }
+
     @Override
     public void subtract(DataVector vector) {
         if (vector instanceof ArrayVector) {
@@ -157,6 +195,10 @@ import gaj.common.annotations.PackagePrivate;
             for (int i = 0; i < length; i++) {
                 data[i] -= values[i];
             }
+        } else if (vector instanceof SparseVectorImpl) {
+            SparseKernels.scatter((SparseVectorImpl) vector, -1, data);
+        } else if (vector instanceof ConcatenatedVector) {
+            ((ConcatenatedVector) vector).subtractFrom(this);
         } else {
             for (int i = 0; i < data.length; i++) {
                 data[i] -= vector.get(i);
@@ -205,9 +247,9 @@ import gaj.common.annotations.PackagePrivate;
     }
 
     @Override
-    public void apply(Function<Double, Double> func) {
+    public void applyAsDouble(DoubleUnaryOperator func) {
         for (int i = 0; i < data.length; i++) {
-            data[i] = func.apply(data[i]);
+            data[i] = func.applyAsDouble(data[i]);
         }
     }
 
@@ -1,11 +1,12 @@
 package gaj.analysis.numeric.vector.impl;
 
-import java.util.function.Function;
+import java.util.function.DoubleUnaryOperator;
 import gaj.analysis.numeric.vector.AddableVector;
 import gaj.analysis.numeric.vector.ArrayVector;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.numeric.vector.DenseVector;
 import gaj.analysis.numeric.vector.SubtractableVector;
+import gaj.analysis.numeric.vector.VectorCursor;
 import gaj.analysis.numeric.vector.WritableVector;
 import gaj.common.annotations.PackagePrivate;
 
@@ -54,6 +55,16 @@ import gaj.common.annotations.PackagePrivate;
         return values[start + pos];
     }
 
+    @Override
+    public VectorCursor cursor() {
+        return new DenseVectorCursor(length) {
+            @Override
+            public double value() {
+                return values[start + pos];
+            }
+        };
+    }
+
     @Override
     public double dot(DataVector vector) {
         double sum = 0;
@@ -181,9 +192,9 @@ import gaj.common.annotations.PackagePrivate;
     }
 
     @Override
-    public void apply(Function<Double, Double> func) {
+    public void applyAsDouble(DoubleUnaryOperator func) {
         for (int pos = start; pos < end; pos++) {
-            values[pos] = func.apply(values[pos]);
+            values[pos] = func.applyAsDouble(values[pos]);
         }
     }
 
@@ -1,6 +1,6 @@
 package gaj.analysis.numeric.vector.impl;
 
-import java.util.function.Function;
+import java.util.function.DoubleUnaryOperator;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.numeric.vector.WritableVector;
 import gaj.common.annotations.PackagePrivate;
@@ -98,9 +98,9 @@ import gaj.common.annotations.PackagePrivate;
     }
 
     @Override
-    public void apply(Function<Double, Double> func) {
+    public void applyAsDouble(DoubleUnaryOperator func) {
         for (int pos = start; pos < end; pos++) {
-            vector.set(pos, func.apply(vector.get(pos)));
+            vector.set(pos, func.applyAsDouble(vector.get(pos)));
         }
     }
 
@@ -4,6 +4,7 @@ import gaj.analysis.numeric.vector.AddableVector;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.numeric.vector.SparseVector;
 import gaj.analysis.numeric.vector.SubtractableVector;
+import gaj.analysis.numeric.vector.VectorCursor;
 import gaj.common.annotations.PackagePrivate;
 
 @PackagePrivate class ZeroVector extends AbstractVector implements SparseVector {
@@ -19,6 +20,11 @@ import gaj.common.annotations.PackagePrivate;
         return 0;
     }
 
+    @Override
+    public VectorCursor cursor() {
+        return VectorCursor.NO_ELEMENTS;
+    }
+
     @Override
     public double dot(DataVector vector) {
         return 0;
@@ -0,0 +1,70 @@
+package gaj.analysis.optimiser;
+
+import java.nio.file.Path;
+import gaj.analysis.model.AuxiliaryInfo;
+
+/**
+ * Specifies that the model parameters and optimiser state should be
+ * periodically saved to a checkpoint file during optimisation.
+ */
+public interface CheckpointInfo extends AuxiliaryInfo {
+
+    /**
+     * Specifies the location of the checkpoint file. Each checkpoint
+     * atomically replaces the previous one.
+     *
+     * @return The checkpoint path.
+     */
+    Path getCheckpointPath();
+
+    /**
+     * Specifies the number of iterations between successive checkpoints.
+     *
+     * @return The checkpoint interval.
+     */
+    default int getCheckpointInterval() {
+        return 1;
+    }
+
+    /**
+     * Creates checkpoint settings.
+     *
+     * @param path
+     *            - The location of the checkpoint file.
+     * @param interval
+     *            - The number of iterations between checkpoints.
+     * @return The checkpoint settings.
+     */
+    static CheckpointInfo newCheckpointInfo(Path path, int interval) {
+        if (interval < 1)
+            throw new IllegalArgumentException("Invalid checkpoint interval: " + interval);
+        return new CheckpointInfo() {
+            @Override
+            public Path getCheckpointPath() {
+                return path;
+            }
+
+            @Override
+            public int getCheckpointInterval() {
+                return interval;
+            }
+        };
+    }
+
+    /**
+     * Locates the checkpoint settings, if any, among the auxiliary
+     * information.
+     *
+     * @param info
+     *            - The auxiliary information.
+     * @return The checkpoint settings, or a value of null if checkpointing
+     *         was not requested.
+     */
+    static CheckpointInfo checkpointInfo(AuxiliaryInfo... info) {
+        for (AuxiliaryInfo infoObj : info) {
+            if (infoObj instanceof CheckpointInfo) return (CheckpointInfo) infoObj;
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,34 @@
+package gaj.analysis.optimiser;
+
+import java.nio.DoubleBuffer;
+import java.util.Map;
+
+/**
+ * Indicates an optimiser whose internal state may be saved to, and later
+ * restored from, a checkpoint, so that optimisation may resume in another
+ * process.
+ */
+public interface Checkpointable {
+
+    /**
+     * Adds copies of the current optimisation state to the checkpoint, as
+     * named arrays. Names should be prefixed to avoid clashes with the
+     * model parameters.
+     *
+     * @param state
+     *            - The named arrays of the checkpoint.
+     */
+    void saveState(Map<String, double[]> state);
+
+    /**
+     * Restores the optimisation state from the checkpoint. The buffers may be
+     * memory-mapped, and so must be copied rather than retained.
+     *
+     * @param state
+     *            - The named arrays of the checkpoint.
+     * @throws IllegalArgumentException
+     *             If the checkpoint does not contain a compatible state.
+     */
+    void restoreState(Map<String, DoubleBuffer> state);
+
+}
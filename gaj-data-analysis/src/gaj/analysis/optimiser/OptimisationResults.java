@@ -25,4 +25,13 @@ public interface OptimisationResults extends OptimisationState {
         return getScore();
     }
 
+    /**
+     * Provides the instrumentation of the optimisation round, if recorded.
+     * 
+     * @return The optimiser metrics.
+     */
+    default OptimiserMetrics getMetrics() {
+        return OptimiserMetrics.NO_METRICS;
+    }
+
 }
@@ -77,6 +77,12 @@ public enum OptimisationStatus {
      */
     HALTED_WITH_ERROR,
 
+    /**
+     * The optimisation process was halted at the request of an
+     * {@link OptimiserListener}.
+     */
+    HALTED_BY_LISTENER,
+
     ;
 
 }
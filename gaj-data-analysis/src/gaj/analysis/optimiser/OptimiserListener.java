@@ -0,0 +1,44 @@
+package gaj.analysis.optimiser;
+
+import java.util.ArrayList;
+import java.util.List;
+import gaj.analysis.model.AuxiliaryInfo;
+
+/**
+ * Receives progress notifications from an optimiser after each iteration,
+ * e.g. for streaming metrics to a monitor, or for halting a stalled run.
+ * <p/>
+ * The listener is called on the thread that invoked the optimiser, and
+ * should return promptly.
+ */
+@FunctionalInterface
+public interface OptimiserListener extends AuxiliaryInfo {
+
+    /**
+     * Notifies the listener that an iteration has completed.
+     *
+     * @param state
+     *            - The current state of the optimiser.
+     * @param metrics
+     *            - The metrics of the optimisation round so far.
+     * @return A value of true (or false) if optimisation should (or should
+     *         not) continue.
+     */
+    boolean iterationCompleted(OptimisationState state, OptimiserMetrics metrics);
+
+    /**
+     * Locates all listeners among the auxiliary information.
+     *
+     * @param info
+     *            - The auxiliary information.
+     * @return The (possibly empty) list of listeners.
+     */
+    static List<OptimiserListener> listeners(AuxiliaryInfo... info) {
+        final List<OptimiserListener> listeners = new ArrayList<>();
+        for (AuxiliaryInfo infoObj : info) {
+            if (infoObj instanceof OptimiserListener) listeners.add((OptimiserListener) infoObj);
+        }
+        return listeners;
+    }
+
+}
@@ -0,0 +1,128 @@
+package gaj.analysis.optimiser;
+
+/**
+ * Summarises where the time and memory of an optimisation round were spent.
+ * All values are relative to the start of the optimisation round.
+ * <p/>
+ * A score evaluation is a single computation of the score, and possibly its
+ * gradient, over the set of data cases that determines the next action of
+ * the optimiser. That set is the full data for each trial step of a line
+ * search or each validation, a mini-batch for each stochastic update, and a
+ * single case for each per-case update, such as those of Hogwild training.
+ * Thus, the number of evaluations is the number of scored sets, regardless of
+ * their sizes.
+ */
+public interface OptimiserMetrics {
+
+    /**
+     * A placeholder to use when no metrics were recorded.
+     */
+    final static OptimiserMetrics NO_METRICS = new OptimiserMetrics() {
+        @Override
+        public long getElapsedNanos(OptimiserPhase phase) {
+            return 0;
+        }
+
+        @Override
+        public long getTotalElapsedNanos() {
+            return 0;
+        }
+
+        @Override
+        public long getNumDataPasses() {
+            return 0;
+        }
+
+        @Override
+        public long getNumScoreEvaluations() {
+            return 0;
+        }
+
+        @Override
+        public long getNumGradientEvaluations() {
+            return 0;
+        }
+
+        @Override
+        public long getAllocatedBytes() {
+            return -1;
+        }
+
+        @Override
+        public long getIterationNanos() {
+            return 0;
+        }
+
+        @Override
+        public long getIterationAllocatedBytes() {
+            return -1;
+        }
+    };
+
+    /**
+     * Indicates the wall time spent in the given phase of optimisation.
+     *
+     * @param phase
+     *            - The optimisation phase.
+     * @return The elapsed time in nanoseconds.
+     */
+    long getElapsedNanos(OptimiserPhase phase);
+
+    /**
+     * Indicates the total wall time of the optimisation iterations.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    long getTotalElapsedNanos();
+
+    /**
+     * Indicates the number of complete passes through the training data.
+     *
+     * @return The number of data passes.
+     */
+    long getNumDataPasses();
+
+    /**
+     * Indicates the number of score evaluations, whether over the full data,
+     * a mini-batch or a single case.
+     *
+     * @return The number of score evaluations.
+     */
+    long getNumScoreEvaluations();
+
+    /**
+     * Indicates the number of score evaluations that also computed the score
+     * gradient.
+     *
+     * @return The number of gradient evaluations.
+     */
+    long getNumGradientEvaluations();
+
+    /**
+     * Indicates the number of bytes allocated on the heap by all threads of
+     * the JVM during the optimisation iterations, including any concurrent
+     * work unrelated to the optimisation.
+     *
+     * @return The number of allocated bytes, or a negative value if the JVM
+     *         does not support allocation measurement.
+     */
+    long getAllocatedBytes();
+
+    /**
+     * Indicates the wall time of the most recent iteration.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    long getIterationNanos();
+
+    /**
+     * Indicates the number of bytes allocated on the heap by all threads of
+     * the JVM during the most recent iteration, including any concurrent work
+     * unrelated to the optimisation.
+     *
+     * @return The number of allocated bytes, or a negative value if the JVM
+     *         does not support allocation measurement.
+     */
+    long getIterationAllocatedBytes();
+
+}
@@ -0,0 +1,47 @@
+package gaj.analysis.optimiser;
+
+/**
+ * Enumerates the phases of an optimisation iteration whose wall time is
+ * separately recorded. The phases do not overlap: time spent in one phase
+ * whilst within another, such as scoring during a line search, is recorded
+ * only against the inner phase.
+ * <p/>
+ * Not every optimiser passes through every phase; for example, stochastic
+ * optimisers have no direction or line searches.
+ */
+public enum OptimiserPhase {
+
+    /**
+     * Computing the model score, and possibly the score gradient, on the
+     * training data.
+     */
+    SCORING,
+
+    /**
+     * Choosing the direction in which to update the model parameters.
+     */
+    DIRECTION_SEARCH,
+
+    /**
+     * Searching along the update direction for an improved score.
+     */
+    LINE_SEARCH,
+
+    /**
+     * Applying updates to the model parameters.
+     */
+    UPDATE,
+
+    /**
+     * Scoring the model on held-out validation data.
+     */
+    VALIDATION,
+
+    /**
+     * Saving the model parameters and optimiser state.
+     */
+    CHECKPOINT,
+
+    ;
+
+}
@@ -0,0 +1,123 @@
+package gaj.analysis.optimiser;
+
+import gaj.analysis.model.AuxiliaryInfo;
+
+/**
+ * Specifies the settings that control stochastic, mini-batch optimisation.
+ * Each iteration is a single pass (or epoch) through the data source, and
+ * each sub-iteration is a single parameter update from one mini-batch.
+ */
+public interface StochasticOptimiserInfo extends OptimiserInfo {
+
+    /**
+     * Specifies the maximum number of passes through the data source.
+     * 
+     * @return The maximum number of epochs, or a non-positive value if there
+     *         is no maximum.
+     */
+    @Override
+    default int getMaxIterations() {
+        return 1;
+    }
+
+    @Override
+    default double gradientTolerance() {
+        return 0;
+    }
+
+    /**
+     * Specifies the number of data cases used to estimate the score gradient
+     * for each parameter update.
+     * 
+     * @return The mini-batch size.
+     */
+    default int getBatchSize() {
+        return 100;
+    }
+
+    /**
+     * Specifies the number of data cases held in memory, from which each
+     * mini-batch is randomly drawn. A larger buffer gives a more thorough
+     * shuffling of the data source.
+     * 
+     * @return The shuffle buffer size.
+     */
+    default int getShuffleBufferSize() {
+        return 10 * getBatchSize();
+    }
+
+    /**
+     * Specifies the type of parameter update rule.
+     * 
+     * @return The update type.
+     */
+    default StochasticUpdateType getUpdateType() {
+        return StochasticUpdateType.ADAM;
+    }
+
+    /**
+     * Specifies the step size of each parameter update.
+     * 
+     * @return The learning rate.
+     */
+    default double getLearningRate() {
+        return 0.001;
+    }
+
+    /**
+     * Specifies the decay rate of the momentum, or of the first moment
+     * estimate for adaptive updates.
+     * 
+     * @return The momentum decay, in [0, 1).
+     */
+    default double getMomentum() {
+        return 0.9;
+    }
+
+    /**
+     * Specifies the decay rate of the second moment estimate for adaptive
+     * updates.
+     * 
+     * @return The second moment decay, in [0, 1).
+     */
+    default double getSecondMomentDecay() {
+        return 0.999;
+    }
+
+    /**
+     * Specifies the small constant that stabilises the adaptive step size.
+     * 
+     * @return The stabilising constant.
+     */
+    default double getEpsilon() {
+        return 1e-8;
+    }
+
+    /**
+     * Specifies the seed for shuffling the data cases. Each pass through the
+     * data source is shuffled by its own generator, derived from this seed
+     * and the number of the pass, so that optimisation is repeatable, and may
+     * be resumed at any pass.
+     * 
+     * @return The random seed.
+     */
+    default long getSeed() {
+        return 0;
+    }
+
+    /**
+     * Obtains the stochastic optimisation settings, if any.
+     * 
+     * @param info
+     *            - Optional auxiliary information.
+     * @return The optimisation settings, or a value of null if none were
+     *         specified.
+     */
+    static StochasticOptimiserInfo stochasticInfo(AuxiliaryInfo... info) {
+        for (AuxiliaryInfo infoObj : info) {
+            if (infoObj instanceof StochasticOptimiserInfo) return (StochasticOptimiserInfo) infoObj;
+        }
+        return null;
+    }
+
+}
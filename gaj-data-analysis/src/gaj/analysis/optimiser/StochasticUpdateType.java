@@ -0,0 +1,25 @@
+package gaj.analysis.optimiser;
+
+/**
+ * Specifies the type of rule to use for updating the model parameters from
+ * the score gradient of each mini-batch of data, during stochastic
+ * optimisation.
+ */
+public enum StochasticUpdateType {
+
+    /**
+     * Specifies a gradient step along an exponentially decaying sum of
+     * previous gradients.
+     */
+    MOMENTUM,
+
+    /**
+     * Specifies an adaptive gradient step, scaled per parameter by
+     * bias-corrected estimates of the first and second moments of the
+     * gradient (i.e. the Adam algorithm).
+     */
+    ADAM,
+
+    ;
+
+}
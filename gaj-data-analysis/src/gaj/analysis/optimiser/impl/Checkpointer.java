@@ -0,0 +1,121 @@
+package gaj.analysis.optimiser.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import gaj.analysis.model.ParameterisedModel;
+import gaj.analysis.optimiser.CheckpointInfo;
+import gaj.analysis.optimiser.Checkpointable;
+
+/**
+ * Periodically writes checkpoints in the background during optimisation.
+ * <p/>
+ * The model parameters and optimiser state are copied synchronously, so that
+ * the optimiser may continue to modify them, and the copy is then written by
+ * a single daemon thread. At most one write is ever in progress; if a
+ * checkpoint falls due while the previous one is still being written, the
+ * optimiser waits for it. Closing the checkpointer waits for any outstanding
+ * write.
+ */
+public class Checkpointer implements AutoCloseable {
+
+    private final Path path;
+    private final int interval;
+    private final ExecutorService executor;
+    private Future<?> pending = null;
+
+    /**
+     * Creates a checkpointer.
+     *
+     * @param info
+     *            - The checkpoint settings.
+     */
+    public Checkpointer(CheckpointInfo info) {
+        this.path = info.getCheckpointPath();
+        this.interval = Math.max(1, info.getCheckpointInterval());
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Writes a checkpoint if one is due after the given iteration.
+     *
+     * @param numIterations
+     *            - The number of completed iterations.
+     * @param model
+     *            - The model being optimised.
+     * @param optimiser
+     *            - The optimiser, or a value of null.
+     * @return A value of true (or false) if a checkpoint was (or was not)
+     *         written.
+     * @throws UncheckedIOException
+     *             If a previous checkpoint could not be written.
+     */
+    public boolean update(int numIterations, ParameterisedModel<?, ?> model, /*@Nullable*/ Checkpointable optimiser) {
+        if (numIterations % interval != 0)
+            return false;
+        checkpoint(model, optimiser);
+        return true;
+    }
+
+    /**
+     * Writes a checkpoint.
+     *
+     * @param model
+     *            - The model being optimised.
+     * @param optimiser
+     *            - The optimiser, or a value of null.
+     * @throws UncheckedIOException
+     *             If a previous checkpoint could not be written.
+     */
+    public void checkpoint(ParameterisedModel<?, ?> model, /*@Nullable*/ Checkpointable optimiser) {
+        final Map<String, double[]> sections = Checkpoints.snapshot(model, optimiser);
+        await();
+        pending = executor.submit(() -> {
+            Checkpoints.write(path, sections);
+            return null;
+        });
+    }
+
+    /**
+     * Waits for any outstanding checkpoint to be written.
+     *
+     * @throws UncheckedIOException
+     *             If the checkpoint could not be written.
+     */
+    private void await() {
+        if (pending == null)
+            return;
+        final Future<?> future = pending;
+        pending = null;
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing checkpoint", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw new UncheckedIOException((IOException) cause);
+            throw new IllegalStateException("Failed to write checkpoint", cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            await();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,268 @@
+package gaj.analysis.optimiser.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import gaj.analysis.model.ParameterisedModel;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+import gaj.analysis.optimiser.Checkpointable;
+
+/**
+ * Saves and restores model parameters and optimiser state in a compact,
+ * binary checkpoint format.
+ * <p/>
+ * A checkpoint consists of a header, namely the magic bytes "GAJCKPT1", the
+ * format version and the number of sections, followed by the named
+ * sections. Each section consists of the length and UTF-8 bytes of its name,
+ * padding to an 8-byte boundary, the number of elements, and then the
+ * elements as little-endian doubles. The alignment allows the elements to be
+ * read directly from a memory-mapped file.
+ * <p/>
+ * Checkpoints are written to a temporary file that then atomically replaces
+ * any previous checkpoint, so that a failure during writing never leaves a
+ * corrupt checkpoint.
+ */
+public abstract class Checkpoints {
+
+    /** The name of the section holding the model parameters. */
+    public static final String PARAMETERS = "model.parameters";
+    /** The maximum number of elements in a section, which must fit into a single mapping. */
+    public static final long MAX_SECTION_LENGTH = Integer.MAX_VALUE / Double.BYTES;
+
+    private static final byte[] MAGIC = "GAJCKPT1".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private Checkpoints() {}
+
+    /**
+     * Writes the named arrays to a checkpoint file, replacing any existing
+     * file.
+     *
+     * @param path
+     *            - The location of the checkpoint file.
+     * @param sections
+     *            - The named arrays.
+     * @throws IOException
+     *             If the checkpoint cannot be written, or has a section of
+     *             more than {@link #MAX_SECTION_LENGTH} elements.
+     */
+    public static void write(Path path, Map<String, double[]> sections) throws IOException {
+        for (Map.Entry<String, double[]> section : sections.entrySet()) {
+            if (section.getValue().length > MAX_SECTION_LENGTH)
+                throw new IOException("Checkpoint section " + section.getKey() + " has "
+                        + section.getValue().length + " elements, exceeding the limit of " + MAX_SECTION_LENGTH);
+        }
+        final Path absPath = path.toAbsolutePath();
+        final Path tmpPath = absPath.resolveSibling(absPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(MAGIC).putInt(VERSION).putInt(sections.size());
+            long position = buffer.position();
+            for (Map.Entry<String, double[]> section : sections.entrySet()) {
+                final byte[] name = section.getKey().getBytes(StandardCharsets.UTF_8);
+                final double[] values = section.getValue();
+                final int padding = (int) (-(position + 4 + name.length) & 7);
+                if (buffer.remaining() < 4 + name.length + padding + 8)
+                    flush(channel, buffer);
+                buffer.putInt(name.length).put(name);
+                for (int i = 0; i < padding; i++)
+                    buffer.put((byte) 0);
+                buffer.putLong(values.length);
+                position += 4 + name.length + padding + 8;
+                int pos = 0;
+                while (pos < values.length) {
+                    if (buffer.remaining() < Double.BYTES)
+                        flush(channel, buffer);
+                    final int length = Math.min(values.length - pos, buffer.remaining() / Double.BYTES);
+                    buffer.asDoubleBuffer().put(values, pos, length);
+                    buffer.position(buffer.position() + length * Double.BYTES);
+                    pos += length;
+                }
+                position += (long) values.length * Double.BYTES;
+            }
+            flush(channel, buffer);
+            channel.force(false);
+        }
+        Files.move(tmpPath, absPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Reads the named arrays from a checkpoint file. Each section is
+     * memory-mapped separately, and each array is a read-only view of its
+     * mapped data, so the file itself may exceed 2 GB.
+     *
+     * @param path
+     *            - The location of the checkpoint file.
+     * @return The named arrays, in the order written.
+     * @throws IOException
+     *             If the checkpoint cannot be read, is malformed, or has a
+     *             section of more than {@link #MAX_SECTION_LENGTH} elements.
+     */
+    public static Map<String, DoubleBuffer> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final ByteBuffer header = readFully(channel, 0, MAGIC.length + 8, path);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (header.get() != MAGIC[i])
+                    throw new IOException("Not a checkpoint file: " + path);
+            }
+            final int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported checkpoint version: " + version);
+            final int numSections = header.getInt();
+            if (numSections < 0)
+                throw new IOException("Malformed checkpoint file: " + path);
+            long position = header.limit();
+            final Map<String, DoubleBuffer> sections = new LinkedHashMap<>();
+            for (int i = 0; i < numSections; i++) {
+                final int nameLength = readFully(channel, position, 4, path).getInt();
+                if (nameLength < 0 || nameLength > size - position - 4)
+                    throw new IOException("Malformed checkpoint section in: " + path);
+                final ByteBuffer nameBytes = readFully(channel, position + 4, nameLength, path);
+                final String name = StandardCharsets.UTF_8.decode(nameBytes).toString();
+                position += 4 + nameLength;
+                position += -position & 7;
+                final long length = readFully(channel, position, 8, path).getLong();
+                position += 8;
+                if (length < 0 || length > (size - position) / Double.BYTES)
+                    throw new IOException("Truncated checkpoint section " + name + " in: " + path);
+                if (length > MAX_SECTION_LENGTH)
+                    throw new IOException("Checkpoint section " + name + " has " + length
+                            + " elements, exceeding the limit of " + MAX_SECTION_LENGTH + " in: " + path);
+                final long numBytes = length * Double.BYTES;
+                sections.put(name, channel.map(FileChannel.MapMode.READ_ONLY, position, numBytes)
+                        .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer());
+                position += numBytes;
+            }
+            return Collections.unmodifiableMap(sections);
+        }
+    }
+
+    /**
+     * Reads a fixed number of bytes at a given position of the file.
+     */
+    private static ByteBuffer readFully(FileChannel channel, long position, int numBytes, Path path)
+            throws IOException
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate(numBytes).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Truncated checkpoint file: " + path);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Takes a snapshot of the model parameters and, optionally, the optimiser
+     * state.
+     *
+     * @param model
+     *            - The model being optimised.
+     * @param optimiser
+     *            - The optimiser, or a value of null.
+     * @return The named arrays of the checkpoint.
+     */
+    public static Map<String, double[]> snapshot(ParameterisedModel<?, ?> model, /*@Nullable*/ Checkpointable optimiser) {
+        final Map<String, double[]> sections = new LinkedHashMap<>();
+        sections.put(PARAMETERS, VectorFactory.toArray(model.getParameters()));
+        if (optimiser != null)
+            optimiser.saveState(sections);
+        return sections;
+    }
+
+    /**
+     * Saves the model parameters and, optionally, the optimiser state to a
+     * checkpoint file.
+     *
+     * @param path
+     *            - The location of the checkpoint file.
+     * @param model
+     *            - The model being optimised.
+     * @param optimiser
+     *            - The optimiser, or a value of null.
+     * @throws IOException
+     *             If the checkpoint cannot be written.
+     */
+    public static void save(Path path, ParameterisedModel<?, ?> model, /*@Nullable*/ Checkpointable optimiser)
+            throws IOException
+    {
+        write(path, snapshot(model, optimiser));
+    }
+
+    /**
+     * Warm-starts the model and, optionally, the optimiser from a checkpoint
+     * file, if one exists.
+     *
+     * @param path
+     *            - The location of the checkpoint file.
+     * @param model
+     *            - The model to be restored.
+     * @param optimiser
+     *            - The optimiser to be restored, or a value of null.
+     * @return A value of true (or false) if the checkpoint was (or was not)
+     *         found.
+     * @throws IOException
+     *             If the checkpoint cannot be read or is malformed.
+     * @throws IllegalArgumentException
+     *             If the checkpoint does not match the model or optimiser.
+     */
+    public static boolean restore(Path path, ParameterisedModel<?, ?> model, /*@Nullable*/ Checkpointable optimiser)
+            throws IOException
+    {
+        if (!Files.exists(path))
+            return false;
+        final Map<String, DoubleBuffer> sections = read(path);
+        final double[] params = toArray(sections, PARAMETERS, model.numParameters());
+        if (optimiser != null)
+            optimiser.restoreState(sections);
+        model.setParameters(VectorFactory.newVector(params));
+        return true;
+    }
+
+    /**
+     * Copies a named array from a checkpoint.
+     *
+     * @param sections
+     *            - The named arrays of the checkpoint.
+     * @param name
+     *            - The name of the array.
+     * @param length
+     *            - The expected array length.
+     * @return The copied array.
+     * @throws IllegalArgumentException
+     *             If the array is missing or has the wrong length.
+     */
+    public static double[] toArray(Map<String, DoubleBuffer> sections, String name, int length) {
+        final DoubleBuffer data = sections.get(name);
+        if (data == null)
+            throw new IllegalArgumentException("Missing checkpoint section: " + name);
+        if (data.remaining() != length)
+            throw new IllegalArgumentException("Expected checkpoint section " + name
+                    + " of length " + length + ", got " + data.remaining());
+        final double[] array = new double[length];
+        data.duplicate().get(array);
+        return array;
+    }
+
+}
@@ -7,10 +7,15 @@ import gaj.analysis.model.score.ScoreInfo;
 import gaj.analysis.optimiser.OptimiserInfo;
 import gaj.analysis.optimiser.OptimisationResults;
 import gaj.analysis.optimiser.OptimisationStatus;
+import gaj.analysis.optimiser.OptimiserMetrics;
 
 /**
  * Specifies the basis for a reusable scheme for iterative optimisation. Each
  * call to {@link #optimise}() takes up where the previous call left off.
+ * <p/>
+ * The metrics of each round are recorded in the results, and any
+ * {@link gaj.analysis.optimiser.OptimiserListener} is notified after each
+ * iteration.
  */
 public abstract class IterativeOptimiser extends UpdatableOptimser {
 
@@ -71,14 +76,21 @@ public abstract class IterativeOptimiser extends UpdatableOptimser {
         final double[] initialScores = Arrays.copyOf(getScores(), numScores());
         outerIterations = getNumIterations();
         outerSubIterations = getNumSubIterations();
+        final MetricsRecorder metrics = new MetricsRecorder(params);
+        setMetrics(metrics);
         OptimisationStatus status = start(params);
         setStatus(status);
         while (status == OptimisationStatus.RUNNING) {
+            metrics.startIteration();
             status = iterate(params);
             setStatus(status);
+            if (!metrics.endIteration(this) && status == OptimisationStatus.RUNNING) {
+                status = OptimisationStatus.HALTED_BY_LISTENER;
+                setStatus(status);
+            }
         }
         final double[] finalScores = Arrays.copyOf(getScores(), numScores());
-        return end(getResults(getRelativeNumIterations(), getRelativeNumSubIterations(), initialScores, finalScores, getScoreInfo(), status));
+        return end(getResults(getRelativeNumIterations(), getRelativeNumSubIterations(), initialScores, finalScores, getScoreInfo(), status, metrics.snapshot()));
     }
 
     /**
@@ -91,7 +103,8 @@ public abstract class IterativeOptimiser extends UpdatableOptimser {
      */
     protected OptimisationStatus start(OptimiserInfo params) {
         OptimisationStatus curStatus = getStatus();
-        if (OptimisationStatus.MAX_ITERATIONS_EXCEEDED == curStatus || OptimisationStatus.MAX_SUB_ITERATIONS_EXCEEDED == curStatus)
+        if (OptimisationStatus.MAX_ITERATIONS_EXCEEDED == curStatus || OptimisationStatus.MAX_SUB_ITERATIONS_EXCEEDED == curStatus
+                || OptimisationStatus.HALTED_BY_LISTENER == curStatus)
             return OptimisationStatus.RUNNING;
         return curStatus;
     }
@@ -177,7 +190,7 @@ public abstract class IterativeOptimiser extends UpdatableOptimser {
         return results;
     }
 
-    private OptimisationResults getResults(int numIterations, int subIterations, double[] initialScores, double[] finalScores, ScoreInfo scoreInfo, OptimisationStatus status) {
+    private OptimisationResults getResults(int numIterations, int subIterations, double[] initialScores, double[] finalScores, ScoreInfo scoreInfo, OptimisationStatus status, OptimiserMetrics metrics) {
         return new OptimisationResults() {
             @Override
             public int getNumIterations() {
@@ -213,6 +226,11 @@ public abstract class IterativeOptimiser extends UpdatableOptimser {
             public ScoreInfo getScoreInfo() {
                 return scoreInfo;
             }
+
+            @Override
+            public OptimiserMetrics getMetrics() {
+                return metrics;
+            }
         };
     }
 
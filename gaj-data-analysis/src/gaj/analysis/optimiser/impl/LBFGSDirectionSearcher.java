@@ -1,11 +1,12 @@
 package gaj.analysis.optimiser.impl;
 
-import gaj.analysis.model.VectorGradientComputable;
+import java.nio.DoubleBuffer;
+import java.util.Map;
+import gaj.analysis.model.score.GradientScoreInfo;
 import gaj.analysis.model.score.ScoreInfo;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.numeric.vector.SettableVector;
-import gaj.analysis.numeric.vector.WritableVector;
-import gaj.analysis.numeric.vector.impl.VectorFactory;
+import gaj.analysis.optimiser.Checkpointable;
 import gaj.analysis.optimiser.searcher.DirectionSearchParams;
 import gaj.analysis.optimiser.searcher.DirectionSearchStatus;
 import gaj.analysis.optimiser.searcher.DirectionSearcherType;
@@ -13,32 +14,14 @@ import gaj.analysis.optimiser.searcher.LBFGSDirectionSearchParams;
 
 /**
  * Implements {@link DirectionSearcherType#LBFGS}.
+ * <p/>
+ * The history of updates and the two-loop recursion are kept by an
+ * {@link LBFGSHistory}, which is also checkpointed.
  */
-public class LBFGSDirectionSearcher extends BaseDirectionSearcher {
+public class LBFGSDirectionSearcher extends BaseDirectionSearcher implements Checkpointable {
 
-    /** Maximum number of updates to keep. */
-    private final int maxSize;
-    /** Stores the differences in model parameters, s_{k-1} = x_k - x_{k-1}. */
-    private final DataVector[] s;
-    /** Stores the differences in score gradients, y_{k-1} = g_k - g_{}k-1}. */
-    private final DataVector[] y;
-    /** Stores the update-gradient projection scalings, rho_k = 1/(y_k . s_k) */
-    private final double[] rho;
-    /** Temporary storage for on-the-fly projection scalings. */
-    private final double[] alpha;
-
-    /** The previous model parameters. */
-    private DataVector x_km1;
-    /** The previous score gradient. */
-    private DataVector g_km1;
-    /** The current number of updates stored, up to the maximum number allowed. */
-    private int curSize = 0;
-    /**
-     * The current position of the latest update. Note: Once the storage is
-     * full, the subsequent current position will wrap around, and the newest
-     * update will replace the oldest update.
-     */
-    private int curPos = -1;
+    /** The history of parameter and gradient differences. */
+    private final LBFGSHistory history;
 
     /**
      * Binds the direction search to the optimiser and the search parameters.
@@ -50,11 +33,7 @@ public class LBFGSDirectionSearcher extends BaseDirectionSearcher {
      */
     public LBFGSDirectionSearcher(UpdatableOptimser optimiser, DirectionSearchParams params) {
         super(optimiser, toLBFGSParams(params));
-        maxSize = getParams().getMemorySize();
-        s = new DataVector[maxSize];
-        y = new DataVector[maxSize];
-        rho = new double[maxSize];
-        alpha = new double[maxSize];
+        history = new LBFGSHistory(getParams().getMemorySize());
     }
 
     @Override
@@ -64,53 +43,24 @@ public class LBFGSDirectionSearcher extends BaseDirectionSearcher {
 
     @Override
     public DirectionSearchStatus search(SettableVector direction) {
-        // Get gradient.
         ScoreInfo scoreInfo = getOptimiser().getScoreInfo();
-        if (scoreInfo instanceof VectorGradientComputable) {
-            DataVector g_k = ((VectorGradientComputable) scoreInfo).getGradient();
+        if (scoreInfo instanceof GradientScoreInfo) {
+            DataVector g_k = ((GradientScoreInfo) scoreInfo).getScoreGradient();
             DataVector x_k = getOptimiser().getModelParameters();
-            // Get direction.
-            if (curPos < 0) {
-                // Initially go in direction of gradient.
-                direction.set(g_k);
-            } else {
-                computeDifferences(g_k, x_k);
-                direction.set(computeDirection(g_k));
-            }
-            g_km1 = g_k;
-            x_km1 = x_k;
-            curPos = (curPos + 1) % maxSize;
+            direction.set(history.update(x_k, g_k));
             return DirectionSearchStatus.AVAILABLE;
         }
         return DirectionSearchStatus.GRADIENT_UNAVAILABLE;
     }
 
-    private void computeDifferences(DataVector g_k, DataVector x_k) {
-        s[curPos] = VectorFactory.subtract(x_k, x_km1);
-        y[curPos] = VectorFactory.subtract(g_k, g_km1);
-        rho[curPos] = 1.0 / VectorFactory.dot(s[curPos], y[curPos]);
-        curSize = (curSize >= maxSize) ? maxSize : (curSize + 1);
+    @Override
+    public void saveState(Map<String, double[]> state) {
+        history.saveState(state);
     }
 
-    private DataVector computeDirection(DataVector g_k) {
-        WritableVector z = VectorFactory.copy(g_k);
-        // Loop from most recent to least recent update.
-        int i = curPos;
-        for (int j = 0; j < curSize; j++) {
-            alpha[i] = rho[i] * VectorFactory.dot(s[i], z);
-            z.subtract(VectorFactory.scale(y[i], alpha[i]));
-            i = (i - 1 + curSize) % curSize;
-        }
-        double hk = VectorFactory.dot(s[curPos], y[curPos]) / VectorFactory.dot(y[curPos], y[curPos]);
-        z.multiply(hk);
-        // Loop from least recent to most recent update.
-        i = (curPos + 1) % curSize;
-        for (int j = 0; j < curSize; j++) {
-            double beta_i = rho[i] * VectorFactory.dot(y[i], z);
-            z.add(VectorFactory.scale(s[i], alpha[i] - beta_i));
-            i = (i + 1) % curSize;
-        }
-        return z;
+    @Override
+    public void restoreState(Map<String, DoubleBuffer> state) {
+        history.restoreState(state);
     }
 
     private static LBFGSDirectionSearchParams toLBFGSParams(DirectionSearchParams params) {
@@ -0,0 +1,299 @@
+package gaj.analysis.optimiser.impl;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import gaj.analysis.numeric.vector.ArrayVector;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.VectorCursor;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+import gaj.analysis.optimiser.Checkpointable;
+import gaj.analysis.optimiser.searcher.LBFGSDirectionSearchParams;
+
+/**
+ * Keeps the most recent differences in model parameters and score gradients,
+ * and computes the L-BFGS search direction, H_k g_k, via the two-loop
+ * recursion.
+ * <p/>
+ * All working storage is allocated once, on the first update, according to
+ * {@link LBFGSDirectionSearchParams#getMemoryFootprint}(), and is thereafter
+ * updated in place.
+ * <p/>
+ * The history may be checkpointed, so that a resumed optimisation continues
+ * with the same search directions.
+ */
+public class LBFGSHistory implements Checkpointable {
+
+    private static final String COUNTS = "lbfgs.counts";
+    private static final String S = "lbfgs.s";
+    private static final String Y = "lbfgs.y";
+    private static final String RHO = "lbfgs.rho";
+    private static final String PARAMETERS = "lbfgs.parameters";
+    private static final String GRADIENT = "lbfgs.gradient";
+
+    /** Maximum number of updates to keep. */
+    private final int maxSize;
+    /** Stores the differences in model parameters, s_{k-1} = x_k - x_{k-1}. */
+    private double[][] s;
+    /** Stores the differences in score gradients, y_{k-1} = g_k - g_{k-1}. */
+    private double[][] y;
+    /** Stores the update-gradient projection scalings, rho_k = 1/(y_k . s_k) */
+    private final double[] rho;
+    /** Temporary storage for on-the-fly projection scalings. */
+    private final double[] alpha;
+
+    /** The previous model parameters. */
+    private double[] x_km1;
+    /** The previous score gradient. */
+    private double[] g_km1;
+    /** The working storage for the search direction. */
+    private double[] z;
+    /** The vector view of the search direction. */
+    private DataVector zVec;
+    /** The initial inverse Hessian scaling, h_k = (s_k . y_k) / (y_k . y_k). */
+    private double h_k;
+    /** The current number of updates stored, up to the maximum number allowed. */
+    private int curSize = 0;
+    /**
+     * The current position of the latest update. Note: Once the storage is
+     * full, the subsequent current position will wrap around, and the newest
+     * update will replace the oldest update.
+     */
+    private int curPos = -1;
+
+    /**
+     * Specifies the number of updates to keep.
+     *
+     * @param maxSize
+     *            - The maximum number of updates.
+     */
+    public LBFGSHistory(int maxSize) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Memory size must be positive: " + maxSize);
+        this.maxSize = maxSize;
+        rho = new double[maxSize];
+        alpha = new double[maxSize];
+    }
+
+    /**
+     * Indicates the number of updates currently stored.
+     *
+     * @return The number of updates.
+     */
+    public int size() {
+        return curSize;
+    }
+
+    /**
+     * Records the current model parameters and score gradient, and computes
+     * the next search direction. The first direction is the gradient itself.
+     *
+     * @param x_k
+     *            - The current model parameters.
+     * @param g_k
+     *            - The current score gradient.
+     * @return The search direction, which is overwritten by the next update.
+     */
+    public DataVector update(DataVector x_k, DataVector g_k) {
+        if (curPos < 0) {
+            allocate(x_k.size());
+            copy(x_k, x_km1);
+            copy(g_k, g_km1);
+            System.arraycopy(g_km1, 0, z, 0, z.length);
+            curPos = 0;
+        } else {
+            computeDifferences(g_k, x_k);
+            computeDirection();
+            curPos = (curPos + 1) % maxSize;
+        }
+        return zVec;
+    }
+
+    private void allocate(int numParameters) {
+        s = new double[maxSize][numParameters];
+        y = new double[maxSize][numParameters];
+        x_km1 = new double[numParameters];
+        g_km1 = new double[numParameters];
+        z = new double[numParameters];
+        zVec = VectorFactory.newVector(z);
+    }
+
+    /**
+     * Computes the latest differences in place, and simultaneously replaces
+     * the previous parameters and gradient with the current ones.
+     */
+    private void computeDifferences(DataVector g_k, DataVector x_k) {
+        final double[] s_k = s[curPos], y_k = y[curPos];
+        copy(x_k, s_k);
+        copy(g_k, y_k);
+        double sy = 0, yy = 0;
+        for (int j = 0; j < s_k.length; j++) {
+            final double ds = s_k[j] - x_km1[j];
+            final double dy = y_k[j] - g_km1[j];
+            x_km1[j] = s_k[j];
+            g_km1[j] = y_k[j];
+            s_k[j] = ds;
+            y_k[j] = dy;
+            sy += ds * dy;
+            yy += dy * dy;
+        }
+        rho[curPos] = 1.0 / sy;
+        h_k = sy / yy;
+        curSize = (curSize >= maxSize) ? maxSize : (curSize + 1);
+    }
+
+    /**
+     * Computes the two-loop recursion into the working direction, fusing each
+     * update of the direction with the dot product required by the next step.
+     */
+    private void computeDirection() {
+        // Note: The previous gradient now holds g_k.
+        System.arraycopy(g_km1, 0, z, 0, z.length);
+        // Loop from most recent to least recent update.
+        int i = curPos;
+        double dot = dot(s[i], z);
+        for (int j = 0; j < curSize; j++) {
+            alpha[i] = rho[i] * dot;
+            final int next = (i - 1 + curSize) % curSize;
+            dot = axpyDot(-alpha[i], y[i], z, (j + 1 < curSize) ? s[next] : null);
+            i = next;
+        }
+        // Loop from least recent to most recent update.
+        i = (curPos + 1) % curSize;
+        dot = scaleDot(h_k, z, y[i]);
+        for (int j = 0; j < curSize; j++) {
+            final double beta_i = rho[i] * dot;
+            final int next = (i + 1) % curSize;
+            dot = axpyDot(alpha[i] - beta_i, s[i], z, (j + 1 < curSize) ? y[next] : null);
+            i = next;
+        }
+    }
+
+    // ***************************************
+    // Checkpointing.
+
+    @Override
+    public void saveState(Map<String, double[]> state) {
+        final int numParameters = (curPos < 0) ? 0 : z.length;
+        state.put(COUNTS, new double[] { maxSize, numParameters, curPos, curSize, h_k });
+        if (curPos < 0)
+            return;
+        state.put(S, flatten(s));
+        state.put(Y, flatten(y));
+        state.put(RHO, rho.clone());
+        state.put(PARAMETERS, x_km1.clone());
+        state.put(GRADIENT, g_km1.clone());
+    }
+
+    @Override
+    public void restoreState(Map<String, DoubleBuffer> state) {
+        final double[] counts = Checkpoints.toArray(state, COUNTS, 5);
+        if ((int) counts[0] != maxSize)
+            throw new IllegalArgumentException("Expected an L-BFGS memory size of " + maxSize
+                    + ", got " + (int) counts[0]);
+        final int numParameters = (int) counts[1];
+        final int pos = (int) counts[2];
+        final int size = (int) counts[3];
+        if (pos < -1 || pos >= maxSize || size < 0 || size > maxSize || (pos < 0) != (numParameters == 0))
+            throw new IllegalArgumentException("Inconsistent L-BFGS checkpoint state");
+        if (pos < 0) {
+            s = y = null;
+            x_km1 = g_km1 = z = null;
+            zVec = null;
+        } else {
+            if (z == null || z.length != numParameters)
+                allocate(numParameters);
+            unflatten(Checkpoints.toArray(state, S, maxSize * numParameters), s);
+            unflatten(Checkpoints.toArray(state, Y, maxSize * numParameters), y);
+            System.arraycopy(Checkpoints.toArray(state, RHO, maxSize), 0, rho, 0, maxSize);
+            System.arraycopy(Checkpoints.toArray(state, PARAMETERS, numParameters), 0, x_km1, 0, numParameters);
+            System.arraycopy(Checkpoints.toArray(state, GRADIENT, numParameters), 0, g_km1, 0, numParameters);
+        }
+        curPos = pos;
+        curSize = size;
+        h_k = counts[4];
+    }
+
+    /**
+     * Lays out the rows of the ring, in storage order, as a single array.
+     */
+    private static double[] flatten(double[][] rows) {
+        final int numColumns = rows[0].length;
+        final double[] data = new double[rows.length * numColumns];
+        for (int i = 0; i < rows.length; i++)
+            System.arraycopy(rows[i], 0, data, i * numColumns, numColumns);
+        return data;
+    }
+
+    private static void unflatten(double[] data, double[][] rows) {
+        final int numColumns = rows[0].length;
+        for (int i = 0; i < rows.length; i++)
+            System.arraycopy(data, i * numColumns, rows[i], 0, numColumns);
+    }
+
+    // ***************************************
+    // In-place kernels.
+
+    /**
+     * Copies the vector into the array, without allocating.
+     */
+    private static void copy(DataVector vec, double[] data) {
+        if (vec instanceof ArrayVector) {
+            System.arraycopy(((ArrayVector) vec).getArray(), 0, data, 0, data.length);
+        } else {
+            Arrays.fill(data, 0);
+            final VectorCursor cursor = vec.cursor();
+            while (cursor.hasNext()) {
+                final int pos = cursor.next();
+                data[pos] = cursor.value();
+            }
+        }
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int j = 0; j < a.length; j++) {
+            sum += a[j] * b[j];
+        }
+        return sum;
+    }
+
+    /**
+     * Computes z += multiplier * a, and then returns b . z.
+     *
+     * @param multiplier - The scaling of a.
+     * @param a - The vector to be added.
+     * @param z - The vector to be modified.
+     * @param b - The vector for the dot product, or null if not required.
+     * @return The dot product, or zero if not required.
+     */
+    private static double axpyDot(double multiplier, double[] a, double[] z, double[] b) {
+        if (b == null) {
+            for (int j = 0; j < z.length; j++) {
+                z[j] += multiplier * a[j];
+            }
+            return 0;
+        }
+        double sum = 0;
+        for (int j = 0; j < z.length; j++) {
+            final double value = z[j] + multiplier * a[j];
+            z[j] = value;
+            sum += b[j] * value;
+        }
+        return sum;
+    }
+
+    /**
+     * Computes z *= multiplier, and then returns b . z.
+     */
+    private static double scaleDot(double multiplier, double[] z, double[] b) {
+        double sum = 0;
+        for (int j = 0; j < z.length; j++) {
+            final double value = multiplier * z[j];
+            z[j] = value;
+            sum += b[j] * value;
+        }
+        return sum;
+    }
+
+}
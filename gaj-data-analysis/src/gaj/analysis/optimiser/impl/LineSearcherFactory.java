@@ -1,5 +1,8 @@
 package gaj.analysis.optimiser.impl;
 
+import gaj.analysis.model.AuxiliaryInfo;
+import gaj.analysis.model.ParameterisedModel;
+import gaj.analysis.model.score.ModelScorer;
 import gaj.analysis.optimiser.OptimiserInfo;
 import gaj.analysis.optimiser.searcher.LineSearchParams;
 import gaj.analysis.optimiser.searcher.LineSearcher;
@@ -35,6 +38,30 @@ public abstract class LineSearcherFactory {
         }
     }
 
+    /**
+     * Instantiates a line searcher of the specified type and binds it
+     * directly to the given model and scorer.
+     * 
+     * @param model
+     *            - The model to be optimised.
+     * @param scorer
+     *            - The gradient-aware scorer of the model.
+     * @param params
+     *            - The parameters to control each line search.
+     * @param info
+     *            - Optional information to pass to the scorer.
+     * @return An instantiated line searcher.
+     */
+    public static <I, O> LineSearcher newLineSearcher(ParameterisedModel<I, O> model, ModelScorer<I, O> scorer,
+            LineSearchParams params, AuxiliaryInfo... info) {
+        switch (params.getLineSearcherType()) {
+            case WOLFE:
+                return new WolfeLineSearcher<>(model, scorer, params, info);
+            default:
+                throw new IllegalArgumentException("Line searcher type requires an optimiser: " + params.getLineSearcherType());
+        }
+    }
+
     /**
      * Provides (possibly default) parameter settings for a line search
      * algorithm of the specified type.
@@ -0,0 +1,285 @@
+package gaj.analysis.optimiser.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import gaj.analysis.model.AuxiliaryInfo;
+import gaj.analysis.optimiser.OptimisationState;
+import gaj.analysis.optimiser.OptimiserListener;
+import gaj.analysis.optimiser.OptimiserMetrics;
+import gaj.analysis.optimiser.OptimiserPhase;
+
+/**
+ * Records the metrics of a single optimisation round, and notifies any
+ * {@link OptimiserListener} supplied in the auxiliary information after each
+ * iteration.
+ * <p/>
+ * Heap allocation is measured per thread via the HotSpot extension of
+ * {@link java.lang.management.ThreadMXBean}, and summed over all live
+ * threads of the JVM, so that work done by worker threads is included. The
+ * optimiser cannot tell its own threads apart, so any concurrent work, such
+ * as another optimiser, is also attributed to it; allocation is only
+ * meaningful for a run that has the JVM to itself. Allocation by threads
+ * that terminate mid-iteration is not counted.
+ * <p/>
+ * Timed phases may be nested, e.g. the scoring within a line search, in
+ * which case the time of an inner phase is excluded from the enclosing phase,
+ * so that no time is recorded against more than one phase.
+ * <p/>
+ * Note: The recorder is not thread-safe, and should only be updated by the
+ * thread that runs the optimiser.
+ */
+public class MetricsRecorder implements OptimiserMetrics {
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = getThreadBean();
+
+    private final List<OptimiserListener> listeners;
+    private final long[] phaseNanos = new long[OptimiserPhase.values().length];
+    /** The time recorded against all phases. */
+    private long sumPhaseNanos = 0;
+    private long totalNanos = 0;
+    private long numDataPasses = 0;
+    private long numScoreEvaluations = 0;
+    private long numGradientEvaluations = 0;
+    private long allocatedBytes = (THREAD_BEAN == null) ? -1 : 0;
+    private long iterationNanos = 0;
+    private long iterationAllocatedBytes = (THREAD_BEAN == null) ? -1 : 0;
+    private long iterationStart;
+    private Map<Long, Long> iterationStartBytes = null;
+
+    /**
+     * Creates a recorder for a new optimisation round.
+     *
+     * @param info
+     *            - The auxiliary information, possibly including listeners.
+     */
+    public MetricsRecorder(AuxiliaryInfo... info) {
+        listeners = OptimiserListener.listeners(info);
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        try {
+            final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+                if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled())
+                    return sunBean;
+            }
+        } catch (LinkageError | UnsupportedOperationException e) {
+            // Allocation measurement is unavailable on this JVM.
+        }
+        return null;
+    }
+
+    /**
+     * Snapshots the allocated bytes of every live thread.
+     */
+    private static Map<Long, Long> getThreadBytes() {
+        final long[] ids = THREAD_BEAN.getAllThreadIds();
+        final long[] bytes = THREAD_BEAN.getThreadAllocatedBytes(ids);
+        final Map<Long, Long> threadBytes = new HashMap<>(2 * ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0)
+                threadBytes.put(ids[i], bytes[i]);
+        }
+        return threadBytes;
+    }
+
+    /**
+     * Starts timing a phase of optimisation.
+     *
+     * @return The start time, offset by the time already recorded against
+     *         all phases.
+     */
+    public long startTimer() {
+        return System.nanoTime() - sumPhaseNanos;
+    }
+
+    /**
+     * Stops timing a phase of optimisation. Any time recorded against other
+     * phases since the timer was started is excluded.
+     *
+     * @param phase
+     *            - The optimisation phase.
+     * @param startTime
+     *            - The start time, as obtained from {@link #startTimer}().
+     */
+    public void stopTimer(OptimiserPhase phase, long startTime) {
+        addElapsedNanos(phase, System.nanoTime() - sumPhaseNanos - startTime);
+    }
+
+    /**
+     * Records time spent in a phase of optimisation that was measured
+     * elsewhere, e.g. on worker threads.
+     *
+     * @param phase
+     *            - The optimisation phase.
+     * @param nanos
+     *            - The elapsed time in nanoseconds.
+     */
+    public void addElapsedNanos(OptimiserPhase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+        sumPhaseNanos += nanos;
+    }
+
+    /**
+     * Counts a complete pass through the training data.
+     */
+    public void countDataPass() {
+        numDataPasses++;
+    }
+
+    /**
+     * Counts score evaluations, where each evaluation scores the single set
+     * of data cases that determines the next action of the optimiser.
+     *
+     * @param count
+     *            - The number of evaluations.
+     * @param withGradient
+     *            - A flag indicating whether or not the score gradients were
+     *            also computed.
+     */
+    public void countScoreEvaluations(long count, boolean withGradient) {
+        numScoreEvaluations += count;
+        if (withGradient)
+            numGradientEvaluations += count;
+    }
+
+    /**
+     * Marks the start of an optimisation iteration.
+     */
+    public void startIteration() {
+        if (THREAD_BEAN != null)
+            iterationStartBytes = getThreadBytes();
+        iterationStart = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of an optimisation iteration, and notifies the listeners.
+     *
+     * @param state
+     *            - The current state of the optimiser.
+     * @return A value of true (or false) if all listeners agreed that
+     *         optimisation should continue (or if any listener requested a
+     *         halt).
+     */
+    public boolean endIteration(OptimisationState state) {
+        iterationNanos = System.nanoTime() - iterationStart;
+        totalNanos += iterationNanos;
+        if (iterationStartBytes != null) {
+            long bytes = 0;
+            for (Map.Entry<Long, Long> entry : getThreadBytes().entrySet()) {
+                final Long startBytes = iterationStartBytes.get(entry.getKey());
+                bytes += entry.getValue() - ((startBytes == null) ? 0 : startBytes);
+            }
+            iterationAllocatedBytes = bytes;
+            allocatedBytes += bytes;
+            iterationStartBytes = null;
+        }
+        boolean isContinuing = true;
+        for (OptimiserListener listener : listeners) {
+            if (!listener.iterationCompleted(state, this))
+                isContinuing = false;
+        }
+        return isContinuing;
+    }
+
+    /**
+     * Copies the current metrics.
+     *
+     * @return An immutable copy of the metrics.
+     */
+    public OptimiserMetrics snapshot() {
+        final long[] _phaseNanos = phaseNanos.clone();
+        final long _totalNanos = totalNanos;
+        final long _numDataPasses = numDataPasses;
+        final long _numScoreEvaluations = numScoreEvaluations;
+        final long _numGradientEvaluations = numGradientEvaluations;
+        final long _allocatedBytes = allocatedBytes;
+        final long _iterationNanos = iterationNanos;
+        final long _iterationAllocatedBytes = iterationAllocatedBytes;
+        return new OptimiserMetrics() {
+            @Override
+            public long getElapsedNanos(OptimiserPhase phase) {
+                return _phaseNanos[phase.ordinal()];
+            }
+
+            @Override
+            public long getTotalElapsedNanos() {
+                return _totalNanos;
+            }
+
+            @Override
+            public long getNumDataPasses() {
+                return _numDataPasses;
+            }
+
+            @Override
+            public long getNumScoreEvaluations() {
+                return _numScoreEvaluations;
+            }
+
+            @Override
+            public long getNumGradientEvaluations() {
+                return _numGradientEvaluations;
+            }
+
+            @Override
+            public long getAllocatedBytes() {
+                return _allocatedBytes;
+            }
+
+            @Override
+            public long getIterationNanos() {
+                return _iterationNanos;
+            }
+
+            @Override
+            public long getIterationAllocatedBytes() {
+                return _iterationAllocatedBytes;
+            }
+        };
+    }
+
+    @Override
+    public long getElapsedNanos(OptimiserPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    @Override
+    public long getTotalElapsedNanos() {
+        return totalNanos;
+    }
+
+    @Override
+    public long getNumDataPasses() {
+        return numDataPasses;
+    }
+
+    @Override
+    public long getNumScoreEvaluations() {
+        return numScoreEvaluations;
+    }
+
+    @Override
+    public long getNumGradientEvaluations() {
+        return numGradientEvaluations;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public long getIterationNanos() {
+        return iterationNanos;
+    }
+
+    @Override
+    public long getIterationAllocatedBytes() {
+        return iterationAllocatedBytes;
+    }
+
+}
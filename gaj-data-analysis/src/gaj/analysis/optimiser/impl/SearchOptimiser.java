@@ -13,10 +13,14 @@ import gaj.analysis.optimiser.searcher.LineSearchStatus;
 import gaj.analysis.optimiser.searcher.LineSearcher;
 import gaj.analysis.optimiser.OptimisationResults;
 import gaj.analysis.optimiser.OptimisationStatus;
+import gaj.analysis.optimiser.OptimiserPhase;
 
 /**
  * Implements a generic optimiser that uses variants of direction search and
  * line search to maximise/minimise the model score.
+ * <p/>
+ * The time spent in each search is recorded in the metrics, excluding the
+ * time spent scoring the model.
  */
 public class SearchOptimiser extends IterativeOptimiser {
 
@@ -60,9 +64,14 @@ public class SearchOptimiser extends IterativeOptimiser {
 
     @Override
     protected OptimisationStatus update(OptimiserInfo params) {
+        final MetricsRecorder metrics = getMetrics();
+        long startTime = metrics.startTimer();
         DirectionSearchStatus dsStatus = dirSearcher.search(direction);
+        metrics.stopTimer(OptimiserPhase.DIRECTION_SEARCH, startTime);
         if (dsStatus != DirectionSearchStatus.AVAILABLE) return dsStatus.getOptimisationStatus();
+        startTime = metrics.startTimer();
         LineSearchStatus lsStatus = lineSearcher.search(direction);
+        metrics.stopTimer(OptimiserPhase.LINE_SEARCH, startTime);
         return lsStatus.getOptimisationStatus();
     }
 
@@ -0,0 +1,468 @@
+package gaj.analysis.optimiser.impl;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import gaj.analysis.model.AuxiliaryInfo;
+import gaj.analysis.model.ParameterisedModel;
+import gaj.analysis.model.score.BatchModelScorer;
+import gaj.analysis.model.score.Datum;
+import gaj.analysis.model.score.GradientScoreInfo;
+import gaj.analysis.model.score.ModelScorer;
+import gaj.analysis.model.score.ScoreInfo;
+import gaj.analysis.numeric.vector.ArrayVector;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.VectorCursor;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+import gaj.analysis.optimiser.CheckpointInfo;
+import gaj.analysis.optimiser.Checkpointable;
+import gaj.analysis.optimiser.ModelOptimiser;
+import gaj.analysis.optimiser.OptimisationResults;
+import gaj.analysis.optimiser.OptimisationState;
+import gaj.analysis.optimiser.OptimisationStatus;
+import gaj.analysis.optimiser.OptimiserListener;
+import gaj.analysis.optimiser.OptimiserMetrics;
+import gaj.analysis.optimiser.OptimiserPhase;
+import gaj.analysis.optimiser.StochasticOptimiserInfo;
+import gaj.analysis.optimiser.StochasticUpdateType;
+
+/**
+ * Implements a reusable scheme for stochastic, mini-batch gradient
+ * optimisation. Each call to {@link #optimise}() takes up where the previous
+ * call left off.
+ * <p/>
+ * The data cases are streamed from the data source of the scorer, through a
+ * bounded shuffle buffer, into fixed-size mini-batches. The model parameters
+ * are updated after each mini-batch, so that memory use is bounded by the
+ * shuffle buffer and the update state, and the time per update is bounded by
+ * the batch size.
+ * <p/>
+ * The optimisation score of each pass through the data is the weighted
+ * average of the mini-batch scores, each computed prior to the corresponding
+ * parameter update. No full-batch rescoring of the model is performed.
+ * <p/>
+ * The shuffling of each pass is determined by the seed of the
+ * {@link StochasticOptimiserInfo} and the number of the pass, so that
+ * optimisation with the same seed and data is repeatable. The seed is fixed
+ * by the first round of optimisation, or by a restored checkpoint, and is
+ * thereafter ignored.
+ * <p/>
+ * If {@link CheckpointInfo} is supplied, the model parameters and update
+ * state are checkpointed in the background after every given number of
+ * passes, and again when optimisation ceases, unless that pass was just
+ * checkpointed. Optimisation may be resumed in another process by restoring
+ * both the model and a new optimiser via {@link Checkpoints#restore}(), and
+ * then gives the same parameters as uninterrupted optimisation, provided the
+ * data source supplies the same cases in the same order.
+ * <p/>
+ * The time spent scoring mini-batches, updating parameters and writing
+ * checkpoints is recorded in the {@link OptimiserMetrics} of the results,
+ * and any {@link OptimiserListener} is notified after each pass.
+ * <p/>
+ * Note: The model scorer must be a {@link BatchModelScorer}, and the model
+ * must be able to compute score gradients.
+ *
+ * <I> - The input data type.
+ * <O> - The output data type.
+ */
+public class StochasticOptimiser<I, O> implements ModelOptimiser<I, O>, OptimisationState, Checkpointable {
+
+    private static final String COUNTS = "stochastic.counts";
+    private static final String MOMENT1 = "stochastic.moment1";
+    private static final String MOMENT2 = "stochastic.moment2";
+    private static final String SEED = "stochastic.seed";
+
+    /** Current number of passes through the data source. */
+    private int numIterations = 0;
+    /** Current number of mini-batch parameter updates. */
+    private int numSubIterations = 0;
+    /** Current status of the optimisation process. */
+    private OptimisationStatus status = OptimisationStatus.RUNNING;
+    /** The model parameters. */
+    private double[] theta = null;
+    /** The dense score gradient. */
+    private double[] gradient;
+    /** The momentum, or the first moment estimate of the gradient. */
+    private double[] moment1;
+    /** The second moment estimate of the gradient. */
+    private double[] moment2;
+    /** The shuffling seed, or null if not yet fixed. */
+    private Long seed = null;
+    /** The number of parameter updates performed with the current moments. */
+    private long numUpdates = 0;
+    /** The optimisation score of the most recent pass. */
+    private ScoreInfo score = null;
+    /** The summed weight of the mini-batches in the current pass. */
+    private double sumWeight;
+    /** The summed weighted score of the mini-batches in the current pass. */
+    private double sumScore;
+
+    @Override
+    public int getNumIterations() {
+        return numIterations;
+    }
+
+    @Override
+    public int getNumSubIterations() {
+        return numSubIterations;
+    }
+
+    @Override
+    public ScoreInfo getScore() {
+        return (score == null) ? ScoreInfo.NO_SCORE_INFO : score;
+    }
+
+    @Override
+    public OptimisationStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public OptimisationResults optimise(ParameterisedModel<I, O> model, ModelScorer<I, O> scorer, AuxiliaryInfo... info) {
+        final StochasticOptimiserInfo params = StochasticOptimiserInfo.stochasticInfo(info);
+        if (params == null)
+            throw new IllegalArgumentException("Missing stochastic optimiser settings");
+        if (!(scorer instanceof BatchModelScorer))
+            throw new IllegalArgumentException("Scorer cannot score mini-batches");
+        final BatchModelScorer<I, O> batchScorer = (BatchModelScorer<I, O>) scorer;
+        final AuxiliaryInfo[] gradientInfo = Arrays.copyOf(info, info.length + 1);
+        gradientInfo[info.length] = AuxiliaryInfo.COMPUTE_GRADIENT;
+        final MetricsRecorder metrics = new MetricsRecorder(info);
+        if (!model.computeGradient(gradientInfo)) {
+            status = OptimisationStatus.GRADIENT_UNAVAILABLE;
+            return getResults(0, 0, getScore(), getScore(), status, metrics.snapshot());
+        }
+        initialise(model);
+        if (seed == null)
+            seed = params.getSeed();
+        final int outerIterations = numIterations;
+        final int outerSubIterations = numSubIterations;
+        final ScoreInfo initialScore = getScore();
+        if (status == OptimisationStatus.MAX_ITERATIONS_EXCEEDED
+                || status == OptimisationStatus.HALTED_BY_LISTENER)
+            status = OptimisationStatus.RUNNING;
+        final CheckpointInfo checkpointInfo = CheckpointInfo.checkpointInfo(info);
+        try (Checkpointer checkpointer = (checkpointInfo == null) ? null : new Checkpointer(checkpointInfo)) {
+            boolean isCheckpointed = false;
+            while (status == OptimisationStatus.RUNNING) {
+                if (params.getMaxIterations() > 0 && numIterations - outerIterations >= params.getMaxIterations()) {
+                    status = OptimisationStatus.MAX_ITERATIONS_EXCEEDED;
+                    break;
+                }
+                metrics.startIteration();
+                status = iterate(model, batchScorer, params, gradientInfo, metrics);
+                isCheckpointed = false;
+                if (checkpointer != null && status == OptimisationStatus.RUNNING) {
+                    final long startTime = metrics.startTimer();
+                    isCheckpointed = checkpointer.update(numIterations, model, this);
+                    metrics.stopTimer(OptimiserPhase.CHECKPOINT, startTime);
+                }
+                if (!metrics.endIteration(this) && status == OptimisationStatus.RUNNING)
+                    status = OptimisationStatus.HALTED_BY_LISTENER;
+            }
+            if (checkpointer != null && !isCheckpointed) {
+                final long startTime = metrics.startTimer();
+                checkpointer.checkpoint(model, this);
+                metrics.stopTimer(OptimiserPhase.CHECKPOINT, startTime);
+            }
+        }
+        return getResults(numIterations - outerIterations, numSubIterations - outerSubIterations,
+                initialScore, getScore(), status, metrics.snapshot());
+    }
+
+    @Override
+    public void saveState(Map<String, double[]> state) {
+        final double prevScore = (score == null) ? Double.NaN : score.getScore();
+        state.put(COUNTS, new double[] { numIterations, numSubIterations, numUpdates, prevScore });
+        if (seed != null)
+            // Split the seed into halves that are exactly representable.
+            state.put(SEED, new double[] { seed >>> 32, seed & 0xFFFFFFFFL });
+        if (theta != null) {
+            state.put(MOMENT1, moment1.clone());
+            state.put(MOMENT2, moment2.clone());
+        }
+    }
+
+    @Override
+    public void restoreState(Map<String, DoubleBuffer> state) {
+        final double[] counts = Checkpoints.toArray(state, COUNTS, 4);
+        if (state.containsKey(SEED)) {
+            final double[] halves = Checkpoints.toArray(state, SEED, 2);
+            seed = ((long) halves[0] << 32) | (long) halves[1];
+        } else {
+            seed = null;
+        }
+        final DoubleBuffer data = state.get(MOMENT1);
+        if (data != null) {
+            final int numParameters = data.remaining();
+            moment1 = Checkpoints.toArray(state, MOMENT1, numParameters);
+            moment2 = Checkpoints.toArray(state, MOMENT2, numParameters);
+            gradient = new double[numParameters];
+            // Mark the update state as matching a model of this size.
+            theta = new double[numParameters];
+        } else {
+            theta = null;
+        }
+        numIterations = (int) counts[0];
+        numSubIterations = (int) counts[1];
+        numUpdates = (long) counts[2];
+        score = Double.isNaN(counts[3]) ? null : ScoreInfo.newScoreInfo(counts[3], 1.0);
+        status = OptimisationStatus.RUNNING;
+    }
+
+    /**
+     * Allocates the update state, unless the model already matches the state.
+     *
+     * @param model
+     *            - The model to be optimised.
+     */
+    private void initialise(ParameterisedModel<I, O> model) {
+        final int numParameters = model.numParameters();
+        if (theta == null || theta.length != numParameters) {
+            gradient = new double[numParameters];
+            moment1 = new double[numParameters];
+            moment2 = new double[numParameters];
+            numUpdates = 0;
+        }
+        theta = VectorFactory.toArray(model.getParameters());
+    }
+
+    /**
+     * Performs a single pass through the data source, updating the model
+     * parameters after each mini-batch.
+     *
+     * @param model
+     *            - The model to be optimised.
+     * @param scorer
+     *            - The mini-batch scorer.
+     * @param params
+     *            - The parameters controlling the optimisation process.
+     * @param info
+     *            - The auxiliary information, including a gradient request.
+     * @param metrics
+     *            - The recorder of optimisation metrics.
+     * @return The status of the optimiser after the pass.
+     */
+    private OptimisationStatus iterate(ParameterisedModel<I, O> model, BatchModelScorer<I, O> scorer,
+            StochasticOptimiserInfo params, AuxiliaryInfo[] info, MetricsRecorder metrics)
+    {
+        final int batchSize = Math.max(1, params.getBatchSize());
+        final int bufferSize = Math.max(batchSize, params.getShuffleBufferSize());
+        final Random random = new Random(passSeed(seed, numIterations));
+        final List<Datum<I>> buffer = new ArrayList<>(bufferSize);
+        final List<Datum<I>> batch = new ArrayList<>(batchSize);
+        sumWeight = sumScore = 0;
+        try (Stream<Datum<I>> stream = scorer.getSource().stream()) {
+            final Iterator<Datum<I>> iter = stream.iterator();
+            while (iter.hasNext()) {
+                final Datum<I> datum = iter.next();
+                if (buffer.size() < bufferSize) {
+                    buffer.add(datum);
+                    continue;
+                }
+                // Draw a random buffered case, and replace it with the new case.
+                final int pos = random.nextInt(bufferSize);
+                batch.add(buffer.get(pos));
+                buffer.set(pos, datum);
+                if (batch.size() == batchSize) {
+                    if (!update(model, scorer, batch, params, info, metrics))
+                        return OptimisationStatus.GRADIENT_UNAVAILABLE;
+                    batch.clear();
+                }
+            }
+        }
+        // Drain the buffer.
+        Collections.shuffle(buffer, random);
+        for (Datum<I> datum : buffer) {
+            batch.add(datum);
+            if (batch.size() == batchSize) {
+                if (!update(model, scorer, batch, params, info, metrics))
+                    return OptimisationStatus.GRADIENT_UNAVAILABLE;
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty() && !update(model, scorer, batch, params, info, metrics))
+            return OptimisationStatus.GRADIENT_UNAVAILABLE;
+        numIterations++;
+        metrics.countDataPass();
+        final ScoreInfo prevScore = score;
+        score = ScoreInfo.newScoreInfo((sumWeight == 0) ? 0 : sumScore / sumWeight, 1.0);
+        return postUpdate(params, prevScore, score);
+    }
+
+    /**
+     * Derives the shuffling seed of a pass from the optimisation seed, such
+     * that the generators of consecutive passes are uncorrelated.
+     *
+     * @param seed
+     *            - The optimisation seed.
+     * @param pass
+     *            - The number of previous passes.
+     * @return The seed of the pass.
+     */
+    private static long passSeed(long seed, int pass) {
+        // Note: This is the SplitMix64 finaliser.
+        long h = seed + (pass + 1) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * Checks whether or not optimisation should cease based on the change in
+     * score over a pass through the data source. Since mini-batch scores are
+     * noisy, a lack of improvement does not itself halt the optimisation.
+     *
+     * @param params
+     *            - The parameters controlling the optimisation process.
+     * @param prevScore
+     *            - The score of the previous pass, or null.
+     * @param curScore
+     *            - The score of the current pass.
+     * @return The status of the optimiser after the pass.
+     */
+    private OptimisationStatus postUpdate(StochasticOptimiserInfo params, ScoreInfo prevScore, ScoreInfo curScore) {
+        if (prevScore == null)
+            return OptimisationStatus.RUNNING;
+        final double diffScore = Math.abs(curScore.getScore() - prevScore.getScore());
+        if (params.getScoreTolerance() > 0 && diffScore < params.getScoreTolerance())
+            return OptimisationStatus.SCORE_CONVERGED;
+        if (params.getRelativeScoreTolerance() > 0
+                && diffScore < Math.abs(prevScore.getScore()) * params.getRelativeScoreTolerance())
+            return OptimisationStatus.RELATIVE_SCORE_CONVERGED;
+        return OptimisationStatus.RUNNING;
+    }
+
+    /**
+     * Scores the mini-batch and updates the model parameters in place from
+     * the score gradient. The mini-batch score is added to the score of the
+     * current pass.
+     *
+     * @param model
+     *            - The model to be optimised.
+     * @param scorer
+     *            - The mini-batch scorer.
+     * @param batch
+     *            - The mini-batch of data cases.
+     * @param params
+     *            - The parameters controlling the optimisation process.
+     * @param info
+     *            - The auxiliary information, including a gradient request.
+     * @param metrics
+     *            - The recorder of optimisation metrics.
+     * @return A value of true (or false) if the parameters were (or were not)
+     *         updated, i.e. if the gradient was (or was not) available.
+     */
+    private boolean update(ParameterisedModel<I, O> model, BatchModelScorer<I, O> scorer,
+            List<Datum<I>> batch, StochasticOptimiserInfo params, AuxiliaryInfo[] info, MetricsRecorder metrics)
+    {
+        long startTime = metrics.startTimer();
+        final ScoreInfo batchScore = scorer.score(model, batch, info);
+        metrics.stopTimer(OptimiserPhase.SCORING, startTime);
+        final boolean hasGradient = batchScore instanceof GradientScoreInfo;
+        metrics.countScoreEvaluations(1, hasGradient);
+        if (!hasGradient)
+            return false;
+        startTime = metrics.startTimer();
+        double weight = 0;
+        for (Datum<I> datum : batch)
+            weight += datum.getWeight();
+        sumWeight += weight;
+        sumScore += weight * batchScore.getScore();
+        gather(((GradientScoreInfo) batchScore).getScoreGradient());
+        numUpdates++;
+        final double step = params.getDirectionSign() * params.getLearningRate();
+        final double mu = params.getMomentum();
+        if (params.getUpdateType() == StochasticUpdateType.MOMENTUM) {
+            // v <- mu v + g; theta <- theta +/- eta v.
+            for (int i = 0; i < theta.length; i++) {
+                final double v = mu * moment1[i] + gradient[i];
+                moment1[i] = v;
+                theta[i] += step * v;
+            }
+        } else {
+            // m <- beta1 m + (1 - beta1) g; v <- beta2 v + (1 - beta2) g^2;
+            // theta <- theta +/- eta m^ / (sqrt(v^) + epsilon).
+            final double beta2 = params.getSecondMomentDecay();
+            final double epsilon = params.getEpsilon();
+            final double bias1 = 1 - Math.pow(mu, numUpdates);
+            final double bias2 = 1 - Math.pow(beta2, numUpdates);
+            final double _step = step * Math.sqrt(bias2) / bias1;
+            final double _epsilon = epsilon * Math.sqrt(bias2);
+            for (int i = 0; i < theta.length; i++) {
+                final double g = gradient[i];
+                final double m = mu * moment1[i] + (1 - mu) * g;
+                final double v = beta2 * moment2[i] + (1 - beta2) * g * g;
+                moment1[i] = m;
+                moment2[i] = v;
+                theta[i] += _step * m / (Math.sqrt(v) + _epsilon);
+            }
+        }
+        model.setParameters(VectorFactory.newVector(theta));
+        metrics.stopTimer(OptimiserPhase.UPDATE, startTime);
+        numSubIterations++;
+        return true;
+    }
+
+    /**
+     * Copies the score gradient into the dense gradient array.
+     *
+     * @param vector
+     *            - The score gradient.
+     */
+    private void gather(DataVector vector) {
+        if (vector instanceof ArrayVector) {
+            System.arraycopy(((ArrayVector) vector).getArray(), 0, gradient, 0, gradient.length);
+            return;
+        }
+        Arrays.fill(gradient, 0);
+        final VectorCursor cursor = vector.cursor();
+        while (cursor.hasNext()) {
+            final int pos = cursor.next();
+            gradient[pos] = cursor.value();
+        }
+    }
+
+    private OptimisationResults getResults(int numIterations, int subIterations,
+            ScoreInfo initialScore, ScoreInfo finalScore, OptimisationStatus finalStatus, OptimiserMetrics metrics)
+    {
+        return new OptimisationResults() {
+            @Override
+            public int getNumIterations() {
+                return numIterations;
+            }
+
+            @Override
+            public int getNumSubIterations() {
+                return subIterations;
+            }
+
+            @Override
+            public ScoreInfo getInitalScore() {
+                return initialScore;
+            }
+
+            @Override
+            public ScoreInfo getScore() {
+                return finalScore;
+            }
+
+            @Override
+            public OptimisationStatus getStatus() {
+                return finalStatus;
+            }
+
+            @Override
+            public OptimiserMetrics getMetrics() {
+                return metrics;
+            }
+        };
+    }
+
+}
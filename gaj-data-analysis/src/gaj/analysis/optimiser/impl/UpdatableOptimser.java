@@ -2,10 +2,12 @@ package gaj.analysis.optimiser.impl;
 
 import gaj.analysis.model.AuxiliaryInfo;
 import gaj.analysis.model.ParameterisedModel;
+import gaj.analysis.model.score.GradientScoreInfo;
 import gaj.analysis.model.score.ModelScorer;
 import gaj.analysis.model.score.ScoreInfo;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.optimiser.OptimisationResults;
+import gaj.analysis.optimiser.OptimiserPhase;
 
 /**
  * Specifies the base form of an optimiser bound to a specific model and a
@@ -21,6 +23,11 @@ public abstract class UpdatableOptimser<I, O> extends ModifiableOptimisationStat
      */
     private final ModelScorer<I, O> scorer;
 
+    /**
+     * The recorder of metrics for the current round of optimisation.
+     */
+    private MetricsRecorder metrics = new MetricsRecorder();
+
     /**
      * Binds the optimisation algorithm to the given model and scorers.
      * 
@@ -65,6 +72,25 @@ public abstract class UpdatableOptimser<I, O> extends ModifiableOptimisationStat
         model.setParameters(params);
     }
 
+    /**
+     * Obtains the recorder of metrics for the current round of optimisation.
+     * 
+     * @return The metrics recorder.
+     */
+    protected MetricsRecorder getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Specifies the recorder of metrics for a new round of optimisation.
+     * 
+     * @param metrics
+     *            - The metrics recorder.
+     */
+    protected void setMetrics(MetricsRecorder metrics) {
+        this.metrics = metrics;
+    }
+
     // ************************************************************************
     // Optimisation-specific interface. The information generated is only valid
     // for the current optimisation run.
@@ -85,7 +111,10 @@ public abstract class UpdatableOptimser<I, O> extends ModifiableOptimisationStat
      * Computes the current optimisation and validation scores of the model.
      */
     protected void computeScore() {
+        final long startTime = metrics.startTimer();
         ScoreInfo optimisationScore = scorers[0].score(model, WITH_AUXILIARY);
+        metrics.stopTimer(OptimiserPhase.SCORING, startTime);
+        metrics.countScoreEvaluations(1, optimisationScore instanceof GradientScoreInfo);
         setScoreInfo(optimisationScore);
         getScores()[0] = optimisationScore.getScore();
     }
@@ -94,10 +123,13 @@ public abstract class UpdatableOptimser<I, O> extends ModifiableOptimisationStat
      * Computes the current validation scores of the model.
      */
     protected void computeValidationScores() {
+        final long startTime = metrics.startTimer();
         double[] scores = getScores();
         for (int i = 1; i < scorers.length; i++) {
             scores[i] = scorers[i].score(model, NO_AUXILIARY).getScore();
+            metrics.countScoreEvaluations(1, false);
         }
+        metrics.stopTimer(OptimiserPhase.VALIDATION, startTime);
     }
 
 }
@@ -0,0 +1,415 @@
+package gaj.analysis.optimiser.impl;
+
+import java.util.Arrays;
+import gaj.analysis.curves.Cubics;
+import gaj.analysis.curves.Quadratics;
+import gaj.analysis.model.AuxiliaryInfo;
+import gaj.analysis.model.ParameterisedModel;
+import gaj.analysis.model.score.GradientScoreInfo;
+import gaj.analysis.model.score.ModelScorer;
+import gaj.analysis.model.score.ScoreInfo;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.WritableVector;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+import gaj.analysis.optimiser.OptimiserPhase;
+import gaj.analysis.optimiser.searcher.LineSearchParams;
+import gaj.analysis.optimiser.searcher.LineSearchStatus;
+import gaj.analysis.optimiser.searcher.LineSearcher;
+import gaj.analysis.optimiser.searcher.LineSearcherType;
+
+/**
+ * Implements {@link LineSearcherType#WOLFE}.
+ * <p/>
+ * Given the search direction d, the line search considers the parameters
+ * x(rho) = x0 + rho * sign * d, where the sign is positive (or negative) for
+ * score maximisation (or minimisation). The step-size rho is first expanded
+ * until an acceptable step is bracketed, and the bracket is then narrowed by
+ * safeguarded cubic or quadratic interpolation, until the strong Wolfe
+ * conditions hold.
+ * <p/>
+ * Each trial step-size is scored once, with the score and its gradient
+ * computed in the same pass over the data. The most recent evaluations are
+ * cached, so that neither a revisited step-size nor the starting point of the
+ * next search need be re-scored. The model parameters are updated in place
+ * from a single reusable buffer.
+ * <p/>
+ * If a {@link MetricsRecorder} is supplied, each scoring is timed as
+ * {@link OptimiserPhase#SCORING} and counted as a gradient evaluation, and the
+ * remainder of each search is timed as {@link OptimiserPhase#LINE_SEARCH}.
+ * <p/>
+ * Note: The scorer must be able to compute score gradients.
+ *
+ * @param <I> - The type of model input.
+ * @param <O> - The type of model output.
+ */
+public class WolfeLineSearcher<I, O> implements LineSearcher {
+
+    /** The number of recent evaluations to retain. */
+    private static final int CACHE_SIZE = 4;
+    /** The factor by which the step-size is expanded whilst bracketing. */
+    private static final double EXPANSION = 2;
+    /** The fraction of the bracket at either end that an interpolated step-size may not enter. */
+    private static final double SAFEGUARD = 0.1;
+    /** The relative bracket width below which the search gives up. */
+    private static final double MIN_RELATIVE_WIDTH = 1e-12;
+
+    /**
+     * Records the score and directional gradient at a given step-size.
+     */
+    private static final class Evaluation {
+        /** The step-size, rho. */
+        private final double stepSize;
+        /** The signed score, phi(rho) = sign * score. */
+        private final double value;
+        /** The signed directional gradient, phi'(rho). */
+        private final double slope;
+        private final GradientScoreInfo scoreInfo;
+
+        private Evaluation(double stepSize, double value, double slope, GradientScoreInfo scoreInfo) {
+            this.stepSize = stepSize;
+            this.value = value;
+            this.slope = slope;
+            this.scoreInfo = scoreInfo;
+        }
+    }
+
+    private final ParameterisedModel<I, O> model;
+    private final ModelScorer<I, O> scorer;
+    private final LineSearchParams params;
+    private final AuxiliaryInfo[] info;
+    private final double sign;
+    private final Evaluation[] cache = new Evaluation[CACHE_SIZE];
+    private int cacheSize = 0;
+    private int cacheNext = 0;
+
+    /** The parameters x0 at the start of the current search. */
+    private double[] origin = new double[0];
+    /** The signed direction, sign * d. */
+    private double[] delta = new double[0];
+    /** The buffer holding the trial parameters. */
+    private double[] point = new double[0];
+    private WritableVector pointVector = VectorFactory.newVector(point);
+    private WritableVector deltaVector = VectorFactory.newVector(delta);
+    /** The step-size of the parameters currently held by the model. */
+    private double modelStepSize = 0;
+
+    /** The score and gradient at the current model parameters. */
+    private /*@Nullable*/ GradientScoreInfo current = null;
+    /** The signed score improvement of the previous search. */
+    private double prevImprovement = 0;
+    private double prevSlope = 0;
+    private double stepSize = 0;
+    private int numEvaluations = 0;
+    private /*@Nullable*/ MetricsRecorder metrics = null;
+
+    /**
+     * Binds the line search to the given model and scorer.
+     *
+     * @param model
+     *            - The model whose parameters are to be updated.
+     * @param scorer
+     *            - The gradient-aware scorer of the model.
+     * @param params
+     *            - The parameters controlling the termination of the line
+     *            search.
+     * @param info
+     *            - Optional information to pass to the scorer.
+     */
+    public WolfeLineSearcher(ParameterisedModel<I, O> model, ModelScorer<I, O> scorer, LineSearchParams params,
+            AuxiliaryInfo... info) {
+        this.model = model;
+        this.scorer = scorer;
+        this.params = params;
+        this.info = Arrays.copyOf(info, info.length + 1);
+        this.info[info.length] = AuxiliaryInfo.COMPUTE_GRADIENT;
+        sign = (params.getDirectionSign() < 0) ? -1 : 1;
+    }
+
+    /**
+     * Specifies where to record the time spent searching and scoring, and the
+     * number of evaluations.
+     *
+     * @param metrics
+     *            - The recorder of optimisation metrics, or a value of null if
+     *            metrics are not to be recorded.
+     */
+    public void setMetricsRecorder(/*@Nullable*/ MetricsRecorder metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Obtains the score and score gradient at the current model parameters,
+     * computing them if necessary.
+     *
+     * @return The score information, or a value of null if the score gradient
+     *         could not be computed.
+     */
+    public /*@Nullable*/ GradientScoreInfo getScoreInfo() {
+        if (current == null) {
+            final ScoreInfo scoreInfo = score();
+            if (scoreInfo instanceof GradientScoreInfo)
+                current = (GradientScoreInfo) scoreInfo;
+        }
+        return current;
+    }
+
+    /**
+     * Indicates that the model parameters have been altered externally, so
+     * that the current score must be recomputed.
+     */
+    public void reset() {
+        current = null;
+        prevImprovement = 0;
+        clearCache();
+    }
+
+    /**
+     * Indicates the total number of times the model has been scored.
+     *
+     * @return The number of data passes.
+     */
+    public int getNumEvaluations() {
+        return numEvaluations;
+    }
+
+    /**
+     * Obtains the step-size accepted by the most recent successful search.
+     *
+     * @return The step-size, rho.
+     */
+    public double getStepSize() {
+        return stepSize;
+    }
+
+    @Override
+    public LineSearchStatus search(DataVector direction) {
+        if (metrics == null)
+            return bracketAndZoom(direction);
+        final long startTime = metrics.startTimer();
+        try {
+            return bracketAndZoom(direction);
+        } finally {
+            metrics.stopTimer(OptimiserPhase.LINE_SEARCH, startTime);
+        }
+    }
+
+    private LineSearchStatus bracketAndZoom(DataVector direction) {
+        final GradientScoreInfo initial = getScoreInfo();
+        if (initial == null)
+            return LineSearchStatus.GRADIENT_UNAVAILABLE;
+        initialise(direction);
+        final Evaluation e0 = newEvaluation(0, initial);
+        if (!(e0.slope > 0))
+            return LineSearchStatus.WRONG_DIRECTION;
+        cache(e0);
+        final double norm = deltaVector.norm();
+        final double maxStepSize = (params.getMaxDirectionStep() > 0)
+                ? params.getMaxDirectionStep() / norm : Double.POSITIVE_INFINITY;
+        final double minStepSize = (params.getMinDirectionStep() > 0) ? params.getMinDirectionStep() / norm : 0;
+        final int maxEvaluations = (params.getMaxLineSearchIterations() > 0)
+                ? params.getMaxLineSearchIterations() : Integer.MAX_VALUE;
+        final int startEvaluations = numEvaluations;
+        // Bracket an acceptable step-size.
+        double rho = Math.min(initialStepSize(e0), maxStepSize);
+        if (rho < minStepSize)
+            return LineSearchStatus.DIRECTION_STEP_TOO_SMALL;
+        Evaluation prev = e0;
+        while (true) {
+            if (numEvaluations - startEvaluations >= maxEvaluations)
+                return giveUp(e0, prev, LineSearchStatus.MAX_ITERATIONS_EXCEEDED);
+            final Evaluation e = evaluate(rho);
+            if (e == null)
+                return giveUp(e0, prev, LineSearchStatus.GRADIENT_UNAVAILABLE);
+            if (!isSufficient(e0, e) || prev != e0 && e.value <= prev.value)
+                return zoom(e0, prev, e, minStepSize, startEvaluations, maxEvaluations);
+            if (Math.abs(e.slope) <= params.getCurvatureTolerance() * e0.slope)
+                return accept(e0, e);
+            if (e.slope <= 0)
+                return zoom(e0, e, prev, minStepSize, startEvaluations, maxEvaluations);
+            if (rho >= maxStepSize)
+                return giveUp(e0, e, LineSearchStatus.DIRECTION_STEP_TOO_LARGE);
+            prev = e;
+            rho = Math.min(EXPANSION * rho, maxStepSize);
+        }
+    }
+
+    /**
+     * Narrows the bracket [lo, hi] until an acceptable step-size is found.
+     * The low end always satisfies the sufficient improvement condition and
+     * has the better score, and the slope at the low end points towards the
+     * high end.
+     */
+    private LineSearchStatus zoom(Evaluation e0, Evaluation lo, Evaluation hi, double minStepSize,
+            int startEvaluations, int maxEvaluations) {
+        while (true) {
+            final double width = Math.abs(hi.stepSize - lo.stepSize);
+            if (width <= MIN_RELATIVE_WIDTH * Math.max(lo.stepSize, hi.stepSize) || width < minStepSize)
+                return giveUp(e0, lo, LineSearchStatus.DIRECTION_STEP_TOO_SMALL);
+            if (numEvaluations - startEvaluations >= maxEvaluations)
+                return giveUp(e0, lo, LineSearchStatus.MAX_ITERATIONS_EXCEEDED);
+            final Evaluation e = evaluate(interpolate(lo, hi));
+            if (e == null)
+                return giveUp(e0, lo, LineSearchStatus.GRADIENT_UNAVAILABLE);
+            if (!isSufficient(e0, e) || e.value <= lo.value) {
+                hi = e;
+            } else {
+                if (Math.abs(e.slope) <= params.getCurvatureTolerance() * e0.slope)
+                    return accept(e0, e);
+                if (e.slope * (hi.stepSize - lo.stepSize) <= 0)
+                    hi = lo;
+                lo = e;
+            }
+        }
+    }
+
+    /**
+     * Estimates the step-size of the maximum of phi between the bracket
+     * ends, from a cubic fit through both values and slopes if possible,
+     * otherwise from a quadratic fit, and otherwise by bisection. The estimate
+     * is kept away from the ends of the bracket.
+     */
+    private double interpolate(Evaluation lo, Evaluation hi) {
+        final double low = Math.min(lo.stepSize, hi.stepSize);
+        final double high = Math.max(lo.stepSize, hi.stepSize);
+        final double margin = SAFEGUARD * (high - low);
+        double rho = Cubics.cubicMaximum(Cubics.cubicFit(
+                lo.stepSize, lo.value, lo.slope, hi.stepSize, hi.value, hi.slope));
+        if (!(rho >= low + margin && rho <= high - margin)) {
+            rho = Quadratics.quadraticOptimum(lo.stepSize, lo.value, lo.slope, hi.stepSize, hi.value);
+            if (!(rho >= low + margin && rho <= high - margin))
+                rho = 0.5 * (low + high);
+        }
+        return rho;
+    }
+
+    /**
+     * Computes the initial trial step-size, assuming that the score will
+     * improve by about as much as it did in the previous search.
+     */
+    private double initialStepSize(Evaluation e0) {
+        if (prevImprovement > 0 && prevSlope > 0) {
+            final double rho = 2.02 * prevImprovement / e0.slope;
+            if (rho > 0 && rho < 1)
+                return rho;
+        }
+        return 1;
+    }
+
+    private boolean isSufficient(Evaluation e0, Evaluation e) {
+        return e.value >= e0.value + params.getSufficientImprovement() * e.stepSize * e0.slope;
+    }
+
+    /**
+     * Moves the model to the accepted step-size, which becomes the origin of
+     * the next search.
+     */
+    private LineSearchStatus accept(Evaluation e0, Evaluation e) {
+        moveTo(e.stepSize);
+        prevImprovement = e.value - e0.value;
+        prevSlope = e0.slope;
+        stepSize = e.stepSize;
+        current = e.scoreInfo;
+        clearCache();
+        return LineSearchStatus.SUCCESSFUL;
+    }
+
+    /**
+     * Terminates an unsuccessful search, keeping the best sufficiently
+     * improved step-size found so far, if any.
+     */
+    private LineSearchStatus giveUp(Evaluation e0, Evaluation best, LineSearchStatus status) {
+        if (best != e0 && isSufficient(e0, best)) {
+            accept(e0, best);
+        } else {
+            moveTo(0);
+            clearCache();
+        }
+        return status;
+    }
+
+    private void initialise(DataVector direction) {
+        final int numParameters = model.numParameters();
+        if (direction.size() != numParameters)
+            throw new IllegalArgumentException("Expected direction of length " + numParameters);
+        if (origin.length != numParameters) {
+            origin = new double[numParameters];
+            delta = new double[numParameters];
+            point = new double[numParameters];
+            pointVector = VectorFactory.newVector(point);
+            deltaVector = VectorFactory.newVector(delta);
+        }
+        final DataVector values = model.getParameters();
+        for (int i = 0; i < numParameters; i++) {
+            origin[i] = values.get(i);
+            delta[i] = sign * direction.get(i);
+        }
+        modelStepSize = 0;
+        clearCache();
+    }
+
+    private Evaluation newEvaluation(double rho, GradientScoreInfo scoreInfo) {
+        final double slope = sign * VectorFactory.dot(scoreInfo.getScoreGradient(), deltaVector);
+        return new Evaluation(rho, sign * scoreInfo.getScore(), slope, scoreInfo);
+    }
+
+    /**
+     * Scores and differentiates the model at the given step-size, unless
+     * the step-size has recently been evaluated.
+     *
+     * @return The evaluation, or a value of null if the score gradient could
+     *         not be computed.
+     */
+    private /*@Nullable*/ Evaluation evaluate(double rho) {
+        for (int i = 0; i < cacheSize; i++) {
+            if (cache[i].stepSize == rho)
+                return cache[i];
+        }
+        moveTo(rho);
+        final ScoreInfo scoreInfo = score();
+        if (!(scoreInfo instanceof GradientScoreInfo))
+            return null;
+        final Evaluation e = newEvaluation(rho, (GradientScoreInfo) scoreInfo);
+        cache(e);
+        return e;
+    }
+
+    /**
+     * Scores the model at its current parameters.
+     */
+    private ScoreInfo score() {
+        numEvaluations++;
+        if (metrics == null)
+            return scorer.score(model, info);
+        final long startTime = metrics.startTimer();
+        final ScoreInfo scoreInfo = scorer.score(model, info);
+        metrics.stopTimer(OptimiserPhase.SCORING, startTime);
+        metrics.countScoreEvaluations(1, scoreInfo instanceof GradientScoreInfo);
+        return scoreInfo;
+    }
+
+    private void clearCache() {
+        cacheSize = 0;
+        cacheNext = 0;
+    }
+
+    private void cache(Evaluation e) {
+        cache[cacheNext] = e;
+        cacheNext = (cacheNext + 1) % CACHE_SIZE;
+        if (cacheSize < CACHE_SIZE)
+            cacheSize++;
+    }
+
+    /**
+     * Sets the model parameters to x0 + rho * sign * d.
+     */
+    private void moveTo(double rho) {
+        if (rho == modelStepSize)
+            return;
+        for (int i = 0; i < point.length; i++) {
+            point[i] = origin[i] + rho * delta[i];
+        }
+        model.setParameters(pointVector);
+        modelStepSize = rho;
+    }
+
+}
@@ -16,4 +16,17 @@ public interface LBFGSDirectionSearchParams extends DirectionSearchParams {
         return 10;
     }
 
+    /**
+     * Computes the working memory needed by the direction searcher, namely
+     * the stored parameter and gradient differences, plus the previous
+     * parameters, the previous gradient and the search direction.
+     * 
+     * @param numParameters
+     *            - The number of model parameters.
+     * @return The memory footprint in bytes.
+     */
+    default long getMemoryFootprint(int numParameters) {
+        return (2L * getMemorySize() + 3) * numParameters * Double.BYTES;
+    }
+
 }
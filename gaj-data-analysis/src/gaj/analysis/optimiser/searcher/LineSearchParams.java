@@ -53,4 +53,26 @@ public interface LineSearchParams {
         return 0;
     }
 
+    /**
+     * Specifies the sufficient improvement constant, c1, of the Wolfe
+     * conditions. A step-size rho is acceptable only if the score improves by
+     * at least c1 * rho times the initial directional gradient.
+     * 
+     * @return The sufficient improvement constant, 0 &lt; c1 &lt; c2.
+     */
+    default double getSufficientImprovement() {
+        return 1e-4;
+    }
+
+    /**
+     * Specifies the curvature constant, c2, of the strong Wolfe conditions. A
+     * step-size rho is acceptable only if the magnitude of the directional
+     * gradient has reduced to at most c2 times its initial magnitude.
+     * 
+     * @return The curvature constant, c1 &lt; c2 &lt; 1.
+     */
+    default double getCurvatureTolerance() {
+        return 0.9;
+    }
+
 }
@@ -24,6 +24,13 @@ public enum LineSearcherType {
      */
     CUBIC,
 
+    /**
+     * Specifies a search that brackets and then interpolates the step-size
+     * until the strong Wolfe conditions hold, scoring and differentiating
+     * each trial point in a single data pass.
+     */
+    WOLFE,
+
     ;
 
 }
@@ -1,7 +1,10 @@
 package gaj.bayes.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.Random;
 import org.junit.Test;
+import gaj.analysis.bayes.pmf.CountPMF;
 import gaj.analysis.bayes.pmf.EmpiricalIndexPMF;
 import gaj.analysis.bayes.pmf.EmpiricalPMF;
 import gaj.analysis.bayes.pmf.impl.integer.PMFFactory;
@@ -37,4 +40,87 @@ public class BayesTest {
 
     }
 
+    @Test
+    public void testHashedPMFCounts() {
+        final int numValues = 1000;
+        final String[] tokens = new String[numValues];
+        final Integer[] labels = new Integer[numValues];
+        for (int i = 0; i < numValues; i++) {
+            tokens[i] = "token" + i;
+            labels[i] = -7 * i;
+        }
+        EmpiricalPMF<String> tokenPMF = PMFFactory.newPMF(tokens);
+        EmpiricalPMF<Integer> labelPMF = PMFFactory.newPMF(labels);
+        final double[] weights = new double[numValues];
+        for (int i = 0; i < numValues; i++)
+            weights[i] = i;
+        tokenPMF.addAll(tokens, weights);
+        labelPMF.addAll(labels, weights);
+        tokenPMF.add("unknown", 1.0);
+        labelPMF.add(1, 1.0);
+        for (int i = 0; i < numValues; i++) {
+            assertEquals(i, tokenPMF.prob(tokens[i]), 0);
+            assertEquals(i, labelPMF.prob(labels[i]), 0);
+        }
+        assertEquals(0, tokenPMF.prob("unknown"), 0);
+        assertEquals(0, labelPMF.prob(1), 0);
+    }
+
+    @Test
+    public void testPoissonTables() {
+        final double lambda = 3.5;
+        CountPMF pmf = PMFFactory.newPoissonPMF(lambda);
+        double prob = Math.exp(-lambda), cdf = 0;
+        for (int n = 0; n < 200; n++) {
+            if (n > 0) prob *= lambda / n;
+            cdf += prob;
+            assertEquals(prob, pmf.prob(n), 1e-12);
+            assertEquals(Math.log(prob), pmf.logProb(n), 1e-9);
+            assertEquals(cdf, pmf.cdf(n), 1e-12);
+        }
+        // Beyond the tables.
+        CountPMF large = PMFFactory.newPoissonPMF(100000);
+        assertEquals(-100000 + 100000 * Math.log(100000) - logFactorial(100000),
+                large.logProb(100000), 1e-6);
+        // Bulk evaluation and inverse-CDF sampling.
+        int[] counts = { 5, 0, 12, 3 };
+        double[] probs = new double[counts.length];
+        pmf.prob(counts, probs);
+        for (int i = 0; i < counts.length; i++)
+            assertEquals(pmf.prob(counts[i]), probs[i], 0);
+        for (int n = 0; n < 20; n++) {
+            assertEquals(n, pmf.quantile(pmf.cdf(n)));
+            assertEquals(n, pmf.quantile(pmf.cdf(n) - 0.5 * pmf.prob(n)));
+        }
+        Random random = new Random(17);
+        double sum = 0;
+        for (int i = 0; i < 10000; i++)
+            sum += pmf.sample(random);
+        assertEquals(lambda, sum / 10000, 0.1);
+        // Variants.
+        CountPMF trunc = PMFFactory.newLeftTruncatedPoissonPMF(lambda, 2);
+        CountPMF zip = PMFFactory.newZeroInflatedPoissonPMF(lambda, 0.25);
+        double sumTrunc = 0, sumZip = 0;
+        for (int n = 0; n < 100; n++) {
+            sumTrunc += trunc.prob(n);
+            sumZip += zip.prob(n);
+        }
+        assertEquals(1, sumTrunc, 1e-12);
+        assertEquals(1, sumZip, 1e-12);
+        assertEquals(0, trunc.prob(1), 0);
+        assertEquals(pmf.prob(2) / (1 - pmf.cdf(1)), trunc.prob(2), 1e-12);
+        assertEquals(0.25 + 0.75 * pmf.prob(0), zip.prob(0), 1e-12);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(trunc.sample(random) >= 2);
+        }
+        assertEquals(0, zip.quantile(0.2));
+    }
+
+    private static double logFactorial(int n) {
+        double sum = 0;
+        for (int i = 2; i <= n; i++)
+            sum += Math.log(i);
+        return sum;
+    }
+
 }
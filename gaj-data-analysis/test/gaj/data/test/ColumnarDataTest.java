@@ -0,0 +1,237 @@
+package gaj.data.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Test;
+import gaj.analysis.classifier.GoldDatum;
+import gaj.analysis.data.ColumnarDataSet;
+import gaj.analysis.data.ColumnarDataWriter;
+import gaj.analysis.data.FeatureStorage;
+import gaj.analysis.data.impl.ColumnarDataFactory;
+import gaj.analysis.model.score.Datum;
+import gaj.analysis.model.score.LabelledDatum;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.VectorCursor;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+
+public class ColumnarDataTest {
+
+    private static final int NUM_FEATURES = 5;
+    private static final int NUM_CLASSES = 3;
+
+    /** The feature values, which are exactly representable as floats. */
+    private static final double[][] FEATURES = {
+            { 1, 0, -2.5, 0, 0.25 },
+            { 0, 0, 0, 0, 0 },
+            { 0, 3, 0, 0, 0 },
+            { -1, 2, 0.5, 4, -8 },
+    };
+    private static final int[] LABELS = { 0, 2, -1, 1 };
+    private static final double[] WEIGHTS = { 1, 0.5, 2, 1.0 / 3 };
+
+    private static Path newDirectory() throws IOException {
+        return Files.createTempDirectory("columnar");
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+                Files.delete(path);
+        }
+    }
+
+    /**
+     * Writes the rows alternately as dense and sparse vectors.
+     */
+    private static void write(Path dir, FeatureStorage storage) throws IOException {
+        try (ColumnarDataWriter writer = ColumnarDataFactory.newWriter(dir, NUM_FEATURES, NUM_CLASSES, storage)) {
+            for (int row = 0; row < FEATURES.length; row++) {
+                writer.add(features(row), LABELS[row], WEIGHTS[row]);
+                assertEquals(row + 1, writer.size());
+            }
+        }
+    }
+
+    private static DataVector features(int row) {
+        if (row % 2 == 0)
+            return VectorFactory.newVector(FEATURES[row].clone());
+        final double[] pairs = new double[2 * NUM_FEATURES];
+        int numPairs = 0;
+        for (int j = 0; j < NUM_FEATURES; j++) {
+            if (FEATURES[row][j] != 0) {
+                pairs[2 * numPairs] = j;
+                pairs[2 * numPairs++ + 1] = FEATURES[row][j];
+            }
+        }
+        return VectorFactory.newSparseVector(NUM_FEATURES, Arrays.copyOf(pairs, 2 * numPairs));
+    }
+
+    private static void assertFeatures(double[] expected, DataVector actual) {
+        assertEquals(expected.length, actual.size());
+        double[] traversed = new double[expected.length];
+        VectorCursor cursor = actual.cursor();
+        while (cursor.hasNext()) {
+            int pos = cursor.next();
+            traversed[pos] = cursor.value();
+        }
+        for (int j = 0; j < expected.length; j++) {
+            assertEquals(expected[j], actual.get(j), 0);
+            assertEquals(expected[j], traversed[j], 0);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        System.out.println("Testing columnar round trip...");
+        for (FeatureStorage storage : FeatureStorage.values()) {
+            Path dir = newDirectory();
+            try {
+                write(dir, storage);
+                try (ColumnarDataSet data = ColumnarDataFactory.open(dir)) {
+                    assertEquals(storage, data.getFeatureStorage());
+                    assertEquals(FEATURES.length, data.size());
+                    assertEquals(NUM_FEATURES, data.numFeatures());
+                    assertEquals(NUM_CLASSES, data.numClasses());
+                    for (int row = 0; row < FEATURES.length; row++) {
+                        assertEquals(LABELS[row], data.getLabelIndex(row));
+                        assertEquals(WEIGHTS[row], data.getWeight(row), 0);
+                        assertFeatures(FEATURES[row], data.getFeatures(row));
+                        LabelledDatum<DataVector> datum = data.get(row);
+                        assertEquals(LABELS[row], datum.getLabelIndex());
+                        assertFeatures(FEATURES[row], datum.getData());
+                    }
+                    List<Datum<DataVector>> streamed = data.stream().collect(Collectors.toList());
+                    assertEquals(FEATURES.length, streamed.size());
+                    for (int row = 0; row < FEATURES.length; row++) {
+                        assertEquals(WEIGHTS[row], streamed.get(row).getWeight(), 0);
+                        assertFeatures(FEATURES[row], streamed.get(row).getData());
+                    }
+                    assertEquals(FEATURES.length, data.parallelStream().count());
+                    Iterator<GoldDatum> iter = data.iterator();
+                    for (int row = 0; row < FEATURES.length; row++) {
+                        GoldDatum datum = iter.next();
+                        assertEquals(LABELS[row], datum.getClassIndex());
+                        assertFeatures(FEATURES[row], datum.getFeatures());
+                    }
+                    assertFalse(iter.hasNext());
+                }
+            } finally {
+                delete(dir);
+            }
+        }
+        System.out.println("Tested columnar round trip!");
+    }
+
+    @Test
+    public void testRejectedCase() throws IOException {
+        System.out.println("Testing columnar rejection...");
+        // Indices out of order, which are only detected part way through the vector.
+        final DataVector unordered = VectorFactory.newSparseVector(NUM_FEATURES,
+                new int[] { 0, 3, 1 }, new double[] { 1, 2, 3 });
+        for (FeatureStorage storage : new FeatureStorage[] { FeatureStorage.SPARSE_DOUBLE,
+                FeatureStorage.SPARSE_FLOAT }) {
+            Path dir = newDirectory();
+            try {
+                try (ColumnarDataWriter writer = ColumnarDataFactory.newWriter(dir, NUM_FEATURES, NUM_CLASSES,
+                        storage)) {
+                    writer.add(features(0), LABELS[0], WEIGHTS[0]);
+                    try {
+                        writer.add(unordered, 1, 1);
+                        fail("Expected unordered features to be rejected");
+                    } catch (IllegalArgumentException e) {
+                        // Expected.
+                    }
+                    try {
+                        writer.add(VectorFactory.newVector(NUM_FEATURES + 1), 1, 1);
+                        fail("Expected the wrong number of features to be rejected");
+                    } catch (IllegalArgumentException e) {
+                        // Expected.
+                    }
+                    assertEquals(1, writer.size());
+                    // The data set is unreadable until the writer is closed.
+                    try {
+                        ColumnarDataFactory.open(dir);
+                        fail("Expected an incomplete data set to be unreadable");
+                    } catch (IOException e) {
+                        // Expected.
+                    }
+                    writer.add(features(3), LABELS[3], WEIGHTS[3]);
+                }
+                // The rejected cases left the columns aligned.
+                try (ColumnarDataSet data = ColumnarDataFactory.open(dir)) {
+                    assertEquals(2, data.size());
+                    assertEquals(LABELS[0], data.getLabelIndex(0));
+                    assertEquals(LABELS[3], data.getLabelIndex(1));
+                    assertEquals(WEIGHTS[3], data.getWeight(1), 0);
+                    assertFeatures(FEATURES[0], data.getFeatures(0));
+                    assertFeatures(FEATURES[3], data.getFeatures(1));
+                }
+            } finally {
+                delete(dir);
+            }
+        }
+        System.out.println("Tested columnar rejection!");
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        System.out.println("Testing columnar closure...");
+        Path dir = newDirectory();
+        try {
+            for (FeatureStorage storage : FeatureStorage.values()) {
+                write(dir, storage);
+                ColumnarDataSet data = ColumnarDataFactory.open(dir);
+                LabelledDatum<DataVector> datum = data.get(3);
+                DataVector features = data.getFeatures(3);
+                Iterator<GoldDatum> iter = data.iterator();
+                data.close();
+                data.close();
+                // Reads after closure fail cleanly, including through retained views.
+                assertClosed(() -> data.getLabelIndex(0));
+                assertClosed(() -> data.getFeatures(0));
+                assertClosed(() -> data.get(0));
+                assertClosed(() -> datum.getWeight());
+                assertClosed(() -> datum.getData().get(1));
+                assertClosed(() -> features.get(1));
+                assertClosed(() -> {
+                    VectorCursor cursor = features.cursor();
+                    cursor.next();
+                    cursor.value();
+                });
+                assertClosed(() -> features.dot(VectorFactory.newVector(NUM_FEATURES)));
+                assertClosed(() -> iter.next().getClassIndex());
+                assertClosed(() -> data.stream().mapToDouble(Datum::getWeight).sum());
+            }
+            // The closed files may be rewritten and reopened.
+            write(dir, FeatureStorage.DENSE_DOUBLE);
+            try (ColumnarDataSet reopened = ColumnarDataFactory.open(dir)) {
+                assertTrue(reopened.getFeatureStorage() == FeatureStorage.DENSE_DOUBLE);
+                assertFeatures(FEATURES[3], reopened.getFeatures(3));
+            }
+        } finally {
+            delete(dir);
+        }
+        System.out.println("Tested columnar closure!");
+    }
+
+    private static void assertClosed(Runnable read) {
+        try {
+            read.run();
+            fail("Expected a read after closure to be rejected");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+    }
+
+}
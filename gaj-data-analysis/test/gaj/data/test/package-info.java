@@ -0,0 +1,4 @@
+/**
+ * Unit tests for on-disk data sets.
+ */
+package gaj.data.test;
\ No newline at end of file
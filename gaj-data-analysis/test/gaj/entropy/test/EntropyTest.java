@@ -0,0 +1,144 @@
+package gaj.entropy.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import gaj.analysis.entropy.EntropyAccumulator;
+import gaj.analysis.entropy.EntropyAnalyser;
+import gaj.analysis.entropy.JointEntropyAccumulator;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+
+public class EntropyTest {
+
+    private static final double LOG2 = Math.log(2);
+    private static final double LOG3 = Math.log(3);
+
+    private static boolean isEqual(double x, double y) {
+        return Math.abs(x - y) < 1e-12;
+    }
+
+    @Test
+    public void testEntropy() {
+        System.out.println("Testing entropy...");
+        // Uniform: H = log 2.
+        assertTrue(isEqual(LOG2, EntropyAnalyser.entropy(new int[] { 0, 0, 1, 1 })));
+        // Skewed: H = -(3/4) log(3/4) - (1/4) log(1/4) = log 4 - (3/4) log 3.
+        final double skewed = 2 * LOG2 - 0.75 * LOG3;
+        assertTrue(isEqual(skewed, EntropyAnalyser.entropy(new int[] { 0, 0, 0, 1 })));
+        assertTrue(isEqual(skewed, EntropyAnalyser.entropy(VectorFactory.newIndexVector(0, 0, 0, 1))));
+        assertTrue(isEqual(skewed, EntropyAnalyser.entropy(new String[] { "a", "a", "a", "b" })));
+        // Constant and empty sequences have no entropy.
+        assertTrue(isEqual(0, EntropyAnalyser.entropy(new int[] { 5, 5, 5 })));
+        assertTrue(isEqual(0, EntropyAnalyser.entropy(new int[0])));
+        // Counts of 2, 3 and 1: H = log 6 - (2 log 2 + 3 log 3) / 6.
+        final double mixed = LOG2 + LOG3 - (2 * LOG2 + 3 * LOG3) / 6;
+        // Small observations are counted densely, others are hashed.
+        assertTrue(isEqual(mixed, EntropyAnalyser.entropy(new int[] { 1, 1, 2, 2, 2, 3 })));
+        assertTrue(isEqual(mixed, EntropyAnalyser.entropy(new int[] { -5, -5, 7000, 7000, 7000, 3 })));
+        // Switch from dense to hashed counts part way through.
+        EntropyAccumulator acc = new EntropyAccumulator();
+        acc.addAll(new int[] { 1, 1, 2, 2 });
+        acc.add(Integer.MIN_VALUE);
+        acc.add(2);
+        assertEquals(6, acc.numObservations());
+        assertTrue(isEqual(mixed, acc.entropy()));
+        // Many distinct observations force the hash table to grow: H = log N.
+        acc = new EntropyAccumulator();
+        for (int i = 0; i < 1000; i++)
+            acc.add(-i);
+        assertTrue(isEqual(Math.log(1000), acc.entropy()));
+        System.out.println("Tested entropy!");
+    }
+
+    @Test
+    public void testEntropyCombination() {
+        System.out.println("Testing entropy combination...");
+        EntropyAccumulator dense = new EntropyAccumulator();
+        dense.addAll(new int[] { 1, 2, 3 });
+        EntropyAccumulator hashed = new EntropyAccumulator();
+        hashed.addAll(new int[] { -1, 2, -1 });
+        EntropyAccumulator combined = new EntropyAccumulator().combine(dense).combine(hashed);
+        // Counts of 1 (x1), 2 (x2), 3 (x1), -1 (x2): H = log 6 - (2 log 2 + 2 log 2) / 6.
+        assertEquals(6, combined.numObservations());
+        assertTrue(isEqual(LOG2 + LOG3 - 4 * LOG2 / 6, combined.entropy()));
+        hashed.combine(dense).add(2);
+        // Counts of 1 (x1), 2 (x3), 3 (x1), -1 (x2).
+        assertEquals(7, hashed.numObservations());
+        assertTrue(isEqual(Math.log(7) - (3 * LOG3 + 2 * LOG2) / 7, hashed.entropy()));
+        System.out.println("Tested entropy combination!");
+    }
+
+    @Test
+    public void testJointEntropy() {
+        System.out.println("Testing joint entropy...");
+        {
+            // Independent: H(X,Y) = log 4, H(X) = H(Y) = H(X|Y) = log 2, I(X;Y) = 0.
+            int[] x = { 0, 0, 1, 1 };
+            int[] y = { 0, 1, 0, 1 };
+            assertTrue(isEqual(2 * LOG2, EntropyAnalyser.entropy(x, y)));
+            assertTrue(isEqual(LOG2, EntropyAnalyser.conditionalEntropy(x, y)));
+            assertTrue(isEqual(0, EntropyAnalyser.mutualInformation(x, y)));
+        }
+        {
+            // Identical: H(X,Y) = H(X) = I(X;Y) = log 2, H(X|Y) = 0.
+            int[] x = { 0, 0, 1, 1 };
+            assertTrue(isEqual(LOG2, EntropyAnalyser.entropy(x, x)));
+            assertTrue(isEqual(0, EntropyAnalyser.conditionalEntropy(x, x)));
+            assertTrue(isEqual(LOG2, EntropyAnalyser.mutualInformation(x, x)));
+        }
+        {
+            // Pairs (0,0) x2, (0,1), (1,1): H(X,Y) = (3/2) log 2,
+            // H(X) = 2 log 2 - (3/4) log 3, H(Y) = log 2.
+            int[] x = { 0, 0, 0, 1 };
+            int[] y = { 0, 0, 1, 1 };
+            JointEntropyAccumulator acc = new JointEntropyAccumulator();
+            acc.addAll(x, y);
+            assertEquals(4, acc.numObservations());
+            assertTrue(isEqual(1.5 * LOG2, acc.jointEntropy()));
+            assertTrue(isEqual(2 * LOG2 - 0.75 * LOG3, acc.entropyX()));
+            assertTrue(isEqual(LOG2, acc.entropyY()));
+            assertTrue(isEqual(0.5 * LOG2, acc.conditionalEntropyX()));
+            assertTrue(isEqual(0.75 * LOG3 - 0.5 * LOG2, acc.conditionalEntropyY()));
+            assertTrue(isEqual(1.5 * LOG2 - 0.75 * LOG3, acc.mutualInformation()));
+            assertTrue(isEqual(acc.conditionalEntropyX(), EntropyAnalyser.conditionalEntropy(x, y)));
+            assertTrue(isEqual(acc.mutualInformation(), EntropyAnalyser.mutualInformation(x, y)));
+            // Combining two halves gives the same measures, as does adding pair-wise.
+            JointEntropyAccumulator first = new JointEntropyAccumulator();
+            first.addAll(new int[] { 0, 0 }, new int[] { 0, 0 });
+            JointEntropyAccumulator second = new JointEntropyAccumulator();
+            second.add(0, 1);
+            second.add(1, 1);
+            first.combine(second);
+            assertTrue(isEqual(acc.jointEntropy(), first.jointEntropy()));
+            assertTrue(isEqual(acc.mutualInformation(), first.mutualInformation()));
+            // The marginals are recomputed after further additions,
+            // with counts of 3 and 2 for both X and Y.
+            first.add(1, 0);
+            assertTrue(isEqual(Math.log(5) - (2 * LOG2 + 3 * LOG3) / 5, first.entropyX()));
+            assertTrue(isEqual(Math.log(5) - (2 * LOG2 + 3 * LOG3) / 5, first.entropyY()));
+        }
+        {
+            // Negative and extreme observations are hashed, including the
+            // pair that packs to Long.MIN_VALUE.
+            int[] x = { Integer.MIN_VALUE, Integer.MIN_VALUE, -1, Integer.MAX_VALUE };
+            int[] y = { 0, 0, 1, -7 };
+            // H(X,Y) = H(X) = H(Y) = log 4 - (2 log 2) / 4 = (3/2) log 2.
+            JointEntropyAccumulator acc = new JointEntropyAccumulator();
+            acc.addAll(x, y);
+            assertTrue(isEqual(1.5 * LOG2, acc.jointEntropy()));
+            assertTrue(isEqual(1.5 * LOG2, acc.entropyX()));
+            assertTrue(isEqual(1.5 * LOG2, acc.entropyY()));
+            assertTrue(isEqual(0, acc.conditionalEntropyX()));
+            assertTrue(isEqual(1.5 * LOG2, acc.mutualInformation()));
+        }
+        try {
+            EntropyAnalyser.mutualInformation(new int[2], new int[3]);
+            fail("Expected mismatched sequence lengths to be rejected");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        System.out.println("Tested joint entropy!");
+    }
+
+}
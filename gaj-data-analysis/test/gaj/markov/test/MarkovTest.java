@@ -1,10 +1,17 @@
 package gaj.markov.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import gaj.analysis.markov.ExpectedCounts;
 import gaj.analysis.markov.MarkovOneStepAnalyser;
 import gaj.analysis.markov.MarkovOneStepLibrary;
 import gaj.analysis.markov.SequenceType;
 import gaj.analysis.numeric.matrix.DataMatrix;
+import gaj.analysis.numeric.matrix.WritableMatrix;
 import gaj.analysis.numeric.matrix.impl.MatrixFactory;
 import gaj.analysis.numeric.vector.DataVector;
 import gaj.analysis.numeric.vector.IndexVector;
@@ -148,6 +155,31 @@ public class MarkovTest {
         assertTrue(Math.abs(pred.getRow(1).sum() - 1) <= EPSILON);
     }
 
+    @Test
+    public void testScaledForwardBackwardAlgo() {
+        System.out.println("testScaledForwardBackwardAlgo:");
+        DataMatrix expectedPred = MarkovOneStepLibrary.posteriorProbabilities(obsProbs3, startProbs, endProbs, transProbs);
+        DataMatrix pred = MarkovOneStepLibrary.scaledPosteriorProbabilities(obsProbs3, startProbs, endProbs, transProbs);
+        assertTrue(MatrixFactory.equals(expectedPred, pred, EPSILON));
+        double prob = MarkovOneStepLibrary.dataProbability(startProbs, endProbs, transProbs, obsProbs3);
+        double logProb = MarkovOneStepLibrary.logDataProbability(startProbs, endProbs, transProbs, obsProbs3);
+        assertTrue(equals(Math.log(prob), logProb));
+        // Check that a long sequence does not underflow.
+        final int numStages = 100000;
+        double[][] obsData = new double[numStages][];
+        for (int t = 0; t < numStages; t++) {
+            obsData[t] = (t % 3 == 0) ? new double[] { 0.01, 0.02 } : new double[] { 0.03, 0.001 };
+        }
+        DataMatrix longObsProbs = MatrixFactory.newMatrix(obsData);
+        assertTrue(MarkovOneStepLibrary.dataProbability(startProbs, endProbs, transProbs, longObsProbs) == 0);
+        logProb = MarkovOneStepLibrary.logDataProbability(startProbs, endProbs, transProbs, longObsProbs);
+        assertTrue(logProb < 0 && !Double.isInfinite(logProb));
+        pred = MarkovOneStepLibrary.scaledPosteriorProbabilities(longObsProbs, startProbs, endProbs, transProbs);
+        assertTrue(Math.abs(pred.getRow(numStages / 2).sum() - 1) <= EPSILON);
+        IndexVector stateSeq = MarkovOneStepLibrary.getOptimalStateSequence(startProbs, endProbs, transProbs, longObsProbs);
+        assertTrue(stateSeq != null && stateSeq.size() == numStages);
+    }
+
     @Test
     public void testAnalyserPosterior() {
         System.out.println("testAnalyserPosterior:");
@@ -271,4 +303,98 @@ public class MarkovTest {
         assertTrue(VectorFactory.equals(expectedSeq, obsSeq));
     }
 
+    @Test
+    public void testAnalyserBatch() {
+        System.out.println("testAnalyserBatch:");
+        MarkovOneStepAnalyser analyser = getAnalyser();
+        List<DataMatrix> obsProbsList = Arrays.asList(obsProbs3, obsProbs2, obsProbs3);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        List<DataMatrix> preds = analyser.posteriorProbabilities(obsProbsList, SequenceType.Complete, pool);
+        List<IndexVector> stateSeqs = analyser.stateSequences(obsProbsList, SequenceType.Complete, pool);
+        for (int i = 0; i < obsProbsList.size(); i++) {
+            DataMatrix obsProbs = obsProbsList.get(i);
+            assertTrue(MatrixFactory.equals(analyser.posteriorProbabilities(obsProbs, SequenceType.Complete),
+                    preds.get(i), EPSILON));
+            assertTrue(VectorFactory.equals(analyser.stateSequence(obsProbs, SequenceType.Complete),
+                    stateSeqs.get(i)));
+        }
+        // Process more sequences than threads, so that each chunk reuses its buffers.
+        List<DataMatrix> manyObsProbs = new ArrayList<>();
+        for (int i = 0; i < 25; i++)
+            manyObsProbs.add((i % 3 == 0) ? obsProbs2 : obsProbs3);
+        ForkJoinPool smallPool = new ForkJoinPool(2);
+        try {
+            preds = analyser.posteriorProbabilities(manyObsProbs, SequenceType.Incomplete, smallPool);
+            stateSeqs = analyser.stateSequences(manyObsProbs, SequenceType.Complete, smallPool);
+        } finally {
+            smallPool.shutdown();
+        }
+        assertEquals(manyObsProbs.size(), preds.size());
+        assertEquals(manyObsProbs.size(), stateSeqs.size());
+        for (int i = 0; i < manyObsProbs.size(); i++) {
+            assertTrue(MatrixFactory.equals(analyser.posteriorProbabilities(manyObsProbs.get(i), SequenceType.Incomplete),
+                    preds.get(i), EPSILON));
+            assertTrue(VectorFactory.equals(analyser.stateSequence(manyObsProbs.get(i), SequenceType.Complete),
+                    stateSeqs.get(i)));
+        }
+        // Compare expected counts against explicit enumeration of the state sequences.
+        ExpectedCounts counts = analyser.expectedCounts(Arrays.asList(obsProbs3), SequenceType.Complete, pool);
+        double obsProb = analyser.dataProbability(obsProbs3, SequenceType.Complete);
+        assertTrue(equals(Math.log(obsProb), counts.getLogProbability()));
+        WritableMatrix expectedTransCounts = MatrixFactory.newMatrix(2, 2);
+        double[] expectedInitCounts = new double[2];
+        for (int s1 = 0; s1 <= 1; s1++) {
+            for (int s2 = 0; s2 <= 1; s2++) {
+                for (int s3 = 0; s3 <= 1; s3++) {
+                    IndexVector stateSeq = VectorFactory.newIndexVector(s1, s2, s3);
+                    double prob = analyser.jointProbability(stateSeq, obsProbs3, SequenceType.Complete) / obsProb;
+                    expectedTransCounts.add(s1, s2, prob);
+                    expectedTransCounts.add(s2, s3, prob);
+                    expectedInitCounts[s1] += prob;
+                }
+            }
+        }
+        assertTrue(MatrixFactory.equals(expectedTransCounts, counts.getTransitionCounts(), EPSILON));
+        assertTrue(VectorFactory.equals(VectorFactory.newVector(expectedInitCounts), counts.getInitialCounts(), EPSILON));
+        assertTrue(equals(3, counts.getStateCounts().sum()));
+        assertTrue(equals(1, counts.getFinalCounts().sum()));
+    }
+
+    @Test
+    public void testImpossibleSequence() {
+        System.out.println("testImpossibleSequence:");
+        MarkovOneStepAnalyser analyser = getAnalyser();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        // The second observation has zero probability under every state.
+        DataMatrix impossibleObsProbs = MatrixFactory.newMatrix(
+                new double[][] {
+                        { 0.8, 0.3 },
+                        { 0, 0 },
+                        { 0.5, 0.5 }
+                });
+        for (SequenceType type : SequenceType.values()) {
+            ExpectedCounts expected = analyser.expectedCounts(
+                    Arrays.asList(obsProbs3, obsProbs2), type, pool);
+            ExpectedCounts counts = analyser.expectedCounts(
+                    Arrays.asList(obsProbs3, impossibleObsProbs, obsProbs2), type, pool);
+            assertEquals(3, counts.numSequences());
+            assertEquals(1, counts.numImpossibleSequences());
+            assertEquals(0, expected.numImpossibleSequences());
+            assertEquals(Double.NEGATIVE_INFINITY, counts.getLogProbability(), 0);
+            // The impossible sequence must contribute no counts, rather than NaN.
+            for (DataVector row : counts.getTransitionCounts().getRows())
+                assertTrue(Double.isFinite(row.sum()));
+            assertTrue(Double.isFinite(counts.getStateCounts().sum()));
+            assertTrue(Double.isFinite(counts.getInitialCounts().sum()));
+            assertTrue(Double.isFinite(counts.getFinalCounts().sum()));
+            assertTrue(MatrixFactory.equals(expected.getTransitionCounts(), counts.getTransitionCounts(), EPSILON));
+            assertTrue(VectorFactory.equals(expected.getStateCounts(), counts.getStateCounts(), EPSILON));
+            assertTrue(VectorFactory.equals(expected.getInitialCounts(), counts.getInitialCounts(), EPSILON));
+            assertTrue(VectorFactory.equals(expected.getFinalCounts(), counts.getFinalCounts(), EPSILON));
+            DataMatrix transitions = MarkovOneStepAnalyser.computeTransitions(counts.getTransitionCounts());
+            assertTrue(MatrixFactory.equals(
+                    MarkovOneStepAnalyser.computeTransitions(expected.getTransitionCounts()), transitions, EPSILON));
+        }
+    }
+
 }
@@ -2,9 +2,23 @@ package gaj.numeric.test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
 import org.junit.Test;
+import gaj.analysis.numeric.RepresentationType;
+import gaj.analysis.numeric.SoftmaxKernels;
+import gaj.analysis.numeric.matrix.DataMatrix;
+import gaj.analysis.numeric.matrix.SparseMatrixBuilder;
+import gaj.analysis.numeric.matrix.WritableMatrix;
+import gaj.analysis.numeric.matrix.impl.MatrixFactory;
 import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.VectorCursor;
+import gaj.analysis.numeric.vector.WritableVector;
 import gaj.analysis.numeric.vector.impl.VectorFactory;
 
 public class VectorTest {
@@ -129,4 +143,311 @@ public class VectorTest {
         System.out.println("Tested compound vector scaling!");
     }
 
+    @Test
+    public void testCompoundVectorSegments() {
+        DataVector sparse = VectorFactory.newSparseVector(5, 0, 1, 4, 2);
+        DataVector dense = VectorFactory.newVector(3, 4, 5);
+        DataVector scaled = VectorFactory.scale(VectorFactory.newVector(6, 7), 2);
+        DataVector empty = VectorFactory.newVector(new double[0]);
+        DataVector vec = VectorFactory.concatenate(empty, sparse, dense, empty, scaled, empty);
+        double[] expected = { 1, 0, 0, 0, 2, 3, 4, 5, 12, 14 };
+        assertEquals(expected.length, vec.size());
+        Iterator<Double> iter = VectorFactory.getIterator(vec);
+        for (int i = 0; i < expected.length; i++) {
+            assertTrue(isEqual(expected[i], vec.get(i)));
+            assertTrue(iter.hasNext());
+            assertTrue(isEqual(expected[i], iter.next()));
+        }
+        assertTrue(!iter.hasNext());
+        WritableVector weights = VectorFactory.newVector(expected.length);
+        for (int i = 0; i < expected.length; i++)
+            weights.set(i, i + 1);
+        double dot = 0;
+        for (int i = 0; i < expected.length; i++)
+            dot += expected[i] * (i + 1);
+        assertTrue(isEqual(dot, vec.dot(weights)));
+        assertTrue(isEqual(dot, vec.dot(VectorFactory.scale(weights, 1))));
+        DataVector aligned = VectorFactory.concatenate(empty, VectorFactory.newSubVector(weights, 0, 5),
+                VectorFactory.newSubVector(weights, 5, 3), empty, VectorFactory.newSubVector(weights, 8, 2), empty);
+        assertTrue(isEqual(dot, vec.dot(aligned)));
+        WritableVector sum = VectorFactory.newVector(expected.length);
+        sum.add(vec);
+        sum.add(vec);
+        sum.subtract(vec);
+        for (int i = 0; i < expected.length; i++)
+            assertTrue(isEqual(expected[i], sum.get(i)));
+    }
+
+    @Test
+    public void testVectorCursor() {
+        System.out.println("Testing vector cursors...");
+        {
+            DataVector vec = VectorFactory.newSparseVector(13, 3, 2, 11, 3);
+            VectorCursor cursor = vec.cursor();
+            assertTrue(cursor.hasNext());
+            assertEquals(3, cursor.next());
+            assertTrue(isEqual(2, cursor.value()));
+            assertEquals(11, cursor.next());
+            assertTrue(isEqual(3, cursor.value()));
+            assertTrue(!cursor.hasNext());
+            assertEndOfTraversal(cursor);
+            assertEndOfTraversal(VectorFactory.newVector(1, 2).cursor(), 2);
+            assertEndOfTraversal(VectorFactory.concatenate(vec, vec).cursor(), 4);
+            assertEndOfTraversal(VectorCursor.NO_ELEMENTS);
+        }
+        {
+            DataVector vec1 = VectorFactory.newSparseVector(4, 1, 1, 3, 3);
+            DataVector vec2 = VectorFactory.newVector(0, 1, 2, 3);
+            DataVector vec = VectorFactory.scale(VectorFactory.concatenate(vec1, vec2), 2);
+            VectorCursor cursor = vec.cursor();
+            int count = 0;
+            while (cursor.hasNext()) {
+                int pos = cursor.next();
+                assertTrue(isEqual(vec.get(pos), cursor.value()));
+                count++;
+            }
+            assertEquals(6, count);
+            assertTrue(isEqual(vec.dot(vec), VectorFactory.dot(vec, VectorFactory.copy(vec))));
+        }
+        System.out.println("Tested vector cursors!");
+    }
+
+    private static void assertEndOfTraversal(VectorCursor cursor, int numElements) {
+        for (int i = 0; i < numElements; i++)
+            cursor.next();
+        assertEndOfTraversal(cursor);
+    }
+
+    private static void assertEndOfTraversal(VectorCursor cursor) {
+        assertTrue(!cursor.hasNext());
+        try {
+            cursor.next();
+            fail("Expected end of traversal");
+        } catch (NoSuchElementException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testSparseKernels() {
+        System.out.println("Testing sparse vector kernels...");
+        {
+            DataVector vec1 = VectorFactory.newSparseVector(8, 0, 1, 3, 2, 6, 3);
+            DataVector vec2 = VectorFactory.newSparseVector(8, 1, 4, 3, 5, 6, 6, 7, 7);
+            DataVector dense1 = VectorFactory.copy(vec1);
+            DataVector dense2 = VectorFactory.copy(vec2);
+            assertTrue(isEqual(28, VectorFactory.dot(vec1, vec2)));
+            assertTrue(isEqual(28, VectorFactory.dot(vec1, dense2)));
+            assertTrue(isEqual(28, VectorFactory.dot(dense1, vec2)));
+            DataVector sum = VectorFactory.add(vec1, vec2);
+            DataVector diff = VectorFactory.subtract(vec1, vec2);
+            DataVector prod = VectorFactory.multiply(vec1, vec2);
+            DataVector prod2 = VectorFactory.multiply(dense1, vec2);
+            for (int i = 0; i < 8; i++) {
+                assertTrue(isEqual(vec1.get(i) + vec2.get(i), sum.get(i)));
+                assertTrue(isEqual(vec1.get(i) - vec2.get(i), diff.get(i)));
+                assertTrue(isEqual(vec1.get(i) * vec2.get(i), prod.get(i)));
+                assertTrue(isEqual(vec1.get(i) * vec2.get(i), prod2.get(i)));
+            }
+            DataVector single = VectorFactory.add(vec1);
+            DataVector unchanged = VectorFactory.subtract(vec1);
+            assertTrue(single != vec1 && unchanged != vec1);
+            for (int i = 0; i < 8; i++) {
+                assertTrue(isEqual(vec1.get(i), single.get(i)));
+                assertTrue(isEqual(vec1.get(i), unchanged.get(i)));
+            }
+        }
+        System.out.println("Tested sparse vector kernels!");
+    }
+
+    @Test
+    public void testAccumulatorVector() {
+        System.out.println("Testing accumulator vector...");
+        {
+            final int length = 1000;
+            WritableVector acc = VectorFactory.newAccumulator(length);
+            WritableVector expected = VectorFactory.newVector(length);
+            for (int i = 0; i < 300; i++) {
+                DataVector vec = VectorFactory.newSparseVector(length, i, i, 500 + i, 1);
+                acc.addScaled(vec, 0.5);
+                expected.addScaled(vec, 0.5);
+                if (i == 10) {
+                    assertTrue(acc.representationType() == RepresentationType.SPARSE);
+                }
+            }
+            assertTrue(acc.representationType() == RepresentationType.DENSE);
+            assertTrue(VectorFactory.equals(expected, acc, 1e-10));
+            acc.addScaled(expected, -1);
+            assertTrue(isEqual(0, acc.norm()));
+        }
+        {
+            WritableVector acc = VectorFactory.newAccumulator(1000);
+            acc.addScaled(VectorFactory.newSparseVector(1000, 5, 1, 900, 2), 3);
+            acc.addScaled(VectorFactory.newSparseVector(1000, 5, 1, 7, 2), 1);
+            VectorCursor cursor = acc.cursor();
+            assertEquals(5, cursor.next());
+            assertTrue(isEqual(4, cursor.value()));
+            assertEquals(7, cursor.next());
+            assertEquals(900, cursor.next());
+            assertTrue(isEqual(6, cursor.value()));
+            assertTrue(!cursor.hasNext());
+            assertTrue(isEqual(12, acc.sum()));
+            acc.add(6, 1);
+            acc.add(900, 1);
+            cursor = acc.cursor();
+            assertEquals(5, cursor.next());
+            assertEquals(6, cursor.next());
+            assertEquals(7, cursor.next());
+            assertEquals(900, cursor.next());
+            assertTrue(isEqual(7, cursor.value()));
+            assertTrue(!cursor.hasNext());
+        }
+        System.out.println("Tested accumulator vector!");
+    }
+
+    @Test
+    public void testFlatMatrix() {
+        System.out.println("Testing flat matrix...");
+        final int numRows = 7, numColumns = 5;
+        double[][] rowData = new double[numRows][numColumns];
+        for (int row = 0; row < numRows; row++) {
+            for (int column = 0; column < numColumns; column++) {
+                rowData[row][column] = row - 2 * column + 0.5;
+            }
+        }
+        DataMatrix rowMat = MatrixFactory.newMatrix(rowData);
+        WritableMatrix flatMat = MatrixFactory.newMatrix(rowMat);
+        assertTrue(MatrixFactory.equals(rowMat, flatMat, 1e-13));
+        DataVector x = VectorFactory.newVector(1, -2, 3, 0, 5);
+        DataVector sx = VectorFactory.newSparseVector(numColumns, 0, 1, 4, 5);
+        assertTrue(VectorFactory.equals(MatrixFactory.multiply(rowMat, x), MatrixFactory.multiply(flatMat, x), 1e-10));
+        assertTrue(VectorFactory.equals(MatrixFactory.multiply(rowMat, sx), MatrixFactory.multiply(flatMat, sx), 1e-10));
+        DataVector y = VectorFactory.newVector(1, 2, 3, 4, 5, 6, 7);
+        assertTrue(VectorFactory.equals(MatrixFactory.multiply(y, rowMat), MatrixFactory.multiply(y, flatMat), 1e-10));
+        // Transposed views share the data.
+        DataMatrix transMat = MatrixFactory.transpose(flatMat);
+        assertEquals(numColumns, transMat.numRows());
+        assertTrue(VectorFactory.equals(MatrixFactory.multiply(flatMat, x), MatrixFactory.multiply(x, transMat), 1e-10));
+        assertTrue(VectorFactory.equals(MatrixFactory.multiply(y, flatMat), MatrixFactory.multiply(transMat, y), 1e-10));
+        flatMat.set(2, 3, 10);
+        assertTrue(isEqual(10, transMat.get(3, 2)));
+        assertTrue(isEqual(10, transMat.getColumn(2).get(3)));
+        assertTrue(MatrixFactory.equals(flatMat, MatrixFactory.transpose(transMat), 0));
+        // Outer product.
+        DataMatrix outer = MatrixFactory.multiply(y, x);
+        for (int row = 0; row < numRows; row++) {
+            assertTrue(VectorFactory.equals(VectorFactory.multiply(x, y.get(row)), outer.getRow(row), 1e-13));
+        }
+        System.out.println("Tested flat matrix!");
+    }
+
+    @Test
+    public void testSoftmax() {
+        // Large weights must neither overflow nor underflow.
+        double[] weights = { 1000, 1001, 999, -1e10 };
+        double[] probs = new double[4];
+        double logSum = SoftmaxKernels.softmax(weights, 0, 4, probs, 0);
+        double norm = 1 + Math.exp(1) + Math.exp(-1);
+        assertTrue(isEqual(1000 + Math.log(norm), logSum));
+        assertTrue(isEqual(1 / norm, probs[0]));
+        assertTrue(isEqual(Math.exp(1) / norm, probs[1]));
+        assertTrue(isEqual(0, probs[3]));
+        assertTrue(isEqual(logSum, SoftmaxKernels.logSumExp(weights)));
+        double[] logProbs = weights.clone();
+        SoftmaxKernels.logSoftmax(logProbs);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(isEqual(Math.log(probs[i]), logProbs[i]));
+        }
+        // Infinite weights.
+        double[] infWeights = { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        SoftmaxKernels.softmax(infWeights);
+        assertTrue(isEqual(0.5, infWeights[0]));
+        infWeights = new double[] { 3, Double.POSITIVE_INFINITY, 0 };
+        SoftmaxKernels.softmax(infWeights);
+        assertTrue(isEqual(1, infWeights[1]) && isEqual(0, infWeights[0]));
+        // Primitive element functions.
+        WritableVector vec = VectorFactory.newVector(0, 1, 2);
+        vec.applyAsDouble(x -> 2 * x + 1);
+        assertTrue(VectorFactory.equals(VectorFactory.newVector(1, 3, 5), vec, 0));
+        vec.apply(x -> x - 1);
+        assertTrue(VectorFactory.equals(VectorFactory.newVector(0, 2, 4), vec, 0));
+        assertTrue(VectorFactory.equals(VectorFactory.newVector(0, Math.log(2), Math.log(4)),
+                VectorFactory.applyAsDouble(VectorFactory.newVector(1, 2, 4), Math::log), 1e-15));
+        double[] result = new double[2];
+        MatrixFactory.multiply(MatrixFactory.newMatrix(new double[] { 1, 2, 3, 4 }, 2, 2), VectorFactory.newVector(1, -1), result);
+        assertTrue(isEqual(-1, result[0]) && isEqual(-1, result[1]));
+        System.out.println("Tested softmax!");
+    }
+
+    @Test
+    public void testBatchMultiply() {
+        DataMatrix weights = MatrixFactory.newMatrix(new double[][] {
+            { 1, 0, -1, 2, 0.5 }, { 0, 3, 1, -2, 1 }, { -1, 1, 0, 0, 2 }, { 2, 2, 2, 2, 2 }, { 0, 0, 1, 0, 0 }
+        });
+        List<DataVector> rows = Arrays.asList(
+            VectorFactory.newSparseVector(5, 0, 1.5, 3, -2),
+            VectorFactory.newSparseVector(5),
+            VectorFactory.newSparseVector(5, 1, 1, 2, 2, 4, 4));
+        DataMatrix sparse = MatrixFactory.newRowMatrix(5, rows);
+        assertEquals(RepresentationType.SPARSE, sparse.representationType());
+        assertTrue(isEqual(-2, sparse.get(0, 3)) && isEqual(0, sparse.get(0, 2)));
+        List<DataVector> denseRows = new ArrayList<>();
+        for (DataVector row : rows) {
+            denseRows.add(VectorFactory.copy(row));
+        }
+        DataMatrix dense = MatrixFactory.newRowMatrix(5, denseRows);
+        assertEquals(RepresentationType.DENSE, dense.representationType());
+        for (DataMatrix features : Arrays.asList(sparse, dense, MatrixFactory.transpose(MatrixFactory.transpose(dense)))) {
+            for (DataMatrix params : Arrays.asList(weights, MatrixFactory.newMatrix(weights), MatrixFactory.transpose(MatrixFactory.newMatrix(MatrixFactory.transpose(weights))))) {
+                DataMatrix result = MatrixFactory.multiplyTransposed(features, params);
+                for (int row = 0; row < 3; row++) {
+                    DataVector expected = MatrixFactory.multiply(params, features.getRow(row));
+                    assertTrue(VectorFactory.equals(expected, result.getRow(row), 1e-12));
+                }
+            }
+        }
+        double[] probs = { 1000, 1000, 0, 0 };
+        SoftmaxKernels.softmaxRows(probs, 2, 2);
+        assertTrue(isEqual(0.5, probs[0]) && isEqual(0.5, probs[3]));
+        System.out.println("Tested batch multiply!");
+    }
+
+    @Test
+    public void testSparseMatrix() {
+        final int numRows = 7, numColumns = 9;
+        Random random = new Random(13);
+        WritableMatrix dense = MatrixFactory.newMatrix(numRows, numColumns);
+        SparseMatrixBuilder builder = MatrixFactory.newSparseMatrixBuilder(numRows, numColumns);
+        for (int i = 0; i < 25; i++) {
+            int row = random.nextInt(numRows), column = random.nextInt(numColumns);
+            double value = random.nextInt(5) - 2;
+            // Split each value into repeated elements, added out of order.
+            builder.add(row, column, value - 1);
+            builder.add(row, column, 1);
+            dense.set(row, column, dense.get(row, column) + value);
+        }
+        DataMatrix csr = builder.buildRowMatrix();
+        DataMatrix csc = builder.buildColumnMatrix();
+        DataVector x = VectorFactory.newVector(1, -2, 0, 3, 0.5, 0, 1, 2, -1);
+        DataVector y = VectorFactory.newSparseVector(numRows, 1, 2, 4, -1, 6, 3);
+        for (DataMatrix sparse : Arrays.asList(csr, csc)) {
+            assertEquals(RepresentationType.SPARSE, sparse.representationType());
+            assertTrue(MatrixFactory.equals(dense, sparse, 0));
+            assertTrue(MatrixFactory.equals(dense, MatrixFactory.newMatrix(sparse), 0));
+            assertTrue(MatrixFactory.equals(MatrixFactory.transpose(dense), MatrixFactory.transpose(sparse), 0));
+            assertTrue(isEqual(dense.norm(), sparse.norm()));
+            assertTrue(VectorFactory.equals(MatrixFactory.multiply(dense, x), MatrixFactory.multiply(sparse, x), 1e-12));
+            assertTrue(VectorFactory.equals(MatrixFactory.multiply(y, dense), MatrixFactory.multiply(y, sparse), 1e-12));
+            assertTrue(VectorFactory.equals(MatrixFactory.sumColumns(dense), MatrixFactory.sumColumns(sparse), 1e-12));
+            assertTrue(VectorFactory.equals(MatrixFactory.sumRows(dense), MatrixFactory.sumRows(sparse), 1e-12));
+            assertTrue(MatrixFactory.equals(MatrixFactory.sliceRows(dense, 2, 5), MatrixFactory.sliceRows(sparse, 2, 5), 0));
+            DataMatrix slice = MatrixFactory.sliceRows(sparse, 3, 7);
+            assertTrue(VectorFactory.equals(MatrixFactory.multiply(MatrixFactory.sliceRows(dense, 3, 7), x),
+                    MatrixFactory.multiply(slice, x), 1e-12));
+            assertTrue(MatrixFactory.equals(MatrixFactory.multiplyTransposed(dense, dense),
+                    MatrixFactory.multiplyTransposed(sparse, dense), 1e-12));
+        }
+        System.out.println("Tested sparse matrix!");
+    }
+
 }
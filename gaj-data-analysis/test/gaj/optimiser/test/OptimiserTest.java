@@ -0,0 +1,953 @@
+package gaj.optimiser.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import gaj.analysis.model.AuxiliaryInfo;
+import gaj.analysis.model.GradientAware;
+import gaj.analysis.model.Model;
+import gaj.analysis.model.ParameterisedModel;
+import gaj.analysis.model.prob.discriminative.DiscriminativeProbs;
+import gaj.analysis.model.prob.discriminative.impl.DiscriminativeLogisticClassifier;
+import gaj.analysis.model.prob.discriminative.impl.HogwildLogisticTrainer;
+import gaj.analysis.model.score.BatchModelScorer;
+import gaj.analysis.model.score.DataSource;
+import gaj.analysis.model.score.Datum;
+import gaj.analysis.model.score.GradientScoreInfo;
+import gaj.analysis.model.score.LabelledDatum;
+import gaj.analysis.model.score.ModelScorer;
+import gaj.analysis.model.score.ScoreInfo;
+import gaj.analysis.model.score.ScorerInfo;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+import gaj.analysis.optimiser.CheckpointInfo;
+import gaj.analysis.optimiser.OptimisationResults;
+import gaj.analysis.optimiser.OptimisationStatus;
+import gaj.analysis.optimiser.OptimiserListener;
+import gaj.analysis.optimiser.OptimiserMetrics;
+import gaj.analysis.optimiser.OptimiserPhase;
+import gaj.analysis.optimiser.StochasticOptimiserInfo;
+import gaj.analysis.optimiser.StochasticUpdateType;
+import gaj.analysis.optimiser.impl.Checkpoints;
+import gaj.analysis.optimiser.impl.LBFGSHistory;
+import gaj.analysis.optimiser.impl.MetricsRecorder;
+import gaj.analysis.optimiser.impl.StochasticOptimiser;
+import gaj.analysis.optimiser.impl.WolfeLineSearcher;
+import gaj.analysis.optimiser.searcher.LineSearchParams;
+import gaj.analysis.optimiser.searcher.LineSearchStatus;
+import gaj.analysis.optimiser.searcher.LineSearcherType;
+
+public class OptimiserTest {
+
+    /**
+     * A weighted data case, with input x = (1, u) and target y,
+     * identified by its position in the data set.
+     */
+    private static final class Case implements Datum<double[]> {
+        private final int id;
+        private final double[] x;
+        private final double y;
+
+        private Case(int id, double u, double y) {
+            this.id = id;
+            this.x = new double[] { 1, u };
+            this.y = y;
+        }
+
+        @Override
+        public double[] getData() {
+            return x;
+        }
+
+        @Override
+        public double getWeight() {
+            return 1;
+        }
+    }
+
+    /**
+     * Models the mean of the target as theta . x.
+     */
+    private static final class LinearModel implements ParameterisedModel<double[], Double>, GradientAware {
+        private double[] theta;
+
+        private LinearModel(double... theta) {
+            this.theta = theta.clone();
+        }
+
+        @Override
+        public Double process(double[] x, AuxiliaryInfo... info) {
+            return dot(theta, x);
+        }
+
+        @Override
+        public int numParameters() {
+            return theta.length;
+        }
+
+        @Override
+        public DataVector getParameters() {
+            return VectorFactory.newVector(theta.clone());
+        }
+
+        @Override
+        public void setParameters(DataVector params) {
+            theta = VectorFactory.toArray(params);
+        }
+    }
+
+    /**
+     * Scores a linear model by the negative mean squared error, and records
+     * the identities of the cases in each scored batch.
+     */
+    private static final class SquaredErrorScorer implements BatchModelScorer<double[], Double>, GradientAware {
+        private final List<Case> data;
+        private final List<int[]> batches = new ArrayList<>();
+
+        private SquaredErrorScorer(List<Case> data) {
+            this.data = data;
+        }
+
+        @Override
+        public DataSource<double[]> getSource() {
+            return () -> data.stream().map(datum -> (Datum<double[]>) datum);
+        }
+
+        @Override
+        public ScoreInfo score(Model<double[], Double> model, AuxiliaryInfo... info) {
+            return score(model, data, info);
+        }
+
+        @Override
+        public ScoreInfo score(Model<double[], Double> model, Collection<? extends Datum<double[]>> batch,
+                AuxiliaryInfo... info)
+        {
+            final int[] ids = new int[batch.size()];
+            double score = 0, weight = 0;
+            double[] gradient = new double[2];
+            int i = 0;
+            for (Datum<double[]> datum : batch) {
+                final Case c = (Case) datum;
+                ids[i++] = c.id;
+                final double error = c.y - model.process(c.x);
+                score -= 0.5 * c.getWeight() * error * error;
+                for (int j = 0; j < gradient.length; j++)
+                    gradient[j] += c.getWeight() * error * c.x[j];
+                weight += c.getWeight();
+            }
+            batches.add(ids);
+            for (int j = 0; j < gradient.length; j++)
+                gradient[j] /= weight;
+            return GradientScoreInfo.newScoreInfo(score / weight, weight, VectorFactory.newVector(gradient));
+        }
+    }
+
+    /**
+     * Generates noise-free data from y = 1 + 2 u.
+     */
+    private static List<Case> linearData(int numCases) {
+        final Random random = new Random(numCases);
+        final List<Case> data = new ArrayList<>(numCases);
+        for (int i = 0; i < numCases; i++) {
+            final double u = 2 * random.nextDouble() - 1;
+            data.add(new Case(i, u, 1 + 2 * u));
+        }
+        return data;
+    }
+
+    private static StochasticOptimiserInfo stochasticInfo(StochasticUpdateType updateType, double learningRate,
+            int batchSize, int bufferSize, int maxIterations, long seed)
+    {
+        return new StochasticOptimiserInfo() {
+            @Override
+            public int getDirectionSign() {
+                return 1;
+            }
+
+            @Override
+            public StochasticUpdateType getUpdateType() {
+                return updateType;
+            }
+
+            @Override
+            public double getLearningRate() {
+                return learningRate;
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            @Override
+            public int getShuffleBufferSize() {
+                return bufferSize;
+            }
+
+            @Override
+            public int getMaxIterations() {
+                return maxIterations;
+            }
+
+            @Override
+            public long getSeed() {
+                return seed;
+            }
+        };
+    }
+
+    private static boolean isEqual(double x, double y) {
+        return Math.abs(x - y) < 1e-10 * Math.max(1, Math.abs(x));
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++)
+            sum += a[i] * b[i];
+        return sum;
+    }
+
+    private static double[] subtract(double[] a, double[] b) {
+        double[] c = new double[a.length];
+        for (int i = 0; i < a.length; i++)
+            c[i] = a[i] - b[i];
+        return c;
+    }
+
+    /**
+     * Computes H g explicitly, where the inverse Hessian approximation H is
+     * built by successive BFGS updates of h I from the given differences.
+     */
+    private static double[] bfgsDirection(double[][] s, double[][] y, int from, int to, double[] g) {
+        final int n = g.length;
+        final double h = dot(s[to - 1], y[to - 1]) / dot(y[to - 1], y[to - 1]);
+        double[][] H = new double[n][n];
+        for (int i = 0; i < n; i++)
+            H[i][i] = h;
+        for (int k = from; k < to; k++) {
+            final double rho = 1.0 / dot(s[k], y[k]);
+            // V = I - rho y s^T, and H <- V^T H V + rho s s^T.
+            double[][] V = new double[n][n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    V[i][j] = ((i == j) ? 1 : 0) - rho * y[k][i] * s[k][j];
+            double[][] HV = new double[n][n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    for (int l = 0; l < n; l++)
+                        HV[i][j] += H[i][l] * V[l][j];
+            double[][] newH = new double[n][n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++) {
+                    double sum = rho * s[k][i] * s[k][j];
+                    for (int l = 0; l < n; l++)
+                        sum += V[l][i] * HV[l][j];
+                    newH[i][j] = sum;
+                }
+            H = newH;
+        }
+        double[] d = new double[n];
+        for (int i = 0; i < n; i++)
+            d[i] = dot(H[i], g);
+        return d;
+    }
+
+    @Test
+    public void testLBFGSTwoLoopRecursion() {
+        System.out.println("Testing L-BFGS two-loop recursion...");
+        final int n = 4, numSteps = 7;
+        final Random random = new Random(17);
+        // Maximise f(x) = b.x - x'Ax/2, with gradient g(x) = b - Ax.
+        double[][] A = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++)
+                A[i][j] = A[j][i] = 0.1 * random.nextDouble();
+            A[i][i] += 1 + i;
+        }
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++)
+            b[i] = random.nextGaussian();
+        double[][] x = new double[numSteps][n];
+        double[][] g = new double[numSteps][n];
+        for (int k = 0; k < numSteps; k++) {
+            for (int i = 0; i < n; i++)
+                x[k][i] = random.nextGaussian();
+            for (int i = 0; i < n; i++)
+                g[k][i] = b[i] - dot(A[i], x[k]);
+        }
+        double[][] s = new double[numSteps - 1][];
+        double[][] y = new double[numSteps - 1][];
+        for (int k = 1; k < numSteps; k++) {
+            s[k - 1] = subtract(x[k], x[k - 1]);
+            y[k - 1] = subtract(g[k], g[k - 1]);
+        }
+        for (int memorySize : new int[] { 1, 2, 3, 10 }) {
+            LBFGSHistory history = new LBFGSHistory(memorySize);
+            for (int k = 0; k < numSteps; k++) {
+                DataVector d = history.update(VectorFactory.newVector(x[k]), VectorFactory.newVector(g[k]));
+                assertEquals(Math.min(k, memorySize), history.size());
+                double[] expected = (k == 0) ? g[0]
+                        : bfgsDirection(s, y, Math.max(0, k - memorySize), k, g[k]);
+                for (int i = 0; i < n; i++)
+                    assertTrue(isEqual(expected[i], d.get(i)));
+            }
+        }
+        // For a concave score, H is negative definite, so -H g is an ascent direction.
+        LBFGSHistory history = new LBFGSHistory(3);
+        history.update(VectorFactory.newVector(x[0]), VectorFactory.newVector(g[0]));
+        DataVector d = history.update(VectorFactory.newVector(x[1]), VectorFactory.newVector(g[1]));
+        assertTrue(VectorFactory.dot(d, VectorFactory.newVector(g[1])) < 0);
+        System.out.println("Tested L-BFGS two-loop recursion!");
+    }
+
+    @Test
+    public void testLBFGSResumption() throws IOException {
+        System.out.println("Testing L-BFGS resumption...");
+        final int n = 5, numSteps = 12, memorySize = 4;
+        final Random random = new Random(23);
+        double[][] x = new double[numSteps][n];
+        double[][] g = new double[numSteps][n];
+        for (int k = 0; k < numSteps; k++) {
+            for (int i = 0; i < n; i++) {
+                x[k][i] = random.nextGaussian();
+                g[k][i] = -(1 + i) * x[k][i];
+            }
+        }
+        final Path dir = Files.createTempDirectory("checkpoint");
+        final Path path = dir.resolve("lbfgs.ckpt");
+        try {
+            // Interrupt before the first update, part way through filling the ring, and once it has wrapped.
+            for (int numSaved : new int[] { 0, 2, 7 }) {
+                LBFGSHistory expected = new LBFGSHistory(memorySize);
+                for (int k = 0; k < numSaved; k++)
+                    expected.update(VectorFactory.newVector(x[k]), VectorFactory.newVector(g[k]));
+                Map<String, double[]> state = new LinkedHashMap<>();
+                expected.saveState(state);
+                Checkpoints.write(path, state);
+                // Resume in a history that has already seen other updates.
+                LBFGSHistory actual = new LBFGSHistory(memorySize);
+                actual.update(VectorFactory.newVector(g[0]), VectorFactory.newVector(x[0]));
+                actual.restoreState(Checkpoints.read(path));
+                assertEquals(expected.size(), actual.size());
+                for (int k = numSaved; k < numSteps; k++) {
+                    DataVector d1 = expected.update(VectorFactory.newVector(x[k]), VectorFactory.newVector(g[k]));
+                    DataVector d2 = actual.update(VectorFactory.newVector(x[k]), VectorFactory.newVector(g[k]));
+                    assertArrayEquals(VectorFactory.toArray(d1), VectorFactory.toArray(d2), 0);
+                }
+            }
+            // The memory size must match.
+            try {
+                new LBFGSHistory(memorySize + 1).restoreState(Checkpoints.read(path));
+                fail("Expected a mismatched memory size to be rejected");
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        } finally {
+            Files.deleteIfExists(path);
+            Files.delete(dir);
+        }
+        System.out.println("Tested L-BFGS resumption!");
+    }
+
+    @Test
+    public void testCheckpointSections() throws IOException {
+        System.out.println("Testing checkpoint sections...");
+        final Path dir = Files.createTempDirectory("checkpoint");
+        final Path path = dir.resolve("large.ckpt");
+        try {
+            // A sparse file of more than 2 GB, with sections that each fit into a single mapping.
+            final long length = Checkpoints.MAX_SECTION_LENGTH / 2 + 1;
+            long position = writeCheckpointHeader(path, 0, 2);
+            position = writeSectionHeader(path, position, "first", length);
+            position = writeSectionHeader(path, position + length * Double.BYTES, "second", length);
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.setLength(position + length * Double.BYTES);
+                assertTrue(file.length() > Integer.MAX_VALUE);
+            }
+            Map<String, DoubleBuffer> sections = Checkpoints.read(path);
+            assertEquals(Arrays.asList("first", "second"), new ArrayList<>(sections.keySet()));
+            for (DoubleBuffer section : sections.values()) {
+                assertEquals(length, section.remaining());
+                assertEquals(0, section.get((int) length - 1), 0);
+            }
+            // A section too large to be mapped is rejected.
+            Files.delete(path);
+            final long tooLong = Checkpoints.MAX_SECTION_LENGTH + 1;
+            position = writeCheckpointHeader(path, 0, 1);
+            position = writeSectionHeader(path, position, "huge", tooLong);
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.setLength(position + tooLong * Double.BYTES);
+            }
+            try {
+                Checkpoints.read(path);
+                fail("Expected an oversized section to be rejected");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("huge"));
+            }
+            // A truncated section is rejected.
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.setLength(position + 8);
+            }
+            try {
+                Checkpoints.read(path);
+                fail("Expected a truncated section to be rejected");
+            } catch (IOException e) {
+                // Expected.
+            }
+        } finally {
+            Files.deleteIfExists(path);
+            Files.delete(dir);
+        }
+        System.out.println("Tested checkpoint sections!");
+    }
+
+    private static long writeCheckpointHeader(Path path, long position, int numSections) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("GAJCKPT1".getBytes(StandardCharsets.US_ASCII)).putInt(1).putInt(numSections);
+        return writeAt(path, position, buffer);
+    }
+
+    private static long writeSectionHeader(Path path, long position, String name, long length) throws IOException {
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        final int padding = (int) (-(position + 4 + bytes.length) & 7);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + bytes.length + padding + 8).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(bytes.length).put(bytes).position(buffer.position() + padding);
+        buffer.putLong(length);
+        return writeAt(path, position, buffer);
+    }
+
+    private static long writeAt(Path path, long position, ByteBuffer buffer) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(position);
+            file.write(buffer.array());
+        }
+        return position + buffer.capacity();
+    }
+
+    @Test
+    public void testStochasticMiniBatches() {
+        System.out.println("Testing stochastic mini-batches...");
+        final int numCases = 250, batchSize = 20, bufferSize = 50;
+        SquaredErrorScorer scorer = new SquaredErrorScorer(linearData(numCases));
+        OptimisationResults results = new StochasticOptimiser<double[], Double>().optimise(
+                new LinearModel(0, 0), scorer,
+                stochasticInfo(StochasticUpdateType.ADAM, 0.01, batchSize, bufferSize, 1, 3));
+        assertEquals(OptimisationStatus.MAX_ITERATIONS_EXCEEDED, results.getStatus());
+        assertEquals(1, results.getNumIterations());
+        // Every batch is full, except the last.
+        assertEquals(13, results.getNumSubIterations());
+        assertEquals(13, scorer.batches.size());
+        int[] order = new int[numCases];
+        int pos = 0;
+        for (int b = 0; b < scorer.batches.size(); b++) {
+            int[] ids = scorer.batches.get(b);
+            assertEquals((b < 12) ? batchSize : numCases - 12 * batchSize, ids.length);
+            for (int id : ids)
+                order[pos++] = id;
+        }
+        // Every case is used exactly once per pass.
+        int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < numCases; i++)
+            assertEquals(i, sorted[i]);
+        // The cases are shuffled, but no case is used before it enters the buffer.
+        int numDisplaced = 0;
+        for (int i = 0; i < numCases; i++) {
+            assertTrue(order[i] < i + bufferSize);
+            if (order[i] != i)
+                numDisplaced++;
+        }
+        assertTrue(numDisplaced > numCases / 2);
+        System.out.println("Tested stochastic mini-batches!");
+    }
+
+    @Test
+    public void testStochasticRepeatability() {
+        System.out.println("Testing stochastic repeatability...");
+        final List<Case> data = linearData(100);
+        double[][] params = new double[3][];
+        List<List<int[]>> batches = new ArrayList<>();
+        long[] seeds = { 7, 7, 8 };
+        for (int run = 0; run < seeds.length; run++) {
+            SquaredErrorScorer scorer = new SquaredErrorScorer(data);
+            LinearModel model = new LinearModel(0, 0);
+            new StochasticOptimiser<double[], Double>().optimise(model, scorer,
+                    stochasticInfo(StochasticUpdateType.ADAM, 0.01, 10, 30, 3, seeds[run]));
+            params[run] = model.theta;
+            batches.add(scorer.batches);
+        }
+        // The same seed gives identical shuffles and parameters.
+        assertEquals(batches.get(0).size(), batches.get(1).size());
+        for (int b = 0; b < batches.get(0).size(); b++)
+            assertTrue(Arrays.equals(batches.get(0).get(b), batches.get(1).get(b)));
+        assertArrayEquals(params[0], params[1], 0);
+        // A different seed gives a different shuffle, as does each pass.
+        assertTrue(!Arrays.equals(batches.get(0).get(0), batches.get(2).get(0)));
+        assertTrue(!Arrays.equals(batches.get(0).get(0), batches.get(0).get(10)));
+        System.out.println("Tested stochastic repeatability!");
+    }
+
+    @Test
+    public void testStochasticConvergence() {
+        System.out.println("Testing stochastic convergence...");
+        final List<Case> data = linearData(100);
+        for (StochasticUpdateType updateType : StochasticUpdateType.values()) {
+            LinearModel model = new LinearModel(0, 0);
+            StochasticOptimiser<double[], Double> optimiser = new StochasticOptimiser<>();
+            OptimisationResults results = optimiser.optimise(model, new SquaredErrorScorer(data),
+                    stochasticInfo(updateType, 0.05, 10, 50, 200, 11));
+            assertEquals(200, results.getNumIterations());
+            assertEquals(2000, results.getNumSubIterations());
+            assertTrue(results.getScore().getScore() > -1e-5);
+            assertEquals(1, model.theta[0], 1e-3);
+            assertEquals(2, model.theta[1], 1e-3);
+        }
+        System.out.println("Tested stochastic convergence!");
+    }
+
+    @Test
+    public void testStochasticResumption() throws IOException {
+        System.out.println("Testing stochastic resumption...");
+        final List<Case> data = linearData(100);
+        final Path dir = Files.createTempDirectory("checkpoint");
+        final Path path = dir.resolve("stochastic.ckpt");
+        try {
+            for (StochasticUpdateType updateType : StochasticUpdateType.values()) {
+                // Uninterrupted optimisation.
+                SquaredErrorScorer scorer = new SquaredErrorScorer(data);
+                LinearModel expected = new LinearModel(0, 0);
+                new StochasticOptimiser<double[], Double>().optimise(expected, scorer,
+                        stochasticInfo(updateType, 0.01, 10, 30, 6, 5));
+                // Interrupted after the final checkpoint of the first three passes.
+                new StochasticOptimiser<double[], Double>().optimise(new LinearModel(0, 0),
+                        new SquaredErrorScorer(data), stochasticInfo(updateType, 0.01, 10, 30, 3, 5),
+                        CheckpointInfo.newCheckpointInfo(path, 2));
+                // Resumed in a fresh optimiser, which keeps the checkpointed seed.
+                LinearModel actual = new LinearModel(7, 7);
+                StochasticOptimiser<double[], Double> optimiser = new StochasticOptimiser<>();
+                assertTrue(Checkpoints.restore(path, actual, optimiser));
+                assertEquals(3, optimiser.getNumIterations());
+                SquaredErrorScorer resumedScorer = new SquaredErrorScorer(data);
+                OptimisationResults results = optimiser.optimise(actual, resumedScorer,
+                        stochasticInfo(updateType, 0.01, 10, 30, 3, 6));
+                assertEquals(3, results.getNumIterations());
+                assertEquals(6, optimiser.getNumIterations());
+                assertEquals(60, optimiser.getNumSubIterations());
+                // The resumed passes repeat the shuffles of the last three passes.
+                assertEquals(30, resumedScorer.batches.size());
+                for (int b = 0; b < 30; b++)
+                    assertArrayEquals(scorer.batches.get(30 + b), resumedScorer.batches.get(b));
+                assertArrayEquals(expected.theta, actual.theta, 0);
+                Files.delete(path);
+            }
+        } finally {
+            Files.deleteIfExists(path);
+            Files.delete(dir);
+        }
+        System.out.println("Tested stochastic resumption!");
+    }
+
+    /**
+     * Generates labelled cases with features (1, u, v, 0), where the label is
+     * the class c of greatest weight W_c . (u, v), and the last feature is
+     * always zero.
+     */
+    private static List<LabelledDatum<DataVector>> classData(int numCases) {
+        final double[][] W = { { 0, 0 }, { 3, 1 }, { -1, 3 } };
+        final Random random = new Random(numCases);
+        final List<LabelledDatum<DataVector>> data = new ArrayList<>(numCases);
+        for (int i = 0; i < numCases; i++) {
+            final double u = 2 * random.nextDouble() - 1, v = 2 * random.nextDouble() - 1;
+            int label = 0;
+            for (int c = 1; c < W.length; c++) {
+                if (W[c][0] * u + W[c][1] * v > W[label][0] * u + W[label][1] * v)
+                    label = c;
+            }
+            final DataVector features = VectorFactory.newVector(1, u, v, 0);
+            final int labelIndex = label;
+            data.add(new LabelledDatum<DataVector>() {
+                @Override
+                public DataVector getData() {
+                    return features;
+                }
+
+                @Override
+                public double getWeight() {
+                    return 1;
+                }
+
+                @Override
+                public int getLabelIndex() {
+                    return labelIndex;
+                }
+            });
+        }
+        return data;
+    }
+
+    /**
+     * Scores a classifier by its average log-likelihood of the labelled cases.
+     */
+    private static ModelScorer<DataVector, DiscriminativeProbs> logLikelihoodScorer(
+            List<LabelledDatum<DataVector>> data)
+    {
+        return (model, info) -> {
+            double sum = 0;
+            for (LabelledDatum<DataVector> datum : data)
+                sum += Math.log(model.process(datum.getData()).getPosteriorProbabilities().get(datum.getLabelIndex()));
+            return ScoreInfo.newScoreInfo(sum / data.size(), data.size());
+        };
+    }
+
+    private static double accuracy(DiscriminativeLogisticClassifier classifier, List<LabelledDatum<DataVector>> data) {
+        final double[] probs = new double[3];
+        int numCorrect = 0;
+        for (LabelledDatum<DataVector> datum : data) {
+            classifier.process(datum.getData(), probs);
+            int best = 0;
+            for (int c = 1; c < probs.length; c++) {
+                if (probs[c] > probs[best])
+                    best = c;
+            }
+            if (best == datum.getLabelIndex())
+                numCorrect++;
+        }
+        return numCorrect / (double) data.size();
+    }
+
+    @Test
+    public void testHogwildConvergence() {
+        System.out.println("Testing Hogwild training...");
+        final List<LabelledDatum<DataVector>> data = classData(400);
+        final DataSource<DataVector> source = DataSource.newDataSource(new ArrayList<Datum<DataVector>>(data));
+        final ModelScorer<DataVector, DiscriminativeProbs> scorer = logLikelihoodScorer(data);
+        for (int numThreads : new int[] { 1, 4 }) {
+            ForkJoinPool pool = new ForkJoinPool(numThreads);
+            try {
+                DiscriminativeLogisticClassifier classifier = new DiscriminativeLogisticClassifier(3, 4);
+                final double initialScore = scorer.score(classifier::process).getScore();
+                assertEquals(-Math.log(3), initialScore, 1e-12);
+                HogwildLogisticTrainer trainer = new HogwildLogisticTrainer(classifier);
+                OptimisationResults results = trainer.train(source,
+                        stochasticInfo(StochasticUpdateType.MOMENTUM, 0.1, 1, 1, 5, 0),
+                        ScorerInfo.newParallelScorerInfo(pool));
+                assertEquals(OptimisationStatus.MAX_ITERATIONS_EXCEEDED, results.getStatus());
+                assertEquals(5, results.getNumIterations());
+                assertEquals(0, results.getNumSubIterations());
+                final double score5 = scorer.score(classifier::process).getScore();
+                assertTrue(score5 > -0.5);
+                // Training on resumes where it left off, with end-of-pass and periodic snapshots,
+                // all of which are validated by the calling thread rather than by the workers.
+                final Thread caller = Thread.currentThread();
+                final List<Thread> validators = new ArrayList<>();
+                trainer.setValidationScorer((model, info) -> {
+                    validators.add(Thread.currentThread());
+                    return scorer.score(model, info);
+                });
+                trainer.setSnapshotInterval(100);
+                results = trainer.train(source, stochasticInfo(StochasticUpdateType.MOMENTUM, 0.1, 1, 1, 15, 0),
+                        ScorerInfo.newParallelScorerInfo(pool));
+                assertEquals(15, results.getNumIterations());
+                assertEquals(20, trainer.getNumIterations());
+                // Mid-pass requests may be coalesced, but every end-of-pass snapshot is taken.
+                assertTrue(results.getNumSubIterations() >= 15);
+                assertTrue(results.getNumSubIterations() <= 15 * 5);
+                assertEquals(results.getNumSubIterations(), validators.size());
+                for (Thread validator : validators)
+                    assertTrue(validator == caller);
+                final double score20 = scorer.score(classifier::process).getScore();
+                assertEquals(score20, results.getScore().getScore(), 1e-12);
+                assertTrue(score20 > score5);
+                assertTrue(trainer.getBestScore().getScore() >= score20);
+                assertEquals(trainer.getBestScore().getScore(),
+                        scorer.score(trainer.getBestSnapshot()::process).getScore(), 1e-12);
+                assertTrue(accuracy(classifier, data) > 0.95);
+                // The always-zero feature is never updated.
+                DataVector params = classifier.getParameters();
+                for (int c = 0; c < 3; c++)
+                    assertEquals(0, params.get(4 * c + 3), 0);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        System.out.println("Tested Hogwild training!");
+    }
+
+    /**
+     * Scores the parameters of a linear model by a function of known gradient.
+     */
+    private interface PointScorer extends ModelScorer<double[], Double>, GradientAware {
+        /**
+         * Computes the function and its gradient.
+         *
+         * @param x - The point.
+         * @param gradient - The array in which to store the gradient.
+         * @return The function value.
+         */
+        double score(double[] x, double[] gradient);
+
+        @Override
+        default ScoreInfo score(Model<double[], Double> model, AuxiliaryInfo... info) {
+            final double[] x = ((LinearModel) model).theta;
+            final double[] gradient = new double[x.length];
+            final double score = score(x, gradient);
+            return GradientScoreInfo.newScoreInfo(score, 1, VectorFactory.newVector(gradient));
+        }
+    }
+
+    /** The concave quadratic, f(x, y) = -(x - 1)^2 / 2 - 5 (y + 2)^2. */
+    private static final PointScorer QUADRATIC = (x, gradient) -> {
+        gradient[0] = -(x[0] - 1);
+        gradient[1] = -10 * (x[1] + 2);
+        return -0.5 * (x[0] - 1) * (x[0] - 1) - 5 * (x[1] + 2) * (x[1] + 2);
+    };
+
+    /** The Rosenbrock function, f(x, y) = (1 - x)^2 + 100 (y - x^2)^2. */
+    private static final PointScorer ROSENBROCK = (x, gradient) -> {
+        final double a = 1 - x[0], b = x[1] - x[0] * x[0];
+        gradient[0] = -2 * a - 400 * x[0] * b;
+        gradient[1] = 200 * b;
+        return a * a + 100 * b * b;
+    };
+
+    private static LineSearchParams wolfeParams(int directionSign) {
+        return new LineSearchParams() {
+            @Override
+            public int getDirectionSign() {
+                return directionSign;
+            }
+
+            @Override
+            public LineSearcherType getLineSearcherType() {
+                return LineSearcherType.WOLFE;
+            }
+        };
+    }
+
+    private static DataVector gradient(PointScorer scorer, LinearModel model) {
+        return ((GradientScoreInfo) scorer.score(model)).getScoreGradient();
+    }
+
+    @Test
+    public void testWolfeLineSearch() {
+        System.out.println("Testing Wolfe line search...");
+        {
+            // Maximise along the gradient.
+            LinearModel model = new LinearModel(3, 1);
+            WolfeLineSearcher<double[], Double> searcher = new WolfeLineSearcher<>(model, QUADRATIC, wolfeParams(1));
+            final double score0 = searcher.getScoreInfo().getScore();
+            final DataVector d = gradient(QUADRATIC, model);
+            final double slope0 = VectorFactory.dot(d, d);
+            assertEquals(LineSearchStatus.SUCCESSFUL, searcher.search(d));
+            assertTrue(searcher.getScoreInfo().getScore() > score0 + 1e-4 * searcher.getStepSize() * slope0);
+            assertTrue(Math.abs(VectorFactory.dot(gradient(QUADRATIC, model), d)) <= 0.9 * slope0);
+            final int numEvaluations = searcher.getNumEvaluations();
+            assertTrue(numEvaluations <= 4);
+            // The accepted score is reused, rather than recomputed.
+            searcher.getScoreInfo();
+            assertEquals(numEvaluations, searcher.getNumEvaluations());
+            // Searching against the gradient is rejected without moving the model.
+            final double[] theta = model.theta.clone();
+            DataVector against = VectorFactory.scale(gradient(QUADRATIC, model), -1);
+            assertEquals(LineSearchStatus.WRONG_DIRECTION, searcher.search(against));
+            assertArrayEquals(theta, model.theta, 0);
+            assertEquals(numEvaluations, searcher.getNumEvaluations());
+        }
+        {
+            // Minimise with the direction sign, given the gradient itself as the direction.
+            LinearModel model = new LinearModel(3, 1);
+            PointScorer convex = (x, gradient) -> {
+                final double score = -QUADRATIC.score(x, gradient);
+                for (int i = 0; i < gradient.length; i++)
+                    gradient[i] = -gradient[i];
+                return score;
+            };
+            WolfeLineSearcher<double[], Double> searcher = new WolfeLineSearcher<>(model, convex, wolfeParams(-1));
+            final double score0 = searcher.getScoreInfo().getScore();
+            final DataVector d = gradient(convex, model);
+            final double slope0 = VectorFactory.dot(d, d);
+            assertEquals(LineSearchStatus.SUCCESSFUL, searcher.search(d));
+            assertTrue(searcher.getScoreInfo().getScore() < score0 - 1e-4 * searcher.getStepSize() * slope0);
+            assertTrue(Math.abs(VectorFactory.dot(gradient(convex, model), d)) <= 0.9 * slope0);
+            assertTrue(searcher.getNumEvaluations() <= 4);
+            // A direction of descent is wrong for minimisation.
+            assertEquals(LineSearchStatus.WRONG_DIRECTION,
+                    searcher.search(VectorFactory.scale(gradient(convex, model), -1)));
+        }
+        {
+            // Minimise the Rosenbrock function by steepest descent.
+            LinearModel model = new LinearModel(-1.2, 1);
+            WolfeLineSearcher<double[], Double> searcher = new WolfeLineSearcher<>(model, ROSENBROCK, wolfeParams(-1));
+            double score = searcher.getScoreInfo().getScore();
+            final int numSearches = 100;
+            for (int i = 0; i < numSearches; i++) {
+                assertEquals(LineSearchStatus.SUCCESSFUL, searcher.search(gradient(ROSENBROCK, model)));
+                final double newScore = searcher.getScoreInfo().getScore();
+                assertTrue(newScore < score);
+                score = newScore;
+            }
+            System.out.printf("Steepest descent: f=%g after %d evaluations%n", score, searcher.getNumEvaluations());
+            assertTrue(score < 24.2 / 5);
+            assertTrue(searcher.getNumEvaluations() <= 3 * numSearches);
+        }
+        {
+            // Minimise the Rosenbrock function by L-BFGS.
+            LinearModel model = new LinearModel(-1.2, 1);
+            WolfeLineSearcher<double[], Double> searcher = new WolfeLineSearcher<>(model, ROSENBROCK, wolfeParams(-1));
+            LBFGSHistory history = new LBFGSHistory(5);
+            int numSearches = 0;
+            while (numSearches < 100 && searcher.getScoreInfo().getScore() > 1e-14) {
+                final DataVector g = searcher.getScoreInfo().getScoreGradient();
+                final DataVector d = history.update(model.getParameters(), g);
+                // Note: The curvature is positive for minimisation, so H g is a descent direction.
+                assertEquals(LineSearchStatus.SUCCESSFUL, searcher.search(d));
+                numSearches++;
+            }
+            System.out.printf("L-BFGS: f=%g after %d searches and %d evaluations%n",
+                    searcher.getScoreInfo().getScore(), numSearches, searcher.getNumEvaluations());
+            assertEquals(1, model.theta[0], 1e-6);
+            assertEquals(1, model.theta[1], 1e-6);
+            assertTrue(numSearches < 60);
+            assertTrue(searcher.getNumEvaluations() <= 2 * numSearches);
+        }
+        System.out.println("Tested Wolfe line search!");
+    }
+
+    @Test
+    public void testOptimiserMetrics() throws InterruptedException {
+        System.out.println("Testing optimiser metrics...");
+        {
+            // Nested phases are not double-counted.
+            MetricsRecorder metrics = new MetricsRecorder();
+            final long wallStart = System.nanoTime();
+            final long outerStart = metrics.startTimer();
+            Thread.sleep(10);
+            final long innerStart = metrics.startTimer();
+            Thread.sleep(30);
+            metrics.stopTimer(OptimiserPhase.SCORING, innerStart);
+            metrics.stopTimer(OptimiserPhase.LINE_SEARCH, outerStart);
+            final long wallNanos = System.nanoTime() - wallStart;
+            assertTrue(metrics.getElapsedNanos(OptimiserPhase.SCORING) >= 30_000_000);
+            assertTrue(metrics.getElapsedNanos(OptimiserPhase.LINE_SEARCH) >= 10_000_000);
+            assertTrue(metrics.getElapsedNanos(OptimiserPhase.SCORING)
+                    + metrics.getElapsedNanos(OptimiserPhase.LINE_SEARCH) <= wallNanos);
+        }
+        {
+            // A stochastic optimiser evaluates each mini-batch once.
+            OptimisationResults results = new StochasticOptimiser<double[], Double>().optimise(
+                    new LinearModel(0, 0), new SquaredErrorScorer(linearData(250)),
+                    stochasticInfo(StochasticUpdateType.ADAM, 0.01, 20, 50, 2, 3));
+            OptimiserMetrics metrics = results.getMetrics();
+            assertEquals(2, metrics.getNumDataPasses());
+            assertEquals(results.getNumSubIterations(), metrics.getNumScoreEvaluations());
+            assertEquals(26, metrics.getNumGradientEvaluations());
+            assertTrue(metrics.getElapsedNanos(OptimiserPhase.SCORING) > 0);
+            assertTrue(metrics.getElapsedNanos(OptimiserPhase.UPDATE) > 0);
+        }
+        {
+            // A line search evaluates the full data for each trial step.
+            MetricsRecorder metrics = new MetricsRecorder();
+            LinearModel model = new LinearModel(-1.2, 1);
+            WolfeLineSearcher<double[], Double> searcher = new WolfeLineSearcher<>(model, ROSENBROCK, wolfeParams(-1));
+            searcher.setMetricsRecorder(metrics);
+            final long wallStart = System.nanoTime();
+            for (int i = 0; i < 10; i++)
+                assertEquals(LineSearchStatus.SUCCESSFUL, searcher.search(gradient(ROSENBROCK, model)));
+            final long wallNanos = System.nanoTime() - wallStart;
+            assertEquals(searcher.getNumEvaluations(), metrics.getNumScoreEvaluations());
+            assertEquals(searcher.getNumEvaluations(), metrics.getNumGradientEvaluations());
+            assertTrue(metrics.getElapsedNanos(OptimiserPhase.SCORING) > 0);
+            assertTrue(metrics.getElapsedNanos(OptimiserPhase.LINE_SEARCH) > 0);
+            assertTrue(metrics.getElapsedNanos(OptimiserPhase.SCORING)
+                    + metrics.getElapsedNanos(OptimiserPhase.LINE_SEARCH) <= wallNanos);
+        }
+        {
+            // Hogwild training evaluates each labelled case once per pass,
+            // plus every mid-pass and end-of-pass validation.
+            final List<LabelledDatum<DataVector>> data = classData(400);
+            HogwildLogisticTrainer trainer = new HogwildLogisticTrainer(new DiscriminativeLogisticClassifier(3, 4));
+            trainer.setValidationScorer(logLikelihoodScorer(data));
+            trainer.setSnapshotInterval(100);
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                OptimisationResults results = trainer.train(
+                        DataSource.newDataSource(new ArrayList<Datum<DataVector>>(data)),
+                        stochasticInfo(StochasticUpdateType.MOMENTUM, 0.1, 1, 1, 2, 0),
+                        ScorerInfo.newParallelScorerInfo(pool));
+                OptimiserMetrics metrics = results.getMetrics();
+                assertEquals(2, metrics.getNumDataPasses());
+                assertEquals(2 * 400, metrics.getNumGradientEvaluations());
+                assertTrue(results.getNumSubIterations() >= 2);
+                assertTrue(results.getNumSubIterations() <= 2 * 5);
+                assertEquals(2 * 400 + results.getNumSubIterations(), metrics.getNumScoreEvaluations());
+                assertTrue(metrics.getElapsedNanos(OptimiserPhase.VALIDATION) > 0);
+                assertTrue(metrics.getElapsedNanos(OptimiserPhase.UPDATE) > 0);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        System.out.println("Tested optimiser metrics!");
+    }
+
+    @Test
+    public void testOptimiserListener() {
+        System.out.println("Testing optimiser listener...");
+        // Halt after every second pass.
+        final List<long[]> allocations = new ArrayList<>();
+        final OptimiserListener listener = (state, metrics) -> {
+            allocations.add(new long[] { metrics.getAllocatedBytes(), metrics.getIterationAllocatedBytes() });
+            assertTrue(metrics.getIterationNanos() > 0);
+            assertTrue(metrics.getTotalElapsedNanos() >= metrics.getIterationNanos());
+            return state.getNumIterations() % 2 != 0;
+        };
+        final SquaredErrorScorer scorer = new SquaredErrorScorer(linearData(250));
+        final LinearModel model = new LinearModel(0, 0);
+        final StochasticOptimiser<double[], Double> optimiser = new StochasticOptimiser<>();
+        OptimisationResults results = optimiser.optimise(model, scorer,
+                stochasticInfo(StochasticUpdateType.ADAM, 0.01, 20, 50, 10, 3), listener);
+        assertEquals(OptimisationStatus.HALTED_BY_LISTENER, results.getStatus());
+        assertEquals(2, results.getNumIterations());
+        assertEquals(2, allocations.size());
+        assertEquals(allocations.get(1)[0], results.getMetrics().getAllocatedBytes());
+        // The halted run resumes from where it stopped.
+        results = optimiser.optimise(model, scorer,
+                stochasticInfo(StochasticUpdateType.ADAM, 0.01, 20, 50, 10, 3), listener);
+        assertEquals(OptimisationStatus.HALTED_BY_LISTENER, results.getStatus());
+        assertEquals(2, results.getNumIterations());
+        assertEquals(4, optimiser.getNumIterations());
+        assertEquals(4, allocations.size());
+        results = optimiser.optimise(model, scorer, stochasticInfo(StochasticUpdateType.ADAM, 0.01, 20, 50, 1, 3));
+        assertEquals(OptimisationStatus.MAX_ITERATIONS_EXCEEDED, results.getStatus());
+        assertEquals(5, optimiser.getNumIterations());
+        // Allocation is cumulative within each run, and non-negative, where the JVM measures it.
+        for (int run = 0; run < 2; run++) {
+            final long[] first = allocations.get(2 * run), second = allocations.get(2 * run + 1);
+            if (first[0] < 0)
+                continue;
+            assertTrue(first[1] > 0);
+            assertEquals(first[1], first[0]);
+            assertTrue(second[1] > 0);
+            assertEquals(first[0] + second[1], second[0]);
+        }
+        System.out.println("Tested optimiser listener!");
+    }
+
+}
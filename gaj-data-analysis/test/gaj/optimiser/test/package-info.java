@@ -0,0 +1,4 @@
+/**
+ * Unit tests for model optimisation. 
+ */
+package gaj.optimiser.test;
\ No newline at end of file
@@ -0,0 +1,175 @@
+package gaj.score.test;
+
+import static org.junit.Assert.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import gaj.analysis.model.AuxiliaryInfo;
+import gaj.analysis.model.Model;
+import gaj.analysis.model.score.DataSource;
+import gaj.analysis.model.score.Datum;
+import gaj.analysis.model.score.GradientScoreInfo;
+import gaj.analysis.model.score.ModelledDatumScorer;
+import gaj.analysis.model.score.ScoreInfo;
+import gaj.analysis.model.score.ScorerInfo;
+import gaj.analysis.model.score.impl.DataSourceModelScorer;
+import gaj.analysis.numeric.vector.DataVector;
+import gaj.analysis.numeric.vector.impl.VectorFactory;
+
+public class ScorerTest {
+
+    private static final int NUM_CASES = 2000;
+    private static final int NUM_PARAMETERS = 256;
+
+    /** The kinds of case score gradient. */
+    private enum Gradient {
+        NONE, SPARSE, DENSE
+    }
+
+    /**
+     * Scores each case, i, with integer-valued scores, weights and
+     * gradients, so that every summation order gives exactly the same
+     * result.
+     */
+    private static final class CaseScorer implements ModelledDatumScorer<Integer, Integer> {
+        private final Gradient[] kinds;
+
+        private CaseScorer(Gradient... kinds) {
+            this.kinds = kinds;
+        }
+
+        private Gradient kind(int i) {
+            // A mixture also has occasional dense gradients.
+            if (kinds.length > 1 && i % 97 == 0)
+                return Gradient.DENSE;
+            return kinds[i % kinds.length];
+        }
+
+        private static int position(int i) {
+            // Few distinct positions, so that partial sums stay sparse.
+            return 16 * (i % 16);
+        }
+
+        private static double score(int i) {
+            return i % 11 - 5;
+        }
+
+        private static double weight(int i) {
+            return 1 + i % 3;
+        }
+
+        private /*@Nullable*/ double[] gradient(int i) {
+            switch (kind(i)) {
+                case SPARSE: {
+                    final double[] gradient = new double[NUM_PARAMETERS];
+                    gradient[position(i)] = i % 7 - 3;
+                    return gradient;
+                }
+                case DENSE: {
+                    final double[] gradient = new double[NUM_PARAMETERS];
+                    for (int j = 0; j < NUM_PARAMETERS; j++)
+                        gradient[j] = (i + j) % 5 - 2;
+                    return gradient;
+                }
+                default:
+                    return null;
+            }
+        }
+
+        @Override
+        public ScoreInfo score(Datum<Integer> dataCase, Integer i, AuxiliaryInfo... info) {
+            final double[] gradient = gradient(i);
+            if (gradient == null)
+                return ScoreInfo.newScoreInfo(score(i), weight(i));
+            final DataVector vector = (kind(i) == Gradient.SPARSE)
+                    ? VectorFactory.newSparseVector(NUM_PARAMETERS, new int[] { position(i) },
+                            new double[] { gradient[position(i)] })
+                    : VectorFactory.newVector(gradient);
+            return GradientScoreInfo.newScoreInfo(score(i), weight(i), vector);
+        }
+    }
+
+    private static DataSource<Integer> source() {
+        final List<Datum<Integer>> data = new ArrayList<>(NUM_CASES);
+        for (int i = 0; i < NUM_CASES; i++) {
+            final int index = i;
+            data.add(new Datum<Integer>() {
+                @Override
+                public Integer getData() {
+                    return index;
+                }
+
+                @Override
+                public double getWeight() {
+                    return 1;
+                }
+            });
+        }
+        return DataSource.newDataSource(data);
+    }
+
+    /**
+     * Checks the score information against the directly computed weighted
+     * averages.
+     */
+    private static void assertScore(CaseScorer caseScorer, ScoreInfo actual) {
+        double sumWeight = 0, sumScore = 0;
+        double[] sumGradient = null;
+        for (int i = 0; i < NUM_CASES; i++) {
+            final double weight = CaseScorer.weight(i);
+            sumWeight += weight;
+            sumScore += weight * CaseScorer.score(i);
+            final double[] gradient = caseScorer.gradient(i);
+            if (gradient != null) {
+                if (sumGradient == null)
+                    sumGradient = new double[NUM_PARAMETERS];
+                for (int j = 0; j < NUM_PARAMETERS; j++)
+                    sumGradient[j] += weight * gradient[j];
+            }
+        }
+        final double scaling = 1 / sumWeight;
+        assertEquals(scaling * sumScore, actual.getScore(), 0);
+        assertEquals(sumGradient != null, actual instanceof GradientScoreInfo);
+        if (sumGradient != null) {
+            final DataVector gradient = ((GradientScoreInfo) actual).getScoreGradient();
+            assertEquals(NUM_PARAMETERS, gradient.size());
+            for (int j = 0; j < NUM_PARAMETERS; j++)
+                assertEquals(scaling * sumGradient[j], gradient.get(j), 0);
+        }
+    }
+
+    @Test
+    public void testParallelScoring() {
+        System.out.println("Testing parallel scoring...");
+        final DataSource<Integer> source = source();
+        final Model<Integer, Integer> model = (input, info) -> input;
+        final Gradient[][] mixtures = {
+                { Gradient.NONE },
+                { Gradient.SPARSE },
+                { Gradient.DENSE },
+                // Sparse and absent gradients, with occasional dense ones.
+                { Gradient.NONE, Gradient.SPARSE, Gradient.SPARSE },
+        };
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Gradient[] kinds : mixtures) {
+                final CaseScorer caseScorer = new CaseScorer(kinds);
+                final DataSourceModelScorer<Integer, Integer> scorer =
+                        new DataSourceModelScorer<Integer, Integer>(source, caseScorer) {};
+                assertScore(caseScorer, scorer.score(model));
+                assertScore(caseScorer, scorer.score(model, ScorerInfo.newParallelScorerInfo(pool)));
+                assertScore(caseScorer, scorer.score(model, ScorerInfo.SCORE_IN_PARALLEL));
+                // By default, in the bound thread pool.
+                scorer.setParallelPool(pool);
+                assertScore(caseScorer, scorer.score(model));
+                scorer.setParallelPool(null);
+                assertScore(caseScorer, scorer.score(model));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println("Tested parallel scoring!");
+    }
+
+}
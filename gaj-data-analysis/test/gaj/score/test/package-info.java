@@ -0,0 +1,4 @@
+/**
+ * Unit tests for model scoring.
+ */
+package gaj.score.test;
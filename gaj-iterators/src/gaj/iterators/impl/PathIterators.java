@@ -86,6 +86,22 @@ public abstract class PathIterators {
 		return new FileInputStreamIterator(files, false);
 	}
 
+	/**
+	 * Constructs a resource-iterator over the input streams of the given files,
+	 * whilst opening the next few files on background threads.
+	 * <p/><b>Note:</b> Each stream is automatically closed when the next stream is returned.
+	 * 
+	 * @param files - The paths of the files.
+	 * @param maxPrefetch - The maximum number of files to open ahead of the current file.
+	 * @param delivery - Indicates whether the streams are returned in the order of the files,
+	 * or as soon as each file has been opened.
+	 */
+	public static ResourceIterator<InputStream> newPrefetchingFileInputStreamIterator(Iterator<? extends Path> files,
+			int maxPrefetch, PrefetchingMultiIterator.Delivery delivery) {
+		return new PrefetchingMultiIterator<Path, InputStream>(files, PathIterators::newFileInputStreamIterator,
+				maxPrefetch, delivery);
+	}
+
 	public static ResourceIterator<InputStream> newFileInputStreamIterator(Stream<? extends Path> files, boolean autoClose) {
 		return new FileInputStreamIterator(files, autoClose);
 	}
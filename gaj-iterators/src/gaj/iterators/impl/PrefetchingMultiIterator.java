@@ -0,0 +1,296 @@
+/*
+ * (c) Geoff Jarrad, 2016.
+ */
+package gaj.iterators.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterates through the sequences of a series of resources, such as files,
+ * whilst opening the next few resources on background threads.
+ * This hides the latency of opening each resource behind the consumption of the previous ones.
+ * <p/>
+ * At most a fixed number of resources are opened ahead of the current sequence.
+ * The resources may be delivered either in source order, or in the order that they finish opening.
+ * Every opened resource is closed, either when its sequence is exhausted, or when the iterator is closed.
+ * <p/><b>Note:</b> The iterator itself is not thread-safe, and should only be consumed by a single thread.
+ *
+ * @param <S> - The type of resource source, e.g. a file path.
+ * @param <T> - The type of item in each resource sequence.
+ */
+public class PrefetchingMultiIterator<S, T> extends ResourceMultiIterator<T> {
+
+	/** The number of seconds that an idle thread of the default pool is kept alive. */
+	private static final long KEEP_ALIVE_SECONDS = 1;
+
+	/**
+	 * Specifies the order in which opened resources are delivered.
+	 */
+	public enum Delivery {
+		/** The resources are delivered in the order of their sources. */
+		ORDERED,
+		/** The resources are delivered as soon as they have been opened. */
+		UNORDERED
+	}
+
+	/**
+	 * Opens a resource as a sequence of items. If the sequence is {@link Closeable}
+	 * or {@link AutoCloseable}, then it will be closed once it is no longer required.
+	 */
+	@FunctionalInterface
+	public interface Opener<S, T> {
+		/**
+		 * @param source - The source of the resource.
+		 * @return A non-null sequence over the resource.
+		 * @throws IOException If the resource fails to be opened.
+		 */
+		Iterator<? extends T> open(S source) throws IOException;
+	}
+
+	private final Iterator<? extends S> sources;
+	private final Opener<? super S, ? extends T> opener;
+	private final int maxPrefetch;
+	private final Delivery delivery;
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	/** The resources being opened, in source order. */
+	private final Deque<Prefetch> pending = new ArrayDeque<>();
+	/** The resources that have finished opening, for unordered delivery. */
+	private final BlockingQueue<Prefetch> ready = new LinkedBlockingQueue<>();
+	private boolean isClosed = false;
+
+	/**
+	 * Constructs a prefetching iterator using the given executor, which is not shut down by the iterator.
+	 * On newer JVMs, this may be an executor of virtual threads.
+	 *
+	 * @param sources - The sources of the resources.
+	 * @param opener - The means of opening each resource.
+	 * @param maxPrefetch - The maximum number of resources to open ahead of the current resource.
+	 * @param delivery - The order of delivery of the resources.
+	 * @param executor - The executor on which to open the resources.
+	 */
+	public PrefetchingMultiIterator(Iterator<? extends S> sources, Opener<? super S, ? extends T> opener,
+			int maxPrefetch, Delivery delivery, ExecutorService executor) {
+		this(sources, opener, maxPrefetch, delivery, executor, false);
+	}
+
+	/**
+	 * Constructs a prefetching iterator with its own pool of daemon threads,
+	 * one per prefetched resource. The pool is shut down when the iterator is exhausted or closed,
+	 * and otherwise its threads expire once idle, so an iterator that is merely dropped leaks no threads.
+	 *
+	 * @param sources - The sources of the resources.
+	 * @param opener - The means of opening each resource.
+	 * @param maxPrefetch - The maximum number of resources to open ahead of the current resource.
+	 * @param delivery - The order of delivery of the resources.
+	 */
+	public PrefetchingMultiIterator(Iterator<? extends S> sources, Opener<? super S, ? extends T> opener,
+			int maxPrefetch, Delivery delivery) {
+		this(sources, opener, maxPrefetch, delivery, newExecutor(maxPrefetch), true);
+	}
+
+	private PrefetchingMultiIterator(Iterator<? extends S> sources, Opener<? super S, ? extends T> opener,
+			int maxPrefetch, Delivery delivery, ExecutorService executor, boolean ownsExecutor) {
+		if (maxPrefetch <= 0)
+			throw new IllegalArgumentException("Prefetch size must be positive: " + maxPrefetch);
+		this.sources = sources;
+		this.opener = opener;
+		this.maxPrefetch = maxPrefetch;
+		this.delivery = delivery;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	private static ExecutorService newExecutor(int numThreads) {
+		if (numThreads <= 0)
+			throw new IllegalArgumentException("Prefetch size must be positive: " + numThreads);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads,
+				KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, "prefetch");
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	@Override
+	protected /*@Nullable*/ Iterator<? extends T> nextIterator() {
+		if (isClosed) return null;
+		fill();
+		if (pending.isEmpty()) {
+			shutdown();
+			return null;
+		}
+		final Prefetch prefetch;
+		try {
+			prefetch = (delivery == Delivery.ORDERED) ? pending.peekFirst() : ready.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw failure(new InterruptedIOException("Interrupted whilst awaiting resource"));
+		}
+		pending.remove(prefetch);
+		fill(); // Replace the delivered resource.
+		try {
+			return prefetch.get();
+		} catch (InterruptedException e) {
+			// Leave the resource to be closed when it has been opened.
+			prefetch.abandon();
+			Thread.currentThread().interrupt();
+			throw failure(new InterruptedIOException("Interrupted whilst awaiting resource"));
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw failure((Exception) cause);
+		}
+	}
+
+	/**
+	 * Starts opening resources until the prefetch limit is reached, or the sources are exhausted.
+	 */
+	private void fill() {
+		while (pending.size() < maxPrefetch && sources.hasNext()) {
+			Prefetch prefetch = new Prefetch(sources.next());
+			executor.execute(prefetch);
+			pending.addLast(prefetch);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (isClosed) return;
+		isClosed = true;
+		hasNext = false;
+		RuntimeException failure = null;
+		try {
+			super.close();
+		} catch (RuntimeException e) {
+			failure = e;
+		}
+		for (Prefetch prefetch : pending) {
+			prefetch.cancel(false);
+			try {
+				prefetch.abandon();
+			} catch (RuntimeException e) {
+				if (failure == null) failure = e;
+			}
+		}
+		pending.clear();
+		ready.clear();
+		shutdown();
+		if (failure != null) throw failure;
+	}
+
+	private void shutdown() {
+		if (ownsExecutor) executor.shutdown();
+	}
+
+	private static UncheckedIOException failure(Exception e) {
+		if (e instanceof UncheckedIOException) return (UncheckedIOException) e;
+		if (e instanceof IOException) return new UncheckedIOException((IOException) e);
+		return new UncheckedIOException(new IOException(e));
+	}
+
+	private static void closeResource(Iterator<?> iterator) {
+		try {
+			if (iterator instanceof Closeable) {
+				((Closeable) iterator).close();
+			} else if (iterator instanceof AutoCloseable) {
+				((AutoCloseable) iterator).close();
+			}
+		} catch (Exception e) {
+			throw failure(e);
+		}
+	}
+
+	/**
+	 * Opens a single resource on a background thread.
+	 */
+	private final class Prefetch extends FutureTask<Iterator<? extends T>> {
+
+		private final OpenTask task;
+
+		private Prefetch(S source) {
+			this(new OpenTask(source));
+		}
+
+		private Prefetch(OpenTask task) {
+			super(task);
+			this.task = task;
+		}
+
+		@Override
+		protected void done() {
+			if (delivery == Delivery.UNORDERED) ready.add(this);
+		}
+
+		private void abandon() {
+			task.abandon();
+		}
+
+	}
+
+	/**
+	 * Opens a resource, and primes its sequence so that any lazily opened resource is also opened.
+	 * If the resource is abandoned, then it is closed as soon as it has been opened.
+	 */
+	private final class OpenTask implements Callable<Iterator<? extends T>> {
+
+		private final S source;
+		private /*@Nullable*/ Iterator<? extends T> iterator = null;
+		private boolean isAbandoned = false;
+
+		private OpenTask(S source) {
+			this.source = source;
+		}
+
+		@Override
+		public /*@Nullable*/ Iterator<? extends T> call() throws IOException {
+			synchronized (this) {
+				if (isAbandoned) return null;
+			}
+			final Iterator<? extends T> iter = Objects.requireNonNull(opener.open(source), "Null resource sequence");
+			try {
+				iter.hasNext();
+			} catch (RuntimeException e) {
+				closeResource(iter);
+				throw e;
+			}
+			synchronized (this) {
+				if (!isAbandoned) {
+					iterator = iter;
+					return iter;
+				}
+			}
+			closeResource(iter);
+			return null;
+		}
+
+		private synchronized void abandon() {
+			isAbandoned = true;
+			if (iterator != null) {
+				final Iterator<? extends T> iter = iterator;
+				iterator = null;
+				closeResource(iter);
+			}
+		}
+
+	}
+
+}
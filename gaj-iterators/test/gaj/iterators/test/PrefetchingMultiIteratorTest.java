@@ -0,0 +1,203 @@
+/*
+ * (c) Geoff Jarrad, 2016.
+ */
+package gaj.iterators.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import gaj.iterators.impl.PrefetchingMultiIterator;
+import gaj.iterators.impl.PrefetchingMultiIterator.Delivery;
+
+public class PrefetchingMultiIteratorTest {
+
+	private static final int NUM_TRIALS = 200;
+	private static final int NUM_RESOURCES = 20;
+	private static final int NUM_ITEMS = 3;
+	private static final int MAX_PREFETCH = 4;
+	/** The maximum time in milliseconds to wait for background activity to finish. */
+	private static final long TIMEOUT_MILLIS = 10000;
+
+	/**
+	 * Counts the opening and closing of each resource.
+	 */
+	private static final class Counter {
+		private final AtomicInteger opened = new AtomicInteger();
+		private final AtomicInteger closed = new AtomicInteger();
+		private final AtomicInteger closedTwice = new AtomicInteger();
+	}
+
+	/**
+	 * Provides the items k * NUM_ITEMS + i, for i = 0, 1, ..., NUM_ITEMS - 1.
+	 * Opening takes a variable time, so that resources finish opening out of order.
+	 */
+	private static final class Resource implements Iterator<Integer>, Closeable {
+		private final Counter counter;
+		private final int k;
+		private int i = 0;
+		private boolean isClosed = false;
+
+		private Resource(Counter counter, int k, int delay) throws IOException {
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+			this.counter = counter;
+			this.k = k;
+			counter.opened.incrementAndGet();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return i < NUM_ITEMS;
+		}
+
+		@Override
+		public Integer next() {
+			return k * NUM_ITEMS + i++;
+		}
+
+		@Override
+		public synchronized void close() {
+			if (isClosed) {
+				counter.closedTwice.incrementAndGet();
+			} else {
+				isClosed = true;
+				counter.closed.incrementAndGet();
+			}
+		}
+	}
+
+	private static Iterator<Integer> sources() {
+		List<Integer> sources = new ArrayList<>();
+		for (int k = 0; k < NUM_RESOURCES; k++) sources.add(k);
+		return sources.iterator();
+	}
+
+	private static PrefetchingMultiIterator<Integer, Integer> newIterator(Counter counter, Delivery delivery) {
+		return new PrefetchingMultiIterator<>(sources(),
+				k -> new Resource(counter, k, (7 * k) % 3), MAX_PREFETCH, delivery);
+	}
+
+	private static PrefetchingMultiIterator<Integer, Integer> newIterator(Counter counter, Delivery delivery,
+			ExecutorService executor) {
+		return new PrefetchingMultiIterator<>(sources(),
+				k -> new Resource(counter, k, (7 * k) % 3), MAX_PREFETCH, delivery, executor);
+	}
+
+	/**
+	 * Waits for any abandoned resources to finish opening, and so be closed.
+	 * Every open runs on the given executor, so all of them have finished once it has terminated.
+	 */
+	private static void assertAllClosed(Counter counter, ExecutorService executor) throws InterruptedException {
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+		assertEquals(counter.opened.get(), counter.closed.get());
+		assertEquals(0, counter.closedTwice.get());
+	}
+
+	/**
+	 * Checks that each resource is delivered at most once, with its items contiguous and in order,
+	 * and, for ordered delivery, that the resources are in source order.
+	 */
+	private static void assertOrdering(List<Integer> items, Delivery delivery) {
+		Set<Integer> delivered = new HashSet<>();
+		int prevResource = -1;
+		for (int j = 0; j < items.size(); j++) {
+			final int resource = items.get(j) / NUM_ITEMS;
+			final int i = items.get(j) % NUM_ITEMS;
+			if (i == 0) {
+				assertTrue(delivered.add(resource));
+				if (delivery == Delivery.ORDERED) assertEquals(prevResource + 1, resource);
+				prevResource = resource;
+			} else {
+				assertEquals(items.get(j - 1) + 1, (int) items.get(j));
+			}
+		}
+	}
+
+	@Test
+	public void testExhaustion() throws InterruptedException {
+		System.out.println("Testing prefetching exhaustion...");
+		for (Delivery delivery : Delivery.values()) {
+			Counter counter = new Counter();
+			List<Integer> items = new ArrayList<>();
+			try (PrefetchingMultiIterator<Integer, Integer> iter = newIterator(counter, delivery)) {
+				while (iter.hasNext()) items.add(iter.next());
+			}
+			// Every resource has been consumed, so none is still opening.
+			assertEquals(NUM_RESOURCES * NUM_ITEMS, items.size());
+			assertOrdering(items, delivery);
+			assertEquals(NUM_RESOURCES, counter.opened.get());
+			assertEquals(NUM_RESOURCES, counter.closed.get());
+			assertEquals(0, counter.closedTwice.get());
+		}
+		System.out.println("Tested prefetching exhaustion!");
+	}
+
+	@Test
+	public void testEarlyClose() throws InterruptedException {
+		System.out.println("Testing prefetching early closure...");
+		final Random random = new Random(42);
+		for (Delivery delivery : Delivery.values()) {
+			for (int trial = 0; trial < NUM_TRIALS; trial++) {
+				Counter counter = new Counter();
+				List<Integer> items = new ArrayList<>();
+				final int numItems = random.nextInt(NUM_RESOURCES * NUM_ITEMS);
+				ExecutorService executor = Executors.newFixedThreadPool(MAX_PREFETCH);
+				PrefetchingMultiIterator<Integer, Integer> iter = newIterator(counter, delivery, executor);
+				while (items.size() < numItems && iter.hasNext()) items.add(iter.next());
+				iter.close();
+				iter.close();
+				assertFalse(iter.hasNext());
+				assertEquals(numItems, items.size());
+				assertOrdering(items, delivery);
+				assertAllClosed(counter, executor);
+			}
+		}
+		System.out.println("Tested prefetching early closure!");
+	}
+
+	@Test
+	public void testDroppedIterator() throws InterruptedException {
+		System.out.println("Testing prefetching thread expiry...");
+		Counter counter = new Counter();
+		PrefetchingMultiIterator<Integer, Integer> iter = newIterator(counter, Delivery.ORDERED);
+		assertEquals(0, (int) iter.next());
+		assertTrue(numPrefetchThreads() > 0);
+		// Drop the iterator without closing it.
+		iter = null;
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (numPrefetchThreads() > 0 && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(0, numPrefetchThreads());
+		System.out.println("Tested prefetching thread expiry!");
+	}
+
+	private static int numPrefetchThreads() {
+		int numThreads = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet())
+			if (thread.isAlive() && "prefetch".equals(thread.getName())) numThreads++;
+		return numThreads;
+	}
+
+}
@@ -0,0 +1,7 @@
+/*
+ * (c) Geoff Jarrad, 2016.
+ */
+/**
+ * Unit tests for the iterators.
+ */
+package gaj.iterators.test;